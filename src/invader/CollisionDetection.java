@@ -0,0 +1,85 @@
+package invader;
+
+/**
+ * This class holds the geometry used to detect collisions between objects that move a long way in a single step.
+ *
+ * A projectile that moves further than the height of its target in one step can pass straight through it between two
+ * frames. Instead of only testing for overlap at the new position, the tests here sweep a box along its path for the step
+ * and report the time of impact as a fraction of the step, so that the earliest of several hits can be chosen.
+ *
+ * All methods are static and the class cannot be instantiated, like StatusDisplay.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public final class CollisionDetection {
+    public static final double NO_HIT = Double.POSITIVE_INFINITY;
+    public static final double STEP_START = 0;
+    public static final double STEP_END = 1;
+
+    // private constructor so that this class is not accidentally instantiated
+    private CollisionDetection() {
+        //not called
+    }
+
+    /**
+     * Find when a segment first touches an axis-aligned box
+     * @param x x position where the segment starts
+     * @param y y position where the segment starts
+     * @param dx how far the segment travels in the x direction
+     * @param dy how far the segment travels in the y direction
+     * @param minX left edge of the box
+     * @param minY top edge of the box
+     * @param maxX right edge of the box
+     * @param maxY bottom edge of the box
+     * @return the fraction of the segment (between 0 and 1) at which it first touches the box, or NO_HIT if it never does
+     */
+    public static double segmentVsBox(double x, double y, double dx, double dy,
+                                      double minX, double minY, double maxX, double maxY) {
+        double tEnter = STEP_START;
+        double tExit = STEP_END;
+        if (dx == 0) {
+            if (x < minX || x > maxX) return NO_HIT;
+        }
+        else {
+            double t1 = (minX - x) / dx;
+            double t2 = (maxX - x) / dx;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+            if (tEnter > tExit) return NO_HIT;
+        }
+        if (dy == 0) {
+            if (y < minY || y > maxY) return NO_HIT;
+        }
+        else {
+            double t1 = (minY - y) / dy;
+            double t2 = (maxY - y) / dy;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+            if (tEnter > tExit) return NO_HIT;
+        }
+        return tEnter;
+    }
+
+    /**
+     * Find when a moving box first touches a box that is standing still
+     * @param movingX x position of the moving box at the start of the step
+     * @param movingY y position of the moving box at the start of the step
+     * @param movingWidth width of the moving box
+     * @param movingHeight height of the moving box
+     * @param dx how far the moving box travels in the x direction during the step
+     * @param dy how far the moving box travels in the y direction during the step
+     * @param targetX x position of the box standing still
+     * @param targetY y position of the box standing still
+     * @param targetWidth width of the box standing still
+     * @param targetHeight height of the box standing still
+     * @return the fraction of the step (between 0 and 1) at which the boxes first touch, or NO_HIT if they never do
+     */
+    public static double sweptAabb(double movingX, double movingY, double movingWidth, double movingHeight, double dx, double dy,
+                                   double targetX, double targetY, double targetWidth, double targetHeight) {
+        // grow the target by the size of the moving box so that the moving box can be treated as a single point
+        return segmentVsBox(movingX, movingY, dx, dy, targetX - movingWidth, targetY - movingHeight,
+                targetX + targetWidth, targetY + targetHeight);
+    }
+}
@@ -0,0 +1,147 @@
+package invader;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class describes which pixels of a sprite are solid, so that collisions are only counted where two sprites actually
+ * overlap rather than anywhere their rectangles do.
+ *
+ * Each mask is built once from the alpha channel of an image, scaled to the size the image is drawn at (and rotated, for
+ * the burst fire lasers), and packed into 64 pixels per long. Masks are cached by image, size, and rotation, so every
+ * object drawn with the same sprite shares one mask, and checking two masks only ANDs the words where they overlap.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class CollisionMask {
+    public static final int ALPHA_THRESHOLD = 0x40;
+    private static final int BITS_PER_WORD = Long.SIZE;
+    private static final int ALPHA_SHIFT = 24;
+    private static final int ALPHA_BITS = 0xff;
+    private static final Map<String, CollisionMask> cache = new ConcurrentHashMap<>();
+
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] bits;
+
+    private CollisionMask(int width, int height) {
+        this.width = Math.max(width, 1);
+        this.height = Math.max(height, 1);
+        wordsPerRow = (this.width + BITS_PER_WORD - 1) / BITS_PER_WORD;
+        bits = new long[wordsPerRow * this.height];
+    }
+
+    /**
+     * Get the mask of a sprite as it is drawn on screen, building it the first time it is asked for
+     * @param imgName name of the image file, used to share the mask between objects
+     * @param image the image the mask is built from
+     * @param fitWidth the width the image is drawn at
+     * @param fitHeight the height the image is drawn at
+     * @param rotation the rotation (in degrees) the image is drawn at
+     * @return the collision mask for the sprite
+     */
+    public static CollisionMask get(String imgName, Image image, double fitWidth, double fitHeight, double rotation) {
+        String key = imgName + "@" + fitWidth + "x" + fitHeight + "r" + rotation;
+        return cache.computeIfAbsent(key, k -> build(image, fitWidth, fitHeight, rotation));
+    }
+
+    /**
+     * Check whether any solid pixel of this mask overlaps a solid pixel of another mask
+     * @param other the other mask
+     * @param offsetX x position of the other mask relative to this one, in pixels
+     * @param offsetY y position of the other mask relative to this one, in pixels
+     * @return whether the two masks overlap
+     */
+    public boolean overlaps(CollisionMask other, int offsetX, int offsetY) {
+        int rowStart = Math.max(0, offsetY);
+        int rowEnd = Math.min(height, offsetY + other.height);
+        int colStart = Math.max(0, offsetX);
+        int colEnd = Math.min(width, offsetX + other.width);
+        for (int row = rowStart; row < rowEnd; row++) {
+            for (int col = colStart; col < colEnd; col += BITS_PER_WORD) {
+                int bitsInRange = Math.min(BITS_PER_WORD, colEnd - col);
+                long rangeMask = bitsInRange == BITS_PER_WORD ? -1L : (1L << bitsInRange) - 1;
+                if ((bitsAt(row, col) & other.bitsAt(row - offsetY, col - offsetX) & rangeMask) != 0) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the width of the mask
+     * @return width of the mask in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the height of the mask
+     * @return height of the mask in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Check whether a single pixel of the mask is solid
+     * @param x x position of the pixel
+     * @param y y position of the pixel
+     * @return whether the pixel is solid
+     */
+    public boolean isSolid(int x, int y) {
+        return (bits[y * wordsPerRow + x / BITS_PER_WORD] & (1L << x)) != 0;
+    }
+
+    // the 64 pixels of a row starting at a given column, with pixels past the edge of the mask read as empty
+    private long bitsAt(int row, int startCol) {
+        int word = startCol / BITS_PER_WORD;
+        int shift = startCol % BITS_PER_WORD;
+        int rowOffset = row * wordsPerRow;
+        long result = bits[rowOffset + word] >>> shift;
+        if (shift != 0 && word + 1 < wordsPerRow) result |= bits[rowOffset + word + 1] << (BITS_PER_WORD - shift);
+        return result;
+    }
+
+    private void setSolid(int x, int y) {
+        bits[y * wordsPerRow + x / BITS_PER_WORD] |= 1L << x;
+    }
+
+    private static CollisionMask build(Image image, double fitWidth, double fitHeight, double rotation) {
+        double radians = Math.toRadians(rotation);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        // the mask covers the bounding box of the sprite once it has been rotated around its center
+        double boundsWidth = Math.abs(fitWidth * cos) + Math.abs(fitHeight * sin);
+        double boundsHeight = Math.abs(fitWidth * sin) + Math.abs(fitHeight * cos);
+        CollisionMask mask = new CollisionMask((int) Math.ceil(boundsWidth), (int) Math.ceil(boundsHeight));
+        PixelReader reader = image == null ? null : image.getPixelReader();
+        double scaleX = image == null ? 0 : image.getWidth() / fitWidth;
+        double scaleY = image == null ? 0 : image.getHeight() / fitHeight;
+        for (int y = 0; y < mask.height; y++) {
+            for (int x = 0; x < mask.width; x++) {
+                // undo the rotation to find which pixel of the unrotated sprite is drawn here
+                double fromCenterX = x + 0.5 - boundsWidth / 2;
+                double fromCenterY = y + 0.5 - boundsHeight / 2;
+                double spriteX = fromCenterX * cos + fromCenterY * sin + fitWidth / 2;
+                double spriteY = -fromCenterX * sin + fromCenterY * cos + fitHeight / 2;
+                if (spriteX < 0 || spriteY < 0 || spriteX >= fitWidth || spriteY >= fitHeight) continue;
+                // if the image could not be read, treat the whole sprite as solid so collisions still happen
+                if (reader == null || isOpaque(reader, (int) (spriteX * scaleX), (int) (spriteY * scaleY))) {
+                    mask.setSolid(x, y);
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static boolean isOpaque(PixelReader reader, int x, int y) {
+        return ((reader.getArgb(x, y) >>> ALPHA_SHIFT) & ALPHA_BITS) >= ALPHA_THRESHOLD;
+    }
+}
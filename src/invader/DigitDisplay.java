@@ -0,0 +1,135 @@
+package invader;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+/**
+ * This class shows a number with a fixed number of digits, such as the points in the status display, as a row of images
+ * rather than as text.
+ *
+ * Each digit from 0 to 9 is drawn into an image once, when the display is created, and every digit of the number is an
+ * image view in a slot of its own, as wide as the widest digit. Showing a new number only changes the image of each slot
+ * whose digit changed, so the number is never laid out as text again, and a number that goes up by a few points usually
+ * changes only its last one or two slots.
+ *
+ * The digits have to be drawn on the JavaFX application thread, like any other snapshot, so the display is created there.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class DigitDisplay extends Group {
+    public static final int BASE = 10;
+    // a slot that has not been given a digit yet
+    public static final int NO_DIGIT = -1;
+
+    private final Image[] glyphs = new Image[BASE];
+    private final ImageView[] slots;
+    private final int[] shownDigits;
+    private final double slotWidth;
+    private final double left;
+    private final int maxValue;
+
+    /**
+     * Create a display and draw its digits
+     * @param digits how many digits are shown
+     * @param font font the digits are drawn in
+     * @param color color the digits are drawn in
+     * @param centerX x position the digits are centered on
+     * @param top y position of the top of the digits
+     */
+    public DigitDisplay(int digits, Font font, Paint color, double centerX, double top) {
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        double widestGlyph = 0;
+        for (int digit = 0; digit < BASE; digit++) {
+            Text glyph = new Text(Integer.toString(digit));
+            glyph.setFont(font);
+            glyph.setFill(color);
+            glyphs[digit] = glyph.snapshot(parameters, null);
+            widestGlyph = Math.max(widestGlyph, glyphs[digit].getWidth());
+        }
+        slotWidth = widestGlyph;
+        left = centerX - digits * slotWidth / 2;
+        slots = new ImageView[digits];
+        shownDigits = new int[digits];
+        for (int slot = 0; slot < digits; slot++) {
+            slots[slot] = new ImageView();
+            slots[slot].setY(top);
+            shownDigits[slot] = NO_DIGIT;
+        }
+        getChildren().addAll(slots);
+        maxValue = (int) Math.min(Math.pow(BASE, digits) - 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get where the top of the second line of a text starts, so that a display can be put under a one line label as if
+     * the number were the label's second line
+     * @param label the label the display goes under
+     * @param font font of the label
+     * @return y position of the top of the line after the label's first
+     */
+    public static double getLineBelow(Text label, Font font) {
+        Text line = new Text(Integer.toString(0));
+        line.setFont(font);
+        Bounds bounds = line.getLayoutBounds();
+        return label.getY() + bounds.getMaxY();
+    }
+
+    /**
+     * Show a number, redrawing only the slots whose digit changed
+     * @param value the number to show; numbers below 0 or too long for the slots are shown as the closest number that fits
+     * @return how many slots were redrawn
+     */
+    public int show(int value) {
+        int remaining = Math.max(0, Math.min(value, maxValue));
+        int redrawn = 0;
+        for (int slot = slots.length - 1; slot >= 0; slot--) {
+            int digit = remaining % BASE;
+            remaining /= BASE;
+            if (digit == shownDigits[slot]) continue;
+            Image glyph = glyphs[digit];
+            slots[slot].setImage(glyph);
+            // a digit narrower than the widest one is centered in its slot
+            slots[slot].setX(left + slot * slotWidth + (slotWidth - glyph.getWidth()) / 2);
+            shownDigits[slot] = digit;
+            redrawn++;
+        }
+        return redrawn;
+    }
+
+    /**
+     * Get the number on display
+     * @return the number the slots show, or 0 if nothing has been shown
+     */
+    public int getShownValue() {
+        int value = 0;
+        for (int digit : shownDigits) value = value * BASE + Math.max(digit, 0);
+        return value;
+    }
+
+    /**
+     * Get the image each digit is drawn with
+     * @param digit a digit from 0 to 9
+     * @return the image of the digit
+     */
+    public Image getGlyph(int digit) {
+        return glyphs[digit];
+    }
+
+    /**
+     * Get the image view of one slot
+     * @param slot the slot, counting from the leftmost
+     * @return the slot's image view
+     */
+    public ImageView getSlot(int slot) {
+        return slots[slot];
+    }
+}
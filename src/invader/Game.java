@@ -1,26 +1,51 @@
 package invader;
 
+import invader.bot.Autopilot;
+import invader.bunker.Bunker;
+import invader.entity.Boss;
+import invader.entity.Enemy;
+import invader.entity.Spaceship;
+import invader.io.IoService;
+import invader.jfr.GameEvents;
+import invader.jfr.TickEvent;
 import invader.level.Level;
+import invader.metrics.GameMetrics;
+import invader.metrics.MetricsServer;
+import invader.powerup.PowerUpPool;
+import invader.powerup.PowerUpType;
+import invader.projectile.Fireball;
+import invader.projectile.Laser;
+import invader.projectile.Missile;
+import invader.spectator.SpectatorServer;
+import invader.sprite.ImageCache;
+import invader.sprite.SpriteAnimation;
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.input.KeyCode;
 import javafx.scene.media.Media;
+import javafx.scene.media.MediaException;
 import javafx.scene.media.MediaPlayer;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 
+import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * This is the main class that runs the entire game.
  *
- * It initializes all the basic scene, key, and music setup.
+ * It initializes all the basic scene, key, and music setup. The start menu is shown first, and the music and images are
+ * loaded behind it on a background thread; how long each phase of starting takes is printed (see StartupTimer).
  *
  * Runs the animation and calls the step function for each frame
  *
@@ -28,7 +53,7 @@ import java.net.URISyntaxException;
  * @author Jeff Kim
  */
 
-public class Game extends Application {
+public class Game extends Application implements GameContext {
     public static final String TITLE = "Space Invaders";
     public static final String GAME_MUSIC_FILE = "game_music.wav";
     public static final int GAME_WIDTH = 400;
@@ -40,6 +65,18 @@ public class Game extends Application {
     public static final Paint BACKGROUND = Color.BLACK;
     public static final int MIN_LEVEL = 1;
     public static final int MAX_LEVEL = 4;
+    public static final String SPECTATOR_PORT_PARAMETER = "spectatorPort";
+    public static final String AUTOPILOT_PARAMETER = "autopilot";
+    public static final String METRICS_PORT_PARAMETER = "metricsPort";
+    public static final String EXIT_AFTER_STARTUP_PARAMETER = "exitAfterStartup";
+    public static final String LOADER_THREAD_NAME = "startup-loader";
+    public static final String SCENE_PHASE = "scene";
+    public static final String STAGE_PHASE = "stage";
+    public static final String MUSIC_PHASE = "music";
+    public static final String IMAGES_PHASE = "images";
+    public static final String FIRST_LEVEL_PHASE = "hud and first level";
+    public static final String INTERACTIVE_MILESTONE = "interactive";
+    public static final String FIRST_LEVEL_MILESTONE = "first level";
 
     // some things we need to remember during our game
     private Scene myScene;
@@ -48,12 +85,18 @@ public class Game extends Application {
     private double gameTimer = 0;
     private Level curLevel;
     private Group root;
+    private final PowerUpPool powerUpPool = new PowerUpPool();
     private MediaPlayer backgroundMusicMediaPlayer;
     private boolean isMenuActive = true;
     private boolean isStartMenuActive = true;
     private boolean isGameOverMenuActive = false;
     private boolean isHighScoreTextFieldActive = false;
     private boolean isQuitGameMenuActive = false;
+    private SpectatorServer spectatorServer;
+    private MetricsServer metricsServer;
+    private Autopilot autopilot;
+    private final Consumer<KeyCode> autopilotKeys = this::handleKeyInput;
+    private final StartupTimer startupTimer = new StartupTimer();
 
     public Game() {
         super();
@@ -62,21 +105,52 @@ public class Game extends Application {
      * Initialize what will be displayed and how it will be updated.
      */
     @Override
-    public void start (Stage stage) throws URISyntaxException {
-        // add music. NOTE: due to issues with garbage collection, the following two methods could not be combined into one
-        backgroundMusicMediaPlayer = createMediaPlayer(GAME_MUSIC_FILE);
-        playMusic(MediaPlayer.INDEFINITE, true, backgroundMusicMediaPlayer);
+    public void start (Stage stage) throws IOException {
+        startupTimer.markLaunched();
         // attach scene to the stage and display it
+        long sceneBegin = StartupTimer.begin();
         myScene = setupScene(SCENE_WIDTH, SCENE_HEIGHT, BACKGROUND);
+        startupTimer.end(SCENE_PHASE, sceneBegin);
+        long stageBegin = StartupTimer.begin();
         stage.setScene(myScene);
         stage.setTitle(TITLE);
         stage.show();
+        startupTimer.end(STAGE_PHASE, stageBegin);
+        // the start menu takes input once start returns and the stage has been drawn
+        Platform.runLater(() -> startupTimer.report(INTERACTIVE_MILESTONE));
         // attach "game loop" to timeline to play it
         KeyFrame frame = new KeyFrame(Duration.seconds(SECOND_DELAY), e -> step());
         myAnimation = new Timeline();
         myAnimation.setCycleCount(Timeline.INDEFINITE);
         myAnimation.getKeyFrames().add(frame);
         myAnimation.play();
+        // start the first level and quit once everything is loaded only when asked to, with --exitAfterStartup=true,
+        // which the appcds profile in pom.xml does to record which classes the game loads
+        loadResourcesInBackground(Boolean.parseBoolean(getParameters().getNamed().get(EXIT_AFTER_STARTUP_PARAMETER)));
+        // read the level files on the I/O thread now, so no level waits for its file
+        for (int levelNumber = MIN_LEVEL; levelNumber <= MAX_LEVEL; levelNumber++) {
+            IoService.getDefault().readResource(Level.LEVEL_FILE_PATH + levelNumber + Level.LEVEL_FILE_EXTENSION);
+        }
+        // stream the game to spectators only when asked to, with --spectatorPort=<port>
+        String spectatorPort = getParameters().getNamed().get(SPECTATOR_PORT_PARAMETER);
+        if (spectatorPort != null) spectatorServer = new SpectatorServer(Integer.parseInt(spectatorPort));
+        // let the autopilot play, for soak tests, only when asked to, with --autopilot=<skill from 0 to 1>
+        String autopilotSkill = getParameters().getNamed().get(AUTOPILOT_PARAMETER);
+        if (autopilotSkill != null) autopilot = new Autopilot(Double.parseDouble(autopilotSkill), 0);
+        // serve metrics for a Prometheus scraper only when asked to, with --metricsPort=<port>
+        String metricsPort = getParameters().getNamed().get(METRICS_PORT_PARAMETER);
+        if (metricsPort != null) metricsServer = new MetricsServer(Integer.parseInt(metricsPort));
+    }
+
+    /**
+     * Stop streaming to spectators and serving metrics, and finish writing files, when the game is closed
+     */
+    @Override
+    public void stop() {
+        if (spectatorServer != null) spectatorServer.close();
+        if (metricsServer != null) metricsServer.close();
+        // the high scores and the error log may still be being written
+        IoService.getDefault().flush();
     }
 
     /**
@@ -101,6 +175,14 @@ public class Game extends Application {
         return myScene;
     }
 
+    /**
+     * Get the timer of the phases of starting the game
+     * @return the game's startup timer
+     */
+    public StartupTimer getStartupTimer() {
+        return startupTimer;
+    }
+
     /**
      * Get the root
      * @return root the Group to which nodes are added for the game
@@ -129,6 +211,7 @@ public class Game extends Application {
      * Get the game timer
      * @return gameTimer how long the game has run since its timer was reset
      */
+    @Override
     public double getGameTimer() {
         return gameTimer;
     }
@@ -145,6 +228,7 @@ public class Game extends Application {
      * Set the menu active status
      * @param isMenuActive whether the menu should be set active or inactive
      */
+    @Override
     public void setMenuActive(boolean isMenuActive) {
         this.isMenuActive = isMenuActive;
     }
@@ -169,10 +253,51 @@ public class Game extends Application {
      * Set the game over menu to active or inactive
      * @param isGameOverMenuActive whether the game over menu should be set active or inactive
      */
+    @Override
     public void setGameOverMenuActive(boolean isGameOverMenuActive) {
         this.isGameOverMenuActive = isGameOverMenuActive;
     }
 
+    @Override
+    public void updateLifeCountDisplay(int lives) {
+        StatusDisplay.updateLifeCountDisplay(lives);
+    }
+
+    @Override
+    public void updateLevelNumberDisplay(int levelNumber) {
+        StatusDisplay.updateLevelNumberDisplay(levelNumber);
+    }
+
+    @Override
+    public void updatePointsDisplay(int pointsEarned) {
+        StatusDisplay.updatePointsDisplay(pointsEarned);
+    }
+
+    @Override
+    public void createGameOverMenu() {
+        StatusDisplay.createGameOverMenu(root);
+    }
+
+    @Override
+    public void createVictoryMenu() {
+        StatusDisplay.createVictoryMenu(root);
+    }
+
+    @Override
+    public void createBossLevelMenu() {
+        StatusDisplay.createBossLevelMenu(root);
+    }
+
+    @Override
+    public void createLevelIntermissionMenu() {
+        StatusDisplay.createLevelIntermissionMenu(root);
+    }
+
+    @Override
+    public PowerUpPool getPowerUpPool() {
+        return powerUpPool;
+    }
+
     /**
      * Get whether the start menu status is active
      * @return whether the start menu is active or inactive
@@ -247,10 +372,18 @@ public class Game extends Application {
      * Change properties of shapes to animate them
      */
     void step() {
+        if (metricsServer != null) GameMetrics.startTick();
+        TickEvent tickEvent = GameEvents.beginTick();
+        if (autopilot != null) autopilot.play(curLevel, isMenuActive, autopilotKeys);
         if (!isMenuActive) {
             gameTimer += Game.SECOND_DELAY;
             curLevel.handleEntitiesAndLasers(gameTimer, Game.SECOND_DELAY);
+            SpriteAnimation.advanceAll(gameTimer);
+            if (spectatorServer != null) spectatorServer.publish(curLevel, StatusDisplay.getPoints());
         }
+        StatusDisplay.showChangedPoints();
+        GameEvents.endTick(tickEvent, curLevel == null ? 0 : curLevel.getLevelNumber(), isMenuActive);
+        if (metricsServer != null) GameMetrics.endTick(root, curLevel);
     }
 
     /**
@@ -261,6 +394,51 @@ public class Game extends Application {
         myKeyHandler.handleInput(code);
     }
 
+    // the music and images are loaded on a background thread while the start menu is up, rather than before it is shown,
+    // so that neither the start menu nor the first level waits for them
+    private void loadResourcesInBackground(boolean isExitingAfterStartup) {
+        Thread loader = new Thread(() -> {
+            long musicBegin = StartupTimer.begin();
+            try {
+                MediaPlayer mediaPlayer = createMediaPlayer(GAME_MUSIC_FILE);
+                startupTimer.end(MUSIC_PHASE, musicBegin);
+                // NOTE: due to issues with garbage collection, the following two methods could not be combined into one
+                Platform.runLater(() -> {
+                    backgroundMusicMediaPlayer = mediaPlayer;
+                    playMusic(MediaPlayer.INDEFINITE, true, backgroundMusicMediaPlayer);
+                });
+            }
+            catch (URISyntaxException | MediaException e) {
+                StatusDisplay.logError(e);
+            }
+            long imagesBegin = StartupTimer.begin();
+            ImageCache.preload(getPreloadedImages());
+            startupTimer.end(IMAGES_PHASE, imagesBegin);
+            if (isExitingAfterStartup) Platform.runLater(this::playThroughStartup);
+        }, LOADER_THREAD_NAME);
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    // every image of the game, those of the first level first
+    private static List<String> getPreloadedImages() {
+        List<String> imgNames = new ArrayList<>(List.of(Spaceship.SPACESHIP_IMG_NAME, Laser.SPACESHIP_LASER_IMG_NAME,
+                Laser.ENEMY_LASER_IMG_NAME, Missile.BOMB_IMG_NAME, Bunker.IMG_NAME, StatusDisplay.HEART_IMAGE));
+        for (int lives = 1; lives <= Enemy.MAX_LIVES; lives++) {
+            imgNames.add(Enemy.ENEMY_IMG_PREFIX + lives + Enemy.ENEMY_IMG_EXTENSION);
+        }
+        for (PowerUpType powerUpType : PowerUpType.values()) imgNames.add(powerUpType.getImgName());
+        imgNames.addAll(List.of(Boss.BOSS_IMG_NAME, Boss.BOSS_HIDING_IMG_NAME, Fireball.FIREBALL_IMG_NAME));
+        return imgNames;
+    }
+
+    // start the first level, play a second of it, and quit, so that every class a game loads has been loaded
+    private void playThroughStartup() {
+        handleKeyInput(KeyCode.SPACE);
+        for (int frame = 0; frame < FRAMES_PER_SECOND; frame++) step();
+        Platform.exit();
+    }
+
     // due to issues with garbage collection, the media player must be stored globally; here is a function to
     // create the media player, allowing us to to run playMusic().
     private MediaPlayer createMediaPlayer(String fileName) throws URISyntaxException {
@@ -0,0 +1,83 @@
+package invader;
+
+import invader.powerup.PowerUpPool;
+
+/**
+ * This interface describes what a level needs from the game that is running it: the game timer, the menu state, and the
+ * status display (lives, level number, points, and the menus shown when a level ends).
+ *
+ * Game implements it with the StatusDisplay, so the levels do not need to know whether they are shown on screen. The headless
+ * game sessions hosted by the server implement it with plain fields, so that many games can run in one JVM without sharing
+ * the static status display.
+ *
+ * Each game keeps its own pool of power ups, so a power up node is only ever reused in the root it was first shown in, and
+ * games stepped on different threads never share one.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public interface GameContext {
+
+    /**
+     * Get the game timer
+     * @return how long the game has run since its timer was reset
+     */
+    double getGameTimer();
+
+    /**
+     * Set the menu active status
+     * @param isMenuActive whether the menu should be set active or inactive
+     */
+    void setMenuActive(boolean isMenuActive);
+
+    /**
+     * Set the game over menu to active or inactive
+     * @param isGameOverMenuActive whether the game over menu should be set active or inactive
+     */
+    void setGameOverMenuActive(boolean isGameOverMenuActive);
+
+    /**
+     * Update the life count shown to the player
+     * @param lives number of lives the spaceship has
+     */
+    void updateLifeCountDisplay(int lives);
+
+    /**
+     * Update the level number shown to the player
+     * @param levelNumber the level number being played
+     */
+    void updateLevelNumberDisplay(int levelNumber);
+
+    /**
+     * Add points to the player's score
+     * @param pointsEarned the number of points to add
+     */
+    void updatePointsDisplay(int pointsEarned);
+
+    /**
+     * Show that the spaceship has run out of lives
+     */
+    void createGameOverMenu();
+
+    /**
+     * Show that the last level has been beaten
+     */
+    void createVictoryMenu();
+
+    /**
+     * Show that the level before the boss level has been beaten
+     */
+    void createBossLevelMenu();
+
+    /**
+     * Show that a level has been beaten and there is another to play
+     */
+    void createLevelIntermissionMenu();
+
+    /**
+     * Get the pool the levels of this game take power ups from and release them to
+     * @return this game's power up pool
+     */
+    PowerUpPool getPowerUpPool();
+}
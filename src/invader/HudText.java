@@ -0,0 +1,66 @@
+package invader;
+
+import javafx.scene.text.Text;
+
+import java.util.function.IntFunction;
+
+/**
+ * This class shows a number in a text of the status display, such as the lives or the level, and only changes the text when
+ * the number does.
+ *
+ * Setting a text's string has it laid out again, glyph by glyph, on the next pulse, and building the string allocates; both
+ * are skipped when the number shown is the one already on display, so the status display can be told the number every
+ * step without costing a frame anything.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class HudText {
+    private final Text text;
+    private final String label;
+    private final IntFunction<String> format;
+    private int shownValue;
+    private boolean isShowing = false;
+
+    /**
+     * Create a display for a number
+     * @param text the text the number is shown in
+     * @param label what is shown before the number
+     * @param format how the number is written
+     */
+    public HudText(Text text, String label, IntFunction<String> format) {
+        this.text = text;
+        this.label = label;
+        this.format = format;
+    }
+
+    /**
+     * Show a number, if it is not already shown
+     * @param value the number to show
+     * @return whether the text was changed
+     */
+    public boolean show(int value) {
+        if (isShowing && value == shownValue) return false;
+        text.setText(label + format.apply(value));
+        shownValue = value;
+        isShowing = true;
+        return true;
+    }
+
+    /**
+     * Get the number on display
+     * @return the last number shown
+     */
+    public int getShownValue() {
+        return shownValue;
+    }
+
+    /**
+     * Get the text the number is shown in
+     * @return the text node
+     */
+    public Text getText() {
+        return text;
+    }
+}
@@ -1,5 +1,8 @@
 package invader;
 
+import invader.io.IoService;
+import invader.jfr.GameEvents;
+import invader.jfr.LevelTransitionEvent;
 import invader.level.BossLevel;
 import invader.level.EnemyLevel;
 import invader.level.Level;
@@ -9,9 +12,12 @@ import javafx.application.Platform;
 import javafx.scene.Node;
 import javafx.scene.input.KeyCode;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -30,6 +36,10 @@ public class KeyHandler {
     public static final int KEY_CODE_TO_LEVEL_CONVERSION = 48;
     public static final List<KeyCode> KEY_CODES_1_THROUGH_9 = List.of(KeyCode.DIGIT1, KeyCode.DIGIT2, KeyCode.DIGIT3, KeyCode.DIGIT4,
             KeyCode.DIGIT5, KeyCode.DIGIT6, KeyCode.DIGIT7, KeyCode.DIGIT8, KeyCode.DIGIT9);
+    // keys that are handled as usual while a menu is showing, and keys that close the menu before they are handled
+    public static final Set<KeyCode> MENU_KEYS = Collections.unmodifiableSet(EnumSet.of(KeyCode.SPACE, KeyCode.ENTER, KeyCode.E,
+            KeyCode.Q, KeyCode.W));
+    public static final Set<KeyCode> MENU_CLOSING_KEYS = Collections.unmodifiableSet(EnumSet.of(KeyCode.R, KeyCode.S));
 
     private Map<KeyCode, Runnable> keyToActionMap = new HashMap<>();
     private Game myGame;
@@ -59,10 +69,10 @@ public class KeyHandler {
         if (myGame.isStartMenuActive() && code != KeyCode.SPACE) {
            return false;
         }
-        else if (List.of(KeyCode.SPACE, KeyCode.ENTER, KeyCode.E, KeyCode.Q, KeyCode.E, KeyCode.W).contains(code)) {
+        else if (MENU_KEYS.contains(code)) {
             return true;
         }
-        else if (isKeyCodeADigit(code) || List.of(KeyCode.R, KeyCode.S).contains(code)) {
+        else if (isKeyCodeADigit(code) || MENU_CLOSING_KEYS.contains(code)) {
             myGame.setMenuActive(false);
             StatusDisplay.removeMenu(myGame.getRoot());
             return true;
@@ -76,10 +86,12 @@ public class KeyHandler {
 
     private void goToLevel(int levelNumber) {
         Level curLevel = myGame.getCurLevel();
+        LevelTransitionEvent transitionEvent = GameEvents.beginLevelTransition(curLevel.getLevelNumber(), levelNumber);
         curLevel.clearLevel();
         myGame.setGameTimer(0);
         if (levelNumber == Game.MAX_LEVEL) myGame.setCurLevel(new BossLevel(myGame.getRoot(), levelNumber, myGame));
         else myGame.setCurLevel(new EnemyLevel(myGame.getRoot(), levelNumber, myGame));
+        transitionEvent.commit();
     }
 
     private boolean isKeyCodeADigit(KeyCode code) {
@@ -115,8 +127,11 @@ public class KeyHandler {
             myGame.setMenuActive(false);
             myGame.setStartMenuActive(false);
             StatusDisplay.removeMenu(myGame.getRoot());
+            long levelBegin = StartupTimer.begin();
             StatusDisplay.createInterfaceAndAddToRoot(myGame.getRoot(), Game.GAME_HEIGHT, Game.SCENE_WIDTH, Game.SCENE_HEIGHT);
             createFirstLevel();
+            myGame.getStartupTimer().end(Game.FIRST_LEVEL_PHASE, levelBegin);
+            myGame.getStartupTimer().finish(Game.FIRST_LEVEL_MILESTONE);
         }
         else {
             myGame.getCurLevel().attemptSpaceshipFire(myGame.getGameTimer());
@@ -176,6 +191,8 @@ public class KeyHandler {
     private void exitGame() {
         if (myGame.isQuitGameMenuActive()) {
             Platform.exit();
+            // System.exit does not wait for the high score to be written
+            IoService.getDefault().flush();
             System.exit(0);
         }
     }
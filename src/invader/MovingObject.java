@@ -1,5 +1,6 @@
 package invader;
 
+import invader.sprite.ImageCache;
 import javafx.scene.Node;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -22,7 +23,15 @@ public abstract class MovingObject extends ImageView {
 
     private double xSpeed;
     private double ySpeed;
+    private double lastStepX;
+    private double lastStepY;
     private Image image;
+    private String imgName;
+    private CollisionMask collisionMask;
+    private double collisionMaskWidth;
+    private double collisionMaskHeight;
+    private double collisionMaskRotation;
+    private Image collisionMaskImage;
 
     /**
      * Constructor for all moving objects
@@ -39,19 +48,31 @@ public abstract class MovingObject extends ImageView {
         this.setY(yPos);
         this.xSpeed = xSpeed;
         this.ySpeed = ySpeed;
+        changeImage(imgName, width, height);
+    }
+
+    /**
+     * Change the image of the moving object, along with the size it is drawn at
+     * @param imgName name of the new image file
+     * @param width width to draw the image at
+     * @param height height to draw the image at
+     */
+    public void changeImage(String imgName, double width, double height) {
+        this.imgName = imgName;
         this.image = makeImage(imgName);
         this.setImage(image);
         this.setFitWidth(width);
         this.setFitHeight(height);
+        buildCollisionMask();
     }
 
     /**
-     * Reads an image file from the resource folder
+     * Reads an image file from the resource folder; every object showing the same file shares one image
      * @param imgName name of the image file for this object
      * @return Image that corresponds to the image file
      */
     public Image makeImage (String imgName) {
-        return new Image(this.getClass().getClassLoader().getResource(imgName).toExternalForm());
+        return ImageCache.get(imgName);
     }
 
     /**
@@ -91,8 +112,57 @@ public abstract class MovingObject extends ImageView {
      * @param elapsedTime the time that is elapsed after a single step
      */
     public void updatePositionOnStep(double elapsedTime) {
-        this.setX(this.getX() + this.getXSpeed() * elapsedTime);
-        this.setY(this.getY() - this.getYSpeed() * elapsedTime);
+        lastStepX = this.getXSpeed() * elapsedTime;
+        lastStepY = -this.getYSpeed() * elapsedTime;
+        this.setX(this.getX() + lastStepX);
+        this.setY(this.getY() + lastStepY);
+        RenderPolicy.cull(this);
+    }
+
+    /**
+     * Get how far the moving object travelled in the x direction during its last step
+     * @return the x distance covered by the last call to updatePositionOnStep
+     */
+    public double getLastStepX() {
+        return lastStepX;
+    }
+
+    /**
+     * Get how far the moving object travelled in the y direction during its last step
+     * @return the y distance covered by the last call to updatePositionOnStep
+     */
+    public double getLastStepY() {
+        return lastStepY;
+    }
+
+    /**
+     * Save everything about the moving object that changes while the game is played
+     * @param state where the state is saved
+     */
+    public void saveState(StateBuffer state) {
+        state.put(getX());
+        state.put(getY());
+        state.put(xSpeed);
+        state.put(ySpeed);
+        state.put(lastStepX);
+        state.put(lastStepY);
+        state.put(getRotate());
+    }
+
+    /**
+     * Put the moving object back as it was when saveState was called, reading in the same order
+     * @param state where the state was saved
+     */
+    public void restoreState(StateBuffer state) {
+        setX(state.nextDouble());
+        setY(state.nextDouble());
+        xSpeed = state.nextDouble();
+        ySpeed = state.nextDouble();
+        lastStepX = state.nextDouble();
+        lastStepY = state.nextDouble();
+        setRotate(state.nextDouble());
+        buildCollisionMask();
+        RenderPolicy.cull(this);
     }
 
     /**
@@ -131,6 +201,97 @@ public abstract class MovingObject extends ImageView {
      * @return whether node (the parameter) is colliding with this object
      */
     public boolean intersects(Node node) {
-        return this.getBoundsInParent().intersects(node.getBoundsInLocal());
+        if (!(node instanceof MovingObject)) return this.getBoundsInParent().intersects(node.getBoundsInLocal());
+        MovingObject other = (MovingObject) node;
+        double thisX = getDrawnMinX();
+        double thisY = getDrawnMinY();
+        // the other object's unrotated rectangle, which is what its bounds in local are
+        if (thisX > other.getX() + other.getFitWidth() || thisX + getDrawnWidth() < other.getX()
+                || thisY > other.getY() + other.getFitHeight() || thisY + getDrawnHeight() < other.getY()) return false;
+        if (!this.isPixelAccurate() && !other.isPixelAccurate()) return true;
+        return masksOverlap(other, other.getDrawnMinX(), other.getDrawnMinY(), thisX, thisY);
+    }
+
+    /**
+     * Get the left edge of the moving object as it is drawn, rotation included; this is the same as the minimum x of its
+     * bounds in parent, but does not create a Bounds object, since the node's bounds are created again each time it moves
+     * @return x position of the left edge of the drawn object
+     */
+    public double getDrawnMinX() {
+        return getX() + (getFitWidth() - getDrawnWidth()) / 2;
+    }
+
+    /**
+     * Get the top edge of the moving object as it is drawn, rotation included, like getDrawnMinX
+     * @return y position of the top edge of the drawn object
+     */
+    public double getDrawnMinY() {
+        return getY() + (getFitHeight() - getDrawnHeight()) / 2;
+    }
+
+    /**
+     * Get the width of the moving object as it is drawn, which is wider than its image once it has been rotated
+     * @return width of the drawn object
+     */
+    public double getDrawnWidth() {
+        if (getRotate() == 0) return getFitWidth();
+        double radians = Math.toRadians(getRotate());
+        return Math.abs(getFitWidth() * Math.cos(radians)) + Math.abs(getFitHeight() * Math.sin(radians));
+    }
+
+    /**
+     * Get the height of the moving object as it is drawn, which is taller than its image once it has been rotated
+     * @return height of the drawn object
+     */
+    public double getDrawnHeight() {
+        if (getRotate() == 0) return getFitHeight();
+        double radians = Math.toRadians(getRotate());
+        return Math.abs(getFitWidth() * Math.sin(radians)) + Math.abs(getFitHeight() * Math.cos(radians));
+    }
+
+    /**
+     * Check whether collisions with this object should be decided by the solid pixels of its sprite rather than by its
+     * rectangle; this is used for sprites whose rectangle is a poor fit for what is drawn
+     * @return whether collisions with this object are pixel accurate
+     */
+    public boolean isPixelAccurate() {
+        return false;
+    }
+
+    /**
+     * Build the collision mask of the sprite as it is currently drawn, unless the one it has still fits; this is called on the
+     * game thread whenever the image, size, or rotation of the object changes, so that collision checks, which may be split
+     * across cores, only ever read masks
+     */
+    public void buildCollisionMask() {
+        if (collisionMask != null && collisionMaskWidth == getFitWidth() && collisionMaskHeight == getFitHeight()
+                && collisionMaskRotation == getRotate() && collisionMaskImage == image) return;
+        collisionMaskWidth = getFitWidth();
+        collisionMaskHeight = getFitHeight();
+        collisionMaskRotation = getRotate();
+        collisionMaskImage = image;
+        collisionMask = CollisionMask.get(imgName, image, collisionMaskWidth, collisionMaskHeight, collisionMaskRotation);
+    }
+
+    /**
+     * Get the collision mask of the sprite, as it was when buildCollisionMask was last called
+     * @return the collision mask for the current image, size, and rotation
+     */
+    public CollisionMask getCollisionMask() {
+        return collisionMask;
+    }
+
+    /**
+     * Check whether the solid pixels of this object and another object overlap, with both placed at the given positions
+     * @param other the other moving object
+     * @param otherX x position of the other object's bounds
+     * @param otherY y position of the other object's bounds
+     * @param thisX x position of this object's bounds
+     * @param thisY y position of this object's bounds
+     * @return whether the solid pixels of the two objects overlap
+     */
+    public boolean masksOverlap(MovingObject other, double otherX, double otherY, double thisX, double thisY) {
+        return getCollisionMask().overlaps(other.getCollisionMask(), (int) Math.round(otherX - thisX),
+                (int) Math.round(otherY - thisY));
     }
 }
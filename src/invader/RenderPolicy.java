@@ -0,0 +1,70 @@
+package invader;
+
+import javafx.scene.CacheHint;
+import javafx.scene.Node;
+
+/**
+ * This class decides how the game's nodes are drawn, so that each pulse only draws what has changed and can be seen.
+ *
+ * Nodes that stay the same for many frames, such as the background of the status display and the menus, are cached as
+ * bitmaps, which the renderer draws again as they are rather than painting their shapes, images and glyphs every pulse;
+ * the SPEED hint lets the renderer reuse the bitmap even if the node is moved. A node whose contents change is drawn into
+ * its bitmap again, so only nodes that change far less often than once a frame should be cached.
+ *
+ * A moving object that is entirely outside the playfield is made invisible, so the renderer skips it instead of drawing it
+ * where it can not be seen, and visible again once any part of it comes back. Visibility is only set when it changes, so
+ * culling a node that stays on screen does nothing.
+ *
+ * All methods are static, like those of StatusDisplay, since the policy is the same for every node in the game.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public final class RenderPolicy {
+    public static final CacheHint STATIC_CACHE_HINT = CacheHint.SPEED;
+    public static final double PLAYFIELD_MIN_X = 0;
+    public static final double PLAYFIELD_MIN_Y = 0;
+    public static final double PLAYFIELD_MAX_X = Game.GAME_WIDTH;
+    public static final double PLAYFIELD_MAX_Y = Game.GAME_HEIGHT;
+
+    // private constructor so that this class is not accidentally instantiated
+    private RenderPolicy() {
+        //not called
+    }
+
+    /**
+     * Have nodes that rarely change drawn from a cached bitmap
+     * @param nodes the nodes to cache
+     */
+    public static void cacheAsBitmap(Node... nodes) {
+        for (Node node : nodes) {
+            node.setCache(true);
+            node.setCacheHint(STATIC_CACHE_HINT);
+        }
+    }
+
+    /**
+     * Get if any part of a rectangle is inside the playfield
+     * @param minX x position of the left edge of the rectangle
+     * @param minY y position of the top edge of the rectangle
+     * @param width width of the rectangle
+     * @param height height of the rectangle
+     * @return whether the rectangle overlaps the playfield
+     */
+    public static boolean isInPlayfield(double minX, double minY, double width, double height) {
+        return minX + width > PLAYFIELD_MIN_X && minX < PLAYFIELD_MAX_X
+                && minY + height > PLAYFIELD_MIN_Y && minY < PLAYFIELD_MAX_Y;
+    }
+
+    /**
+     * Show a moving object only while it can be seen in the playfield
+     * @param movingObject the moving object to cull, where it is drawn now
+     */
+    public static void cull(MovingObject movingObject) {
+        boolean isInPlayfield = isInPlayfield(movingObject.getDrawnMinX(), movingObject.getDrawnMinY(),
+                movingObject.getDrawnWidth(), movingObject.getDrawnHeight());
+        // isVisible does not create the node's visible property, which setVisible would do the first time it is called
+        if (movingObject.isVisible() != isInPlayfield) movingObject.setVisible(isInPlayfield);
+    }
+}
@@ -0,0 +1,101 @@
+package invader;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class times the phases of starting the game, such as building the scene or loading the music, and prints a line
+ * for each milestone, such as the start menu taking input, with how long after the JVM was launched it was reached and how
+ * long each phase since the last milestone took.
+ *
+ * The time before the game starts, which is mostly the JVM and JavaFX loading and verifying classes, is the first phase;
+ * it is the one a class data sharing archive shortens (see the appcds profile in pom.xml). Phases may be timed on any
+ * thread, so the music and images that are loaded in the background show up in whichever milestone they finish before.
+ * Once the game has finished starting, nothing more is timed.
+ *
+ * A line looks like: startup: interactive at 812.4 ms (launch 402.1 ms, scene 95.0 ms, stage 240.7 ms)
+ *
+ * The game keeps one timer (see Game.getStartupTimer), started when the game is.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public final class StartupTimer {
+    public static final String REPORT_PREFIX = "startup: ";
+    public static final String LAUNCH_PHASE = "launch";
+    public static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // when this class was loaded, in both clocks, so the launch can be timed from when the process started
+    private static final long LOADED_NANOS = System.nanoTime();
+    private static final Instant LOADED_INSTANT = Instant.now();
+    private final List<String> phases = new ArrayList<>();
+    private boolean isFinished = false;
+
+    /**
+     * Time how long the process took to start the game, up to now, as the first phase
+     */
+    public void markLaunched() {
+        end(LAUNCH_PHASE, System.nanoTime() - getSinceLaunchNanos());
+    }
+
+    /**
+     * Start timing a phase
+     * @return when the phase began, to be passed to end
+     */
+    public static long begin() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Finish timing a phase
+     * @param phase name of the phase
+     * @param beginNanos when the phase began, from begin
+     */
+    public synchronized void end(String phase, long beginNanos) {
+        if (isFinished) return;
+        phases.add(String.format("%s %.1f ms", phase, (System.nanoTime() - beginNanos) / NANOS_PER_MILLI));
+    }
+
+    /**
+     * Print how long the game took to reach a milestone, and each phase timed since the last milestone
+     * @param milestone what the game has reached
+     * @return the line printed, or null if the game has already finished starting
+     */
+    public synchronized String report(String milestone) {
+        if (isFinished) return null;
+        String line = String.format("%s%s at %.1f ms (%s)", REPORT_PREFIX, milestone, getSinceLaunchNanos() / NANOS_PER_MILLI,
+                String.join(", ", phases));
+        phases.clear();
+        System.out.println(line);
+        return line;
+    }
+
+    /**
+     * Print the last milestone of starting the game, after which nothing more is timed
+     * @param milestone what the game has reached
+     * @return the line printed, or null if the game has already finished starting
+     */
+    public synchronized String finish(String milestone) {
+        String line = report(milestone);
+        isFinished = true;
+        return line;
+    }
+
+    /**
+     * Get if the game has finished starting
+     * @return whether the last milestone has been reported
+     */
+    public synchronized boolean isFinished() {
+        return isFinished;
+    }
+
+    // the process's start time may not be known, in which case the launch is timed from when this class was loaded
+    private static long getSinceLaunchNanos() {
+        Instant launched = ProcessHandle.current().info().startInstant().orElse(LOADED_INSTANT);
+        return Duration.between(launched, LOADED_INSTANT).toNanos() + System.nanoTime() - LOADED_NANOS;
+    }
+}
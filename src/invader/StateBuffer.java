@@ -0,0 +1,130 @@
+package invader;
+
+import java.util.Arrays;
+
+/**
+ * This class holds a saved copy of the state of a level, so that the level can be put back exactly as it was.
+ *
+ * Values are written one after another and read back in the same order, so each object only has to save and restore its
+ * own fields, in the same order, and nothing needs to be named. Numbers are stored as the bits of a long, so doubles come
+ * back exactly, and references to the nodes of the level are stored alongside them. The arrays grow to fit the largest state
+ * saved and are then reused, so saving a state every step does not create garbage.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class StateBuffer {
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_REFERENCE_CAPACITY = 256;
+
+    private long[] values = new long[DEFAULT_CAPACITY];
+    private Object[] references = new Object[DEFAULT_REFERENCE_CAPACITY];
+    private int valueCount;
+    private int referenceCount;
+    private int valuePosition;
+    private int referencePosition;
+
+    /**
+     * Forget everything saved, before a new state is saved
+     */
+    public void clear() {
+        // drop the references so that nodes removed from the level can be garbage collected
+        Arrays.fill(references, 0, referenceCount, null);
+        valueCount = 0;
+        referenceCount = 0;
+        rewind();
+    }
+
+    /**
+     * Go back to the start of the saved state, before it is restored
+     */
+    public void rewind() {
+        valuePosition = 0;
+        referencePosition = 0;
+    }
+
+    /**
+     * Check whether a state has been saved
+     * @return whether anything has been saved since the last clear
+     */
+    public boolean isEmpty() {
+        return valueCount == 0 && referenceCount == 0;
+    }
+
+    /**
+     * Save a whole number
+     * @param value the number
+     */
+    public void put(long value) {
+        if (valueCount == values.length) values = Arrays.copyOf(values, values.length * 2);
+        values[valueCount++] = value;
+    }
+
+    /**
+     * Save a decimal number, exactly
+     * @param value the number
+     */
+    public void put(double value) {
+        put(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Save a true or false value
+     * @param value the value
+     */
+    public void put(boolean value) {
+        put(value ? 1L : 0L);
+    }
+
+    /**
+     * Save a reference to an object, such as a node of the level
+     * @param reference the object
+     */
+    public void putReference(Object reference) {
+        if (referenceCount == references.length) references = Arrays.copyOf(references, references.length * 2);
+        references[referenceCount++] = reference;
+    }
+
+    /**
+     * Read the next saved whole number
+     * @return the number
+     */
+    public long nextLong() {
+        return values[valuePosition++];
+    }
+
+    /**
+     * Read the next saved whole number that was saved from an int
+     * @return the number
+     */
+    public int nextInt() {
+        return (int) nextLong();
+    }
+
+    /**
+     * Read the next saved decimal number
+     * @return the number
+     */
+    public double nextDouble() {
+        return Double.longBitsToDouble(nextLong());
+    }
+
+    /**
+     * Read the next saved true or false value
+     * @return the value
+     */
+    public boolean nextBoolean() {
+        return nextLong() != 0;
+    }
+
+    /**
+     * Read the next saved reference
+     * @param <T> the type the object was saved as
+     * @return the object
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T nextReference() {
+        return (T) references[referencePosition++];
+    }
+}
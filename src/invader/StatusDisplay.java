@@ -1,6 +1,14 @@
 package invader;
 
 import invader.entity.Spaceship;
+import invader.io.IoService;
+import invader.jfr.GameEvents;
+import invader.jfr.HighScoreWriteEvent;
+import invader.metrics.GameMetrics;
+import invader.scene.NodeScope;
+import invader.scene.SceneRegistry;
+import invader.scene.ScopeKind;
+import invader.sprite.ImageCache;
 import javafx.scene.Group;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
@@ -14,6 +22,7 @@ import javafx.scene.text.TextAlignment;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -75,11 +84,15 @@ public final class StatusDisplay {
     public static final int BOSS_MENU_Y_POS = 225;
     public static final int HIGHSCORE_TEXT_FIELD_WIDTH = 150;
     public static final String DEFAULT_HIGHSCORE_TEXT_FIELD_TEXT = "Name";
-    public static final String POINTS_FORMAT = "%06d";
+    public static final int POINTS_DIGITS = 6;
+    public static final String POINTS_PADDING = "0".repeat(POINTS_DIGITS);
     public static final String HIGHSCORES_FILE_PATH = "/highscores.txt";
     public static final int NUM_HIGHSCORES_STORED = 100;
     public static final int NUM_HIGHSCORES_DISPLAYED = 5;
     public static final String SCORE_DELIMITER = ":";
+    public static final String HUD_SCOPE_NAME = "status display";
+    public static final String MENU_SCOPE_NAME = "menu";
+    public static final String HIGHSCORE_ENTRY_SCOPE_NAME = "high score entry";
 
     private static String highscoresFile;
     private static Rectangle menuBackground;
@@ -87,11 +100,15 @@ public final class StatusDisplay {
     private static ImageView heartImageDisplay;
     private static TextField highScoreTextField;
     private static Text menuText;
-    private static Text lifeCountText;
-    private static Text levelNumberDisplay;
-    private static Text pointsDisplay;
-    private static Text highScoreDisplay;
+    private static HudText lifeCountDisplay;
+    private static HudText levelNumberDisplay;
+    private static Text pointsLabel;
+    private static DigitDisplay pointsDisplay;
+    private static boolean isPointsChanged = false;
+    private static HudText highScoreDisplay;
     private static int points;
+    // completes once the high score file has been read in
+    private static CompletableFuture<Void> highscoresRead = CompletableFuture.completedFuture(null);
     private static Set<String> highscores = new TreeSet<>(Comparator
             .comparing((String entry) -> Integer.parseInt(entry.split(SCORE_DELIMITER)[1]))
             .reversed()
@@ -103,20 +120,17 @@ public final class StatusDisplay {
     }
 
     /**
-     * Logs the error if it ever happens
+     * Logs the error if it ever happens; the log is written on the I/O thread, so this can be called from any thread
      * @param e: Exception Error
      */
-    public static void logError(Exception e) {
-        try {
-            FileWriter fStream = new FileWriter(ERROR_LOG, true);
-            BufferedWriter out = new BufferedWriter(fStream);
-            PrintWriter pw = new PrintWriter(out, true);
-            e.printStackTrace(pw);
-            fStream.close();
-        }
-        catch (Exception ie) {
-            throw new RuntimeException("Could not write Exception to file", ie);
-        }
+    public static void logError(Throwable e) {
+        StringWriter trace = new StringWriter();
+        e.printStackTrace(new PrintWriter(trace, true));
+        IoService.getDefault().append(ERROR_LOG, trace.toString()).exceptionally(ie -> {
+            // the error can not be logged to the file, so it is at least shown
+            e.printStackTrace();
+            return null;
+        });
     }
 
     /**
@@ -127,18 +141,25 @@ public final class StatusDisplay {
      * @param scene_height height of the scene
      */
     public static void createInterfaceAndAddToRoot(Group root, int game_height, int scene_width, int scene_height) {
-        createInterfaceBackground(root, game_height, scene_width, scene_height);
-        heartImageDisplay = createImageDisplay(root, HEART_IMAGE_X_POS, game_height +
+        // the display of the last game played in this root, if there was one, is removed along with its scope
+        NodeScope hud = SceneRegistry.of(root).openScope(ScopeKind.HUD, HUD_SCOPE_NAME);
+        createInterfaceBackground(hud, game_height, scene_width, scene_height);
+        heartImageDisplay = createImageDisplay(hud, HEART_IMAGE_X_POS, game_height +
                 HEART_IMAGE_Y_DIST_FROM_GAME_HEIGHT, HEART_IMAGE, HEART_IMAGE_SCALE_DOWN_FACTOR);
-        lifeCountText = createTextDisplayAndAddToRoot(root, CHARACTER_BETWEEN_HEART_AND_LIVES + Spaceship.DEFAULT_LIVES, heartImageDisplay.getX() +
-                LIFE_COUNT_X_DIST_FROM_HEART, game_height + LIFE_COUNT_Y_DIST_FROM_GAME_HEIGHT, TEXT_COLOR);
-        levelNumberDisplay = createTextDisplayAndAddToRoot(root, LEVEL_TEXT + Game.MIN_LEVEL, LEVEL_NUM_X_POS,
-                game_height + LEVEL_NUM_Y_DIST_FROM_GAME_HEIGHT, TEXT_COLOR);
-        pointsDisplay = createTextDisplayAndAddToRoot(root, POINTS_TEXT + formatPoints(points), scene_width/2 +
-                POINTS_X_DIST_FROM_SCENE_CENTER, game_height + POINTS_Y_DIST_FROM_GAME_HEIGHT, TEXT_COLOR);
+        lifeCountDisplay = new HudText(createTextDisplayAndAddToRoot(hud, "", heartImageDisplay.getX() +
+                LIFE_COUNT_X_DIST_FROM_HEART, game_height + LIFE_COUNT_Y_DIST_FROM_GAME_HEIGHT, TEXT_COLOR),
+                CHARACTER_BETWEEN_HEART_AND_LIVES, Integer::toString);
+        lifeCountDisplay.show(Spaceship.DEFAULT_LIVES);
+        levelNumberDisplay = new HudText(createTextDisplayAndAddToRoot(hud, "", LEVEL_NUM_X_POS,
+                game_height + LEVEL_NUM_Y_DIST_FROM_GAME_HEIGHT, TEXT_COLOR), LEVEL_TEXT, Integer::toString);
+        levelNumberDisplay.show(Game.MIN_LEVEL);
+        addPointsDisplay(hud, game_height, scene_width);
         points = 0;
-        addHighScoreDisplay(root, game_height, scene_width);
-        highscores.addAll(readInHighScores());
+        addHighScoreDisplay(hud, game_height, scene_width);
+        readInHighScores();
+        // the points are drawn from images of their digits, so the rest of the status display is drawn from a bitmap
+        RenderPolicy.cacheAsBitmap(userInterfaceArea, heartImageDisplay, lifeCountDisplay.getText(),
+                levelNumberDisplay.getText(), pointsLabel, highScoreDisplay.getText());
     }
 
     /**
@@ -146,7 +167,7 @@ public final class StatusDisplay {
      * @param lives number of lives to display on screen
      */
     public static void updateLifeCountDisplay(int lives) {
-        lifeCountText.setText(CHARACTER_BETWEEN_HEART_AND_LIVES + lives);
+        lifeCountDisplay.show(lives);
     }
 
     /**
@@ -154,7 +175,7 @@ public final class StatusDisplay {
      * @param levelNumber level number to display
      */
     public static void updateLevelNumberDisplay(int levelNumber) {
-        levelNumberDisplay.setText(LEVEL_TEXT + levelNumber);
+        levelNumberDisplay.show(levelNumber);
     }
 
     /**
@@ -183,8 +204,7 @@ public final class StatusDisplay {
      * @param root the Group to which nodes are added for the game
      */
     public static void removeMenu(Group root) {
-        root.getChildren().remove(menuBackground);
-        root.getChildren().remove(menuText);
+        SceneRegistry.of(root).disposeScope(ScopeKind.MENU);
     }
 
     /**
@@ -243,7 +263,8 @@ public final class StatusDisplay {
         highScoreTextField.setLayoutY(Game.GAME_HEIGHT/2);
 
         highScoreTextField.setPromptText(DEFAULT_HIGHSCORE_TEXT_FIELD_TEXT);
-        root.getChildren().add(highScoreTextField);
+        // the text field takes the place of the menu, so it is removed with the menu if the menu is closed
+        SceneRegistry.of(root).openScope(ScopeKind.MENU, HIGHSCORE_ENTRY_SCOPE_NAME).add(highScoreTextField);
     }
 
     /**
@@ -253,35 +274,53 @@ public final class StatusDisplay {
     public static void storeHighScore(Group root) {
         String name = highScoreTextField.getText();
         name = String.join("", name.split(SCORE_DELIMITER));
-        root.getChildren().remove(highScoreTextField);
+        SceneRegistry.of(root).disposeScope(ScopeKind.MENU);
         highscores.add(name + SCORE_DELIMITER + points);
-        updateHighScoreList(highscores);
+        // written only once the high scores already in the file have been read in, so that none of them are lost
+        highscoresRead.thenRunAsync(() -> updateHighScoreList(highscores), IoService.FX_THREAD);
     }
 
     /**
-     * Update the points on the display
+     * Add to the points, which are shown on the display at the end of the step by showChangedPoints
      * @param pointsEarned the number of points to be added to the points on display
      */
     public static void updatePointsDisplay(int pointsEarned) {
+        // hits that earn nothing, such as those on the spaceship, leave the display as it is
+        if (pointsEarned == 0) return;
         points += pointsEarned;
-        pointsDisplay.setText(POINTS_TEXT + formatPoints(points));
+        isPointsChanged = true;
+    }
+
+    /**
+     * Show the points on the display if they changed during the step, so that a step with many hits (from missiles or
+     * burst fire, say) changes the display once; called at the end of every step
+     */
+    public static void showChangedPoints() {
+        if (isPointsChanged) showPoints();
     }
 
     /**
-     * Update the high score on the display
+     * Get the total points scored
+     * @return the points on display
+     */
+    public static int getPoints() {
+        return points;
+    }
+
+    /**
+     * Get the display the points are shown in
+     * @return the points display
+     */
+    public static DigitDisplay getPointsDisplay() {
+        return pointsDisplay;
+    }
+
+    /**
+     * Update the high score on the display, from the high scores read in and stored rather than from the file
      */
     public static void updateHighScoreDisplay() {
-        File file = new File(highscoresFile);
-        try {
-            Scanner myReader = new Scanner(file);
-            if (myReader.hasNextLine()) {
-                int highScore = Integer.parseInt(myReader.nextLine().split(SCORE_DELIMITER)[1]);
-                highScoreDisplay.setText(HIGHSCORE_TEXT + formatPoints(highScore));
-            }
-            myReader.close();
-        } catch (FileNotFoundException e) {
-            logError(e);
-        }
+        if (highscores.isEmpty()) return;
+        highScoreDisplay.show(Integer.parseInt(highscores.iterator().next().split(SCORE_DELIMITER)[1]));
     }
 
     /**
@@ -289,7 +328,7 @@ public final class StatusDisplay {
      */
     public static void resetPointsDisplay() {
         points = 0;
-        updatePointsDisplay(0);
+        showPoints();
     }
 
     /**
@@ -300,21 +339,21 @@ public final class StatusDisplay {
         return menuBackground;
     }
 
-    private static void createInterfaceBackground(Group root, int game_height, int scene_width, int scene_height) {
+    private static void createInterfaceBackground(NodeScope hud, int game_height, int scene_width, int scene_height) {
         int heightOfInterface = scene_height - game_height;
         userInterfaceArea = new Rectangle(0, game_height, scene_width, heightOfInterface);
         userInterfaceArea.setFill(INTERFACE_BACKGROUND);
-        root.getChildren().add(userInterfaceArea);
+        hud.add(userInterfaceArea);
     }
 
-    private static ImageView createImageDisplay(Group root, double xPos, double yPos, String imgName, double imgScaleDownFactor) {
-        Image img = new Image(StatusDisplay.class.getClassLoader().getResource(imgName).toExternalForm());
+    private static ImageView createImageDisplay(NodeScope hud, double xPos, double yPos, String imgName, double imgScaleDownFactor) {
+        Image img = ImageCache.get(imgName);
         ImageView display = new ImageView(img);
         display.setX(xPos);
         display.setY(yPos);
         display.setFitHeight(img.getHeight()/imgScaleDownFactor);
         display.setFitWidth(img.getWidth()/imgScaleDownFactor);
-        root.getChildren().add(display);
+        hud.add(display);
         return display;
     }
 
@@ -322,9 +361,9 @@ public final class StatusDisplay {
         return YOUR_SCORE_TEXT + points + "\n\n";
     }
 
-    private static Text createTextDisplayAndAddToRoot(Group root, String text, double xPos, double yPos, Paint color) {
+    private static Text createTextDisplayAndAddToRoot(NodeScope hud, String text, double xPos, double yPos, Paint color) {
         Text tempDisplay = createTextDisplay(text, xPos, yPos, color);
-        root.getChildren().add(tempDisplay);
+        hud.add(tempDisplay);
         return tempDisplay;
     }
 
@@ -338,31 +377,58 @@ public final class StatusDisplay {
         return tempDisplay;
     }
 
+    private static void showPoints() {
+        pointsDisplay.show(points);
+        isPointsChanged = false;
+    }
+
+    private static void addPointsDisplay(NodeScope hud, double game_height, double scene_width) {
+        pointsLabel = createTextDisplayAndAddToRoot(hud, POINTS_TEXT, scene_width/2 + POINTS_X_DIST_FROM_SCENE_CENTER,
+                game_height + POINTS_Y_DIST_FROM_GAME_HEIGHT, TEXT_COLOR);
+        // the digits go where the second line of the label would be, centered under it
+        Font font = Font.font(FONT, DEFAULT_TEXT_SIZE);
+        pointsDisplay = new DigitDisplay(POINTS_DIGITS, font, TEXT_COLOR,
+                pointsLabel.getX() + pointsLabel.getLayoutBounds().getWidth() / 2, DigitDisplay.getLineBelow(pointsLabel, font));
+        hud.add(pointsDisplay);
+        showPoints();
+    }
+
+    // padded by hand, since String.format creates a Formatter and more every time the points change
     private static String formatPoints(int points) {
-        return String.format(POINTS_FORMAT, points);
+        String digits = Integer.toString(points);
+        return digits.length() >= POINTS_DIGITS ? digits : POINTS_PADDING.substring(digits.length()) + digits;
     }
 
+    // the menu's nodes are kept from one menu to the next, so a menu whose text is the same as the last one's is not laid
+    // out again, and both are drawn from a bitmap while the menu is showing
     private static void createMenu(Group root, double xPos, double yPos, String text) {
-        menuBackground = new Rectangle(0, 0, Game.SCENE_WIDTH, Game.SCENE_HEIGHT);
-        menuBackground.setFill(MENU_BACKGROUND);
-        root.getChildren().add(menuBackground);
-        menuText = createTextDisplayAndAddToRoot(root, text, xPos, yPos, Color.MAROON);
-        menuText.setTextAlignment(TextAlignment.CENTER);
-    }
-
-    private static List<String> readInHighScores() {
-        List<String> highscores = new ArrayList<>();
-        try {
-            File file = new File(highscoresFile);
-            Scanner myReader = new Scanner(file);
-            while (myReader.hasNextLine()) {
-                highscores.add(myReader.nextLine());
-            }
-            myReader.close();
-        } catch (FileNotFoundException e) {
-            logError(e);
+        if (menuBackground == null) {
+            menuBackground = new Rectangle(0, 0, Game.SCENE_WIDTH, Game.SCENE_HEIGHT);
+            menuBackground.setFill(MENU_BACKGROUND);
+            menuText = createTextDisplay(text, xPos, yPos, Color.MAROON);
+            RenderPolicy.cacheAsBitmap(menuBackground, menuText);
         }
-        return highscores;
+        menuText.setText(text);
+        menuText.setX(xPos);
+        menuText.setY(yPos);
+        // the menu showing, if any, is removed with its scope, so a menu that is already showing is brought back in front of
+        // everything else
+        NodeScope menu = SceneRegistry.of(root).openScope(ScopeKind.MENU, MENU_SCOPE_NAME);
+        menu.add(menuBackground);
+        menu.add(menuText);
+    }
+
+    // the file is read on the I/O thread, and its high scores are added and shown on the JavaFX application thread
+    private static void readInHighScores() {
+        highscoresRead = IoService.getDefault().readLines(highscoresFile)
+                .thenAcceptAsync(lines -> {
+                    highscores.addAll(lines);
+                    updateHighScoreDisplay();
+                }, IoService.FX_THREAD)
+                .exceptionally(e -> {
+                    logError(e);
+                    return null;
+                });
     }
 
     private static String collectTopHighScores(int maxNumberOfHighScores) {
@@ -377,27 +443,27 @@ public final class StatusDisplay {
         return highscoresChart;
     }
 
-    private static void addHighScoreDisplay(Group root, double game_height, double scene_width) {
+    private static void addHighScoreDisplay(NodeScope hud, double game_height, double scene_width) {
         highscoresFile = StatusDisplay.class.getResource(HIGHSCORES_FILE_PATH).getPath();
-        highScoreDisplay = createTextDisplayAndAddToRoot(root, HIGHSCORE_TEXT + formatPoints(0), scene_width -
-                HIGHSCORE_X_DIST_FROM_SCENE_WIDTH, game_height + HIGHSCORE_Y_DIST_FROM_GAME_HEIGHT, TEXT_COLOR);
-        updateHighScoreDisplay();
+        highScoreDisplay = new HudText(createTextDisplayAndAddToRoot(hud, "", scene_width -
+                HIGHSCORE_X_DIST_FROM_SCENE_WIDTH, game_height + HIGHSCORE_Y_DIST_FROM_GAME_HEIGHT, TEXT_COLOR), HIGHSCORE_TEXT,
+                StatusDisplay::formatPoints);
+        highScoreDisplay.show(0);
     }
 
+    // the entries are copied here, on the JavaFX application thread, and written on the I/O thread
     private static void updateHighScoreList(Set<String> highscores) {
-        try {
-            PrintWriter pw = new PrintWriter(highscoresFile);
-            int numEntries = 0;
-            for (String entry : highscores) {
-                if (numEntries < NUM_HIGHSCORES_STORED) {
-                    pw.println(entry);
-                    numEntries++;
-                }
-                else break;
-            }
-            pw.close();
-        } catch (FileNotFoundException e) {
-            logError(e);
+        long startNanos = System.nanoTime();
+        HighScoreWriteEvent writeEvent = GameEvents.beginHighScoreWrite();
+        List<String> entries = new ArrayList<>();
+        for (String entry : highscores) {
+            if (entries.size() < NUM_HIGHSCORES_STORED) entries.add(entry);
+            else break;
         }
+        IoService.getDefault().writeLines(highscoresFile, entries).whenComplete((written, e) -> {
+            if (e != null) logError(e);
+            GameMetrics.HIGH_SCORE_WRITE_SECONDS.record(System.nanoTime() - startNanos);
+            GameEvents.endHighScoreWrite(writeEvent, entries.size());
+        });
     }
 }
@@ -0,0 +1,193 @@
+package invader.bot;
+
+import invader.Game;
+import invader.entity.Boss;
+import invader.entity.Enemy;
+import invader.entity.Spaceship;
+import invader.level.EnemyLevel;
+import invader.level.Level;
+import invader.powerup.PowerUp;
+import invader.projectile.Projectile;
+import invader.snapshot.GameSnapshot;
+import javafx.scene.input.KeyCode;
+
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * This class plays the game on its own, for soak and load tests that need a realistic and repeatable player.
+ *
+ * The autopilot only ever presses keys, through the same handler the keyboard uses, so it exercises exactly what a player
+ * would: LEFT and RIGHT to move, SPACE to fire, and the menu keys of the KeyHandler to move on once a level ends (R to play
+ * a lost level again, S to go on to the next level, and 1 to start over after the boss is beaten). While a level is being
+ * played it looks at the level's snapshot each time it decides, and in order of importance it:
+ * - dodges the enemies' projectiles that are about to fall on the spaceship,
+ * - goes after falling power ups once they are in the bottom half of the screen,
+ * - and otherwise lines up under the lowest living enemy (or the boss) and fires.
+ *
+ * Skill runs from 0 to 1 and sets how often the autopilot decides (the rest of the time it keeps doing what it last did),
+ * how far above the spaceship it watches for projectiles, and how often it fails to notice one. The autopilot's own random
+ * choices come from a seed, so the same seed and skill play a seeded level the same way every time.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class Autopilot {
+    public static final double DEFAULT_SKILL = 0.8;
+    public static final int MAX_REACTION_STEPS = 10;
+    public static final double MIN_LOOKAHEAD = 40;
+    public static final double MAX_LOOKAHEAD = 160;
+    public static final double MAX_MISTAKE_CHANCE = 0.3;
+    public static final double DODGE_MARGIN = 6;
+    public static final double AIM_TOLERANCE = Enemy.WIDTH / 4.0;
+    public static final double SAFE_CLEARANCE = (Spaceship.WIDTH + Projectile.DEFAULT_WIDTH) / 2 + DODGE_MARGIN;
+    public static final int MENU_WAIT_STEPS = Game.FRAMES_PER_SECOND;
+    // the keys that move the spaceship, and not moving at all
+    private static final KeyCode[] MOVES = {null, KeyCode.LEFT, KeyCode.RIGHT};
+
+    private final double skill;
+    private final Random random;
+    private final int reactionSteps;
+    private final double lookahead;
+    private final GameSnapshot snapshot = new GameSnapshot();
+    private KeyCode heldKey = null;
+    private int stepsUntilDecision = 0;
+    private int menuSteps = 0;
+
+    /**
+     * Create an autopilot
+     * @param skill how well to play, from 0 to 1
+     * @param seed seed for the autopilot's random choices
+     */
+    public Autopilot(double skill, long seed) {
+        this.skill = Math.max(0, Math.min(1, skill));
+        random = new Random(seed);
+        reactionSteps = 1 + (int) Math.round((1 - this.skill) * MAX_REACTION_STEPS);
+        lookahead = MIN_LOOKAHEAD + this.skill * (MAX_LOOKAHEAD - MIN_LOOKAHEAD);
+    }
+
+    /**
+     * Press the keys for one step of the game; call once per step, before the level is stepped
+     * @param level the level being played, or null if the game has not started
+     * @param isMenuShowing whether a menu is showing, in which case the level is not being played
+     * @param keys where to press keys, such as the game's KeyHandler
+     */
+    public void play(Level level, boolean isMenuShowing, Consumer<KeyCode> keys) {
+        if (level == null || isMenuShowing) {
+            heldKey = null;
+            stepsUntilDecision = 0;
+            // wait on each menu for a moment, as a player would, so the menus are shown and not just skipped over
+            if (++menuSteps < MENU_WAIT_STEPS) return;
+            menuSteps = 0;
+            keys.accept(chooseMenuKey(level));
+            return;
+        }
+        menuSteps = 0;
+        if (--stepsUntilDecision <= 0) {
+            stepsUntilDecision = reactionSteps;
+            decide(level, keys);
+        } else if (heldKey != null) {
+            keys.accept(heldKey);
+        }
+    }
+
+    /**
+     * Get how well the autopilot plays
+     * @return the skill, from 0 to 1
+     */
+    public double getSkill() {
+        return skill;
+    }
+
+    private KeyCode chooseMenuKey(Level level) {
+        if (level == null) return KeyCode.SPACE;
+        if (level.isLevelLost()) return KeyCode.R;
+        if (level.getLevelNumber() == Game.MAX_LEVEL) return KeyCode.DIGIT1;
+        return KeyCode.S;
+    }
+
+    private void decide(Level level, Consumer<KeyCode> keys) {
+        level.captureSnapshot(snapshot);
+        double shipCenter = GameSnapshot.toPixels(snapshot.get(GameSnapshot.SPACESHIP_X)) + Spaceship.WIDTH / 2.0;
+        double shipTop = GameSnapshot.toPixels(snapshot.get(GameSnapshot.SPACESHIP_Y));
+        double moveDistance = level.getSpaceship(0).getXSpeedOnKeyPress();
+        double targetX = findPowerUp();
+        boolean isAimingAtEnemy = Double.isNaN(targetX);
+        if (isAimingAtEnemy) targetX = findLowestEnemy(shipCenter);
+        KeyCode wantedKey = null;
+        if (targetX < shipCenter - AIM_TOLERANCE) wantedKey = KeyCode.LEFT;
+        else if (targetX > shipCenter + AIM_TOLERANCE) wantedKey = KeyCode.RIGHT;
+        heldKey = wantedKey;
+        // a move toward the target can carry the spaceship into a projectile as easily as staying put can, so where the
+        // spaceship would end up after each key is checked, unless the autopilot fails to notice the danger this time
+        if (random.nextDouble() >= (1 - skill) * MAX_MISTAKE_CHANCE) {
+            double clearance = findClearance(positionAfter(wantedKey, shipCenter, moveDistance), shipTop);
+            for (KeyCode key : MOVES) {
+                double keyClearance = findClearance(positionAfter(key, shipCenter, moveDistance), shipTop);
+                if (clearance < SAFE_CLEARANCE && keyClearance > clearance) {
+                    clearance = keyClearance;
+                    heldKey = key;
+                }
+            }
+        }
+        if (heldKey != null) keys.accept(heldKey);
+        if (isAimingAtEnemy && Math.abs(targetX - shipCenter) <= Enemy.WIDTH / 2.0) keys.accept(KeyCode.SPACE);
+    }
+
+    private double positionAfter(KeyCode key, double shipCenter, double moveDistance) {
+        double position = shipCenter;
+        if (key == KeyCode.LEFT) position -= moveDistance;
+        else if (key == KeyCode.RIGHT) position += moveDistance;
+        return Math.max(Spaceship.WIDTH / 2.0, Math.min(Game.GAME_WIDTH - Spaceship.WIDTH / 2.0, position));
+    }
+
+    // returns how far the spaceship would be, side to side, from the nearest enemy projectile about to fall on it
+    private double findClearance(double shipCenter, double shipTop) {
+        double clearance = Double.POSITIVE_INFINITY;
+        for (int index = 0; index < snapshot.get(GameSnapshot.PROJECTILE_COUNT); index++) {
+            if (snapshot.getProjectile(index, GameSnapshot.OBJECT_KIND) % 2 == 0) continue;
+            double x = GameSnapshot.toPixels(snapshot.getProjectile(index, GameSnapshot.OBJECT_X)) + Projectile.DEFAULT_WIDTH / 2;
+            double y = GameSnapshot.toPixels(snapshot.getProjectile(index, GameSnapshot.OBJECT_Y)) + Projectile.DEFAULT_HEIGHT;
+            if (y >= shipTop - lookahead && y <= shipTop + Spaceship.HEIGHT) {
+                clearance = Math.min(clearance, Math.abs(x - shipCenter));
+            }
+        }
+        return clearance;
+    }
+
+    // returns the x position of the lowest power up in the bottom half of the screen, or NaN if there is none
+    private double findPowerUp() {
+        double targetX = Double.NaN;
+        double lowestY = Game.GAME_HEIGHT / 2.0;
+        for (int index = 0; index < snapshot.get(GameSnapshot.POWER_UP_COUNT); index++) {
+            double y = GameSnapshot.toPixels(snapshot.getPowerUp(index, GameSnapshot.OBJECT_Y));
+            if (y > lowestY) {
+                lowestY = y;
+                targetX = GameSnapshot.toPixels(snapshot.getPowerUp(index, GameSnapshot.OBJECT_X)) + PowerUp.WIDTH / 2.0;
+            }
+        }
+        return targetX;
+    }
+
+    // returns the x position of the lowest living enemy, the closest one to the spaceship if several are as low, or the
+    // boss; NaN if there is nothing left to aim at
+    private double findLowestEnemy(double shipCenter) {
+        if (snapshot.get(GameSnapshot.BOSS_LIVES) > 0) {
+            return GameSnapshot.toPixels(snapshot.get(GameSnapshot.BOSS_X)) + Boss.DEFAULT_WIDTH / 2;
+        }
+        int columns = snapshot.get(GameSnapshot.FORMATION_COLUMNS);
+        int formationX = snapshot.get(GameSnapshot.FORMATION_X);
+        double targetX = Double.NaN;
+        for (int row = snapshot.get(GameSnapshot.FORMATION_ROWS) - 1; row >= 0 && Double.isNaN(targetX); row--) {
+            for (int col = 0; col < columns; col++) {
+                int index = col + row * columns;
+                if (index >= GameSnapshot.DEFAULT_MAX_ENEMIES || snapshot.getEnemy(index, GameSnapshot.ENEMY_LIVES) <= 0) continue;
+                double x = GameSnapshot.toPixels(formationX + snapshot.getEnemy(index, GameSnapshot.ENEMY_OFFSET_X))
+                        + EnemyLevel.getSlotX(col, columns) + Enemy.WIDTH / 2.0;
+                if (Double.isNaN(targetX) || Math.abs(x - shipCenter) < Math.abs(targetX - shipCenter)) targetX = x;
+            }
+        }
+        return targetX;
+    }
+}
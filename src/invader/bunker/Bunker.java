@@ -0,0 +1,248 @@
+package invader.bunker;
+
+import invader.StateBuffer;
+import invader.projectile.Projectile;
+import invader.sprite.ImageCache;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+
+/**
+ * This class implements a destructible bunker that sits between the spaceship and the enemies and absorbs projectiles.
+ *
+ * The bunker is stored as a grid of small cells packed into a bitset, one row of longs per row of cells. A projectile that
+ * reaches a solid cell is stopped there and blasts out a crater whose size depends on the projectile's damage, so the bunker
+ * wears away where it is hit.
+ *
+ * Collisions are checked against the bitset rather than against the image. When cells are cleared, only the rectangle of
+ * pixels that changed is written to the bunker's image, and only once per step, instead of redrawing the whole bunker.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class Bunker extends ImageView {
+    public static final String IMG_NAME = "glass.png";
+    public static final String IDENTIFIER = "bunker";
+    public static final int CELL_SIZE = 2;
+    public static final int COLUMNS = 22;
+    public static final int ROWS = 16;
+    public static final int WIDTH = COLUMNS * CELL_SIZE;
+    public static final int HEIGHT = ROWS * CELL_SIZE;
+    public static final int CORNER_CELLS = 4;
+    public static final int ARCH_WIDTH_CELLS = 10;
+    public static final int ARCH_HEIGHT_CELLS = 6;
+    public static final int CRATER_RADIUS_PER_DAMAGE = 2;
+    public static final int FALLBACK_COLOR = 0xff3cb043;
+    public static final int EMPTY_COLOR = 0;
+    private static final int BITS_PER_WORD = Long.SIZE;
+    private static final int WORDS_PER_ROW = (COLUMNS + BITS_PER_WORD - 1) / BITS_PER_WORD;
+    private static final int OPAQUE = 0xff000000;
+    private static final int ALPHA_SHIFT = 24;
+
+    private final long[] cells = new long[ROWS * WORDS_PER_ROW];
+    private final int[] texture = new int[WIDTH * HEIGHT];
+    private final int[] dirtyPixels = new int[WIDTH * HEIGHT];
+    private final WritableImage image = new WritableImage(WIDTH, HEIGHT);
+    private int dirtyMinCol = COLUMNS;
+    private int dirtyMinRow = ROWS;
+    private int dirtyMaxCol = -1;
+    private int dirtyMaxRow = -1;
+    private int solidCells;
+
+    /**
+     * Create a bunker in the classic arch shape
+     * @param xPos x position of the bunker
+     * @param yPos y position of the bunker
+     * @param idNumber id number of the bunker for testing
+     */
+    public Bunker(double xPos, double yPos, int idNumber) {
+        setX(xPos);
+        setY(yPos);
+        setId(IDENTIFIER + idNumber);
+        buildShape();
+        buildTexture();
+        markDirty(0, 0, COLUMNS - 1, ROWS - 1);
+        setImage(image);
+        updateImage();
+    }
+
+    /**
+     * If the projectile reached a solid part of the bunker during its last step, blast a crater where it hit
+     * @param projectile the projectile to check
+     * @return whether the projectile was stopped by the bunker
+     */
+    public boolean absorb(Projectile projectile) {
+        double boundsMinX = projectile.getDrawnMinX();
+        double boundsMinY = projectile.getDrawnMinY();
+        double boundsMaxX = boundsMinX + projectile.getDrawnWidth();
+        double boundsMaxY = boundsMinY + projectile.getDrawnHeight();
+        // cover the whole path of the projectile during the step so fast projectiles can not pass through
+        double minX = Math.min(boundsMinX, boundsMinX - projectile.getLastStepX());
+        double maxX = Math.max(boundsMaxX, boundsMaxX - projectile.getLastStepX());
+        double minY = Math.min(boundsMinY, boundsMinY - projectile.getLastStepY());
+        double maxY = Math.max(boundsMaxY, boundsMaxY - projectile.getLastStepY());
+        int firstCol = Math.max(0, (int) Math.floor((minX - getX()) / CELL_SIZE));
+        int lastCol = Math.min(COLUMNS - 1, (int) Math.floor((maxX - getX()) / CELL_SIZE));
+        int firstRow = Math.max(0, (int) Math.floor((minY - getY()) / CELL_SIZE));
+        int lastRow = Math.min(ROWS - 1, (int) Math.floor((maxY - getY()) / CELL_SIZE));
+        if (firstCol > lastCol || firstRow > lastRow) return false;
+        // search from the side the projectile came in on, so the crater is where it first touched the bunker
+        boolean movingUp = projectile.getLastStepY() < 0 || (projectile.getLastStepY() == 0 && projectile.getYSpeed() > 0);
+        for (int i = 0; i <= lastRow - firstRow; i++) {
+            int row = movingUp ? lastRow - i : firstRow + i;
+            int col = firstSolidColumn(row, firstCol, lastCol);
+            if (col >= 0) {
+                blastCrater(row, col, projectile.getDamage() * CRATER_RADIUS_PER_DAMAGE);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether a cell of the bunker is still solid
+     * @param row row of the cell
+     * @param col column of the cell
+     * @return whether the cell is solid
+     */
+    public boolean isSolid(int row, int col) {
+        return (cells[row * WORDS_PER_ROW + col / BITS_PER_WORD] & (1L << col)) != 0;
+    }
+
+    /**
+     * Get how many cells of the bunker are still solid
+     * @return number of solid cells
+     */
+    public int getSolidCells() {
+        return solidCells;
+    }
+
+    /**
+     * Check whether the bunker has been completely worn away
+     * @return whether no solid cells are left
+     */
+    public boolean isDestroyed() {
+        return solidCells == 0;
+    }
+
+    /**
+     * Write the pixels changed since the last update to the bunker's image; called once per step so that several hits in
+     * the same step only cause one write
+     */
+    public void updateImage() {
+        if (dirtyMaxRow < 0) return;
+        int x = dirtyMinCol * CELL_SIZE;
+        int y = dirtyMinRow * CELL_SIZE;
+        int width = (dirtyMaxCol - dirtyMinCol + 1) * CELL_SIZE;
+        int height = (dirtyMaxRow - dirtyMinRow + 1) * CELL_SIZE;
+        for (int py = 0; py < height; py++) {
+            for (int px = 0; px < width; px++) {
+                int pixel = (y + py) * WIDTH + x + px;
+                boolean solid = isSolid((y + py) / CELL_SIZE, (x + px) / CELL_SIZE);
+                dirtyPixels[py * width + px] = solid ? texture[pixel] : EMPTY_COLOR;
+            }
+        }
+        image.getPixelWriter().setPixels(x, y, width, height, PixelFormat.getIntArgbInstance(), dirtyPixels, 0, width);
+        dirtyMinCol = COLUMNS;
+        dirtyMinRow = ROWS;
+        dirtyMaxCol = -1;
+        dirtyMaxRow = -1;
+    }
+
+    /**
+     * Save which cells of the bunker are still solid
+     * @param state where the state is saved
+     */
+    public void saveState(StateBuffer state) {
+        for (long word : cells) state.put(word);
+    }
+
+    /**
+     * Put the bunker back as it was when saveState was called; only the rows that changed are redrawn
+     * @param state where the state was saved
+     */
+    public void restoreState(StateBuffer state) {
+        for (int index = 0; index < cells.length; index++) {
+            long word = state.nextLong();
+            if (word == cells[index]) continue;
+            solidCells += Long.bitCount(word) - Long.bitCount(cells[index]);
+            cells[index] = word;
+            int row = index / WORDS_PER_ROW;
+            markDirty(0, row, COLUMNS - 1, row);
+        }
+    }
+
+    private int firstSolidColumn(int row, int firstCol, int lastCol) {
+        for (int col = firstCol; col <= lastCol; col = (col / BITS_PER_WORD + 1) * BITS_PER_WORD) {
+            long word = cells[row * WORDS_PER_ROW + col / BITS_PER_WORD] & (-1L << col);
+            if (word != 0) {
+                int found = (col / BITS_PER_WORD) * BITS_PER_WORD + Long.numberOfTrailingZeros(word);
+                return found <= lastCol ? found : -1;
+            }
+        }
+        return -1;
+    }
+
+    private void blastCrater(int centerRow, int centerCol, int radius) {
+        int firstRow = Math.max(0, centerRow - radius);
+        int lastRow = Math.min(ROWS - 1, centerRow + radius);
+        for (int row = firstRow; row <= lastRow; row++) {
+            int rowOffset = row - centerRow;
+            int halfWidth = (int) Math.sqrt(radius * radius - rowOffset * rowOffset);
+            clearCells(row, Math.max(0, centerCol - halfWidth), Math.min(COLUMNS - 1, centerCol + halfWidth));
+        }
+        markDirty(Math.max(0, centerCol - radius), firstRow, Math.min(COLUMNS - 1, centerCol + radius), lastRow);
+    }
+
+    private void clearCells(int row, int firstCol, int lastCol) {
+        for (int col = firstCol; col <= lastCol; col++) {
+            int index = row * WORDS_PER_ROW + col / BITS_PER_WORD;
+            long bit = 1L << col;
+            if ((cells[index] & bit) != 0) {
+                cells[index] &= ~bit;
+                solidCells--;
+            }
+        }
+    }
+
+    private void setCell(int row, int col) {
+        cells[row * WORDS_PER_ROW + col / BITS_PER_WORD] |= 1L << col;
+        solidCells++;
+    }
+
+    private void markDirty(int minCol, int minRow, int maxCol, int maxRow) {
+        dirtyMinCol = Math.min(dirtyMinCol, minCol);
+        dirtyMinRow = Math.min(dirtyMinRow, minRow);
+        dirtyMaxCol = Math.max(dirtyMaxCol, maxCol);
+        dirtyMaxRow = Math.max(dirtyMaxRow, maxRow);
+    }
+
+    // a block with its top corners cut off and an arch cut out of the bottom, like the original arcade bunkers
+    private void buildShape() {
+        int archStart = (COLUMNS - ARCH_WIDTH_CELLS) / 2;
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < COLUMNS; col++) {
+                boolean inCorner = row < CORNER_CELLS && (col < CORNER_CELLS - row || col >= COLUMNS - CORNER_CELLS + row);
+                boolean inArch = row >= ROWS - ARCH_HEIGHT_CELLS && col >= archStart && col < archStart + ARCH_WIDTH_CELLS;
+                if (!inCorner && !inArch) setCell(row, col);
+            }
+        }
+    }
+
+    // the bunker is drawn with the glass image tiled across it
+    private void buildTexture() {
+        Image glass = ImageCache.get(IMG_NAME);
+        PixelReader reader = glass.getPixelReader();
+        int glassWidth = (int) glass.getWidth();
+        int glassHeight = (int) glass.getHeight();
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int argb = reader == null || glassWidth == 0 ? 0 : reader.getArgb(x % glassWidth, y % glassHeight);
+                texture[y * WIDTH + x] = (argb >>> ALPHA_SHIFT) == 0 ? FALLBACK_COLOR : argb | OPAQUE;
+            }
+        }
+    }
+}
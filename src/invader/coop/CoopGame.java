@@ -0,0 +1,101 @@
+package invader.coop;
+
+import invader.Game;
+import invader.StatusDisplay;
+import invader.sprite.SpriteAnimation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Application;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.input.KeyCode;
+import javafx.scene.text.Text;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+/**
+ * This class is the window for one player of a two player co-op game; each player runs their own copy.
+ *
+ * Key presses are gathered between frames and handed to the RollbackSession as that frame's input, so holding a key moves
+ * the spaceship at the same rate as in the single player game. If the other player has fallen too far behind, the input is
+ * kept for the next frame rather than lost.
+ *
+ * Usage: CoopGame --player=0|1 [--host=localhost] [--port=7309] [--level=1] [--seed=0]
+ * Player 0 listens on the port and player 1 on the port after it; both must use the same level and seed.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class CoopGame extends Application {
+    public static final String TITLE = "Space Invaders (co-op)";
+    public static final String PLAYER_PARAMETER = "player";
+    public static final String HOST_PARAMETER = "host";
+    public static final String PORT_PARAMETER = "port";
+    public static final String LEVEL_PARAMETER = "level";
+    public static final String SEED_PARAMETER = "seed";
+    public static final String DEFAULT_HOST = "localhost";
+    public static final int DEFAULT_PORT = 7309;
+    public static final long DEFAULT_SEED = 0;
+    public static final int STATUS_X_POS = 10;
+    public static final int STATUS_Y_POS = 20;
+    public static final double NANOS_PER_MILLI = 1e6;
+
+    private RollbackSession session;
+    private int localPlayer;
+    private int pendingInput = 0;
+    private final Text statusText = new Text(STATUS_X_POS, STATUS_Y_POS, "");
+
+    @Override
+    public void start(Stage stage) throws IOException {
+        Map<String, String> parameters = getParameters().getNamed();
+        localPlayer = Integer.parseInt(parameters.getOrDefault(PLAYER_PARAMETER, "0"));
+        String host = parameters.getOrDefault(HOST_PARAMETER, DEFAULT_HOST);
+        int port = Integer.parseInt(parameters.getOrDefault(PORT_PARAMETER, String.valueOf(DEFAULT_PORT)));
+        int levelNumber = Integer.parseInt(parameters.getOrDefault(LEVEL_PARAMETER, String.valueOf(Game.MIN_LEVEL)));
+        long seed = Long.parseLong(parameters.getOrDefault(SEED_PARAMETER, String.valueOf(DEFAULT_SEED)));
+        InputChannel channel = new UdpInputChannel(port + localPlayer, new InetSocketAddress(host, port + 1 - localPlayer));
+        session = new RollbackSession(levelNumber, seed, localPlayer, channel);
+        statusText.setFill(StatusDisplay.TEXT_COLOR);
+        Scene scene = new Scene(new Group(session.getRoot(), statusText), Game.GAME_WIDTH, Game.GAME_HEIGHT, Game.BACKGROUND);
+        scene.setOnKeyPressed(e -> handleKeyInput(e.getCode()));
+        stage.setScene(scene);
+        stage.setTitle(TITLE);
+        stage.show();
+        Timeline animation = new Timeline(new KeyFrame(Duration.seconds(Game.SECOND_DELAY), e -> step()));
+        animation.setCycleCount(Timeline.INDEFINITE);
+        animation.play();
+    }
+
+    @Override
+    public void stop() {
+        if (session != null) session.close();
+    }
+
+    private void step() {
+        if (session.advance(pendingInput)) pendingInput = 0;
+        SpriteAnimation.advanceAll(session.getGameTimer());
+        statusText.setText(String.format("PLAYER %d   LIVES %d/%d   POINTS %d   %s\nROLLBACKS %d   LONGEST %.1f MS",
+                localPlayer + 1, session.getLives(0), session.getLives(1), session.getPoints(), session.getMenu(),
+                session.getRollbacks(), session.getLongestRollbackNanos() / NANOS_PER_MILLI));
+    }
+
+    private void handleKeyInput(KeyCode code) {
+        if (code == KeyCode.LEFT) pendingInput |= RollbackSession.INPUT_LEFT;
+        else if (code == KeyCode.RIGHT) pendingInput |= RollbackSession.INPUT_RIGHT;
+        else if (code == KeyCode.SPACE) pendingInput |= RollbackSession.INPUT_FIRE;
+    }
+
+    /**
+     * Start one player's window
+     * @param args which player this is, and where to find the other player, as --player=, --host=, --port=, --level=,
+     *             and --seed=
+     */
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
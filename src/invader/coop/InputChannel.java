@@ -0,0 +1,38 @@
+package invader.coop;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * This interface is how a rollback session exchanges input packets with the other player's session.
+ *
+ * Packets may be lost, repeated, or arrive out of order, so the session sends each input several times and ignores what it
+ * has already seen. Receiving never blocks, since it is done at the start of every step.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public interface InputChannel {
+
+    /**
+     * Send a packet to the other player
+     * @param packet the packet, from its position to its limit
+     * @throws IOException if the packet could not be sent
+     */
+    void send(ByteBuffer packet) throws IOException;
+
+    /**
+     * Take the next packet from the other player, if one has arrived
+     * @param packet the buffer to copy the packet into, from its position
+     * @return whether a packet was received
+     * @throws IOException if the channel could not be read
+     */
+    boolean receive(ByteBuffer packet) throws IOException;
+
+    /**
+     * Stop exchanging packets
+     * @throws IOException if the channel could not be closed
+     */
+    void close() throws IOException;
+}
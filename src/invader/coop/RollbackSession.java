@@ -0,0 +1,355 @@
+package invader.coop;
+
+import invader.Game;
+import invader.GameContext;
+import invader.StateBuffer;
+import invader.StatusDisplay;
+import invader.level.EnemyLevel;
+import invader.level.Level;
+import invader.powerup.PowerUpPool;
+import invader.server.GameSession;
+import javafx.scene.Group;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * This class runs one player's side of a two player co-op game, kept in step with the other player's side by rollback.
+ *
+ * Both sides run the same level, created with the same seed, and only exchange their inputs. Each step, the local input is
+ * sent to the other side and the step is played right away, guessing that the other player is still doing whatever they did
+ * in the last step we heard about. When the other player's real input for a step arrives and turns out to be different from
+ * the guess, the level is put back to how it was before that step and every step since is played again with the real input.
+ * The level is saved before every step for this, in a ring holding the last MAX_ROLLBACK_FRAMES steps; if the other side
+ * falls that far behind, this side waits for it instead of guessing further.
+ *
+ * Since the level is deterministic (see Level), a step played with the same inputs always comes out the same, so once both
+ * sides have every input they agree on the state of the game without ever sending it.
+ *
+ * Each packet holds a player's inputs for the last INPUTS_PER_PACKET steps, so a lost packet is covered by the next one.
+ * Like the level, a session is only touched by the thread that steps it.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class RollbackSession implements GameContext {
+    public static final int PLAYERS = 2;
+    public static final int MAX_ROLLBACK_FRAMES = 8;
+    public static final int INPUTS_PER_PACKET = 2 * MAX_ROLLBACK_FRAMES;
+    public static final int INPUT_LEFT = 1;
+    public static final int INPUT_RIGHT = 2;
+    public static final int INPUT_FIRE = 4;
+    // player, last step, and the number of inputs that follow
+    public static final int PACKET_HEADER_SIZE = 1 + Integer.BYTES + 1;
+    public static final int PACKET_SIZE = PACKET_HEADER_SIZE + INPUTS_PER_PACKET;
+    private static final int INPUT_HISTORY = 4 * INPUTS_PER_PACKET;
+    private static final int NONE = -1;
+
+    private final Group root = new Group();
+    private final PowerUpPool powerUpPool = new PowerUpPool();
+    private final int localPlayer;
+    private final int remotePlayer;
+    private final InputChannel channel;
+    private final byte[][] inputs = new byte[PLAYERS][INPUT_HISTORY];
+    private final StateBuffer[] savedStates = new StateBuffer[MAX_ROLLBACK_FRAMES + 1];
+    private final int[] savedPoints = new int[MAX_ROLLBACK_FRAMES + 1];
+    private final String[] savedMenus = new String[MAX_ROLLBACK_FRAMES + 1];
+    private final ByteBuffer outgoing = ByteBuffer.allocate(PACKET_SIZE);
+    private final ByteBuffer incoming = ByteBuffer.allocate(PACKET_SIZE);
+    private final EnemyLevel level;
+    private int nextStep = 0;
+    private int lastRemoteStep = NONE;
+    private double gameTimer = 0;
+    private int points = 0;
+    private String menu = GameSession.PLAYING;
+    private long rollbacks = 0;
+    private long replayedSteps = 0;
+    private long stalls = 0;
+    private long longestRollbackNanos = 0;
+
+    /**
+     * Create one player's side of a co-op game
+     * @param levelNumber the level to play, which must be an enemy level
+     * @param seed seed for the level, which must be the same on both sides
+     * @param localPlayer which player this side controls, 0 or 1
+     * @param channel channel to the other player's side
+     */
+    public RollbackSession(int levelNumber, long seed, int localPlayer, InputChannel channel) {
+        this.localPlayer = localPlayer;
+        this.remotePlayer = 1 - localPlayer;
+        this.channel = channel;
+        for (int slot = 0; slot < savedStates.length; slot++) {
+            savedStates[slot] = new StateBuffer();
+        }
+        level = new EnemyLevel(root, levelNumber, this, seed, PLAYERS);
+    }
+
+    /**
+     * Play the next step with the given local input, first replaying any steps whose guessed input turned out to be wrong
+     * @param localInput the local player's input for the step, made of INPUT_LEFT, INPUT_RIGHT, and INPUT_FIRE
+     * @return whether the step was played; it is not if the other player is too far behind, and should be tried again with
+     * the next input
+     */
+    public boolean advance(int localInput) {
+        try {
+            int firstWrongStep = receiveRemoteInputs();
+            if (firstWrongStep != NONE) rollBack(firstWrongStep);
+            if (nextStep - lastRemoteStep > MAX_ROLLBACK_FRAMES) {
+                // keep sending, in case it is the other side that is waiting on us
+                sendLocalInputs();
+                stalls++;
+                return false;
+            }
+            inputs[localPlayer][nextStep % INPUT_HISTORY] = (byte) localInput;
+            sendLocalInputs();
+            playStep(nextStep);
+            nextStep++;
+            return true;
+        } catch (IOException e) {
+            StatusDisplay.logError(e);
+            return false;
+        }
+    }
+
+    /**
+     * Stop exchanging inputs and remove everything in the level
+     */
+    public void close() {
+        level.clearLevel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            StatusDisplay.logError(e);
+        }
+    }
+
+    /**
+     * Get the root that the level's nodes are in, to show it
+     * @return the root of the session's scene
+     */
+    public Group getRoot() {
+        return root;
+    }
+
+    /**
+     * Get the level being played
+     * @return the co-op level
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Get the number of the next step to be played
+     * @return how many steps have been played
+     */
+    public int getNextStep() {
+        return nextStep;
+    }
+
+    /**
+     * Get the last step the other player's real input is known for
+     * @return the other player's last step, or -1 if nothing has been heard from them
+     */
+    public int getLastRemoteStep() {
+        return lastRemoteStep;
+    }
+
+    /**
+     * Get the points the two players have scored together
+     * @return the points scored
+     */
+    public int getPoints() {
+        return points;
+    }
+
+    /**
+     * Get the lives left on a player's spaceship
+     * @param player the player, 0 or 1
+     * @return the lives left
+     */
+    public int getLives(int player) {
+        return level.getSpaceship(player).getLives();
+    }
+
+    /**
+     * Get which menu would be showing, or GameSession.PLAYING if the level is still being played
+     * @return the menu
+     */
+    public String getMenu() {
+        return menu;
+    }
+
+    /**
+     * Get how many times the level has been put back to replay steps
+     * @return the number of rollbacks
+     */
+    public long getRollbacks() {
+        return rollbacks;
+    }
+
+    /**
+     * Get how many steps have been played again because of rollbacks
+     * @return the number of replayed steps
+     */
+    public long getReplayedSteps() {
+        return replayedSteps;
+    }
+
+    /**
+     * Get how many times a step was held back because the other player was too far behind
+     * @return the number of stalls
+     */
+    public long getStalls() {
+        return stalls;
+    }
+
+    /**
+     * Get the longest time a rollback took, including replaying its steps, to compare against the time of one frame
+     * @return the longest rollback in nanoseconds
+     */
+    public long getLongestRollbackNanos() {
+        return longestRollbackNanos;
+    }
+
+    @Override
+    public double getGameTimer() {
+        return gameTimer;
+    }
+
+    @Override
+    public void setMenuActive(boolean isMenuActive) {
+        // which menu is showing is recorded when it is created, and is all a step checks
+    }
+
+    @Override
+    public void setGameOverMenuActive(boolean isGameOverMenuActive) {
+        // which menu is showing is recorded when it is created
+    }
+
+    @Override
+    public void updateLifeCountDisplay(int lives) {
+        // read from the spaceships when needed, since a rollback can give back lives without telling the display
+    }
+
+    @Override
+    public void updateLevelNumberDisplay(int levelNumber) {
+        // a co-op session stays on the level it was created with
+    }
+
+    @Override
+    public void updatePointsDisplay(int pointsEarned) {
+        points += pointsEarned;
+    }
+
+    @Override
+    public void createGameOverMenu() {
+        menu = GameSession.GAME_OVER;
+    }
+
+    @Override
+    public void createVictoryMenu() {
+        menu = GameSession.VICTORY;
+    }
+
+    @Override
+    public void createBossLevelMenu() {
+        menu = GameSession.BOSS_LEVEL_NEXT;
+    }
+
+    @Override
+    public void createLevelIntermissionMenu() {
+        menu = GameSession.LEVEL_COMPLETE;
+    }
+
+    @Override
+    public PowerUpPool getPowerUpPool() {
+        return powerUpPool;
+    }
+
+    // the menu and score live in the session rather than the level, so they are saved alongside it
+    private void playStep(int step) {
+        int slot = step % savedStates.length;
+        level.saveState(savedStates[slot]);
+        savedPoints[slot] = points;
+        savedMenus[slot] = menu;
+        if (!menu.equals(GameSession.PLAYING)) return;
+        gameTimer = (step + 1) * Game.SECOND_DELAY;
+        for (int player = 0; player < PLAYERS; player++) {
+            applyInput(player, getInput(player, step));
+        }
+        level.handleEntitiesAndLasers(gameTimer, Game.SECOND_DELAY);
+    }
+
+    private void rollBack(int firstWrongStep) {
+        long start = System.nanoTime();
+        int slot = firstWrongStep % savedStates.length;
+        level.restoreState(savedStates[slot]);
+        points = savedPoints[slot];
+        menu = savedMenus[slot];
+        for (int step = firstWrongStep; step < nextStep; step++) {
+            playStep(step);
+        }
+        rollbacks++;
+        replayedSteps += nextStep - firstWrongStep;
+        longestRollbackNanos = Math.max(longestRollbackNanos, System.nanoTime() - start);
+    }
+
+    // a step the other player has not been heard from for yet is guessed from their last known input, and the guess is
+    // kept so that it can be checked once the real input arrives
+    private int getInput(int player, int step) {
+        if (player == remotePlayer && step > lastRemoteStep) {
+            inputs[player][step % INPUT_HISTORY] = lastRemoteStep == NONE ? 0
+                    : inputs[player][lastRemoteStep % INPUT_HISTORY];
+        }
+        return inputs[player][step % INPUT_HISTORY];
+    }
+
+    private void applyInput(int player, int input) {
+        if ((input & INPUT_LEFT) != 0) level.moveSpaceship(player, false);
+        if ((input & INPUT_RIGHT) != 0) level.moveSpaceship(player, true);
+        if ((input & INPUT_FIRE) != 0) level.attemptSpaceshipFire(player, gameTimer);
+    }
+
+    private void sendLocalInputs() throws IOException {
+        int lastStep = nextStep - 1;
+        int count = Math.min(INPUTS_PER_PACKET, nextStep);
+        outgoing.clear();
+        outgoing.put((byte) localPlayer);
+        outgoing.putInt(lastStep);
+        outgoing.put((byte) count);
+        for (int step = lastStep - count + 1; step <= lastStep; step++) {
+            outgoing.put(inputs[localPlayer][step % INPUT_HISTORY]);
+        }
+        outgoing.flip();
+        channel.send(outgoing);
+    }
+
+    // returns the first step that was played with a wrong guess, or NONE
+    private int receiveRemoteInputs() throws IOException {
+        int firstWrongStep = NONE;
+        incoming.clear();
+        while (channel.receive(incoming)) {
+            incoming.flip();
+            if (incoming.remaining() >= PACKET_HEADER_SIZE && incoming.get() == remotePlayer) {
+                int lastStep = incoming.getInt();
+                int count = incoming.get();
+                int firstStep = lastStep - count + 1;
+                // a packet that starts after a gap is skipped; the missing inputs are in the packets that follow
+                if (firstStep <= lastRemoteStep + 1 && incoming.remaining() >= count) {
+                    for (int step = firstStep; step <= lastStep; step++) {
+                        byte input = incoming.get();
+                        if (step <= lastRemoteStep) continue;
+                        boolean wasGuessedWrong = step < nextStep && input != inputs[remotePlayer][step % INPUT_HISTORY];
+                        if (wasGuessedWrong && firstWrongStep == NONE) firstWrongStep = step;
+                        inputs[remotePlayer][step % INPUT_HISTORY] = input;
+                        lastRemoteStep = step;
+                    }
+                }
+            }
+            incoming.clear();
+        }
+        return firstWrongStep;
+    }
+}
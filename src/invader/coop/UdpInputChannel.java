@@ -0,0 +1,57 @@
+package invader.coop;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * This class exchanges input packets with the other player over UDP, on the same machine or the local network.
+ *
+ * UDP suits rollback: a late packet is no more use than a lost one, since the inputs in it are sent again in the next few
+ * packets anyway, so nothing is gained by waiting for a packet to be resent the way TCP would.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class UdpInputChannel implements InputChannel {
+    private final DatagramChannel channel;
+
+    /**
+     * Open a channel to the other player
+     * @param localPort port to receive the other player's packets on
+     * @param remote address and port of the other player's channel
+     * @throws IOException if the port could not be opened
+     */
+    public UdpInputChannel(int localPort, InetSocketAddress remote) throws IOException {
+        channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(localPort));
+        channel.connect(remote);
+        channel.configureBlocking(false);
+    }
+
+    @Override
+    public void send(ByteBuffer packet) throws IOException {
+        try {
+            channel.write(packet);
+        } catch (PortUnreachableException e) {
+            // until the other player has opened their channel, the packets are refused; they will be sent again anyway
+        }
+    }
+
+    @Override
+    public boolean receive(ByteBuffer packet) throws IOException {
+        try {
+            return channel.read(packet) > 0;
+        } catch (PortUnreachableException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -1,8 +1,10 @@
 package invader.entity;
 
+import invader.StateBuffer;
 import invader.projectile.Fireball;
 import invader.projectile.Projectile;
-import java.util.concurrent.ThreadLocalRandom;
+
+import java.util.Random;
 
 /**
  * This class inherits the abstract entity class, which is used to create a boss object.
@@ -86,10 +88,11 @@ public class Boss extends Entity {
 
     /**
      * Randomly assign an x speed and y speed for the boss
+     * @param random the level's random number generator, so that the same seed always gives the same speeds
      */
-    public void setRandomSpeed() {
-        setRandomXSpeed();
-        setRandomYSpeed();
+    public void setRandomSpeed(Random random) {
+        setRandomXSpeed(random);
+        setRandomYSpeed(random);
     }
 
     /**
@@ -127,27 +130,52 @@ public class Boss extends Entity {
         }
     }
 
+    /**
+     * The hiding shell only covers part of its rectangle, so shots are only stopped by the shell itself
+     * @return whether collisions with the boss are pixel accurate
+     */
+    @Override
+    public boolean isPixelAccurate() {
+        return !isVulnerable;
+    }
+
+    @Override
+    public void saveState(StateBuffer state) {
+        super.saveState(state);
+        state.put(isVulnerable);
+        state.put(switchVulnerabilityTime);
+    }
+
+    @Override
+    public void restoreState(StateBuffer state) {
+        super.restoreState(state);
+        boolean wasVulnerable = state.nextBoolean();
+        switchVulnerabilityTime = state.nextInt();
+        if (wasVulnerable == isVulnerable) return;
+        isVulnerable = wasVulnerable;
+        if (isVulnerable) switchBossImage(BOSS_IMG_NAME, DEFAULT_WIDTH, DEFAULT_HEIGHT);
+        else switchBossImage(BOSS_HIDING_IMG_NAME, HIDDEN_WIDTH, HIDDEN_HEIGHT);
+    }
+
     @Override
     public void removeLives(int livesToRemove) {
         if (this.isVulnerable) this.setLives(this.getLives()-livesToRemove);
     }
 
     private void switchBossImage(String imgName, double width, double height) {
-        setImage(makeImage(imgName));
-        setFitWidth(width);
-        setFitHeight(height);
+        changeImage(imgName, width, height);
     }
 
-    private void setRandomXSpeed() {
-        setXSpeed(createRandomSpeed(getXSpeed()));
+    private void setRandomXSpeed(Random random) {
+        setXSpeed(createRandomSpeed(random, getXSpeed()));
     }
 
-    private void setRandomYSpeed() {
-        setYSpeed(createRandomSpeed(getYSpeed()));
+    private void setRandomYSpeed(Random random) {
+        setYSpeed(createRandomSpeed(random, getYSpeed()));
     }
 
-    private int createRandomSpeed(double curSpeed) {
-        int newSpeed = ThreadLocalRandom.current().nextInt(Boss.MIN_SPEED, Boss.MAX_SPEED);
+    private int createRandomSpeed(Random random, double curSpeed) {
+        int newSpeed = Boss.MIN_SPEED + random.nextInt(Boss.MAX_SPEED - Boss.MIN_SPEED);
         newSpeed = curSpeed < 0 ? newSpeed * -1 : newSpeed;
         return newSpeed;
     }
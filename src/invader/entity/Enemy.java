@@ -1,10 +1,8 @@
 package invader.entity;
 
-import invader.powerup.PowerUp;
+import invader.powerup.PowerUpType;
 import invader.projectile.Projectile;
 
-import java.util.concurrent.ThreadLocalRandom;
-
 /**
  * This class inherits the abstract entity class, which is used to create an enemy object.
  *
@@ -20,6 +18,8 @@ public class Enemy extends Entity {
     public static final String IDENTIFIER = "enemy";
     public static final String ENEMY_IMG_PREFIX = "enemy";
     public static final String ENEMY_IMG_EXTENSION = ".png";
+    // there is one image per number of lives, up to this many
+    public static final int MAX_LIVES = 3;
     public static final int DEFAULT_Y_SPEED = 0;
     public static final int DEFAULT_TIME_BETWEEN_SHOTS = 20;
     public static final double MIN_TIME_BETWEEN_SHOTS = 0.5;
@@ -28,7 +28,7 @@ public class Enemy extends Entity {
     public static final int POINTS_PER_HIT = 25;
     public static final boolean IS_EVIL = true;
 
-    private PowerUp powerUp;
+    private PowerUpType powerUpType;
     private boolean hasPowerUp = false;
 
     /**
@@ -39,26 +39,25 @@ public class Enemy extends Entity {
      * @param ySpeed: y speed of the enemy
      * @param lives: how many lives the enemy has
      * @param idNumber: id number of the projectile for testing
-     * @param powerUp: the power up that the enemy should release when destroyed
+     * @param powerUpType: the type of power up that the enemy should release when destroyed, or null if it has none
      */
-    public Enemy(double xPos, double yPos, double xSpeed, double ySpeed, int lives, int idNumber, PowerUp powerUp) {
+    public Enemy(double xPos, double yPos, double xSpeed, double ySpeed, int lives, int idNumber, PowerUpType powerUpType) {
         super(xPos, yPos, xSpeed, ySpeed, WIDTH, HEIGHT, DEFAULT_TIME_BETWEEN_SHOTS,
                 IS_EVIL, ENEMY_IMG_PREFIX + lives + ENEMY_IMG_EXTENSION);
         setLives(lives);
         this.setId(IDENTIFIER + idNumber);
-        addToStartShootingTime(ThreadLocalRandom.current().nextInt(EARLIEST_START_FIRING_TIME, LATEST_START_FIRING_TIME));
-        if (powerUp != null) {
-            this.powerUp = powerUp;
+        if (powerUpType != null) {
+            this.powerUpType = powerUpType;
             hasPowerUp = true;
         }
         setPointsPerHit(POINTS_PER_HIT);
     }
 
-    /** Returns the power up that the enemy holds
-     * @return PowerUp the power up that the enemy holds
+    /** Returns the type of power up that the enemy holds
+     * @return PowerUpType the type of power up that the enemy holds
      */
-    public PowerUp getPowerUp() {
-        return powerUp;
+    public PowerUpType getPowerUpType() {
+        return powerUpType;
     }
 
     /** Returns if the enemy holds a power up
@@ -2,6 +2,7 @@ package invader.entity;
 
 import invader.Game;
 import invader.MovingObject;
+import invader.StateBuffer;
 import invader.projectile.Laser;
 import invader.projectile.Projectile;
 
@@ -168,6 +169,28 @@ public abstract class Entity extends MovingObject {
         return hasBurstFire;
     }
 
+    @Override
+    public void saveState(StateBuffer state) {
+        super.saveState(state);
+        state.put(lives);
+        state.put(pointsPerHit);
+        state.put(startingShootTime);
+        state.put(timeBetweenShots);
+        state.put(curProjectileIdNumber);
+        state.put(hasBurstFire);
+    }
+
+    @Override
+    public void restoreState(StateBuffer state) {
+        super.restoreState(state);
+        lives = state.nextInt();
+        pointsPerHit = state.nextInt();
+        startingShootTime = state.nextDouble();
+        timeBetweenShots = state.nextDouble();
+        curProjectileIdNumber = state.nextInt();
+        hasBurstFire = state.nextBoolean();
+    }
+
     /**
      * Check if the entity is out of bounds in the y direction
      * @return Boolean whether it is out of bounds or not
@@ -0,0 +1,195 @@
+package invader.entity;
+
+import invader.StateBuffer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * This class holds the modifiers (such as power ups) currently in effect on a spaceship, and ends each one when it expires.
+ *
+ * Expiry times are kept in a priority queue, so each step only has to look at the modifier that expires soonest; nothing
+ * else is done unless a modifier actually expires. Modifiers with the same key are counted together, so a modifier that
+ * expires while another with the same key is still in effect does not undo the other one's change.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class ModifierStack {
+    private final Spaceship spaceship;
+    private final PriorityQueue<Entry> expirations = new PriorityQueue<>(
+            Comparator.comparingDouble((Entry entry) -> entry.expiryTime).thenComparingLong(entry -> entry.sequence));
+    private final Map<Object, List<Entry>> activeEntries = new HashMap<>();
+    private Consumer<SpaceshipModifier> expirationListener = modifier -> { };
+    private long nextSequence;
+    private int activeCount;
+
+    /**
+     * Create an empty modifier stack
+     * @param spaceship the spaceship that the modifiers change
+     */
+    public ModifierStack(Spaceship spaceship) {
+        this.spaceship = spaceship;
+    }
+
+    /**
+     * Set what should be done with a modifier once it has ended
+     * @param expirationListener called with each modifier after it ends
+     */
+    public void setExpirationListener(Consumer<SpaceshipModifier> expirationListener) {
+        this.expirationListener = expirationListener;
+    }
+
+    /**
+     * Put a modifier into effect until the given duration has passed, following its stacking rule
+     * @param modifier the modifier to put into effect
+     * @param gameTimer the timer of the entire game
+     * @param duration how long the modifier should last
+     */
+    public void push(SpaceshipModifier modifier, double gameTimer, double duration) {
+        List<Entry> entries = activeEntries.computeIfAbsent(modifier.getModifierKey(), key -> new ArrayList<>());
+        boolean wasActive = !entries.isEmpty();
+        double expiryTime = gameTimer + duration;
+        if (wasActive && modifier.getStackingRule() != SpaceshipModifier.StackingRule.STACK) {
+            if (modifier.getStackingRule() == SpaceshipModifier.StackingRule.EXTEND) {
+                expiryTime = latestExpiryTime(entries) + duration;
+            }
+            // the replaced modifiers stay in the queue but are skipped when their time comes
+            for (Entry entry : entries) {
+                entry.isReplaced = true;
+                endModifier(entry.modifier, gameTimer);
+            }
+            activeCount -= entries.size();
+            entries.clear();
+        }
+        Entry entry = new Entry(modifier, expiryTime, nextSequence++);
+        entries.add(entry);
+        expirations.add(entry);
+        activeCount++;
+        if (!wasActive) modifier.applyTo(spaceship);
+    }
+
+    /**
+     * End every modifier whose time has run out
+     * @param gameTimer the timer of the entire game
+     */
+    public void expire(double gameTimer) {
+        while (!expirations.isEmpty() && expirations.peek().expiryTime <= gameTimer) {
+            Entry entry = expirations.poll();
+            if (entry.isReplaced) continue;
+            List<Entry> entries = activeEntries.get(entry.modifier.getModifierKey());
+            entries.remove(entry);
+            activeCount--;
+            if (entries.isEmpty()) entry.modifier.removeFrom(spaceship);
+            endModifier(entry.modifier, gameTimer);
+        }
+    }
+
+    /**
+     * End every modifier now, such as when the level is cleared
+     * @param gameTimer the timer of the entire game
+     */
+    public void clear(double gameTimer) {
+        for (List<Entry> entries : activeEntries.values()) {
+            for (Entry entry : entries) {
+                if (entry == entries.get(entries.size() - 1)) entry.modifier.removeFrom(spaceship);
+                endModifier(entry.modifier, gameTimer);
+            }
+            entries.clear();
+        }
+        expirations.clear();
+        activeCount = 0;
+    }
+
+    /**
+     * Check whether any modifier with the given key is in effect
+     * @param modifierKey the key of the modifiers
+     * @return whether a modifier with the key is in effect
+     */
+    public boolean isActive(Object modifierKey) {
+        return getActiveCount(modifierKey) > 0;
+    }
+
+    /**
+     * Get how many modifiers with the given key are in effect
+     * @param modifierKey the key of the modifiers
+     * @return the number of modifiers with the key that are in effect
+     */
+    public int getActiveCount(Object modifierKey) {
+        List<Entry> entries = activeEntries.get(modifierKey);
+        return entries == null ? 0 : entries.size();
+    }
+
+    /**
+     * Get how many modifiers are in effect, whatever their key
+     * @return the number of modifiers in effect
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * Save every modifier in effect, along with when it expires, so the stack can be put back as it is now
+     * @param state where the state is saved
+     */
+    public void saveState(StateBuffer state) {
+        state.put(nextSequence);
+        state.put(expirations.size());
+        for (Entry entry : expirations) {
+            state.putReference(entry);
+            state.put(entry.isReplaced);
+        }
+    }
+
+    /**
+     * Put back the modifiers that were in effect when saveState was called; the modifiers are not applied again, since the
+     * spaceship restores what they changed along with the rest of its state
+     * @param state where the state was saved
+     */
+    public void restoreState(StateBuffer state) {
+        nextSequence = state.nextLong();
+        expirations.clear();
+        for (List<Entry> entries : activeEntries.values()) entries.clear();
+        activeCount = 0;
+        int count = state.nextInt();
+        for (int index = 0; index < count; index++) {
+            Entry entry = state.nextReference();
+            entry.isReplaced = state.nextBoolean();
+            expirations.add(entry);
+            if (!entry.isReplaced) {
+                activeEntries.computeIfAbsent(entry.modifier.getModifierKey(), key -> new ArrayList<>()).add(entry);
+                activeCount++;
+            }
+        }
+    }
+
+    private void endModifier(SpaceshipModifier modifier, double gameTimer) {
+        modifier.end(gameTimer);
+        expirationListener.accept(modifier);
+    }
+
+    private double latestExpiryTime(List<Entry> entries) {
+        double latest = Double.NEGATIVE_INFINITY;
+        for (Entry entry : entries) latest = Math.max(latest, entry.expiryTime);
+        return latest;
+    }
+
+    private static class Entry {
+        private final SpaceshipModifier modifier;
+        private final double expiryTime;
+        private final long sequence;
+        private boolean isReplaced = false;
+
+        private Entry(SpaceshipModifier modifier, double expiryTime, long sequence) {
+            this.modifier = modifier;
+            this.expiryTime = expiryTime;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package invader.entity;
 
 import invader.Game;
+import invader.StateBuffer;
 import invader.projectile.Missile;
 import invader.projectile.Projectile;
 
@@ -30,6 +31,7 @@ public class Spaceship extends Entity {
 
     private double xSpeedOnKeyPress = DEFAULT_X_SPEED_ON_KEY_PRESS;
     private boolean hasMissilePowerUp = false;
+    private final ModifierStack modifiers = new ModifierStack(this);
 
     /**
      * Create a spaceship
@@ -87,6 +89,48 @@ public class Spaceship extends Entity {
         return hasMissilePowerUp;
     }
 
+    /**
+     * Get the modifiers (such as power ups) currently in effect on the spaceship
+     * @return the spaceship's modifier stack
+     */
+    public ModifierStack getModifiers() {
+        return modifiers;
+    }
+
+    /**
+     * Put a modifier into effect on the spaceship until the given duration has passed
+     * @param modifier the modifier to put into effect
+     * @param gameTimer the timer of the entire game
+     * @param duration how long the modifier should last
+     */
+    public void pushModifier(SpaceshipModifier modifier, double gameTimer, double duration) {
+        modifiers.push(modifier, gameTimer, duration);
+    }
+
+    /**
+     * End every modifier on the spaceship whose time has run out
+     * @param gameTimer the timer of the entire game
+     */
+    public void expireModifiers(double gameTimer) {
+        modifiers.expire(gameTimer);
+    }
+
+    @Override
+    public void saveState(StateBuffer state) {
+        super.saveState(state);
+        state.put(xSpeedOnKeyPress);
+        state.put(hasMissilePowerUp);
+        modifiers.saveState(state);
+    }
+
+    @Override
+    public void restoreState(StateBuffer state) {
+        super.restoreState(state);
+        xSpeedOnKeyPress = state.nextDouble();
+        hasMissilePowerUp = state.nextBoolean();
+        modifiers.restoreState(state);
+    }
+
     /**
      * Create a projectile fired from the spaceship
      * @param rotation rotation of the projectile's image
@@ -0,0 +1,57 @@
+package invader.entity;
+
+/**
+ * This interface is implemented by anything that temporarily changes the spaceship, such as a power up.
+ *
+ * Modifiers are pushed onto the spaceship's ModifierStack with an expiry time. Modifiers that share a key change the same
+ * property of the spaceship, so the stack only applies the change when the first of them starts and only removes it when
+ * the last of them ends; the stacking rule decides what happens when another modifier with the same key is pushed.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public interface SpaceshipModifier {
+
+    /**
+     * What happens when a modifier is pushed while another with the same key is still in effect
+     */
+    enum StackingRule {
+        /** the new modifier replaces the old one, and lasts its full duration from now */
+        REFRESH,
+        /** the new modifier replaces the old one, and its duration is added to the time the old one had left */
+        EXTEND,
+        /** both modifiers stay in effect, each ending at its own time */
+        STACK
+    }
+
+    /**
+     * Get the key shared by every modifier that changes the same property of the spaceship
+     * @return the key of this modifier
+     */
+    Object getModifierKey();
+
+    /**
+     * Get what happens when this modifier is pushed while another with the same key is in effect
+     * @return the stacking rule of this modifier
+     */
+    StackingRule getStackingRule();
+
+    /**
+     * Change the spaceship; called when the first modifier with this key starts
+     * @param spaceship the spaceship to change
+     */
+    void applyTo(Spaceship spaceship);
+
+    /**
+     * Put the spaceship back to normal; called when the last modifier with this key ends
+     * @param spaceship the spaceship to change back
+     */
+    void removeFrom(Spaceship spaceship);
+
+    /**
+     * Called when this modifier ends, either because it expired or because another modifier replaced it
+     * @param gameTimer the timer of the entire game
+     */
+    void end(double gameTimer);
+}
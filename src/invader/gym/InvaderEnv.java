@@ -0,0 +1,211 @@
+package invader.gym;
+
+import invader.Game;
+import invader.GameContext;
+import invader.level.BossLevel;
+import invader.level.EnemyLevel;
+import invader.level.Level;
+import invader.powerup.PowerUpPool;
+import invader.snapshot.GameSnapshot;
+import javafx.scene.Group;
+
+/**
+ * This class is a training environment for agents that learn to play the game: reset starts an episode on a level, and
+ * each step plays one action for one frame and reports what the agent sees, the reward, and whether the episode is over.
+ *
+ * The environment is stepped as fast as the caller asks rather than by an animation, so its speed is only limited by the
+ * game's own logic; each step still advances the game timer by one frame, so an episode plays out exactly as it would on
+ * screen. Levels are created with a seed (see Level), so resetting with the same seed and playing the same actions always
+ * gives the same episode.
+ *
+ * The actions are the moves and fire of the KeyHandler: doing nothing, LEFT, RIGHT, SPACE, and LEFT or RIGHT together with
+ * SPACE. The observation is written by Observation into an array that can be shared with other environments, and it and
+ * the step result are filled in again each step instead of being created, so stepping does not allocate; resetting creates
+ * a new level.
+ *
+ * Like the game sessions hosted by the server, an environment has no window, and is only touched by the thread stepping it.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class InvaderEnv implements GameContext {
+    public static final int ACTION_NOTHING = 0;
+    public static final int ACTION_LEFT = 1;
+    public static final int ACTION_RIGHT = 2;
+    public static final int ACTION_FIRE = 3;
+    public static final int ACTION_LEFT_FIRE = 4;
+    public static final int ACTION_RIGHT_FIRE = 5;
+    public static final int NUM_ACTIONS = 6;
+    public static final double LIFE_LOST_PENALTY = 100;
+    public static final int DEFAULT_MAX_EPISODE_STEPS = 3 * 60 * Game.FRAMES_PER_SECOND;
+
+    private final Group root = new Group();
+    private final PowerUpPool powerUpPool = new PowerUpPool();
+    private final int levelNumber;
+    private final int maxEpisodeSteps;
+    private final float[] observation;
+    private final int offset;
+    private final StepResult result;
+    private final GameSnapshot snapshot = Observation.createSnapshot();
+    private Level level;
+    private double gameTimer = 0;
+    private int episodeSteps = 0;
+    private int points = 0;
+    private boolean isLevelOver = false;
+
+    /**
+     * Create an environment with its own observation array
+     * @param levelNumber the level each episode is played on
+     */
+    public InvaderEnv(int levelNumber) {
+        this(levelNumber, DEFAULT_MAX_EPISODE_STEPS, new float[Observation.SIZE], 0);
+    }
+
+    /**
+     * Create an environment that writes its observation into part of a shared array
+     * @param levelNumber the level each episode is played on
+     * @param maxEpisodeSteps how many steps an episode may last before it is cut off
+     * @param observation the array to write the observation into
+     * @param offset where in the array the observation starts
+     */
+    public InvaderEnv(int levelNumber, int maxEpisodeSteps, float[] observation, int offset) {
+        this.levelNumber = levelNumber;
+        this.maxEpisodeSteps = maxEpisodeSteps;
+        this.observation = observation;
+        this.offset = offset;
+        result = new StepResult(observation, offset);
+    }
+
+    /**
+     * Start a new episode, replacing the level being played with a new one
+     * @param seed seed for the new level; the same seed and actions always give the same episode
+     * @return the observation array, holding the first observation of the episode from the environment's offset
+     */
+    public float[] reset(long seed) {
+        if (level != null) level.clearLevel();
+        gameTimer = 0;
+        episodeSteps = 0;
+        points = 0;
+        isLevelOver = false;
+        if (levelNumber == Game.MAX_LEVEL) level = new BossLevel(root, levelNumber, this, seed);
+        else level = new EnemyLevel(root, levelNumber, this, seed, 1);
+        observe();
+        return observation;
+    }
+
+    /**
+     * Play one action for one frame
+     * @param action one of the ACTION constants
+     * @return the result of the step, which is the same object every step
+     */
+    public StepResult step(int action) {
+        int pointsBefore = points;
+        int livesBefore = level.getSpaceship(0).getLives();
+        episodeSteps++;
+        gameTimer += Game.SECOND_DELAY;
+        if (action == ACTION_LEFT || action == ACTION_LEFT_FIRE) level.moveSpaceship(false);
+        if (action == ACTION_RIGHT || action == ACTION_RIGHT_FIRE) level.moveSpaceship(true);
+        if (action == ACTION_FIRE || action == ACTION_LEFT_FIRE || action == ACTION_RIGHT_FIRE) {
+            level.attemptSpaceshipFire(gameTimer);
+        }
+        level.handleEntitiesAndLasers(gameTimer, Game.SECOND_DELAY);
+        observe();
+        int livesLost = Math.max(0, livesBefore - level.getSpaceship(0).getLives());
+        boolean isTruncated = !isLevelOver && episodeSteps >= maxEpisodeSteps;
+        result.set(points - pointsBefore - livesLost * LIFE_LOST_PENALTY, isLevelOver || isTruncated, isTruncated);
+        return result;
+    }
+
+    /**
+     * Remove everything in the level being played
+     */
+    public void close() {
+        if (level != null) level.clearLevel();
+        level = null;
+    }
+
+    /**
+     * Get the points scored so far in the episode
+     * @return the episode's points
+     */
+    public int getPoints() {
+        return points;
+    }
+
+    /**
+     * Get how many steps have been played in the episode
+     * @return the episode's steps
+     */
+    public int getEpisodeSteps() {
+        return episodeSteps;
+    }
+
+    /**
+     * Get the level being played
+     * @return the current level, or null before the first reset
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    @Override
+    public double getGameTimer() {
+        return gameTimer;
+    }
+
+    @Override
+    public void setMenuActive(boolean isMenuActive) {
+        // the episode ends when a menu would be shown, which the create methods record
+    }
+
+    @Override
+    public void setGameOverMenuActive(boolean isGameOverMenuActive) {
+        // the episode ends when a menu would be shown, which the create methods record
+    }
+
+    @Override
+    public void updateLifeCountDisplay(int lives) {
+        // read from the spaceship when the reward is worked out
+    }
+
+    @Override
+    public void updateLevelNumberDisplay(int levelNumber) {
+        // an environment stays on the level it was created with
+    }
+
+    @Override
+    public void updatePointsDisplay(int pointsEarned) {
+        points += pointsEarned;
+    }
+
+    @Override
+    public void createGameOverMenu() {
+        isLevelOver = true;
+    }
+
+    @Override
+    public void createVictoryMenu() {
+        isLevelOver = true;
+    }
+
+    @Override
+    public void createBossLevelMenu() {
+        isLevelOver = true;
+    }
+
+    @Override
+    public void createLevelIntermissionMenu() {
+        isLevelOver = true;
+    }
+
+    @Override
+    public PowerUpPool getPowerUpPool() {
+        return powerUpPool;
+    }
+
+    private void observe() {
+        level.captureSnapshot(snapshot);
+        Observation.encode(snapshot, observation, offset);
+    }
+}
@@ -0,0 +1,141 @@
+package invader.gym;
+
+import invader.Game;
+import invader.entity.Spaceship;
+import invader.snapshot.GameSnapshot;
+
+/**
+ * This class turns a snapshot of a level into the flat array of floats that a training environment hands to its agent.
+ *
+ * The layout is fixed so that every observation has the same length whatever the level: a header with the spaceship, the
+ * formation, and the boss, then the lives of each enemy in the grid, then the projectiles (the enemies' first, so they are
+ * the last to be left out), then the falling power ups. Positions are scaled to the size of the game, so they run from 0
+ * to 1 while on screen; lives and power up types are kept as they are. Empty slots are left at zero, and each projectile
+ * and power up has a flag that says whether its slot is in use.
+ *
+ * Encoding writes into an array the caller owns, from a given offset, so that a vectorized environment can keep the
+ * observations of all of its environments side by side in one array and nothing is allocated per step.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class Observation {
+    public static final int MAX_ENEMIES = 64;
+    public static final int MAX_PROJECTILES = 32;
+    public static final int MAX_POWER_UPS = 4;
+    // the snapshot keeps more projectiles than the observation, so the enemies' are not crowded out by the spaceship's
+    public static final int SNAPSHOT_PROJECTILES = 4 * MAX_PROJECTILES;
+
+    // the values at the start of every observation
+    public static final int LEVEL_NUMBER = 0;
+    public static final int LIVES = 1;
+    public static final int SPACESHIP_X = 2;
+    public static final int SPACESHIP_Y = 3;
+    public static final int FORMATION_X = 4;
+    public static final int FORMATION_Y = 5;
+    public static final int BOSS_LIVES = 6;
+    public static final int BOSS_X = 7;
+    public static final int BOSS_Y = 8;
+    public static final int BOSS_VULNERABLE = 9;
+    public static final int HEADER_SIZE = 10;
+
+    // the values stored for each projectile and power up
+    public static final int VALUES_PER_OBJECT = 4;
+    public static final int OBJECT_PRESENT = 0;
+    public static final int OBJECT_KIND = 1;
+    public static final int OBJECT_X = 2;
+    public static final int OBJECT_Y = 3;
+
+    public static final int ENEMY_START = HEADER_SIZE;
+    public static final int PROJECTILE_START = ENEMY_START + MAX_ENEMIES;
+    public static final int POWER_UP_START = PROJECTILE_START + MAX_PROJECTILES * VALUES_PER_OBJECT;
+    public static final int SIZE = POWER_UP_START + MAX_POWER_UPS * VALUES_PER_OBJECT;
+
+    // private constructor so that this class is not accidentally instantiated
+    private Observation() {
+        //not called
+    }
+
+    /**
+     * Create a snapshot with room for everything an observation can hold, to be filled in by the level each step
+     * @return an empty snapshot
+     */
+    public static GameSnapshot createSnapshot() {
+        return new GameSnapshot(MAX_ENEMIES, SNAPSHOT_PROJECTILES, MAX_POWER_UPS);
+    }
+
+    /**
+     * Write the observation of a level into part of an array
+     * @param snapshot the level's snapshot for this step
+     * @param observation the array to write into
+     * @param offset where in the array the observation starts; SIZE values are written from there
+     */
+    public static void encode(GameSnapshot snapshot, float[] observation, int offset) {
+        observation[offset + LEVEL_NUMBER] = snapshot.get(GameSnapshot.LEVEL_NUMBER);
+        observation[offset + LIVES] = (float) snapshot.get(GameSnapshot.LIVES) / Spaceship.DEFAULT_LIVES;
+        observation[offset + SPACESHIP_X] = scaleX(snapshot.get(GameSnapshot.SPACESHIP_X));
+        observation[offset + SPACESHIP_Y] = scaleY(snapshot.get(GameSnapshot.SPACESHIP_Y));
+        observation[offset + FORMATION_X] = scaleX(snapshot.get(GameSnapshot.FORMATION_X));
+        observation[offset + FORMATION_Y] = scaleY(snapshot.get(GameSnapshot.FORMATION_Y));
+        observation[offset + BOSS_LIVES] = snapshot.get(GameSnapshot.BOSS_LIVES);
+        observation[offset + BOSS_X] = scaleX(snapshot.get(GameSnapshot.BOSS_X));
+        observation[offset + BOSS_Y] = scaleY(snapshot.get(GameSnapshot.BOSS_Y));
+        observation[offset + BOSS_VULNERABLE] = snapshot.get(GameSnapshot.BOSS_VULNERABLE);
+        int enemies = Math.min(MAX_ENEMIES,
+                snapshot.get(GameSnapshot.FORMATION_ROWS) * snapshot.get(GameSnapshot.FORMATION_COLUMNS));
+        for (int index = 0; index < MAX_ENEMIES; index++) {
+            observation[offset + ENEMY_START + index] = index < enemies
+                    ? snapshot.getEnemy(index, GameSnapshot.ENEMY_LIVES) : 0;
+        }
+        int slot = encodeProjectiles(snapshot, observation, offset, 0, true);
+        slot = encodeProjectiles(snapshot, observation, offset, slot, false);
+        for (; slot < MAX_PROJECTILES; slot++) {
+            clearObject(observation, offset + PROJECTILE_START + slot * VALUES_PER_OBJECT);
+        }
+        int powerUps = snapshot.get(GameSnapshot.POWER_UP_COUNT);
+        for (slot = 0; slot < MAX_POWER_UPS; slot++) {
+            int start = offset + POWER_UP_START + slot * VALUES_PER_OBJECT;
+            if (slot >= powerUps) {
+                clearObject(observation, start);
+                continue;
+            }
+            setObject(observation, start, snapshot.getPowerUp(slot, GameSnapshot.OBJECT_KIND),
+                    snapshot.getPowerUp(slot, GameSnapshot.OBJECT_X), snapshot.getPowerUp(slot, GameSnapshot.OBJECT_Y));
+        }
+    }
+
+    // the kind of a projectile in the observation is its kind in the snapshot, which is odd for the enemies' projectiles
+    private static int encodeProjectiles(GameSnapshot snapshot, float[] observation, int offset, int slot, boolean isEvil) {
+        int projectiles = snapshot.get(GameSnapshot.PROJECTILE_COUNT);
+        for (int index = 0; index < projectiles && slot < MAX_PROJECTILES; index++) {
+            int kind = snapshot.getProjectile(index, GameSnapshot.OBJECT_KIND);
+            if ((kind % 2 == 1) != isEvil) continue;
+            setObject(observation, offset + PROJECTILE_START + slot * VALUES_PER_OBJECT, kind,
+                    snapshot.getProjectile(index, GameSnapshot.OBJECT_X), snapshot.getProjectile(index, GameSnapshot.OBJECT_Y));
+            slot++;
+        }
+        return slot;
+    }
+
+    private static void setObject(float[] observation, int start, int kind, int x, int y) {
+        observation[start + OBJECT_PRESENT] = 1;
+        observation[start + OBJECT_KIND] = kind;
+        observation[start + OBJECT_X] = scaleX(x);
+        observation[start + OBJECT_Y] = scaleY(y);
+    }
+
+    private static void clearObject(float[] observation, int start) {
+        for (int value = 0; value < VALUES_PER_OBJECT; value++) {
+            observation[start + value] = 0;
+        }
+    }
+
+    private static float scaleX(int quantized) {
+        return (float) (GameSnapshot.toPixels(quantized) / Game.GAME_WIDTH);
+    }
+
+    private static float scaleY(int quantized) {
+        return (float) (GameSnapshot.toPixels(quantized) / Game.GAME_HEIGHT);
+    }
+}
@@ -0,0 +1,76 @@
+package invader.gym;
+
+/**
+ * This class holds what a training environment returns from a step: the observation after the step, the reward earned
+ * during it, and whether the episode is over.
+ *
+ * An environment returns the same result object from every step and fills it in again, so that stepping does not allocate;
+ * anything that has to be kept past the next step should be copied out.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class StepResult {
+    private final float[] observation;
+    private final int offset;
+    private double reward;
+    private boolean isDone;
+    private boolean isTruncated;
+
+    /**
+     * Create a result that refers to an environment's observation
+     * @param observation the array the environment writes its observation into
+     * @param offset where in the array the environment's observation starts
+     */
+    StepResult(float[] observation, int offset) {
+        this.observation = observation;
+        this.offset = offset;
+    }
+
+    /**
+     * Get the array holding the observation after the step, which may hold other environments' observations too
+     * @return the observation array; the observation is Observation.SIZE values from getOffset
+     */
+    public float[] getObservation() {
+        return observation;
+    }
+
+    /**
+     * Get where the observation starts in the observation array
+     * @return the offset of the observation
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Get the reward earned during the step
+     * @return the points scored, less a penalty for each life lost
+     */
+    public double getReward() {
+        return reward;
+    }
+
+    /**
+     * Check whether the episode is over, either because the level ended or it ran out of steps
+     * @return whether the environment should be reset before stepping again
+     */
+    public boolean isDone() {
+        return isDone;
+    }
+
+    /**
+     * Check whether the episode was cut off because it ran out of steps, rather than because the level ended
+     * @return whether the episode ran out of steps
+     */
+    public boolean isTruncated() {
+        return isTruncated;
+    }
+
+    void set(double reward, boolean isDone, boolean isTruncated) {
+        this.reward = reward;
+        this.isDone = isDone;
+        this.isTruncated = isTruncated;
+    }
+}
@@ -0,0 +1,198 @@
+package invader.gym;
+
+import invader.Game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class steps many independent training environments together, spread across a fixed pool of threads, so that an
+ * agent can be trained on a batch of episodes at once.
+ *
+ * The environments are split into one contiguous group per thread, and each group is stepped by its thread in order. The
+ * observations of all the environments are kept side by side in one array, Observation.SIZE values each, with the rewards
+ * and done flags in arrays of their own, so a batch can be handed to the agent as it is. An environment whose episode ends
+ * is reset straight away with the next seed of its own sequence, like the environments of a Gym vector environment, so
+ * the observation it reports is the first of its new episode.
+ *
+ * Since each environment is only ever stepped by its own group's thread, and the environments share nothing that is not
+ * already safe to share (see GameServer), the batch comes out the same whatever the number of threads.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class VectorEnv {
+    public static final int DEFAULT_ENVS = 64;
+    public static final int DEFAULT_SECONDS = 10;
+    public static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final InvaderEnv[] envs;
+    private final long[] nextSeeds;
+    private final float[] observations;
+    private final double[] rewards;
+    private final boolean[] dones;
+    private final ExecutorService executor;
+    private final List<Callable<Void>> groups = new ArrayList<>();
+    private int[] actions;
+
+    /**
+     * Create a batch of environments
+     * @param numEnvs how many environments to step together
+     * @param levelNumber the level every episode is played on
+     * @param threads how many threads share the stepping
+     */
+    public VectorEnv(int numEnvs, int levelNumber, int threads) {
+        envs = new InvaderEnv[numEnvs];
+        nextSeeds = new long[numEnvs];
+        observations = new float[numEnvs * Observation.SIZE];
+        rewards = new double[numEnvs];
+        dones = new boolean[numEnvs];
+        for (int env = 0; env < numEnvs; env++) {
+            envs[env] = new InvaderEnv(levelNumber, InvaderEnv.DEFAULT_MAX_EPISODE_STEPS, observations,
+                    env * Observation.SIZE);
+        }
+        int groupCount = Math.max(1, Math.min(threads, numEnvs));
+        executor = Executors.newFixedThreadPool(groupCount);
+        for (int group = 0; group < groupCount; group++) {
+            int first = group * numEnvs / groupCount;
+            int last = (group + 1) * numEnvs / groupCount;
+            groups.add(() -> {
+                stepGroup(first, last);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Start a new episode in every environment
+     * @param seed seed for the batch; environment i starts with seed + i, and each later episode of it adds the number of
+     *             environments again, so no two episodes in the batch share a seed
+     * @return the observations of every environment, Observation.SIZE values each
+     */
+    public float[] reset(long seed) {
+        for (int env = 0; env < envs.length; env++) {
+            envs[env].reset(seed + env);
+            nextSeeds[env] = seed + env + envs.length;
+            rewards[env] = 0;
+            dones[env] = false;
+        }
+        return observations;
+    }
+
+    /**
+     * Step every environment once, in parallel, resetting any whose episode ends
+     * @param actions the action for each environment, one of InvaderEnv's ACTION constants
+     * @return the observations of every environment after the step, Observation.SIZE values each
+     */
+    public float[] step(int[] actions) {
+        this.actions = actions;
+        try {
+            for (Future<Void> group : executor.invokeAll(groups)) {
+                group.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return observations;
+    }
+
+    /**
+     * Stop the threads and remove everything in every environment
+     */
+    public void close() {
+        executor.shutdown();
+        for (InvaderEnv env : envs) env.close();
+    }
+
+    /**
+     * Get how many environments are stepped together
+     * @return the number of environments
+     */
+    public int getNumEnvs() {
+        return envs.length;
+    }
+
+    /**
+     * Get the observations of every environment
+     * @return the observation array, Observation.SIZE values for each environment in turn
+     */
+    public float[] getObservations() {
+        return observations;
+    }
+
+    /**
+     * Get the reward each environment earned in the last step
+     * @return the rewards, one for each environment
+     */
+    public double[] getRewards() {
+        return rewards;
+    }
+
+    /**
+     * Get whether each environment's episode ended in the last step, in which case it has already been reset
+     * @return the done flags, one for each environment
+     */
+    public boolean[] getDones() {
+        return dones;
+    }
+
+    /**
+     * Get one of the environments in the batch
+     * @param env index of the environment
+     * @return the environment
+     */
+    public InvaderEnv getEnv(int env) {
+        return envs[env];
+    }
+
+    private void stepGroup(int first, int last) {
+        for (int env = first; env < last; env++) {
+            StepResult result = envs[env].step(actions[env]);
+            rewards[env] = result.getReward();
+            dones[env] = result.isDone();
+            if (result.isDone()) {
+                envs[env].reset(nextSeeds[env]);
+                nextSeeds[env] += envs.length;
+            }
+        }
+    }
+
+    /**
+     * Step a batch of environments with random actions for a while and report how many steps were taken per second
+     * @param args the number of environments, the number of seconds to run, and the number of threads, which default to
+     *             64, 10, and one per core
+     */
+    public static void main(String[] args) {
+        int numEnvs = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ENVS;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        VectorEnv vectorEnv = new VectorEnv(numEnvs, Game.MIN_LEVEL, threads);
+        Random random = new Random(0);
+        int[] actions = new int[numEnvs];
+        vectorEnv.reset(0);
+        long steps = 0;
+        long start = System.nanoTime();
+        long end = start + seconds * NANOS_PER_SECOND;
+        while (System.nanoTime() < end) {
+            for (int env = 0; env < numEnvs; env++) actions[env] = random.nextInt(InvaderEnv.NUM_ACTIONS);
+            vectorEnv.step(actions);
+            steps += numEnvs;
+        }
+        double elapsedSeconds = (double) (System.nanoTime() - start) / NANOS_PER_SECOND;
+        System.out.printf("%d environments on %d threads: %.0f steps per second (a window plays %d)%n",
+                numEnvs, threads, steps / elapsedSeconds, Game.FRAMES_PER_SECOND);
+        vectorEnv.close();
+        System.exit(0);
+    }
+}
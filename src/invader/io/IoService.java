@@ -0,0 +1,156 @@
+package invader.io;
+
+import javafx.application.Platform;
+
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * This class does every file access of the game, such as reading the level files and the high scores or writing to the
+ * error log, on a thread of its own, so that a slow disk never holds up the JavaFX application thread or a game's step.
+ *
+ * Each method returns at once with a future of what it reads or writes. A caller on the JavaFX application thread should
+ * handle the result there too, by passing FX_THREAD to the future's async methods, which hands it to Platform.runLater.
+ * Files are read and written one at a time, in the order they were asked for, so a file that is written and then read
+ * is read as it was written. Resources, such as the level files, never change while the game runs, so each is only read
+ * once and the same future is given to everything that asks for it.
+ *
+ * The thread is started when there is something to do and stops after IDLE_SECONDS with nothing to do; it is not a daemon,
+ * so a write that was asked for before the game quit is not lost, and flush waits for every write asked for so far.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class IoService {
+    public static final String THREAD_NAME = "game-io";
+    public static final long IDLE_SECONDS = 1;
+    public static final long FLUSH_TIMEOUT_SECONDS = 5;
+    public static final Executor FX_THREAD = Platform::runLater;
+
+    private static final IoService DEFAULT = new IoService();
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, CompletableFuture<String>> resources = new ConcurrentHashMap<>();
+
+    /**
+     * Create a service with a thread of its own
+     */
+    public IoService() {
+        executor = new ThreadPoolExecutor(1, 1, IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, THREAD_NAME));
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get the service every part of the game shares
+     * @return the game's I/O service
+     */
+    public static IoService getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Read a resource, such as a level file, as text, reading it only the first time it is asked for
+     * @param resourcePath path of the resource, from the root of the resources
+     * @return the text of the resource, or a failed future if there is no such resource
+     */
+    public CompletableFuture<String> readResource(String resourcePath) {
+        return resources.computeIfAbsent(resourcePath, path -> submit(() -> {
+            try (InputStream in = IoService.class.getResourceAsStream(path)) {
+                if (in == null) throw new FileNotFoundException(path);
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }));
+    }
+
+    /**
+     * Read every line of a file
+     * @param filePath path of the file
+     * @return the lines of the file
+     */
+    public CompletableFuture<List<String>> readLines(String filePath) {
+        return submit(() -> Files.readAllLines(Paths.get(filePath), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write lines to a file, replacing what it held
+     * @param filePath path of the file
+     * @param lines the lines to write
+     * @return a future that completes once the lines are written
+     */
+    public CompletableFuture<Void> writeLines(String filePath, List<String> lines) {
+        return submit(() -> {
+            Files.write(Paths.get(filePath), lines, StandardCharsets.UTF_8);
+            return null;
+        });
+    }
+
+    /**
+     * Add text to the end of a file, creating the file if there is none
+     * @param filePath path of the file
+     * @param text the text to add
+     * @return a future that completes once the text is written
+     */
+    public CompletableFuture<Void> append(String filePath, String text) {
+        return submit(() -> {
+            Files.write(Paths.get(filePath), text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+            return null;
+        });
+    }
+
+    /**
+     * Wait for every read and write asked for so far to finish, such as before the game quits
+     * @return whether they finished within FLUSH_TIMEOUT_SECONDS
+     */
+    public boolean flush() {
+        try {
+            // files are accessed in order, so everything asked for before this is done once it is
+            submit(() -> null).get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return true;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Get if the current thread is the one files are accessed on
+     * @return whether this is the service's thread
+     */
+    public static boolean isIoThread() {
+        return Thread.currentThread().getName().equals(THREAD_NAME);
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            }
+            catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+}
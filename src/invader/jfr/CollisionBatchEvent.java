@@ -0,0 +1,34 @@
+package invader.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This event records one batch of collision checks, such as every spaceship projectile against the enemy formation, with
+ * how many projectiles and checks it took and how many hits it found.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+@Name(GameEvents.PREFIX + "CollisionBatch")
+@Label("Collision Batch")
+@Description("Projectiles checked against a target in one step")
+@Category(GameEvents.CATEGORY)
+@StackTrace(false)
+public class CollisionBatchEvent extends jdk.jfr.Event {
+    @Label("Target")
+    String target;
+
+    @Label("Projectiles")
+    int projectiles;
+
+    @Label("Checks")
+    int checks;
+
+    @Label("Hits")
+    int hits;
+}
@@ -0,0 +1,200 @@
+package invader.jfr;
+
+/**
+ * This class starts and commits the game's flight recorder events, so that the game's code can record them without caring
+ * whether a recording is running.
+ *
+ * The events of a tick (the tick itself, the phases of a level, and the collision batches) are only created while a
+ * recording has them enabled, which each begin method checks on a probe event kept for that purpose; otherwise it returns
+ * null, which every commit method accepts, so a tick allocates nothing for events when the game is not being recorded. The
+ * rarer events (loading a level, say) are created as JFR usually expects, and simply not recorded when disabled.
+ *
+ * The events are enabled by the settings in SETTINGS_FILE, which also turn on the JDK's own GC, compilation, safepoint and
+ * I/O events, so that one recording shows what the game and the JVM were each doing.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class GameEvents {
+    public static final String PREFIX = "invader.";
+    public static final String CATEGORY = "Invader";
+    public static final String SETTINGS_FILE = "resources/invader.jfc";
+    public static final String FORMATION_TARGET = "formation";
+
+    private static final TickEvent TICK_PROBE = new TickEvent();
+    private static final LevelPhaseEvent PHASE_PROBE = new LevelPhaseEvent();
+    private static final CollisionBatchEvent COLLISION_PROBE = new CollisionBatchEvent();
+
+    // private constructor so that this class is not accidentally instantiated
+    private GameEvents() {
+        //not called
+    }
+
+    /**
+     * Start recording a tick
+     * @return the started event, or null if ticks are not being recorded
+     */
+    public static TickEvent beginTick() {
+        if (!TICK_PROBE.isEnabled()) return null;
+        TickEvent event = new TickEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Finish recording a tick
+     * @param event the event from beginTick, which may be null
+     * @param levelNumber the level being played, or 0 if the game has not started
+     * @param isMenuActive whether a menu was showing during the tick
+     */
+    public static void endTick(TickEvent event, int levelNumber, boolean isMenuActive) {
+        if (event == null) return;
+        event.levelNumber = levelNumber;
+        event.isMenuActive = isMenuActive;
+        event.commit();
+    }
+
+    /**
+     * Start recording a phase of a level's step
+     * @param phase the phase, one of the names in LevelPhaseEvent
+     * @param levelNumber the level being played
+     * @return the started event, or null if phases are not being recorded
+     */
+    public static LevelPhaseEvent beginPhase(String phase, int levelNumber) {
+        if (!PHASE_PROBE.isEnabled()) return null;
+        LevelPhaseEvent event = new LevelPhaseEvent();
+        event.phase = phase;
+        event.levelNumber = levelNumber;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Finish recording a phase and start recording the one after it
+     * @param event the event of the phase that just finished, which may be null
+     * @param phase the next phase
+     * @param levelNumber the level being played
+     * @return the started event, or null if phases are not being recorded
+     */
+    public static LevelPhaseEvent nextPhase(LevelPhaseEvent event, String phase, int levelNumber) {
+        endPhase(event);
+        return beginPhase(phase, levelNumber);
+    }
+
+    /**
+     * Finish recording a phase
+     * @param event the event from beginPhase or nextPhase, which may be null
+     */
+    public static void endPhase(LevelPhaseEvent event) {
+        if (event != null) event.commit();
+    }
+
+    /**
+     * Start recording a batch of collision checks
+     * @return the started event, or null if collision batches are not being recorded
+     */
+    public static CollisionBatchEvent beginCollisionBatch() {
+        if (!COLLISION_PROBE.isEnabled()) return null;
+        CollisionBatchEvent event = new CollisionBatchEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Finish recording a batch of collision checks
+     * @param event the event from beginCollisionBatch, which may be null
+     * @param target what the projectiles were checked against, such as FORMATION_TARGET or an entity's class
+     * @param projectiles how many projectiles were checked
+     * @param checks how many projectile and target pairs were checked
+     * @param hits how many projectiles hit
+     */
+    public static void endCollisionBatch(CollisionBatchEvent event, String target, int projectiles, int checks, int hits) {
+        if (event == null) return;
+        event.target = target;
+        event.projectiles = projectiles;
+        event.checks = checks;
+        event.hits = hits;
+        event.commit();
+    }
+
+    /**
+     * Start recording a level being created
+     * @return the started event
+     */
+    public static LevelLoadEvent beginLevelLoad() {
+        LevelLoadEvent event = new LevelLoadEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Finish recording a level being created
+     * @param event the event from beginLevelLoad
+     * @param levelNumber the level's number
+     * @param levelType the level's class, such as EnemyLevel
+     */
+    public static void endLevelLoad(LevelLoadEvent event, int levelNumber, String levelType) {
+        event.levelNumber = levelNumber;
+        event.levelType = levelType;
+        event.commit();
+    }
+
+    /**
+     * Start recording a level file being read; the caller commits the event once the file is read
+     * @param levelFile path of the level file
+     * @return the started event
+     */
+    public static LevelFileReadEvent beginLevelFileRead(String levelFile) {
+        LevelFileReadEvent event = new LevelFileReadEvent();
+        event.levelFile = levelFile;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Start recording the game going from one level to another; the caller commits the event once the new level is loaded
+     * @param fromLevel the level being left
+     * @param toLevel the level being gone to
+     * @return the started event
+     */
+    public static LevelTransitionEvent beginLevelTransition(int fromLevel, int toLevel) {
+        LevelTransitionEvent event = new LevelTransitionEvent();
+        event.fromLevel = fromLevel;
+        event.toLevel = toLevel;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Start recording the high score file being written
+     * @return the started event
+     */
+    public static HighScoreWriteEvent beginHighScoreWrite() {
+        HighScoreWriteEvent event = new HighScoreWriteEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Finish recording the high score file being written
+     * @param event the event from beginHighScoreWrite
+     * @param entries how many high scores were written
+     */
+    public static void endHighScoreWrite(HighScoreWriteEvent event, int entries) {
+        event.entries = entries;
+        event.commit();
+    }
+
+    /**
+     * Start recording an image being loaded; the caller commits the event once the image is loaded
+     * @param imageName name of the image file
+     * @return the started event
+     */
+    public static ImageLoadEvent beginImageLoad(String imageName) {
+        ImageLoadEvent event = new ImageLoadEvent();
+        event.imageName = imageName;
+        event.begin();
+        return event;
+    }
+}
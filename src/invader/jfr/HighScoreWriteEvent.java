@@ -0,0 +1,22 @@
+package invader.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This event records the high score file being written.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+@Name(GameEvents.PREFIX + "HighScoreWrite")
+@Label("High Score Write")
+@Description("The high score file being written")
+@Category(GameEvents.CATEGORY)
+public class HighScoreWriteEvent extends jdk.jfr.Event {
+    @Label("Entries")
+    int entries;
+}
@@ -0,0 +1,22 @@
+package invader.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This event records an image being loaded for a moving object.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+@Name(GameEvents.PREFIX + "ImageLoad")
+@Label("Image Load")
+@Description("An image being loaded for a moving object")
+@Category(GameEvents.CATEGORY)
+public class ImageLoadEvent extends jdk.jfr.Event {
+    @Label("Image Name")
+    String imageName;
+}
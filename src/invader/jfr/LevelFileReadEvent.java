@@ -0,0 +1,23 @@
+package invader.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This event records a level getting the lines of its file, which are read once on the I/O thread (see IoService), so it
+ * is only long when the level had to wait for its file to be read.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+@Name(GameEvents.PREFIX + "LevelFileRead")
+@Label("Level File Read")
+@Description("A level getting the lines of its file, waiting for them if the file is still being read")
+@Category(GameEvents.CATEGORY)
+public class LevelFileReadEvent extends jdk.jfr.Event {
+    @Label("Level File")
+    String levelFile;
+}
@@ -0,0 +1,25 @@
+package invader.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This event records a level being created, including reading its file and adding its nodes to the scene.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+@Name(GameEvents.PREFIX + "LevelLoad")
+@Label("Level Load")
+@Description("A level being created")
+@Category(GameEvents.CATEGORY)
+public class LevelLoadEvent extends jdk.jfr.Event {
+    @Label("Level Number")
+    int levelNumber;
+
+    @Label("Level Type")
+    String levelType;
+}
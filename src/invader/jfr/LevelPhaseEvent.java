@@ -0,0 +1,39 @@
+package invader.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This event records one phase of a level's step, such as moving the nodes or checking the spaceship's projectiles, so that
+ * a slow tick can be traced to the part of the level that took the time.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+@Name(GameEvents.PREFIX + "LevelPhase")
+@Label("Level Phase")
+@Description("One phase of handling the entities and lasers of a level")
+@Category(GameEvents.CATEGORY)
+@StackTrace(false)
+public class LevelPhaseEvent extends jdk.jfr.Event {
+    public static final String MOVE_NODES = "moveNodes";
+    public static final String MOVE_EVIL_ENTITIES = "moveEvilEntities";
+    public static final String BUNKERS = "bunkers";
+    public static final String EVIL_ENTITY_LASERS = "evilEntityLasers";
+    public static final String BOSS_FIRE = "bossFire";
+    public static final String BOSS_VULNERABILITY = "bossVulnerability";
+    public static final String BOSS_PATTERNS = "bossPatterns";
+    public static final String SPACESHIP_PROJECTILES = "spaceshipProjectiles";
+    public static final String POWER_UPS = "powerUps";
+    public static final String VICTORY_CHECK = "victoryCheck";
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Level Number")
+    int levelNumber;
+}
@@ -0,0 +1,25 @@
+package invader.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This event records the game going from one level to another, including clearing the old level and loading the new one.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+@Name(GameEvents.PREFIX + "LevelTransition")
+@Label("Level Transition")
+@Description("The game going from one level to another")
+@Category(GameEvents.CATEGORY)
+public class LevelTransitionEvent extends jdk.jfr.Event {
+    @Label("From Level")
+    int fromLevel;
+
+    @Label("To Level")
+    int toLevel;
+}
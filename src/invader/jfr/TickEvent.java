@@ -0,0 +1,27 @@
+package invader.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This event records one tick of the game, from the start of a step to its end.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+@Name(GameEvents.PREFIX + "Tick")
+@Label("Game Tick")
+@Description("One step of the game")
+@Category(GameEvents.CATEGORY)
+@StackTrace(false)
+public class TickEvent extends jdk.jfr.Event {
+    @Label("Level Number")
+    int levelNumber;
+
+    @Label("Menu Active")
+    boolean isMenuActive;
+}
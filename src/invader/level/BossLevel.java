@@ -1,12 +1,21 @@
 package invader.level;
 
 import invader.Game;
-import invader.StatusDisplay;
+import invader.GameContext;
+import invader.StateBuffer;
 import invader.entity.Boss;
-import invader.entity.Spaceship;
+import invader.jfr.GameEvents;
+import invader.jfr.LevelPhaseEvent;
+import invader.pattern.BulletPattern;
+import invader.pattern.BulletPatternEngine;
+import invader.pattern.FireballSwarm;
+import invader.projectile.Fireball;
 import invader.projectile.Projectile;
+import invader.snapshot.GameSnapshot;
 import javafx.scene.Group;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -14,6 +23,10 @@ import java.util.Scanner;
  *
  * This class handles the nodes, collisions, and game state while user fights a boss.
  *
+ * After the boss's lives, the level file can list bullet patterns, one per line (see BulletPattern), which the boss plays in
+ * turn each time it becomes vulnerable, instead of its usual blast of fireballs. Their fireballs are kept in a FireballSwarm
+ * rather than with the level's other projectiles, since there can be thousands of them.
+ *
  * @author Pierce Forte
  * @author Jeff Kim
  */
@@ -24,6 +37,10 @@ public class BossLevel extends Level {
 
     private Boss boss;
     private int bossLives;
+    // set while the level file is read, before the fields of this class are initialized
+    private List<BulletPattern> patterns;
+    private FireballSwarm fireballSwarm;
+    private BulletPatternEngine patternEngine;
     private double invulnerableTimer = 0;
 
     /**
@@ -32,36 +49,91 @@ public class BossLevel extends Level {
      * @param levelNumber: The level number the game is currently in
      * @param myGame: My game
      */
-    public BossLevel(Group root, int levelNumber, Game myGame){
+    public BossLevel(Group root, int levelNumber, GameContext myGame){
         super(root, levelNumber, myGame);
         spaceship.setLives(DEFAULT_SPACESHIP_LIVES);
-        StatusDisplay.updateLifeCountDisplay(DEFAULT_SPACESHIP_LIVES);
+        myGame.updateLifeCountDisplay(DEFAULT_SPACESHIP_LIVES);
+    }
+
+    /**
+     * Create a boss level in which the boss moves the same way every time it is created with the same seed
+     * @param root: Root of the game
+     * @param levelNumber: The level number the game is currently in
+     * @param myGame: My game
+     * @param seed: seed for the boss's random speeds
+     */
+    public BossLevel(Group root, int levelNumber, GameContext myGame, long seed){
+        super(root, levelNumber, myGame, seed, 1);
+        spaceship.setLives(DEFAULT_SPACESHIP_LIVES);
+        myGame.updateLifeCountDisplay(DEFAULT_SPACESHIP_LIVES);
     }
 
     @Override
-    public void clearLevel() {
-        clearNodesFromSceneAndLevel(spaceship);
-        clearNodesFromSceneAndLevel(boss);
-        clearNodesFromSceneAndLevel(evilEntityProjectiles);
-        clearNodesFromSceneAndLevel(spaceshipProjectiles);
+    protected void clearEntities() {
+        evilEntityProjectiles.clear();
+        spaceshipProjectiles.clear();
+        fireballSwarm.clear();
+    }
+
+    @Override
+    public void captureSnapshot(GameSnapshot snapshot) {
+        super.captureSnapshot(snapshot);
+        snapshot.set(GameSnapshot.BOSS_LIVES, boss.getLives());
+        snapshot.set(GameSnapshot.BOSS_X, GameSnapshot.quantize(boss.getX()));
+        snapshot.set(GameSnapshot.BOSS_Y, GameSnapshot.quantize(boss.getY()));
+        snapshot.set(GameSnapshot.BOSS_VULNERABLE, boss.isVulnerable() ? 1 : 0);
+        fireballSwarm.captureSnapshot(snapshot);
     }
 
     @Override
     public void addEntitiesToScene() {
-        root.getChildren().add(boss);
-        spaceship = new Spaceship(Spaceship.DEFAULT_X_POS, Spaceship.DEFAULT_Y_POS);
-        root.getChildren().add(spaceship);
+        levelNodes.add(boss);
+        levelNodes.add(fireballSwarm.getLayer());
+        addSpaceships();
+    }
+
+    @Override
+    public void saveState(StateBuffer state) {
+        super.saveState(state);
+        state.put(invulnerableTimer);
+        boss.saveState(state);
+        fireballSwarm.saveState(state);
+        patternEngine.saveState(state);
+    }
+
+    @Override
+    public void restoreState(StateBuffer state) {
+        super.restoreState(state);
+        invulnerableTimer = state.nextDouble();
+        boss.restoreState(state);
+        fireballSwarm.restoreState(state);
+        patternEngine.restoreState(state);
+        if (!levelNodes.contains(fireballSwarm.getLayer())) levelNodes.add(fireballSwarm.getLayer());
+        boolean isInScene = levelNodes.contains(boss);
+        if (boss.getLives() > 0 && !isInScene) levelNodes.add(boss);
+        else if (boss.getLives() <= 0 && isInScene) levelNodes.remove(boss);
     }
 
     @Override
     public void handleEntitiesAndLasers(double gameTimer, double elapsedTime) {
+        int levelNumber = getLevelNumber();
+        LevelPhaseEvent phase = GameEvents.beginPhase(LevelPhaseEvent.MOVE_NODES, levelNumber);
         updateNodePositionsOnStep(elapsedTime);
+        phase = GameEvents.nextPhase(phase, LevelPhaseEvent.MOVE_EVIL_ENTITIES, levelNumber);
         handleEvilEntitiesMovement();
+        phase = GameEvents.nextPhase(phase, LevelPhaseEvent.EVIL_ENTITY_LASERS, levelNumber);
         handleEvilEntityLasers(gameTimer);
+        phase = GameEvents.nextPhase(phase, LevelPhaseEvent.BOSS_FIRE, levelNumber);
         attemptBossFire();
+        phase = GameEvents.nextPhase(phase, LevelPhaseEvent.BOSS_VULNERABILITY, levelNumber);
         attemptVulnerabilitySwitch(gameTimer);
+        phase = GameEvents.nextPhase(phase, LevelPhaseEvent.BOSS_PATTERNS, levelNumber);
+        handleBossPatterns(gameTimer, elapsedTime);
+        phase = GameEvents.nextPhase(phase, LevelPhaseEvent.SPACESHIP_PROJECTILES, levelNumber);
         handleSpaceshipProjectiles();
+        phase = GameEvents.nextPhase(phase, LevelPhaseEvent.VICTORY_CHECK, levelNumber);
         attemptLevelVictory();
+        GameEvents.endPhase(phase);
     }
 
     @Override
@@ -71,6 +143,24 @@ public class BossLevel extends Level {
         }
     }
 
+    @Override
+    public int getEnemiesAlive() {
+        return boss.getLives() > 0 ? 1 : 0;
+    }
+
+    @Override
+    public int getEvilEntityProjectileCount() {
+        return super.getEvilEntityProjectileCount() + fireballSwarm.getCount();
+    }
+
+    /**
+     * Get the swarm that holds the fireballs of the boss's bullet patterns
+     * @return the level's fireball swarm
+     */
+    public FireballSwarm getFireballSwarm() {
+        return fireballSwarm;
+    }
+
     @Override
     public void addRandomPowerUp(double gameTimer) {
         return;
@@ -100,6 +190,8 @@ public class BossLevel extends Level {
     protected void createEvilEntities() {
         boss = new Boss(Game.GAME_WIDTH/2 - Boss.DEFAULT_WIDTH /2, Game.GAME_HEIGHT/2 - Boss.DEFAULT_HEIGHT /2,
                 Boss.DEFAULT_SPEED, Boss.DEFAULT_SPEED, bossLives);
+        fireballSwarm = new FireballSwarm();
+        patternEngine = new BulletPatternEngine(patterns);
     }
 
     @Override
@@ -130,16 +222,21 @@ public class BossLevel extends Level {
     protected void handleFileLines(Scanner myReader) {
         String data = myReader.nextLine();
         bossLives = Integer.parseInt(data);
+        patterns = new ArrayList<>();
+        while (myReader.hasNextLine()) {
+            String line = myReader.nextLine().trim();
+            if (!line.isEmpty()) patterns.add(BulletPattern.parse(line));
+        }
     }
 
     private void updateBossPosition() {
         if (boss.isOutOfXBounds()) {
             boss.reverseXDirection();
-            boss.setRandomSpeed();
+            boss.setRandomSpeed(random);
         }
         if (boss.isOutOfYBounds()) {
             boss.reverseYDirection();
-            boss.setRandomSpeed();
+            boss.setRandomSpeed(random);
         }
     }
 
@@ -147,6 +244,10 @@ public class BossLevel extends Level {
         if (gameTimer >= boss.getSwitchVulnerabilityTime()) {
             boss.switchVulnerabilityStatus();
             if (boss.isVulnerable()) {
+                if (patternEngine.hasPatterns()) {
+                    patternEngine.start(gameTimer);
+                    return;
+                }
                 boss.setHasBurstFire(true);
                 blastFire(boss, evilEntityProjectiles);
                 boss.setHasBurstFire(false);
@@ -154,6 +255,20 @@ public class BossLevel extends Level {
         }
     }
 
+    private void handleBossPatterns(double gameTimer, double elapsedTime) {
+        if (boss.getLives() > 0) {
+            double originX = boss.getX() + boss.getFitWidth()/2 - Fireball.WIDTH/2;
+            double originY = boss.getY() + boss.getFitHeight()/2 - Fireball.HEIGHT/2;
+            patternEngine.update(gameTimer, originX, originY, spaceship.getX() + spaceship.getFitWidth()/2 - Fireball.WIDTH/2,
+                    spaceship.getY() + spaceship.getFitHeight()/2 - Fireball.HEIGHT/2, fireballSwarm);
+        }
+        int damage = fireballSwarm.step(elapsedTime, spaceship);
+        if (damage > 0) {
+            spaceship.removeLives(damage);
+            handleSpaceshipHit(spaceship);
+        }
+    }
+
     private void attemptBossFire() {
         if (!boss.isVulnerable()) invulnerableTimer++;
         if (!boss.isVulnerable() && invulnerableTimer >= boss.getStartShootingTime()) {
@@ -1,23 +1,27 @@
 package invader.level;
 
+import invader.CollisionDetection;
 import invader.Game;
-import invader.StatusDisplay;
+import invader.GameContext;
+import invader.StateBuffer;
+import invader.bunker.Bunker;
 import invader.entity.Enemy;
 import invader.entity.Entity;
 import invader.entity.Spaceship;
-import invader.powerup.BurstFirePowerUp;
-import invader.powerup.MissilePowerUp;
+import invader.entity.SpaceshipModifier;
+import invader.jfr.CollisionBatchEvent;
+import invader.jfr.GameEvents;
+import invader.jfr.LevelPhaseEvent;
 import invader.powerup.PowerUp;
-import invader.powerup.SpaceshipSpeedPowerUp;
+import invader.powerup.PowerUpType;
+import invader.projectile.Projectile;
+import invader.snapshot.GameSnapshot;
 import javafx.scene.Group;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -26,29 +30,56 @@ import java.util.stream.IntStream;
  *
  * This class handles the nodes, collisions, and game state while user fights the enemies.
  *
+ * An enemy level can be shared by more than one player, each with their own spaceship. The enemies shoot at every spaceship,
+ * a falling power up goes to whichever spaceship reaches it first, and the level is lost as soon as any spaceship runs out
+ * of lives.
+ *
  * @author Pierce Forte
  * @author Jeff Kim
  */
 
 public class EnemyLevel extends Level {
     public static final double ENEMY_SPACING = 10;
+    // how many enemies are in each row of the level files the game comes with
     public static final int ENEMIES_PER_ROW = 9;
     public static final int ENEMY_SPEED_FACTOR_BY_LEVEL = 10;
     public static final int ENEMY_LASER_ROTATION = 0;
     public static final double DECREASE_TIME_BETWEEN_SHOTS_QUOTIENT = 30;
     public static final double PERCENT_ENEMIES_WITH_EACH_POWERUP = 0.10;
-    public static final List<Class> POWER_UP_TYPES = List.of(BurstFirePowerUp.class, MissilePowerUp.class, SpaceshipSpeedPowerUp.class);
+    public static final List<PowerUpType> POWER_UP_TYPES = List.of(PowerUpType.values());
     public static final int NUM_POWER_UP_TYPES = POWER_UP_TYPES.size();
+    public static final int NUM_BUNKERS = 4;
+    public static final int BUNKER_Y_POS = Game.GAME_HEIGHT - 110;
+    // a formation too wide or too tall for these is squeezed, its enemies overlapping, so it still fits between the walls
+    // and above the bunkers however many enemies it has
+    public static final double MAX_FORMATION_SPAN = Game.GAME_WIDTH - 2*Enemy.WIDTH;
+    public static final double MAX_FORMATION_HEIGHT = 8*Enemy.HEIGHT;
+    public static final int NO_PROJECTILE_CAP = Integer.MAX_VALUE;
+    // found by a spaceship projectile whose rectangle touched no enemy, which nothing done to the enemies during a step changes
+    public static final int NO_CONTACT = Formation.NONE - 1;
 
     private int curCheatKeyPowerUpIdNumber = 0;
+    private boolean isPoolingPowerUps = true;
 
     private int rows;
+    private int columns;
     private int numEnemies;
+    private double enemyFireRate = 1;
+    private int maxEvilEntityProjectiles = NO_PROJECTILE_CAP;
 
     private List<List<Integer>> enemyIdentifiers = new ArrayList<>();
-    private List<List<Enemy>> enemies;
+    private Formation enemies;
     private List<PowerUp> powerUps = new ArrayList<>();
-    private List<List<Class>> powerUpGrid;
+    // like projectilesToRemove, kept between steps rather than created for each one
+    private final List<PowerUp> powerUpsToRemove = new ArrayList<>();
+    // the power ups among powerUpsToRemove that fell out of the game, which go back to the pool rather than to a spaceship
+    private final List<PowerUp> powerUpsOutOfBounds = new ArrayList<>();
+    // created by addEntitiesToScene, which runs in Level's constructor before field initializers here would
+    private List<Bunker> bunkers;
+    private List<List<PowerUpType>> powerUpGrid;
+    // what each spaceship projectile, and each slot of the formation, was found to do when a step is split across cores
+    private int[] scannedTargets = new int[0];
+    private boolean[] scannedShots = new boolean[0];
 
     /**
      * Create an enemy level
@@ -56,34 +87,224 @@ public class EnemyLevel extends Level {
      * @param levelNumber: The level number the game is currently in
      * @param myGame: My game
      */
-    public EnemyLevel(Group root, int levelNumber, Game myGame){
+    public EnemyLevel(Group root, int levelNumber, GameContext myGame){
         super(root, levelNumber, myGame);
     }
 
+    /**
+     * Create an enemy level that plays out the same way every time it is created with the same seed, for one or more players;
+     * power ups dropped in this level are not returned to the game's pool, since a saved state may still refer to them
+     * @param root: Root of the game
+     * @param levelNumber: The level number the game is currently in
+     * @param myGame: My game
+     * @param seed: seed for everything random in the level
+     * @param players: how many spaceships are in the level
+     */
+    public EnemyLevel(Group root, int levelNumber, GameContext myGame, long seed, int players){
+        super(root, levelNumber, myGame, seed, players);
+        isPoolingPowerUps = false;
+    }
+
+    /**
+     * Create an enemy level from lines given in place of its level file, such as a level generated for a benchmark; like a
+     * level file, each line is a row of the formation, and the rows may be as long as each other or not
+     * @param root: Root of the game
+     * @param levelNumber: The level number the game is currently in
+     * @param myGame: My game
+     * @param seed: seed for everything random in the level
+     * @param players: how many spaceships are in the level
+     * @param levelLines: the lives of each enemy, separated by commas, one row of the formation per line
+     */
+    public EnemyLevel(Group root, int levelNumber, GameContext myGame, long seed, int players, String levelLines){
+        super(root, levelNumber, myGame, seed, players, levelLines);
+        isPoolingPowerUps = false;
+    }
+
     @Override
-    public void clearLevel() {
-        clearNodesFromSceneAndLevel(spaceship);
-        clearNodesFromSceneAndLevel(evilEntityProjectiles);
-        clearNodesFromSceneAndLevel(spaceshipProjectiles);
-        clearNodesFromSceneAndLevel(powerUps);
-        clear2dNodesFromSceneAndLevel(enemies);
+    protected void clearEntities() {
+        for (Spaceship playerSpaceship : spaceships) {
+            // collected power ups are held by the spaceship until they end, which returns them to the pool
+            playerSpaceship.getModifiers().clear(myGame.getGameTimer());
+        }
+        evilEntityProjectiles.clear();
+        spaceshipProjectiles.clear();
+        for (PowerUp powerUp : powerUps) returnToPool(powerUp);
+        powerUps.clear();
+        bunkers.clear();
+        enemies.clear();
     }
 
     @Override
     public void addEntitiesToScene() {
-        for (List<Enemy> enemyRow : enemies) root.getChildren().addAll(enemyRow);
-        spaceship = new Spaceship(Spaceship.DEFAULT_X_POS, Spaceship.DEFAULT_Y_POS);
-        root.getChildren().add(spaceship);
+        for (int row = 0; row < enemies.getRows(); row++) {
+            for (int col = enemies.nextAliveColumn(row, 0); col != Formation.NONE; col = enemies.nextAliveColumn(row, col + 1)) {
+                levelNodes.add(enemies.get(row, col));
+            }
+        }
+        addSpaceships();
+        for (Spaceship playerSpaceship : spaceships) playerSpaceship.getModifiers().setExpirationListener(this::releasePowerUp);
+        createBunkers();
     }
 
     @Override
     public void handleEntitiesAndLasers(double gameTimer, double elapsedTime) {
+        int levelNumber = getLevelNumber();
+        LevelPhaseEvent phase = GameEvents.beginPhase(LevelPhaseEvent.MOVE_NODES, levelNumber);
         updateNodePositionsOnStep(elapsedTime);
+        phase = GameEvents.nextPhase(phase, LevelPhaseEvent.MOVE_EVIL_ENTITIES, levelNumber);
         handleEvilEntitiesMovement();
+        phase = GameEvents.nextPhase(phase, LevelPhaseEvent.BUNKERS, levelNumber);
+        handleBunkers();
+        phase = GameEvents.nextPhase(phase, LevelPhaseEvent.EVIL_ENTITY_LASERS, levelNumber);
         handleEvilEntityLasers(gameTimer);
+        phase = GameEvents.nextPhase(phase, LevelPhaseEvent.SPACESHIP_PROJECTILES, levelNumber);
         handleSpaceshipProjectiles();
+        phase = GameEvents.nextPhase(phase, LevelPhaseEvent.POWER_UPS, levelNumber);
         handlePowerUps(gameTimer);
+        phase = GameEvents.nextPhase(phase, LevelPhaseEvent.VICTORY_CHECK, levelNumber);
         attemptLevelVictory();
+        GameEvents.endPhase(phase);
+    }
+
+    /**
+     * Get where a column of enemies sits in the formation
+     * @param col column of the formation
+     * @param columns how many columns the formation has
+     * @return x position of the column, relative to the leftmost column
+     */
+    public static double getSlotX(int col, int columns) {
+        return col * getSlotWidth(columns);
+    }
+
+    /**
+     * Get where a row of enemies sits in the formation
+     * @param row row of the formation
+     * @param rows how many rows the formation has
+     * @return y position of the row, relative to the top row
+     */
+    public static double getSlotY(int row, int rows) {
+        return row * getSlotHeight(rows);
+    }
+
+    /**
+     * Get how far apart the columns of a formation are
+     * @param columns how many columns the formation has
+     * @return distance from one column to the next
+     */
+    public static double getSlotWidth(int columns) {
+        if (columns <= 1) return Enemy.WIDTH + ENEMY_SPACING;
+        return Math.min(Enemy.WIDTH + ENEMY_SPACING, MAX_FORMATION_SPAN / (columns - 1));
+    }
+
+    /**
+     * Get how far apart the rows of a formation are
+     * @param rows how many rows the formation has
+     * @return distance from one row to the next
+     */
+    public static double getSlotHeight(int rows) {
+        return Math.min(Enemy.HEIGHT, MAX_FORMATION_HEIGHT / Math.max(rows, 1));
+    }
+
+    /**
+     * Make every enemy fire more or less often than it would otherwise
+     * @param enemyFireRate how many times as often each enemy fires, 1 for as often as usual
+     */
+    public void setEnemyFireRate(double enemyFireRate) {
+        this.enemyFireRate = enemyFireRate;
+    }
+
+    /**
+     * Limit how many enemy projectiles can be in the level at once; an enemy that is due to fire while there are this many
+     * waits until there are fewer
+     * @param maxEvilEntityProjectiles the most enemy projectiles, or NO_PROJECTILE_CAP for no limit
+     */
+    public void setMaxEvilEntityProjectiles(int maxEvilEntityProjectiles) {
+        this.maxEvilEntityProjectiles = maxEvilEntityProjectiles;
+    }
+
+    /**
+     * Get how many rows of enemies the level started with
+     * @return number of rows in the formation
+     */
+    public int getFormationRows() {
+        return enemies.getRows();
+    }
+
+    /**
+     * Get how many columns of enemies the level started with
+     * @return number of columns in the formation, the length of its longest row
+     */
+    public int getFormationColumns() {
+        return enemies.getColumns();
+    }
+
+    @Override
+    public void captureSnapshot(GameSnapshot snapshot) {
+        super.captureSnapshot(snapshot);
+        snapshot.set(GameSnapshot.FORMATION_ROWS, enemies.getRows());
+        snapshot.set(GameSnapshot.FORMATION_COLUMNS, enemies.getColumns());
+        int referenceRow = enemies.getLowestAliveRow();
+        if (referenceRow != Formation.NONE) {
+            // the enemies move together, so each is stored by how far it is from its slot in the formation
+            int referenceCol = enemies.nextAliveColumn(referenceRow, 0);
+            Enemy reference = enemies.get(referenceRow, referenceCol);
+            int formationX = GameSnapshot.quantize(reference.getX() - getSlotX(referenceCol, enemies.getColumns()));
+            int formationY = GameSnapshot.quantize(reference.getY() - getSlotY(referenceRow, enemies.getRows()));
+            snapshot.set(GameSnapshot.FORMATION_X, formationX);
+            snapshot.set(GameSnapshot.FORMATION_Y, formationY);
+            for (int row = 0; row < enemies.getRows(); row++) {
+                for (int col = enemies.nextAliveColumn(row, 0); col != Formation.NONE; col = enemies.nextAliveColumn(row, col + 1)) {
+                    Enemy enemy = enemies.get(row, col);
+                    snapshot.setEnemy(col + row*enemies.getColumns(), enemy.getLives(),
+                            GameSnapshot.quantize(enemy.getX() - getSlotX(col, enemies.getColumns())) - formationX,
+                            GameSnapshot.quantize(enemy.getY() - getSlotY(row, enemies.getRows())) - formationY);
+                }
+            }
+        }
+        for (PowerUp powerUp : powerUps) {
+            snapshot.addPowerUp(powerUp.getType().ordinal(), GameSnapshot.quantize(powerUp.getX()),
+                    GameSnapshot.quantize(powerUp.getY()));
+        }
+    }
+
+    @Override
+    public void saveState(StateBuffer state) {
+        super.saveState(state);
+        state.put(curCheatKeyPowerUpIdNumber);
+        for (int row = 0; row < enemies.getRows(); row++) {
+            for (int col = 0; col < enemies.getColumns(); col++) {
+                boolean isAlive = enemies.isAlive(row, col);
+                state.put(isAlive);
+                if (isAlive) enemies.get(row, col).saveState(state);
+            }
+        }
+        saveNodes(state, powerUps);
+        state.put(bunkers.size());
+        for (Bunker bunker : bunkers) {
+            state.putReference(bunker);
+            bunker.saveState(state);
+        }
+    }
+
+    @Override
+    public void restoreState(StateBuffer state) {
+        super.restoreState(state);
+        curCheatKeyPowerUpIdNumber = state.nextInt();
+        for (int row = 0; row < enemies.getRows(); row++) {
+            for (int col = 0; col < enemies.getColumns(); col++) {
+                restoreEnemy(state, row, col);
+            }
+        }
+        restoreNodes(state, powerUps);
+        levelNodes.removeAll(bunkers);
+        bunkers.clear();
+        int bunkerCount = state.nextInt();
+        for (int index = 0; index < bunkerCount; index++) {
+            Bunker bunker = state.nextReference();
+            bunker.restoreState(state);
+            bunkers.add(bunker);
+        }
+        levelNodes.addAll(bunkers);
     }
 
     @Override
@@ -93,67 +314,61 @@ public class EnemyLevel extends Level {
         }
     }
 
+    @Override
+    public int getEnemiesAlive() {
+        return enemies.getAliveCount();
+    }
+
     @Override
     public void addRandomPowerUp(double gameTimer) {
-        int randomIndex = ThreadLocalRandom.current().nextInt(0, NUM_POWER_UP_TYPES);
-        Class powerUpClass = POWER_UP_TYPES.get(randomIndex);
-        PowerUp powerUp = createPowerUpFromClassName(powerUpClass, Game.GAME_WIDTH/2,Game.GAME_HEIGHT/2,
-                PowerUp.CHEAT_POWER_UP_IDENTIFIER + curCheatKeyPowerUpIdNumber);
-        addCheatPowerUp(gameTimer, powerUp);
+        int randomIndex = random.nextInt(NUM_POWER_UP_TYPES);
+        addCheatPowerUp(gameTimer, POWER_UP_TYPES.get(randomIndex));
     }
 
     @Override
     public void addSpeedPowerUp(double gameTimer) {
-        PowerUp powerUp = new SpaceshipSpeedPowerUp(Game.GAME_WIDTH/2, Game.GAME_HEIGHT/2,
-                PowerUp.CHEAT_POWER_UP_IDENTIFIER + curCheatKeyPowerUpIdNumber);
-        addCheatPowerUp(gameTimer, powerUp);
+        addCheatPowerUp(gameTimer, PowerUpType.SPACESHIP_SPEED);
     }
 
     @Override
     public void addMissilePowerUp(double gameTimer) {
-        PowerUp powerUp = new MissilePowerUp(Game.GAME_WIDTH/2, Game.GAME_HEIGHT/2,
-                PowerUp.CHEAT_POWER_UP_IDENTIFIER + curCheatKeyPowerUpIdNumber);
-        addCheatPowerUp(gameTimer, powerUp);
+        addCheatPowerUp(gameTimer, PowerUpType.MISSILE);
     }
 
     @Override
     public void addBurstFirePowerUp(double gameTimer) {
-        PowerUp powerUp = new BurstFirePowerUp(Game.GAME_WIDTH/2, Game.GAME_HEIGHT/2,
-                PowerUp.CHEAT_POWER_UP_IDENTIFIER + curCheatKeyPowerUpIdNumber);
-        addCheatPowerUp(gameTimer, powerUp);
+        addCheatPowerUp(gameTimer, PowerUpType.BURST_FIRE);
     }
 
     @Override
     public void destroyFirstEnemy() {
-        Enemy firstEnemy = enemies.get(enemies.size()-1).get(0);
-        removeInactiveEnemies(List.of(firstEnemy));
+        int lowestRow = enemies.getLowestAliveRow();
+        if (lowestRow == Formation.NONE) return;
+        removeInactiveEnemy(lowestRow, enemies.nextAliveColumn(lowestRow, 0));
     }
 
     @Override
     protected void updateNodePositionsOnStep(double elapsedTime) {
-        for (List<Enemy> enemyRow : enemies) {
-            for (Enemy enemy : enemyRow) {
-                enemy.updatePositionOnStep(elapsedTime);
+        for (int row = 0; row < enemies.getRows(); row++) {
+            for (int col = enemies.nextAliveColumn(row, 0); col != Formation.NONE; col = enemies.nextAliveColumn(row, col + 1)) {
+                enemies.get(row, col).updatePositionOnStep(elapsedTime);
             }
         }
-        for (PowerUp powerUp: powerUps) powerUp.updatePositionOnStep(elapsedTime);
+        for (int index = 0; index < powerUps.size(); index++) powerUps.get(index).updatePositionOnStep(elapsedTime);
         updateProjectilePositionsOnStep(elapsedTime, evilEntityProjectiles);
         updateProjectilePositionsOnStep(elapsedTime, spaceshipProjectiles);
     }
 
     @Override
     protected void handleEvilEntitiesMovement() {
-        boolean reverseMovement = false;
-        for (List<Enemy> enemyRow : enemies) {
-            if (enemyRow.get(0).isOutOfXBounds() || enemyRow.get(enemyRow.size()-1).isOutOfXBounds()) {
-                reverseMovement = true;
-                break;
-            }
-        }
+        if (enemies.isEmpty()) return;
+        // only the outermost living columns of the formation can reach a wall
+        boolean reverseMovement = isColumnOutOfXBounds(enemies.getLeftmostColumn()) ||
+                isColumnOutOfXBounds(enemies.getRightmostColumn());
         if (reverseMovement) {
-            for (List<Enemy> enemyRow : enemies) {
-                for (Enemy enemy : enemyRow) {
-                    enemy.reverseXDirection();
+            for (int row = 0; row < enemies.getRows(); row++) {
+                for (int col = enemies.nextAliveColumn(row, 0); col != Formation.NONE; col = enemies.nextAliveColumn(row, col + 1)) {
+                    enemies.get(row, col).reverseXDirection();
                 }
             }
         }
@@ -161,48 +376,70 @@ public class EnemyLevel extends Level {
 
     @Override
     protected void handleEvilEntityLasers(double gameTimer) {
-        for (List<Enemy> enemyRow : enemies) {
-            for (Enemy enemy : enemyRow) {
-                attemptProjectileFire(gameTimer, enemy, evilEntityProjectiles, ENEMY_LASER_ROTATION);
-                updateTimeBetweenEnemyShots(enemy);
+        if (parallelTick.isParallel(enemies.getAliveCount())) fireFromScannedFormation(gameTimer);
+        else {
+            for (int row = 0; row < enemies.getRows(); row++) {
+                for (int col = enemies.nextAliveColumn(row, 0); col != Formation.NONE; col = enemies.nextAliveColumn(row, col + 1)) {
+                    Enemy enemy = enemies.get(row, col);
+                    attemptEnemyFire(gameTimer, enemy);
+                    updateTimeBetweenEnemyShots(enemy);
+                }
             }
         }
-        handleProjectileCollisionWithSpaceship(evilEntityProjectiles, spaceship);
+        for (int player = 0; player < spaceships.size(); player++) {
+            handleProjectileCollisionWithSpaceship(evilEntityProjectiles, spaceships.get(player));
+        }
     }
 
     @Override
     protected void handleSpaceshipProjectiles() {
-        List<Enemy> enemiesToRemove = new ArrayList<>();
-        for (List<Enemy> enemyRow : enemies) {
-            for (Enemy enemy : enemyRow) {
-                boolean isCollision = handleProjectileCollisions(spaceshipProjectiles, enemy);
-                if (enemy.getLives() <= 0) {
-                    enemiesToRemove.add(enemy);
-                    attemptToAddPowerUp(enemy);
-                } else if (isCollision){
-                    enemy.setImage(enemy.makeImage("enemy" + enemy.getLives() + ".png"));
-                }
+        CollisionBatchEvent batchEvent = GameEvents.beginCollisionBatch();
+        int checkedProjectiles = spaceshipProjectiles.size();
+        int checks = 0;
+        int hits = 0;
+        boolean isScanned = parallelTick.isParallel((long) checkedProjectiles * enemies.getAliveCount());
+        if (isScanned) {
+            scanFormationTargets();
+            checks = checkedProjectiles * enemies.getAliveCount();
+        }
+        for (int index = 0; index < spaceshipProjectiles.size(); index++) {
+            Projectile projectile = spaceshipProjectiles.get(index);
+            int target = isScanned ? scannedTargets[index] : NO_CONTACT;
+            // a hit earlier in this step changed the formation, so a projectile that touched any enemy is checked again
+            if (!isScanned || (hits > 0 && target != NO_CONTACT)) {
+                checks += enemies.getAliveCount();
+                target = findFirstEnemyHit(projectile);
+            }
+            if (target >= 0) {
+                projectilesToRemove.add(projectile);
+                damageEnemy(target / enemies.getColumns(), target % enemies.getColumns(), projectile.getDamage());
+                hits++;
+            }
+            else if (projectile.isOutOfYBounds()) {
+                projectilesToRemove.add(projectile);
             }
         }
-        removeInactiveEnemies(enemiesToRemove);
+        removeProjectiles(spaceshipProjectiles);
+        GameEvents.endCollisionBatch(batchEvent, GameEvents.FORMATION_TARGET, checkedProjectiles, checks, hits);
     }
 
     @Override
     protected void createEvilEntities() {
         createPowerUpGrid();
-        enemies = new ArrayList<>();
+        enemies = new Formation(rows, columns);
+        double slotWidth = getSlotWidth(columns);
+        double slotHeight = getSlotHeight(rows);
         // get height of first enemy row to ensure they are centered
-        double yPos = Game.GAME_HEIGHT/2.0 - Enemy.HEIGHT*rows/2.0;
-        for (int row = 0; row < enemyIdentifiers.size(); row++) {
-            List<Enemy> tempRow = new ArrayList<>();
-            double xPos = (Game.GAME_WIDTH - enemyIdentifiers.get(0).size() * (ENEMY_SPACING + Enemy.WIDTH) - ENEMY_SPACING)/2;
-            for (int col = 0; col < enemyIdentifiers.get(0).size(); col++) {
+        double yPos = Game.GAME_HEIGHT/2.0 - slotHeight*rows/2.0;
+        for (int row = 0; row < rows; row++) {
+            double xPos = (Game.GAME_WIDTH - columns * slotWidth - ENEMY_SPACING)/2;
+            // a row shorter than the longest one leaves the slots at its end empty
+            for (int col = 0; col < enemyIdentifiers.get(row).size(); col++) {
                 Enemy curEnemy = createEnemy(row, col, xPos, yPos);
-                tempRow.add(curEnemy);
-                xPos += Enemy.WIDTH + ENEMY_SPACING;
+                enemies.set(row, col, curEnemy);
+                xPos += slotWidth;
             }
-            yPos += Enemy.HEIGHT;
-            enemies.add(tempRow);
+            yPos += slotHeight;
         }
     }
 
@@ -219,116 +456,236 @@ public class EnemyLevel extends Level {
             enemyIdentifiers.add(row);
         }
         rows = this.enemyIdentifiers.size();
-        numEnemies = rows * ENEMIES_PER_ROW;
+        columns = 0;
+        numEnemies = 0;
+        for (List<Integer> row : enemyIdentifiers) {
+            columns = Math.max(columns, row.size());
+            numEnemies += row.size();
+        }
     }
 
     private Enemy createEnemy(int row, int col, double xPos, double yPos) {
-        PowerUp curPowerUp = null;
         int lives = enemyIdentifiers.get(row).get(col);
-        if (powerUpGrid.get(row).get(col) != null) {
-            curPowerUp = createPowerUpFromClassName(powerUpGrid.get(row).get(col),
-                    xPos + Enemy.WIDTH/2, yPos, PowerUp.ENEMY_POWERUP_IDENTIFIER + col + row*ENEMIES_PER_ROW);
-        }
         Enemy curEnemy = new Enemy(xPos, yPos, ENEMY_SPEED_FACTOR_BY_LEVEL*levelNumber,
-                Enemy.DEFAULT_Y_SPEED, Math.abs(lives), col + row*ENEMIES_PER_ROW, curPowerUp);
+                Enemy.DEFAULT_Y_SPEED, Math.abs(lives), col + row*columns, powerUpGrid.get(row).get(col));
         if (lives < 0) curEnemy.setHasBurstFire(true);
+        curEnemy.addToStartShootingTime(Enemy.EARLIEST_START_FIRING_TIME
+                + random.nextInt(Enemy.LATEST_START_FIRING_TIME - Enemy.EARLIEST_START_FIRING_TIME));
         return curEnemy;
     }
 
-    private void handlePowerUps(double gameTimer) {
-        List<PowerUp> powerUpsToRemoveFromScene = new ArrayList<>();
-        List<PowerUp> powerUpsToRemoveFromGame = new ArrayList<>();
-        for (PowerUp powerUp: powerUps) {
-            if (powerUp.hasBeenActivated()) {
-                if (!powerUp.updateAndGetActiveStatus(gameTimer, spaceship)) {
-                    powerUp.deactivate(gameTimer, spaceship);
-                    powerUpsToRemoveFromGame.add(powerUp);
+    // a projectile can cross several enemies in one step, so only the one it reached first is hit; returns the enemy's slot
+    // (its column plus its row times the number of columns), or NONE or NO_CONTACT if it hit none
+    private int findFirstEnemyHit(Projectile projectile) {
+        double earliestImpact = CollisionDetection.NO_HIT;
+        int target = NO_CONTACT;
+        for (int row = 0; row < enemies.getRows(); row++) {
+            for (int col = enemies.nextAliveColumn(row, 0); col != Formation.NONE; col = enemies.nextAliveColumn(row, col + 1)) {
+                Enemy enemy = enemies.get(row, col);
+                if (projectile.boxTimeOfImpact(enemy) == CollisionDetection.NO_HIT) continue;
+                if (target == NO_CONTACT) target = Formation.NONE;
+                double impact = projectile.timeOfImpact(enemy);
+                if (impact < earliestImpact) {
+                    earliestImpact = impact;
+                    target = col + row*enemies.getColumns();
                 }
             }
-            else if (powerUp.intersects(spaceship) || powerUp.isOutOfYBounds()) {
-                if (powerUp.intersects(spaceship)) {
-                    powerUp.activate(gameTimer, spaceship);
-                }
-                else {
-                    powerUpsToRemoveFromGame.add(powerUp);
-                }
-                powerUpsToRemoveFromScene.add(powerUp);
+        }
+        return target;
+    }
+
+    private void scanFormationTargets() {
+        if (scannedTargets.length < spaceshipProjectiles.size()) scannedTargets = new int[spaceshipProjectiles.size()];
+        parallelTick.forEachChunk(spaceshipProjectiles.size(), (from, to) -> {
+            for (int index = from; index < to; index++) scannedTargets[index] = findFirstEnemyHit(spaceshipProjectiles.get(index));
+        });
+    }
+
+    // which enemies are due to fire is found across cores, but they fire in the order they would one by one
+    private void fireFromScannedFormation(double gameTimer) {
+        int columns = enemies.getColumns();
+        int slots = enemies.getRows() * columns;
+        if (scannedShots.length < slots) scannedShots = new boolean[slots];
+        parallelTick.forEachChunk(slots, (from, to) -> {
+            for (int slot = from; slot < to; slot++) {
+                int row = slot / columns;
+                int col = slot % columns;
+                scannedShots[slot] = enemies.isAlive(row, col) && gameTimer >= enemies.get(row, col).getStartShootingTime();
             }
+        });
+        for (int slot = 0; slot < slots; slot++) {
+            if (scannedShots[slot]) attemptEnemyFire(gameTimer, enemies.get(slot / columns, slot % columns));
+        }
+        // firing does not change how many enemies are alive, so each enemy gets the time between shots it would one by one
+        parallelTick.forEachChunk(slots, (from, to) -> {
+            for (int slot = from; slot < to; slot++) {
+                int row = slot / columns;
+                int col = slot % columns;
+                if (enemies.isAlive(row, col)) updateTimeBetweenEnemyShots(enemies.get(row, col));
+            }
+        });
+    }
+
+    private void handlePowerUps(double gameTimer) {
+        for (int player = 0; player < spaceships.size(); player++) spaceships.get(player).expireModifiers(gameTimer);
+        for (int index = 0; index < powerUps.size(); index++) {
+            PowerUp powerUp = powerUps.get(index);
+            Spaceship collector = findSpaceshipTouching(powerUp);
+            if (collector != null) {
+                // once collected, the power up is held by the spaceship's modifiers until it ends
+                powerUp.activate(gameTimer, collector);
+                powerUpsToRemove.add(powerUp);
+            }
+            else if (powerUp.isOutOfYBounds()) {
+                powerUpsToRemove.add(powerUp);
+                powerUpsOutOfBounds.add(powerUp);
+            }
+        }
+        if (powerUpsToRemove.isEmpty()) return;
+        levelNodes.removeAll(powerUpsToRemove);
+        powerUps.removeAll(powerUpsToRemove);
+        powerUpsToRemove.clear();
+        // only released once they have left the scene, so a power up is never dropped again while it is still shown
+        for (int index = 0; index < powerUpsOutOfBounds.size(); index++) returnToPool(powerUpsOutOfBounds.get(index));
+        powerUpsOutOfBounds.clear();
+    }
+
+    // players are checked in order, so the same player wins a power up both spaceships reach on the same step
+    private Spaceship findSpaceshipTouching(PowerUp powerUp) {
+        for (int player = 0; player < spaceships.size(); player++) {
+            if (powerUp.intersects(spaceships.get(player))) return spaceships.get(player);
         }
-        root.getChildren().removeAll(powerUpsToRemoveFromScene);
-        powerUps.removeAll(powerUpsToRemoveFromGame);
+        return null;
+    }
+
+    private void releasePowerUp(SpaceshipModifier modifier) {
+        if (modifier instanceof PowerUp) returnToPool((PowerUp) modifier);
     }
 
-    private void attemptToAddPowerUp(Enemy enemy) {
+    private void returnToPool(PowerUp powerUp) {
+        if (isPoolingPowerUps) myGame.getPowerUpPool().release(powerUp);
+    }
+
+    private void restoreEnemy(StateBuffer state, int row, int col) {
+        Enemy enemy = enemies.get(row, col);
+        if (!state.nextBoolean()) {
+            removeInactiveEnemy(row, col);
+            return;
+        }
+        if (!enemies.isAlive(row, col)) {
+            enemies.set(row, col, enemy);
+            levelNodes.add(enemy);
+        }
+        int lives = enemy.getLives();
+        enemy.restoreState(state);
+        if (enemy.getLives() != lives) {
+            enemy.changeImage(Enemy.ENEMY_IMG_PREFIX + enemy.getLives() + Enemy.ENEMY_IMG_EXTENSION, Enemy.WIDTH, Enemy.HEIGHT);
+        }
+    }
+
+    private void attemptToAddPowerUp(Enemy enemy, int enemyIdNumber) {
         if (enemy.hasPowerUp()) {
-            enemy.getPowerUp().setX(enemy.getX());
-            enemy.getPowerUp().setY(enemy.getY());
-            powerUps.add(enemy.getPowerUp());
-            root.getChildren().add(enemy.getPowerUp());
+            PowerUp powerUp = myGame.getPowerUpPool().acquire(enemy.getPowerUpType(), enemy.getX(), enemy.getY(),
+                    PowerUp.ENEMY_POWERUP_IDENTIFIER + enemyIdNumber);
+            powerUps.add(powerUp);
+            levelNodes.add(powerUp);
+        }
+    }
+
+    private void createBunkers() {
+        bunkers = new ArrayList<>();
+        for (int bunkerNumber = 0; bunkerNumber < NUM_BUNKERS; bunkerNumber++) {
+            // center each bunker in an equal share of the width of the game
+            double xPos = Game.GAME_WIDTH * (2*bunkerNumber + 1) / (2.0*NUM_BUNKERS) - Bunker.WIDTH/2.0;
+            Bunker bunker = new Bunker(xPos, BUNKER_Y_POS, bunkerNumber);
+            bunkers.add(bunker);
+            levelNodes.add(bunker);
+        }
+    }
+
+    private void handleBunkers() {
+        for (int index = 0; index < bunkers.size(); index++) {
+            Bunker bunker = bunkers.get(index);
+            removeProjectilesAbsorbedByBunker(bunker, spaceshipProjectiles);
+            removeProjectilesAbsorbedByBunker(bunker, evilEntityProjectiles);
+            bunker.updateImage();
         }
     }
 
-    private void removeInactiveEnemies(List<Enemy> enemiesToRemove) {
-        root.getChildren().removeAll(enemiesToRemove);
-        for(List<Enemy> enemyRow : enemies) {
-            enemyRow.removeAll(enemiesToRemove);
+    private void removeProjectilesAbsorbedByBunker(Bunker bunker, List<Projectile> projectiles) {
+        if (bunker.isDestroyed()) return;
+        for (int index = 0; index < projectiles.size(); index++) {
+            if (bunker.absorb(projectiles.get(index))) projectilesToRemove.add(projectiles.get(index));
         }
-        List<List<Enemy>> enemyRowsToRemove = new ArrayList<>();
-        for(List<Enemy> enemyRow : enemies) {
-            if (enemyRow.isEmpty()) enemyRowsToRemove.add(enemyRow);
+        removeProjectiles(projectiles);
+    }
+
+    private void damageEnemy(int row, int col, int damage) {
+        Enemy enemy = enemies.get(row, col);
+        enemy.removeLives(damage);
+        myGame.updatePointsDisplay(enemy.getPointsPerHit());
+        if (enemy.getLives() <= 0) {
+            attemptToAddPowerUp(enemy, col + row*enemies.getColumns());
+            removeInactiveEnemy(row, col);
+        } else {
+            enemy.changeImage(Enemy.ENEMY_IMG_PREFIX + enemy.getLives() + Enemy.ENEMY_IMG_EXTENSION, Enemy.WIDTH, Enemy.HEIGHT);
         }
-        enemies.removeAll(enemyRowsToRemove);
     }
 
-    private void addCheatPowerUp(double gameTimer, PowerUp powerUp) {
+    private boolean isColumnOutOfXBounds(int col) {
+        for (int row = enemies.nextAliveRow(col, 0); row != Formation.NONE; row = enemies.nextAliveRow(col, row + 1)) {
+            if (enemies.get(row, col).isOutOfXBounds()) return true;
+        }
+        return false;
+    }
+
+    private void removeInactiveEnemy(int row, int col) {
+        levelNodes.remove(enemies.kill(row, col));
+    }
+
+    private void addCheatPowerUp(double gameTimer, PowerUpType type) {
+        PowerUp powerUp = myGame.getPowerUpPool().acquire(type, Game.GAME_WIDTH/2, Game.GAME_HEIGHT/2,
+                PowerUp.CHEAT_POWER_UP_IDENTIFIER + curCheatKeyPowerUpIdNumber);
         curCheatKeyPowerUpIdNumber++;
         powerUp.setTimeActive(gameTimer);
         powerUps.add(powerUp);
-        root.getChildren().add(powerUp);
+        levelNodes.add(powerUp);
     }
 
     private void updateTimeBetweenEnemyShots(Enemy enemy) {
-        int enemiesLeft = 0;
-        for (List<Enemy> enemyRow : enemies) {
-            for (Enemy e : enemyRow) {
-                enemiesLeft++;
-            }
-        }
+        int enemiesLeft = enemies.getAliveCount();
         double changedTime = Enemy.DEFAULT_TIME_BETWEEN_SHOTS * enemiesLeft * DECREASE_TIME_BETWEEN_SHOTS_QUOTIENT;
         // adjust new time between shot so it is between bounds
         double newTime = Math.min(Math.max(changedTime, Enemy.MIN_TIME_BETWEEN_SHOTS), Enemy.DEFAULT_TIME_BETWEEN_SHOTS);
-        enemy.setTimeBetweenShots(newTime);
+        enemy.setTimeBetweenShots(newTime / enemyFireRate);
+    }
+
+    private void attemptEnemyFire(double gameTimer, Enemy enemy) {
+        if (evilEntityProjectiles.size() >= maxEvilEntityProjectiles) return;
+        attemptProjectileFire(gameTimer, enemy, evilEntityProjectiles, ENEMY_LASER_ROTATION);
     }
 
     private void createPowerUpGrid() {
         powerUpGrid = new ArrayList<>();
         for (int row = 0; row < rows; row++) {
             powerUpGrid.add(new ArrayList<>());
-            for (int col = 0; col < ENEMIES_PER_ROW; col++) {
+            for (int col = 0; col < columns; col++) {
                 powerUpGrid.get(row).add(null);
             }
         }
-        List<Integer> enemyIndexes = IntStream.range(0, numEnemies).boxed().collect(Collectors.toList());
+        // each enemy is found by its slot, so that the slots at the end of a short row are never given a power up
+        List<Integer> enemyIndexes = IntStream.range(0, rows * columns)
+                .filter(slot -> slot % columns < enemyIdentifiers.get(slot / columns).size())
+                .boxed().collect(Collectors.toList());
         int numOfEachPowerUpType = (int) (numEnemies * PERCENT_ENEMIES_WITH_EACH_POWERUP);
-        Collections.shuffle(enemyIndexes);
+        Collections.shuffle(enemyIndexes, random);
         int curPowerUpIndex = 0;
-        for (Class powerUpClass : POWER_UP_TYPES) {
+        for (PowerUpType powerUpType : POWER_UP_TYPES) {
             for (int numOfCurPowerUpType = 0; numOfCurPowerUpType < numOfEachPowerUpType; numOfCurPowerUpType++) {
                 int curEnemyIndex = enemyIndexes.get(curPowerUpIndex);
                 curPowerUpIndex++;
-                powerUpGrid.get(curEnemyIndex / ENEMIES_PER_ROW).set(curEnemyIndex%ENEMIES_PER_ROW, powerUpClass);
+                powerUpGrid.get(curEnemyIndex / columns).set(curEnemyIndex%columns, powerUpType);
             }
         }
     }
-
-    private PowerUp createPowerUpFromClassName(Class powerUpClass, double xPos, double yPos, String idName) {
-        try {
-            Constructor<?> constructor = powerUpClass.getConstructor(double.class, double.class, String.class);
-            PowerUp powerUp = (PowerUp) constructor.newInstance(xPos, yPos, idName);
-            return powerUp;
-        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
-            StatusDisplay.logError(e);
-        }
-        return null;
-    }
 }
@@ -0,0 +1,259 @@
+package invader.level;
+
+import invader.entity.Enemy;
+
+import java.util.Arrays;
+
+/**
+ * This class stores the grid of enemies in an enemy level and keeps track of which of them are still alive.
+ *
+ * Enemies are stored densely by (row, col) and never shift position when a neighbor is destroyed, so the id of an enemy
+ * and its place in the grid always agree. Each row keeps a bitset of its living enemies, each column keeps a bitset of its
+ * living rows, and the leftmost and rightmost living columns are tracked so that the edge check for the formation only
+ * ever looks at the two outermost columns.
+ *
+ * Killing an enemy, counting the living enemies, and finding the lowest living enemy in a column are all constant time
+ * (for grids up to 64 rows and columns; larger grids scan one word per 64 entries).
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class Formation {
+    public static final int NONE = -1;
+    private static final int BITS_PER_WORD = Long.SIZE;
+
+    private final int rows;
+    private final int columns;
+    private final int columnWords;
+    private final Enemy[][] enemies;
+    private final long[][] aliveInRow;
+    private final long[][] aliveInColumn;
+    private final int[] aliveCountInRow;
+    private final int[] aliveCountInColumn;
+    private int aliveCount;
+    private int leftmostColumn = NONE;
+    private int rightmostColumn = NONE;
+
+    /**
+     * Create an empty formation
+     * @param rows number of rows in the formation
+     * @param columns number of enemies in each row of the formation
+     */
+    public Formation(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        columnWords = wordsFor(rows);
+        enemies = new Enemy[rows][columns];
+        aliveInRow = new long[rows][wordsFor(columns)];
+        aliveInColumn = new long[columns][columnWords];
+        aliveCountInRow = new int[rows];
+        aliveCountInColumn = new int[columns];
+    }
+
+    /**
+     * Place a living enemy in the formation
+     * @param row row of the enemy
+     * @param col column of the enemy
+     * @param enemy the enemy to place
+     */
+    public void set(int row, int col, Enemy enemy) {
+        if (isAlive(row, col)) kill(row, col);
+        enemies[row][col] = enemy;
+        if (enemy == null) return;
+        aliveInRow[row][col / BITS_PER_WORD] |= 1L << col;
+        aliveInColumn[col][row / BITS_PER_WORD] |= 1L << row;
+        aliveCountInRow[row]++;
+        aliveCountInColumn[col]++;
+        aliveCount++;
+        if (leftmostColumn == NONE || col < leftmostColumn) leftmostColumn = col;
+        if (rightmostColumn == NONE || col > rightmostColumn) rightmostColumn = col;
+    }
+
+    /**
+     * Get the enemy at a position in the formation, whether or not it is still alive
+     * @param row row of the enemy
+     * @param col column of the enemy
+     * @return the enemy at (row, col), or null if no enemy was placed there
+     */
+    public Enemy get(int row, int col) {
+        return enemies[row][col];
+    }
+
+    /**
+     * Check whether the enemy at a position is still alive
+     * @param row row of the enemy
+     * @param col column of the enemy
+     * @return whether the enemy at (row, col) is alive
+     */
+    public boolean isAlive(int row, int col) {
+        return (aliveInRow[row][col / BITS_PER_WORD] & (1L << col)) != 0;
+    }
+
+    /**
+     * Mark the enemy at a position as destroyed
+     * @param row row of the enemy
+     * @param col column of the enemy
+     * @return the enemy that was destroyed, or null if there was no living enemy at (row, col)
+     */
+    public Enemy kill(int row, int col) {
+        if (!isAlive(row, col)) return null;
+        aliveInRow[row][col / BITS_PER_WORD] &= ~(1L << col);
+        aliveInColumn[col][row / BITS_PER_WORD] &= ~(1L << row);
+        aliveCountInRow[row]--;
+        aliveCountInColumn[col]--;
+        aliveCount--;
+        updateColumnExtents();
+        return enemies[row][col];
+    }
+
+    /**
+     * Get the next living column in a row, starting from (and including) a given column
+     * @param row the row to search
+     * @param fromCol the first column to consider
+     * @return the next living column in the row, or NONE if there are no more
+     */
+    public int nextAliveColumn(int row, int fromCol) {
+        return nextSetBit(aliveInRow[row], fromCol, columns);
+    }
+
+    /**
+     * Get the next living row in a column, starting from (and including) a given row
+     * @param col the column to search
+     * @param fromRow the first row to consider
+     * @return the next living row in the column, or NONE if there are no more
+     */
+    public int nextAliveRow(int col, int fromRow) {
+        return nextSetBit(aliveInColumn[col], fromRow, rows);
+    }
+
+    /**
+     * Get the lowest (closest to the spaceship) living enemy in a column
+     * @param col the column to search
+     * @return the lowest living enemy in the column, or null if the column has been cleared
+     */
+    public Enemy getLowestAliveInColumn(int col) {
+        int row = getLowestAliveRowInColumn(col);
+        return row == NONE ? null : enemies[row][col];
+    }
+
+    /**
+     * Get the row of the lowest (closest to the spaceship) living enemy in a column
+     * @param col the column to search
+     * @return the row of the lowest living enemy in the column, or NONE if the column has been cleared
+     */
+    public int getLowestAliveRowInColumn(int col) {
+        long[] words = aliveInColumn[col];
+        for (int word = columnWords - 1; word >= 0; word--) {
+            if (words[word] != 0) {
+                return word * BITS_PER_WORD + BITS_PER_WORD - 1 - Long.numberOfLeadingZeros(words[word]);
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Get the lowest row that still has a living enemy
+     * @return the lowest row with a living enemy, or NONE if the formation has been cleared
+     */
+    public int getLowestAliveRow() {
+        for (int row = rows - 1; row >= 0; row--) {
+            if (aliveCountInRow[row] > 0) return row;
+        }
+        return NONE;
+    }
+
+    /**
+     * Get the leftmost column that still has a living enemy
+     * @return the leftmost living column, or NONE if the formation has been cleared
+     */
+    public int getLeftmostColumn() {
+        return leftmostColumn;
+    }
+
+    /**
+     * Get the rightmost column that still has a living enemy
+     * @return the rightmost living column, or NONE if the formation has been cleared
+     */
+    public int getRightmostColumn() {
+        return rightmostColumn;
+    }
+
+    /**
+     * Get how many enemies are still alive
+     * @return the number of living enemies
+     */
+    public int getAliveCount() {
+        return aliveCount;
+    }
+
+    /**
+     * Check whether every enemy in the formation has been destroyed
+     * @return whether the formation has been cleared
+     */
+    public boolean isEmpty() {
+        return aliveCount == 0;
+    }
+
+    /**
+     * Get the number of rows in the formation
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the number of columns in the formation
+     * @return number of columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Mark every enemy in the formation as destroyed
+     */
+    public void clear() {
+        for (int row = 0; row < rows; row++) {
+            Arrays.fill(aliveInRow[row], 0);
+            aliveCountInRow[row] = 0;
+        }
+        for (int col = 0; col < columns; col++) {
+            Arrays.fill(aliveInColumn[col], 0);
+            aliveCountInColumn[col] = 0;
+        }
+        aliveCount = 0;
+        leftmostColumn = NONE;
+        rightmostColumn = NONE;
+    }
+
+    // the extents only ever shrink, so each column is stepped over at most once per level
+    private void updateColumnExtents() {
+        if (aliveCount == 0) {
+            leftmostColumn = NONE;
+            rightmostColumn = NONE;
+            return;
+        }
+        while (aliveCountInColumn[leftmostColumn] == 0) leftmostColumn++;
+        while (aliveCountInColumn[rightmostColumn] == 0) rightmostColumn--;
+    }
+
+    private static int nextSetBit(long[] words, int from, int limit) {
+        if (from >= limit) return NONE;
+        int word = from / BITS_PER_WORD;
+        long bits = words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                int index = word * BITS_PER_WORD + Long.numberOfTrailingZeros(bits);
+                return index < limit ? index : NONE;
+            }
+            if (++word == words.length) return NONE;
+            bits = words[word];
+        }
+    }
+
+    private static int wordsFor(int bits) {
+        return Math.max(1, (bits + BITS_PER_WORD - 1) / BITS_PER_WORD);
+    }
+}
@@ -1,18 +1,31 @@
 package invader.level;
 
 import invader.Game;
+import invader.GameContext;
+import invader.MovingObject;
+import invader.StateBuffer;
 import invader.StatusDisplay;
 import invader.entity.Entity;
 import invader.entity.Spaceship;
+import invader.io.IoService;
+import invader.jfr.CollisionBatchEvent;
+import invader.jfr.GameEvents;
+import invader.jfr.LevelFileReadEvent;
+import invader.jfr.LevelLoadEvent;
 import invader.projectile.Projectile;
+import invader.scene.NodeScope;
+import invader.scene.SceneRegistry;
+import invader.scene.ScopeKind;
+import invader.snapshot.GameSnapshot;
 import javafx.scene.Group;
 import javafx.scene.Node;
 
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.Scanner;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This is an abstract class that is used to create all types of levels used in this game.
@@ -24,6 +37,18 @@ import java.util.Scanner;
  * The level specific methods like cheat codes or handling the missiles are abstract methods because it should be reimplemented in its
  * subclass, EnemyLevel and BossLevel. Level specific methods have a protected access level.
  *
+ * Everything random in a level comes from the level's own random number generator, and time only advances through the game
+ * timer passed to each step, so two levels created with the same seed and given the same input on the same steps play out
+ * exactly the same. Together with saveState and restoreState, this is what lets two players share a level over the network.
+ *
+ * A step that nothing is fired, hit, or dropped in allocates nothing, so a steady game never has to stop for the garbage
+ * collector: the lists of the step are walked by index rather than with iterators, and what is removed during a step is
+ * gathered in lists that are kept and emptied rather than created each time.
+ *
+ * When a level is big enough, the collision checks of a step are split across cores by a ParallelTick; what each check
+ * found is gathered first and then acted on in the order the checks would have been made one by one, so a level plays out
+ * the same whether or not its steps are split.
+ *
  * @author Pierce Forte
  * @author Jeff Kim
  */
@@ -33,14 +58,25 @@ public abstract class Level {
     public static final String LEVEL_FILE_PATH = "/level_files/level_";
     public static final String LEVEL_FILE_EXTENSION = ".txt";
     public static final int SPACESHIP_LASER_ROTATION = 0;
+    public static final String LEVEL_SCOPE_NAME = "level ";
 
     protected boolean levelLost = false;
-    protected Game myGame;
+    protected GameContext myGame;
     protected Group root;
+    // every node the level adds to the scene goes through here, so clearing the level removes all of them at once
+    protected NodeScope levelNodes;
     protected int levelNumber;
     protected Spaceship spaceship;
+    protected List<Spaceship> spaceships = new ArrayList<>();
+    protected final int players;
+    protected final Random random;
     protected List<Projectile> spaceshipProjectiles = new ArrayList<>();
     protected List<Projectile> evilEntityProjectiles = new ArrayList<>();
+    // gathered during a step and emptied by removeProjectiles, so a step does not create a list to remove projectiles with
+    protected final List<Projectile> projectilesToRemove = new ArrayList<>();
+    protected ParallelTick parallelTick = ParallelTick.getDefault();
+    // whether each projectile hit the entity it was checked against, when the checks are split across cores
+    private boolean[] scannedHits = new boolean[0];
 
     /**
      * Create a Level
@@ -48,16 +84,46 @@ public abstract class Level {
      * @param levelNumber: The level number the game is currently in
      * @param myGame: My game
      */
-    public Level(Group root, int levelNumber, Game myGame){
+    public Level(Group root, int levelNumber, GameContext myGame){
+        this(root, levelNumber, myGame, ThreadLocalRandom.current().nextLong(), 1);
+    }
+
+    /**
+     * Create a Level that plays out the same way every time it is created with the same seed
+     * @param root: Root of the game
+     * @param levelNumber: The level number the game is currently in
+     * @param myGame: My game
+     * @param seed: seed for everything random in the level
+     * @param players: how many spaceships are in the level
+     */
+    public Level(Group root, int levelNumber, GameContext myGame, long seed, int players){
+        this(root, levelNumber, myGame, seed, players, null);
+    }
+
+    /**
+     * Create a Level from lines given in place of its level file, such as a level generated for a benchmark
+     * @param root: Root of the game
+     * @param levelNumber: The level number the game is currently in
+     * @param myGame: My game
+     * @param seed: seed for everything random in the level
+     * @param players: how many spaceships are in the level
+     * @param levelLines: the lines of the level, or null to read them from the level number's file
+     */
+    protected Level(Group root, int levelNumber, GameContext myGame, long seed, int players, String levelLines){
+        LevelLoadEvent loadEvent = GameEvents.beginLevelLoad();
         this.root = root;
-        String levelFile = LEVEL_FILE_PATH + levelNumber + LEVEL_FILE_EXTENSION;
-        readFile(levelFile);
+        this.myGame = myGame;
+        this.random = new Random(seed);
+        this.players = players;
+        if (levelLines == null) readFile(LEVEL_FILE_PATH + levelNumber + LEVEL_FILE_EXTENSION);
+        else handleFileLines(new Scanner(levelLines));
         this.levelNumber = levelNumber;
+        levelNodes = SceneRegistry.of(root).openScope(ScopeKind.LEVEL, LEVEL_SCOPE_NAME + levelNumber);
         createEvilEntities();
         addEntitiesToScene();
-        this.myGame = myGame;
-        StatusDisplay.updateLevelNumberDisplay(levelNumber);
-        StatusDisplay.updateLifeCountDisplay(spaceship.getLives());
+        myGame.updateLevelNumberDisplay(levelNumber);
+        myGame.updateLifeCountDisplay(spaceship.getLives());
+        GameEvents.endLevelLoad(loadEvent, levelNumber, getClass().getSimpleName());
     }
 
     /**
@@ -65,8 +131,18 @@ public abstract class Level {
      * @param toRight whether spaceship should move right (true) or left (false)
      */
     public void moveSpaceship(boolean toRight) {
-        spaceship.setX(spaceship.getX() + spaceship.getXSpeedOnKeyPress() * (toRight ? 1 : -1));
-        spaceship.wrap();
+        moveSpaceship(0, toRight);
+    }
+
+    /**
+     * Move one player's spaceship
+     * @param player which player's spaceship to move, starting from 0
+     * @param toRight whether spaceship should move right (true) or left (false)
+     */
+    public void moveSpaceship(int player, boolean toRight) {
+        Spaceship playerSpaceship = spaceships.get(player);
+        playerSpaceship.setX(playerSpaceship.getX() + playerSpaceship.getXSpeedOnKeyPress() * (toRight ? 1 : -1));
+        playerSpaceship.wrap();
     }
 
     /**
@@ -74,7 +150,7 @@ public abstract class Level {
      */
     public void addLife() {
         spaceship.addLife();
-        StatusDisplay.updateLifeCountDisplay(spaceship.getLives());
+        myGame.updateLifeCountDisplay(spaceship.getLives());
     }
 
     /**
@@ -93,6 +169,14 @@ public abstract class Level {
         this.levelNumber = levelNumber;
     }
 
+    /**
+     * Get whether the level has been lost, which is when the spaceship runs out of lives
+     * @return whether the level has been lost
+     */
+    public boolean isLevelLost() {
+        return levelLost;
+    }
+
     /**
      * Set whether the level has been lost
      * @param levelLost whether the level has been lost
@@ -102,9 +186,95 @@ public abstract class Level {
     }
 
     /**
-     * Clears everything on the current level
+     * Record what the level looks like in a snapshot, to send to spectators and remote clients
+     * @param snapshot the snapshot to fill in; anything already in it is cleared
+     */
+    public void captureSnapshot(GameSnapshot snapshot) {
+        snapshot.clear();
+        snapshot.set(GameSnapshot.LEVEL_NUMBER, levelNumber);
+        snapshot.set(GameSnapshot.LIVES, spaceship.getLives());
+        snapshot.set(GameSnapshot.SPACESHIP_X, GameSnapshot.quantize(spaceship.getX()));
+        snapshot.set(GameSnapshot.SPACESHIP_Y, GameSnapshot.quantize(spaceship.getY()));
+        captureProjectiles(snapshot, spaceshipProjectiles);
+        captureProjectiles(snapshot, evilEntityProjectiles);
+    }
+
+    /**
+     * Get how many spaceships are in the level
+     * @return the number of players
+     */
+    public int getPlayers() {
+        return players;
+    }
+
+    /**
+     * Get one player's spaceship
+     * @param player which player's spaceship to get, starting from 0
+     * @return the player's spaceship
+     */
+    public Spaceship getSpaceship(int player) {
+        return spaceships.get(player);
+    }
+
+    /**
+     * Get how many projectiles fired by the spaceships are still in the level
+     * @return the number of spaceship projectiles
+     */
+    public int getSpaceshipProjectileCount() {
+        return spaceshipProjectiles.size();
+    }
+
+    /**
+     * Get how many projectiles fired by the enemies or the boss are still in the level
+     * @return the number of evil entity projectiles
+     */
+    public int getEvilEntityProjectileCount() {
+        return evilEntityProjectiles.size();
+    }
+
+    /**
+     * Save everything about the level that changes while it is played, so that it can be put back to this step later
+     * @param state where the state is saved; anything already in it is cleared
+     */
+    public void saveState(StateBuffer state) {
+        state.clear();
+        state.put(levelLost);
+        for (Spaceship playerSpaceship : spaceships) playerSpaceship.saveState(state);
+        saveNodes(state, spaceshipProjectiles);
+        saveNodes(state, evilEntityProjectiles);
+    }
+
+    /**
+     * Put the level back as it was when saveState was called, including which nodes are in the scene
+     * @param state where the state was saved
      */
-    public abstract void clearLevel();
+    public void restoreState(StateBuffer state) {
+        state.rewind();
+        levelLost = state.nextBoolean();
+        for (Spaceship playerSpaceship : spaceships) {
+            playerSpaceship.restoreState(state);
+            if (!levelNodes.contains(playerSpaceship)) levelNodes.add(playerSpaceship);
+        }
+        restoreNodes(state, spaceshipProjectiles);
+        restoreNodes(state, evilEntityProjectiles);
+    }
+
+    /**
+     * Clears everything on the current level: the level's entities are cleared by clearEntities, and then every node the
+     * level added to the scene is removed at once, including any that none of the level's lists holds any more
+     */
+    public void clearLevel() {
+        clearEntities();
+        levelNodes.clear();
+    }
+
+    /**
+     * Get the scope that owns the nodes the level added to the scene
+     * @return the level's scope
+     */
+    public NodeScope getLevelNodes() {
+        return levelNodes;
+    }
 
     /**
      * Add spaceship and enemies or boss to the scene
@@ -123,6 +293,12 @@ public abstract class Level {
      */
     public abstract void attemptLevelVictory();
 
+    /**
+     * Get how many enemies (or bosses) are still alive in the level
+     * @return the number of living evil entities
+     */
+    public abstract int getEnemiesAlive();
+
     /**
      * Add a random power up to the game
      * @param gameTimer the timer of the entire game
@@ -164,8 +340,8 @@ public abstract class Level {
      * @param projectiles the projectiles that need to have their positions updated
      */
     protected void updateProjectilePositionsOnStep(double elapsedTime, List<Projectile> projectiles) {
-        for (Projectile projectile : projectiles) {
-            projectile.updatePositionOnStep(elapsedTime);
+        for (int index = 0; index < projectiles.size(); index++) {
+            projectiles.get(index).updatePositionOnStep(elapsedTime);
         }
     }
 
@@ -176,13 +352,21 @@ public abstract class Level {
      * @param spaceship the spaceship that the user controls
      */
     protected void handleProjectileCollisionWithSpaceship(List<Projectile> evilEntityProjectiles, Spaceship spaceship) {
-        if (handleProjectileCollisions(evilEntityProjectiles, spaceship)) {
-            StatusDisplay.updateLifeCountDisplay(spaceship.getLives());
-            if (spaceship.getLives() == 0) {
-                levelLost = true;
-                endLevel();
-                StatusDisplay.createGameOverMenu(root);
-            }
+        if (handleProjectileCollisions(evilEntityProjectiles, spaceship)) handleSpaceshipHit(spaceship);
+    }
+
+    /**
+     * Show the spaceship's lives after it has been hit and, if it has none left, end the level
+     * @param spaceship the spaceship that was hit
+     */
+    protected void handleSpaceshipHit(Spaceship spaceship) {
+        // a fireball does more than one damage, which could otherwise take the spaceship past zero lives
+        if (spaceship.getLives() < 0) spaceship.setLives(0);
+        myGame.updateLifeCountDisplay(spaceship.getLives());
+        if (spaceship.getLives() == 0) {
+            levelLost = true;
+            endLevel();
+            myGame.createGameOverMenu();
         }
     }
 
@@ -193,21 +377,37 @@ public abstract class Level {
      * @return returns whether a collision was detected or not
      */
     protected boolean handleProjectileCollisions(List<Projectile> projectiles, Entity entity) {
-        boolean isCollision = false;
-        List<Projectile> projectilesToRemove = new ArrayList<>();
-        for (Projectile projectile : projectiles) {
-            if (projectile.intersects(entity) || projectile.isOutOfYBounds()) {
+        CollisionBatchEvent batchEvent = GameEvents.beginCollisionBatch();
+        int checkedProjectiles = projectiles.size();
+        int hits = 0;
+        // whether a projectile hits does not depend on the entity's lives, so every check can be made before any is acted on
+        boolean isScanned = parallelTick.isParallel(checkedProjectiles);
+        if (isScanned) scanHits(projectiles, entity);
+        for (int index = 0; index < projectiles.size(); index++) {
+            Projectile projectile = projectiles.get(index);
+            boolean isHit = isScanned ? scannedHits[index] : projectile.hits(entity);
+            if (isHit || projectile.isOutOfYBounds()) {
                 projectilesToRemove.add(projectile);
-                if (projectile.intersects(entity)) {
+                if (isHit) {
                     entity.removeLives(projectile.getDamage());
-                    StatusDisplay.updatePointsDisplay(entity.getPointsPerHit());
-                    isCollision = true;
+                    myGame.updatePointsDisplay(entity.getPointsPerHit());
+                    hits++;
                 }
             }
         }
-        projectiles.removeAll(projectilesToRemove);
-        root.getChildren().removeAll(projectilesToRemove);
-        return isCollision;
+        removeProjectiles(projectiles);
+        if (batchEvent != null) {
+            GameEvents.endCollisionBatch(batchEvent, entity.getClass().getSimpleName(), checkedProjectiles, checkedProjectiles, hits);
+        }
+        return hits > 0;
+    }
+
+    /**
+     * Split the steps of this level across cores in a different way, such as for a level of a stress test
+     * @param parallelTick how to split the steps
+     */
+    public void setParallelTick(ParallelTick parallelTick) {
+        this.parallelTick = parallelTick;
     }
 
     /**
@@ -215,7 +415,29 @@ public abstract class Level {
      * @param gameTimer the timer of the entire game
      */
     public void attemptSpaceshipFire(double gameTimer) {
-        attemptProjectileFire(gameTimer, spaceship, spaceshipProjectiles, SPACESHIP_LASER_ROTATION);
+        attemptSpaceshipFire(0, gameTimer);
+    }
+
+    /**
+     * Handle one player's spaceship firing
+     * @param player which player's spaceship fires, starting from 0
+     * @param gameTimer the timer of the entire game
+     */
+    public void attemptSpaceshipFire(int player, double gameTimer) {
+        attemptProjectileFire(gameTimer, spaceships.get(player), spaceshipProjectiles, SPACESHIP_LASER_ROTATION);
+    }
+
+    // Create a spaceship for each player, spread evenly across the bottom of the game
+    protected void addSpaceships() {
+        spaceships.clear();
+        for (int player = 0; player < players; player++) {
+            double xPos = Game.GAME_WIDTH * (2*player + 1) / (2.0*players) - Spaceship.WIDTH/2.0;
+            Spaceship playerSpaceship = new Spaceship(xPos, Spaceship.DEFAULT_Y_POS);
+            if (player > 0) playerSpaceship.setId(Spaceship.IDENTIFIER + (player + 1));
+            spaceships.add(playerSpaceship);
+            levelNodes.add(playerSpaceship);
+        }
+        spaceship = spaceships.get(0);
     }
 
     protected void attemptProjectileFire(double gameTimer, Entity entity, List<Projectile> projectiles, double rotation) {
@@ -231,7 +453,7 @@ public abstract class Level {
         Projectile projectile = entityShooting.createProjectile(rotation, entityShooting.getCurProjectileIdNumber());
         entityShooting.incrementCurProjectileIdNumber();
         lasers.add(projectile);
-        root.getChildren().add(projectile);
+        levelNodes.add(projectile);
         entityShooting.addToStartShootingTime(entityShooting.getTimeBetweenShots());
         return projectile;
     }
@@ -245,45 +467,78 @@ public abstract class Level {
     }
 
     protected void handleEvilEntityProjectileBounds() {
-        for (Projectile evilEntityProjectile : evilEntityProjectiles) {
+        for (int index = 0; index < evilEntityProjectiles.size(); index++) {
+            Projectile evilEntityProjectile = evilEntityProjectiles.get(index);
             if (evilEntityProjectile.isOutOfXBounds()) {
                 double rotation = evilEntityProjectile.getRotate();
                 if (rotation != Projectile.DEFAULT_PROJECTILE_ROTATION) {
                     evilEntityProjectile.setRotate(rotation*-1);
+                    evilEntityProjectile.buildCollisionMask();
                 }
                 evilEntityProjectile.reverseXDirection();
             }
         }
     }
 
-    // Clear nodes from scene and level
-    protected <T extends Node> void clearNodesFromSceneAndLevel(T node) {
-        root.getChildren().remove(node);
+    private void scanHits(List<Projectile> projectiles, Entity entity) {
+        if (scannedHits.length < projectiles.size()) scannedHits = new boolean[projectiles.size()];
+        parallelTick.forEachChunk(projectiles.size(), (from, to) -> {
+            for (int index = from; index < to; index++) scannedHits[index] = projectiles.get(index).hits(entity);
+        });
     }
 
-    // Clear nodes from scene and level (overloading)
-    protected <T extends Node> void clearNodesFromSceneAndLevel(List<T> nodes) {
-        root.getChildren().removeAll(nodes);
-        nodes.clear();
+    // Remove the projectiles gathered in projectilesToRemove from a list and from the scene, and empty it for the next use;
+    // the scene is only touched if there is something to remove, since removing from it allocates even when nothing is removed
+    protected void removeProjectiles(List<Projectile> projectiles) {
+        if (projectilesToRemove.isEmpty()) return;
+        projectiles.removeAll(projectilesToRemove);
+        levelNodes.removeAll(projectilesToRemove);
+        projectilesToRemove.clear();
     }
 
-    // Clear the nodes from the scene and level (overloading)
-    protected <T extends Node> void clear2dNodesFromSceneAndLevel(List<List<T>> nodes) {
-        for (List<T> row : nodes) {
-            root.getChildren().removeAll(row);
+    private void captureProjectiles(GameSnapshot snapshot, List<Projectile> projectiles) {
+        for (Projectile projectile : projectiles) {
+            snapshot.addProjectile(GameSnapshot.kindOf(projectile), GameSnapshot.quantize(projectile.getX()),
+                    GameSnapshot.quantize(projectile.getY()));
+        }
+    }
+
+    // Save the nodes of a list, which may be removed from the level before the state is restored
+    protected <T extends MovingObject> void saveNodes(StateBuffer state, List<T> nodes) {
+        state.put(nodes.size());
+        for (T node : nodes) {
+            state.putReference(node);
+            node.saveState(state);
         }
+    }
+
+    // Put back the nodes of a list as they were saved, dropping any that were added since
+    protected <T extends MovingObject> void restoreNodes(StateBuffer state, List<T> nodes) {
+        levelNodes.removeAll(nodes);
         nodes.clear();
+        int count = state.nextInt();
+        for (int index = 0; index < count; index++) {
+            T node = state.nextReference();
+            node.restoreState(state);
+            nodes.add(node);
+        }
+        levelNodes.addAll(nodes);
+    }
+
+    // Clear nodes from scene and level
+    protected <T extends Node> void clearNodesFromSceneAndLevel(T node) {
+        levelNodes.remove(node);
     }
 
     // Initiate the level victory
     protected void initiateLevelVictory() {
         endLevel();
         if (getLevelNumber() == Game.MAX_LEVEL) {
-            StatusDisplay.createVictoryMenu(root);
+            myGame.createVictoryMenu();
         } else if (getLevelNumber() == Game.MAX_LEVEL - 1){
-            StatusDisplay.createBossLevelMenu(root);
+            myGame.createBossLevelMenu();
         } else {
-            StatusDisplay.createLevelIntermissionMenu(root);
+            myGame.createLevelIntermissionMenu();
         }
     }
 
@@ -302,21 +557,25 @@ public abstract class Level {
     // Handle file lines
     protected abstract void handleFileLines(Scanner myReader);
 
+    // Clear the level's lists and hand back anything the level borrowed, such as pooled power ups; the nodes themselves are
+    // removed from the scene by clearLevel
+    protected abstract void clearEntities();
+
     private void endLevel() {
         myGame.setMenuActive(true);
         myGame.setGameOverMenuActive(true);
         clearLevel();
     }
 
+    // the file is read on the I/O thread the first time any level asks for it; the game asks for every level file when it
+    // starts, so a level only waits here if it is created before its file has been read
     private void readFile(String levelFile) {
+        LevelFileReadEvent readEvent = GameEvents.beginLevelFileRead(levelFile);
         try {
-            String filePath = this.getClass().getResource(levelFile).getPath();
-            File file = new File(filePath);
-            Scanner myReader = new Scanner(file);
-            handleFileLines(myReader);
-            myReader.close();
-        } catch (FileNotFoundException e) {
+            handleFileLines(new Scanner(IoService.getDefault().readResource(levelFile).join()));
+        } catch (CompletionException e) {
             StatusDisplay.logError(e);
         }
+        readEvent.commit();
     }
 }
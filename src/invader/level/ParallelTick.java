@@ -0,0 +1,123 @@
+package invader.level;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class decides whether a phase of a level's step is big enough to be worth splitting across cores, and if so splits it
+ * into fork join tasks.
+ *
+ * A level only hands it the parts of a step that read the scene without changing it, such as finding which projectile hit
+ * which enemy, and writes what each part found into arrays indexed the same way as the entities. The level then goes
+ * through those arrays in order on the game's thread to remove, spawn and score, exactly as the sequential step would; moving
+ * nodes, adding them and removing them stays on the game's thread, since every change to a node is passed on to the group
+ * that holds it, which can only be changed by one thread at a time.
+ *
+ * Below the threshold, in units of work (one entity checked against one other), the level does the work itself and nothing
+ * is allocated; the threshold can be set when the game starts with -D{@value #THRESHOLD_PROPERTY}=units.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class ParallelTick {
+    public static final String THRESHOLD_PROPERTY = "invader.parallelThreshold";
+    public static final int DEFAULT_THRESHOLD = 20000;
+    // split a phase into more tasks than there are threads, so that a thread that finishes early can take another
+    public static final int TASKS_PER_THREAD = 4;
+    private static final ParallelTick DEFAULT = new ParallelTick(ForkJoinPool.commonPool(),
+            Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD));
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Split phases across the threads of a pool
+     * @param pool the pool that runs the tasks
+     * @param threshold the least work, in units, that a phase is split for
+     */
+    public ParallelTick(ForkJoinPool pool, int threshold) {
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Get the way phases are split unless a level is told otherwise: on the common pool, above the threshold set by
+     * THRESHOLD_PROPERTY
+     * @return the default parallel tick
+     */
+    public static ParallelTick getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Get if a phase should be split
+     * @param work how much work the phase is, in units
+     * @return whether the phase is at least the threshold and there is more than one thread to split it across
+     */
+    public boolean isParallel(long work) {
+        return work >= threshold && pool.getParallelism() > 1;
+    }
+
+    /**
+     * Run a task over a range of items, split into chunks that are run at the same time; returns once every chunk is done,
+     * after which everything the chunks wrote can be read by the caller
+     * @param items how many items there are, indexed from 0
+     * @param task the task to run on each chunk
+     */
+    public void forEachChunk(int items, RangeTask task) {
+        if (items <= 0) return;
+        int chunkSize = Math.max(1, -Math.floorDiv(-items, pool.getParallelism() * TASKS_PER_THREAD));
+        pool.invoke(new Chunk(task, 0, items, chunkSize));
+    }
+
+    /**
+     * Get the least work a phase is split for
+     * @return the threshold, in units
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * This interface is the work done on one chunk of a phase.
+     */
+    @FunctionalInterface
+    public interface RangeTask {
+
+        /**
+         * Do the work for the items in a range; chunks run at the same time, so it may only write to what belongs to
+         * its own items
+         * @param from index of the first item
+         * @param to index after the last item
+         */
+        void run(int from, int to);
+    }
+
+    // halves its range until it is no bigger than a chunk
+    private static class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeTask task;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        private Chunk(RangeTask task, int from, int to, int chunkSize) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                task.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Chunk(task, from, middle, chunkSize), new Chunk(task, middle, to, chunkSize));
+        }
+    }
+}
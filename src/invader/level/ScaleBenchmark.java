@@ -0,0 +1,226 @@
+package invader.level;
+
+import invader.Game;
+import invader.GameContext;
+import invader.entity.Enemy;
+import invader.powerup.PowerUpPool;
+import javafx.scene.Group;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * This class generates enemy levels of growing size, plays each of them without a window, and reports how the game's tick
+ * scales with the number of enemies, so that we can see where a formation gets too big for one frame.
+ *
+ * Each level is a formation of the given number of enemies, twice as wide as it is tall, with random lives and a few enemies
+ * that burst fire; the formation is squeezed to fit the game (see EnemyLevel.getSlotWidth). The spaceship fires whenever it
+ * can while sweeping from side to side, and is given back the lives it loses between steps, so that the level keeps being
+ * played with every enemy firing rather than being lost as soon as they start. Every level is first played until every enemy has started firing, which also warms
+ * the JIT up, and then timed for a number of seconds of game time; a level that is won is started again, outside the timing.
+ *
+ * One line is printed per level, as comma separated values, so the columns can be plotted against the number of enemies:
+ * ticks per second, the 99th percentile of the time of one tick, and how much heap the level holds after a full GC.
+ *
+ * Usage: ScaleBenchmark [enemy counts, comma separated] [fire rate] [projectile cap] [seconds]
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class ScaleBenchmark implements GameContext {
+    public static final List<Integer> DEFAULT_ENEMY_COUNTS = List.of(50, 200, 1000, 5000, 20000, 50000);
+    public static final double DEFAULT_FIRE_RATE = 1;
+    public static final int DEFAULT_PROJECTILE_CAP = 2000;
+    public static final int DEFAULT_SECONDS = 10;
+    public static final double COLUMNS_PER_ROW = 2;
+    public static final int MAX_ENEMY_LIVES = 3;
+    public static final double BURST_FIRE_CHANCE = 0.05;
+    // enough that the spaceship is never out of lives by the end of a step, however many projectiles hit it
+    public static final int KEPT_LIVES = 1000;
+    public static final int SWEEP_STEPS = Game.FRAMES_PER_SECOND;
+    public static final int WARM_UP_STEPS = Enemy.LATEST_START_FIRING_TIME * Game.FRAMES_PER_SECOND;
+    public static final double PERCENTILE = 0.99;
+    public static final long SEED = 0;
+    public static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    public static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    public static final double BYTES_PER_MEGABYTE = 1024 * 1024;
+    public static final String HEADER = "enemies,rows,columns,ticks_per_second,p99_tick_ms,heap_mb";
+
+    private final Group root = new Group();
+    private final PowerUpPool powerUpPool = new PowerUpPool();
+    private final String levelLines;
+    private final double fireRate;
+    private final int projectileCap;
+    private EnemyLevel level;
+    private double gameTimer = 0;
+    private boolean isMenuActive = false;
+    private int lives;
+    private long steps = 0;
+
+    /**
+     * Create a benchmark for one generated level
+     * @param enemies how many enemies the level has
+     * @param fireRate how many times as often each enemy fires as it would in a normal level
+     * @param projectileCap the most enemy projectiles in the level at once
+     */
+    public ScaleBenchmark(int enemies, double fireRate, int projectileCap) {
+        this.levelLines = generateLevelLines(enemies, new Random(SEED));
+        this.fireRate = fireRate;
+        this.projectileCap = projectileCap;
+        startLevel();
+    }
+
+    /**
+     * Generate the lines of an enemy level, in the format of a level file
+     * @param enemies how many enemies the level has
+     * @param random where the lives of each enemy come from
+     * @return one line per row of the formation, the last of which may be shorter than the others
+     */
+    public static String generateLevelLines(int enemies, Random random) {
+        int columns = (int) Math.ceil(Math.sqrt(enemies * COLUMNS_PER_ROW));
+        StringBuilder lines = new StringBuilder();
+        for (int enemy = 0; enemy < enemies; enemy++) {
+            if (enemy > 0) lines.append(enemy % columns == 0 ? "\n" : ",");
+            int lives = 1 + random.nextInt(MAX_ENEMY_LIVES);
+            lines.append(random.nextDouble() < BURST_FIRE_CHANCE ? -lives : lives);
+        }
+        return lines.toString();
+    }
+
+    /**
+     * Play each generated level and print how fast its ticks were
+     * @param args the enemy counts, the fire rate, the projectile cap, and the seconds of game time to time each level for,
+     *             which default to 50 to 50000 enemies, 1, 2000, and 10
+     */
+    public static void main(String[] args) {
+        List<Integer> enemyCounts = args.length > 0 ? Arrays.stream(args[0].split(",")).map(Integer::parseInt)
+                .collect(Collectors.toList()) : DEFAULT_ENEMY_COUNTS;
+        double fireRate = args.length > 1 ? Double.parseDouble(args[1]) : DEFAULT_FIRE_RATE;
+        int projectileCap = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PROJECTILE_CAP;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_SECONDS;
+        System.out.printf("# fire rate %s, projectile cap %d, %d seconds of game time per level%n", fireRate,
+                projectileCap, seconds);
+        System.out.println(HEADER);
+        // load the game's classes and images first, so the heap counted for the first level is only its own
+        new ScaleBenchmark(enemyCounts.get(0), fireRate, projectileCap).run(WARM_UP_STEPS);
+        for (int enemies : enemyCounts) {
+            long heapBefore = usedHeapAfterGc();
+            ScaleBenchmark benchmark = new ScaleBenchmark(enemies, fireRate, projectileCap);
+            benchmark.run(WARM_UP_STEPS);
+            long[] tickNanos = benchmark.run(seconds * Game.FRAMES_PER_SECOND);
+            double heapMegabytes = (usedHeapAfterGc() - heapBefore) / BYTES_PER_MEGABYTE;
+            long totalNanos = Arrays.stream(tickNanos).sum();
+            Arrays.sort(tickNanos);
+            long p99Nanos = tickNanos[(int) Math.ceil(PERCENTILE * tickNanos.length) - 1];
+            System.out.printf("%d,%d,%d,%.1f,%.3f,%.1f%n", enemies, benchmark.level.getFormationRows(),
+                    benchmark.level.getFormationColumns(), tickNanos.length * NANOS_PER_SECOND / totalNanos,
+                    p99Nanos / NANOS_PER_MILLI, heapMegabytes);
+            benchmark.level.clearLevel();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Play the level for a number of steps, with the spaceship firing and sweeping from side to side
+     * @param stepsToRun how many steps to play
+     * @return how long each step took, in nanoseconds
+     */
+    public long[] run(int stepsToRun) {
+        long[] tickNanos = new long[stepsToRun];
+        for (int step = 0; step < stepsToRun; step++) {
+            while (lives < KEPT_LIVES) level.addLife();
+            level.moveSpaceship(steps / SWEEP_STEPS % 2 == 0);
+            level.attemptSpaceshipFire(gameTimer);
+            long start = System.nanoTime();
+            gameTimer += Game.SECOND_DELAY;
+            level.handleEntitiesAndLasers(gameTimer, Game.SECOND_DELAY);
+            tickNanos[step] = System.nanoTime() - start;
+            steps++;
+            if (isMenuActive) startLevel();
+        }
+        return tickNanos;
+    }
+
+    /**
+     * Get the level being played
+     * @return the generated level
+     */
+    public EnemyLevel getLevel() {
+        return level;
+    }
+
+    @Override
+    public double getGameTimer() {
+        return gameTimer;
+    }
+
+    @Override
+    public void setMenuActive(boolean isMenuActive) {
+        this.isMenuActive = isMenuActive;
+    }
+
+    @Override
+    public void setGameOverMenuActive(boolean isGameOverMenuActive) {
+        // a level that ends is started again
+    }
+
+    @Override
+    public void updateLifeCountDisplay(int lives) {
+        this.lives = lives;
+    }
+
+    @Override
+    public void updateLevelNumberDisplay(int levelNumber) {
+        // nothing is shown
+    }
+
+    @Override
+    public void updatePointsDisplay(int pointsEarned) {
+        // nothing is shown
+    }
+
+    @Override
+    public void createGameOverMenu() {
+        // a level that ends is started again
+    }
+
+    @Override
+    public void createVictoryMenu() {
+        // a level that ends is started again
+    }
+
+    @Override
+    public void createBossLevelMenu() {
+        // a level that ends is started again
+    }
+
+    @Override
+    public void createLevelIntermissionMenu() {
+        // a level that ends is started again
+    }
+
+    @Override
+    public PowerUpPool getPowerUpPool() {
+        return powerUpPool;
+    }
+
+    // a level that ended has already cleared itself
+    private void startLevel() {
+        gameTimer = 0;
+        isMenuActive = false;
+        level = new EnemyLevel(root, Game.MIN_LEVEL, this, SEED, 1, levelLines);
+        level.setEnemyFireRate(fireRate);
+        level.setMaxEvilEntityProjectiles(projectileCap);
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
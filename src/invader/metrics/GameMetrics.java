@@ -0,0 +1,140 @@
+package invader.metrics;
+
+import invader.Game;
+import invader.level.Level;
+import javafx.scene.Group;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class keeps the game's runtime metrics, for the MetricsServer to hand to a Prometheus scraper.
+ *
+ * Like the StatusDisplay, the metrics are static, since there is one game per JVM and the high score file is written from
+ * the StatusDisplay. The game calls startTick and endTick around each step; everything they record goes into LongAdders,
+ * a Histogram, or plain volatile gauges, so a tick never takes a lock or waits for a scrape. The GC totals are read from the
+ * JVM's own beans only when scraped.
+ *
+ * The allocation counted for a tick is what the game's thread allocated during it, as reported by the JVM; on Java 11 the
+ * measurement itself allocates a few dozen bytes, which are counted too.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class GameMetrics {
+    public static final String PREFIX = "invader_";
+    public static final long FRAME_NANOS = Math.round(Game.SECOND_DELAY * Histogram.NANOS_PER_SECOND);
+    // a tick is only counted as having dropped frames once it is half a frame later than the next frame was due
+    public static final double DROPPED_FRAME_THRESHOLD = 1.5;
+    public static final Histogram TICK_SECONDS = new Histogram(PREFIX + "tick_seconds",
+            "Time taken by one game tick.", 0.0005, 0.001, 0.002, 0.004, 0.008, Game.SECOND_DELAY, 0.033, 0.1);
+    public static final Histogram HIGH_SCORE_WRITE_SECONDS = new Histogram(PREFIX + "high_score_write_seconds",
+            "Time taken to write the high score file.", 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1);
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final LongAdder ticks = new LongAdder();
+    private static final LongAdder framesDropped = new LongAdder();
+    private static final LongAdder tickAllocatedBytes = new LongAdder();
+    // gauges, written by the game's thread at the end of each tick
+    private static volatile int sceneNodes;
+    private static volatile int spaceshipProjectiles;
+    private static volatile int evilEntityProjectiles;
+    private static volatile int enemiesAlive;
+    private static volatile int powerUpsActive;
+    // only touched by the game's thread
+    private static long lastTickStartNanos = 0;
+    private static long tickStartNanos;
+    private static long tickStartAllocatedBytes;
+
+    // private constructor so that this class is not accidentally instantiated
+    private GameMetrics() {
+        //not called
+    }
+
+    /**
+     * Mark the start of a tick; only called from the game's thread
+     */
+    public static void startTick() {
+        tickStartNanos = System.nanoTime();
+        if (lastTickStartNanos != 0) {
+            long gapNanos = tickStartNanos - lastTickStartNanos;
+            if (gapNanos > DROPPED_FRAME_THRESHOLD * FRAME_NANOS) framesDropped.add(Math.round((double) gapNanos / FRAME_NANOS) - 1);
+        }
+        lastTickStartNanos = tickStartNanos;
+        tickStartAllocatedBytes = getAllocatedBytes();
+    }
+
+    /**
+     * Mark the end of a tick and record the state of the scene after it; only called from the game's thread
+     * @param root the root of the game's scene
+     * @param level the level being played, or null if the game has not started
+     */
+    public static void endTick(Group root, Level level) {
+        TICK_SECONDS.record(System.nanoTime() - tickStartNanos);
+        ticks.increment();
+        tickAllocatedBytes.add(getAllocatedBytes() - tickStartAllocatedBytes);
+        sceneNodes = root.getChildren().size();
+        if (level == null) return;
+        spaceshipProjectiles = level.getSpaceshipProjectileCount();
+        evilEntityProjectiles = level.getEvilEntityProjectileCount();
+        enemiesAlive = level.getEnemiesAlive();
+        powerUpsActive = level.getSpaceship(0).getModifiers().getActiveCount();
+    }
+
+    /**
+     * Get how many ticks have been recorded
+     * @return the number of ticks
+     */
+    public static long getTicks() {
+        return ticks.sum();
+    }
+
+    /**
+     * Write every metric in the Prometheus text format
+     * @param out where to write them
+     */
+    public static void writeTo(StringBuilder out) {
+        TICK_SECONDS.writeTo(out);
+        writeMetric(out, PREFIX + "ticks_total", "Game ticks run.", "counter", ticks.sum());
+        writeMetric(out, PREFIX + "frames_dropped_total", "Frames skipped because a tick started late.", "counter",
+                framesDropped.sum());
+        writeMetric(out, PREFIX + "tick_allocated_bytes_total", "Bytes allocated by the game's thread during ticks.",
+                "counter", tickAllocatedBytes.sum());
+        writeMetric(out, PREFIX + "scene_nodes", "Nodes in the root of the scene.", "gauge", sceneNodes);
+        writeHeader(out, PREFIX + "projectiles", "Projectiles in the level, by who fired them.", "gauge");
+        out.append(PREFIX).append("projectiles{list=\"spaceship\"} ").append(spaceshipProjectiles).append('\n');
+        out.append(PREFIX).append("projectiles{list=\"evil_entity\"} ").append(evilEntityProjectiles).append('\n');
+        writeMetric(out, PREFIX + "enemies_alive", "Enemies (or bosses) still alive in the level.", "gauge", enemiesAlive);
+        writeMetric(out, PREFIX + "power_ups_active", "Power ups in effect on the spaceship.", "gauge", powerUpsActive);
+        HIGH_SCORE_WRITE_SECONDS.writeTo(out);
+        long gcMillis = 0;
+        long gcCount = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcMillis += Math.max(0, collector.getCollectionTime());
+            gcCount += Math.max(0, collector.getCollectionCount());
+        }
+        writeHeader(out, "jvm_gc_pause_seconds_total", "Time spent in garbage collections, as reported by the JVM.", "counter");
+        out.append("jvm_gc_pause_seconds_total ").append(gcMillis / 1000.0).append('\n');
+        writeMetric(out, "jvm_gc_collections_total", "Garbage collections run.", "counter", gcCount);
+    }
+
+    static void writeHeader(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void writeMetric(StringBuilder out, String name, String help, String type, long value) {
+        writeHeader(out, name, help, type);
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static long getAllocatedBytes() {
+        if (!(THREADS instanceof com.sun.management.ThreadMXBean)) return 0;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) return 0;
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
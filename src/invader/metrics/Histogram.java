@@ -0,0 +1,84 @@
+package invader.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class counts how long something took into fixed buckets, and writes them out as a Prometheus histogram.
+ *
+ * Recording only finds the bucket and increments a LongAdder, so it never takes a lock or waits on a scrape; a scrape may
+ * see a recording that is half done (counted but not yet summed, say), which Prometheus tolerates.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class Histogram {
+    public static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final String name;
+    private final String help;
+    private final long[] upperBoundsNanos;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    /**
+     * Create an empty histogram
+     * @param name the metric's name
+     * @param help what the metric measures
+     * @param upperBoundsSeconds the upper bound of each bucket, in seconds, smallest first
+     */
+    public Histogram(String name, String help, double... upperBoundsSeconds) {
+        this.name = name;
+        this.help = help;
+        upperBoundsNanos = new long[upperBoundsSeconds.length];
+        buckets = new LongAdder[upperBoundsSeconds.length];
+        for (int bucket = 0; bucket < upperBoundsSeconds.length; bucket++) {
+            upperBoundsNanos[bucket] = Math.round(upperBoundsSeconds[bucket] * NANOS_PER_SECOND);
+            buckets[bucket] = new LongAdder();
+        }
+    }
+
+    /**
+     * Count one duration; can be called from any thread
+     * @param nanos how long it took, in nanoseconds
+     */
+    public void record(long nanos) {
+        // each bucket only counts what falls in it, and the scrape adds them up, so one increment is enough here
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            if (nanos <= upperBoundsNanos[bucket]) {
+                buckets[bucket].increment();
+                break;
+            }
+        }
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Get how many durations have been counted
+     * @return the number of durations
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Write the histogram in the Prometheus text format
+     * @param out where to write it
+     */
+    public void writeTo(StringBuilder out) {
+        GameMetrics.writeHeader(out, name, help, "histogram");
+        long cumulative = 0;
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            cumulative += buckets[bucket].sum();
+            out.append(name).append("_bucket{le=\"").append(upperBoundsNanos[bucket] / NANOS_PER_SECOND).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        long total = count.sum();
+        out.append(name).append("_bucket{le=\"+Inf\"} ").append(Math.max(total, cumulative)).append('\n');
+        out.append(name).append("_sum ").append(sumNanos.sum() / NANOS_PER_SECOND).append('\n');
+        out.append(name).append("_count ").append(total).append('\n');
+    }
+}
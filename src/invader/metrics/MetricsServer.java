@@ -0,0 +1,76 @@
+package invader.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class serves the game's metrics over HTTP on the local machine, in the Prometheus text format, for a scraper to poll.
+ *
+ * GET /metrics returns every metric in GameMetrics. The server runs on its own thread and only reads the metrics, so a
+ * scrape never holds up a tick.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class MetricsServer {
+    public static final int DEFAULT_PORT = 9400;
+    public static final String PATH = "/metrics";
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    public static final int OK = 200;
+    public static final int METHOD_NOT_ALLOWED = 405;
+    public static final int NO_BODY = -1;
+
+    private final HttpServer server;
+
+    /**
+     * Start serving the metrics
+     * @param port port to listen on, or 0 for any free port
+     * @throws IOException if the port could not be opened
+     */
+    public MetricsServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext(PATH, this::handleScrape);
+        server.start();
+    }
+
+    /**
+     * Get the port the server is listening on
+     * @return the server's port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stop serving the metrics
+     */
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handleScrape(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(METHOD_NOT_ALLOWED, NO_BODY);
+                return;
+            }
+            StringBuilder metrics = new StringBuilder();
+            GameMetrics.writeTo(metrics);
+            byte[] body = metrics.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(OK, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
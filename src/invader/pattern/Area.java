@@ -0,0 +1,69 @@
+package invader.pattern;
+
+/**
+ * This class is a rectangle of the game given by its edges, which the fireball swarm reuses every step to tell its
+ * integration kernel where the fireballs may be and where its target is.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class Area {
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+
+    /**
+     * Create an area
+     * @param minX x position of the left edge
+     * @param minY y position of the top edge
+     * @param maxX x position of the right edge
+     * @param maxY y position of the bottom edge
+     */
+    public Area(double minX, double minY, double maxX, double maxY) {
+        set(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Move the edges of the area
+     * @param minX x position of the left edge
+     * @param minY y position of the top edge
+     * @param maxX x position of the right edge
+     * @param maxY y position of the bottom edge
+     */
+    public void set(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * @return x position of the left edge
+     */
+    public double getMinX() {
+        return minX;
+    }
+
+    /**
+     * @return y position of the top edge
+     */
+    public double getMinY() {
+        return minY;
+    }
+
+    /**
+     * @return x position of the right edge
+     */
+    public double getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * @return y position of the bottom edge
+     */
+    public double getMaxY() {
+        return maxY;
+    }
+}
@@ -0,0 +1,144 @@
+package invader.pattern;
+
+/**
+ * This class describes one bullet pattern of a boss as data: its shape, how many fireballs each volley has, how many
+ * volleys it fires and how far apart, and how fast, wide and twisted they are.
+ *
+ * Patterns can be written one per line in a level file, as the shape followed by its numbers, for example
+ * "SPIRAL 4 60 0.05 120 0 9" for four arms that turn 9 degrees a volley. The pattern itself holds no state, so one pattern
+ * can be played by any number of bosses.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class BulletPattern {
+    public static final double FULL_TURN = 360;
+    public static final double DOWN = 90;
+    // how far a wave swings through its cycle each volley, in radians
+    public static final double WAVE_STEP = Math.PI / 8;
+    public static final String SEPARATOR = "\\s+";
+    public static final int VALUES_PER_LINE = 7;
+
+    private final PatternShape shape;
+    private final int bulletsPerVolley;
+    private final int volleys;
+    private final double secondsBetweenVolleys;
+    private final double speed;
+    private final double spread;
+    private final double turn;
+
+    /**
+     * Create a bullet pattern
+     * @param shape the shape of the pattern
+     * @param bulletsPerVolley how many fireballs each volley fires
+     * @param volleys how many volleys the pattern fires before it is over
+     * @param secondsBetweenVolleys how long to wait between two volleys
+     * @param speed how fast the fireballs travel, in pixels per second
+     * @param spread how wide a fan or wave is, in degrees; not used by rings and spirals
+     * @param turn how far a spiral turns each volley, or how far a wave swings to each side, in degrees
+     */
+    public BulletPattern(PatternShape shape, int bulletsPerVolley, int volleys, double secondsBetweenVolleys, double speed,
+                         double spread, double turn) {
+        this.shape = shape;
+        this.bulletsPerVolley = Math.max(1, bulletsPerVolley);
+        this.volleys = Math.max(1, volleys);
+        this.secondsBetweenVolleys = secondsBetweenVolleys;
+        this.speed = speed;
+        this.spread = spread;
+        this.turn = turn;
+    }
+
+    /**
+     * Read a pattern written as the shape followed by its numbers, in the order of the constructor
+     * @param line the pattern, such as "RING 24 3 0.6 100 0 0"
+     * @return the pattern described by the line
+     * @throws IllegalArgumentException if the line does not describe a pattern
+     */
+    public static BulletPattern parse(String line) {
+        String[] values = line.trim().split(SEPARATOR);
+        if (values.length != VALUES_PER_LINE) {
+            throw new IllegalArgumentException("A bullet pattern needs " + VALUES_PER_LINE + " values: " + line);
+        }
+        return new BulletPattern(PatternShape.valueOf(values[0]), Integer.parseInt(values[1]), Integer.parseInt(values[2]),
+                Double.parseDouble(values[3]), Double.parseDouble(values[4]), Double.parseDouble(values[5]),
+                Double.parseDouble(values[6]));
+    }
+
+    /**
+     * Get the direction of one fireball of a volley
+     * @param volley which volley of the pattern, starting from 0
+     * @param bullet which fireball of the volley, starting from 0
+     * @param aimAngle the direction from the boss to the spaceship, in degrees
+     * @return the direction the fireball travels in, in degrees clockwise from the right
+     */
+    public double getAngle(int volley, int bullet, double aimAngle) {
+        double gap = FULL_TURN / bulletsPerVolley;
+        switch (shape) {
+            case RING:
+                return DOWN + gap * bullet + (volley % 2) * gap / 2;
+            case SPIRAL:
+                return DOWN + gap * bullet + turn * volley;
+            case AIMED_FAN:
+                return aimAngle + fanOffset(bullet);
+            case WAVE:
+                return DOWN + turn * Math.sin(volley * WAVE_STEP) + fanOffset(bullet);
+            default:
+                throw new IllegalStateException("Unknown pattern shape " + shape);
+        }
+    }
+
+    /**
+     * Get how long the pattern takes from its first volley to its last
+     * @return the length of the pattern in seconds
+     */
+    public double getDuration() {
+        return (volleys - 1) * secondsBetweenVolleys;
+    }
+
+    /**
+     * Get the shape of the pattern
+     * @return the shape
+     */
+    public PatternShape getShape() {
+        return shape;
+    }
+
+    /**
+     * Get how many fireballs each volley fires
+     * @return the fireballs per volley
+     */
+    public int getBulletsPerVolley() {
+        return bulletsPerVolley;
+    }
+
+    /**
+     * Get how many volleys the pattern fires
+     * @return the number of volleys
+     */
+    public int getVolleys() {
+        return volleys;
+    }
+
+    /**
+     * Get how long to wait between two volleys
+     * @return the time between volleys in seconds
+     */
+    public double getSecondsBetweenVolleys() {
+        return secondsBetweenVolleys;
+    }
+
+    /**
+     * Get how fast the fireballs travel
+     * @return the speed in pixels per second
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    // the fireballs of a fan are spread evenly from one edge of the spread to the other, or fired straight if there is one
+    private double fanOffset(int bullet) {
+        if (bulletsPerVolley == 1) return 0;
+        return -spread / 2 + spread * bullet / (bulletsPerVolley - 1);
+    }
+}
@@ -0,0 +1,114 @@
+package invader.pattern;
+
+import invader.StateBuffer;
+
+import java.util.List;
+
+/**
+ * This class plays a boss's bullet patterns, firing each volley into a FireballSwarm when it is due.
+ *
+ * The patterns are played one at a time, in the order they were given, starting over from the first once the last one has
+ * been played. A pattern is started with start and then played by calling update every step; volleys are timed by the game
+ * timer rather than by counting steps, so a pattern takes as long to play however many steps the game manages each second.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class BulletPatternEngine {
+    private final List<BulletPattern> patterns;
+    private int patternIndex = 0;
+    private int volley = 0;
+    private double nextVolleyTime = 0;
+    private boolean isPlaying = false;
+
+    /**
+     * Create an engine for a boss's patterns
+     * @param patterns the patterns to play, in order
+     */
+    public BulletPatternEngine(List<BulletPattern> patterns) {
+        this.patterns = List.copyOf(patterns);
+    }
+
+    /**
+     * Start playing the next pattern, if there are any patterns to play
+     * @param gameTimer the time of the game, when the pattern's first volley is fired
+     */
+    public void start(double gameTimer) {
+        if (patterns.isEmpty()) return;
+        volley = 0;
+        nextVolleyTime = gameTimer;
+        isPlaying = true;
+    }
+
+    /**
+     * Fire every volley of the pattern being played that is due by now
+     * @param gameTimer the time of the game
+     * @param originX x position the fireballs are fired from
+     * @param originY y position the fireballs are fired from
+     * @param aimX x position aimed fans are aimed at
+     * @param aimY y position aimed fans are aimed at
+     * @param swarm the swarm the fireballs are fired into
+     */
+    public void update(double gameTimer, double originX, double originY, double aimX, double aimY, FireballSwarm swarm) {
+        while (isPlaying && gameTimer >= nextVolleyTime) {
+            BulletPattern pattern = patterns.get(patternIndex);
+            double aimAngle = Math.toDegrees(Math.atan2(aimY - originY, aimX - originX));
+            for (int bullet = 0; bullet < pattern.getBulletsPerVolley(); bullet++) {
+                swarm.fire(originX, originY, pattern.getAngle(volley, bullet, aimAngle), pattern.getSpeed());
+            }
+            volley++;
+            nextVolleyTime += pattern.getSecondsBetweenVolleys();
+            if (volley == pattern.getVolleys()) {
+                isPlaying = false;
+                patternIndex = (patternIndex + 1) % patterns.size();
+            }
+        }
+    }
+
+    /**
+     * Get if a pattern is being played
+     * @return whether a pattern has been started and has volleys left to fire
+     */
+    public boolean isPlaying() {
+        return isPlaying;
+    }
+
+    /**
+     * Get if the engine has any patterns to play
+     * @return whether any patterns were given
+     */
+    public boolean hasPatterns() {
+        return !patterns.isEmpty();
+    }
+
+    /**
+     * Get the pattern that is being played, or that will be played next
+     * @return the current pattern, or null if there are no patterns
+     */
+    public BulletPattern getCurrentPattern() {
+        return patterns.isEmpty() ? null : patterns.get(patternIndex);
+    }
+
+    /**
+     * Save where the engine is in its patterns
+     * @param state where the state is saved
+     */
+    public void saveState(StateBuffer state) {
+        state.put(patternIndex);
+        state.put(volley);
+        state.put(nextVolleyTime);
+        state.put(isPlaying);
+    }
+
+    /**
+     * Put the engine back where it was when saveState was called
+     * @param state where the state was saved
+     */
+    public void restoreState(StateBuffer state) {
+        patternIndex = state.nextInt();
+        volley = state.nextInt();
+        nextVolleyTime = state.nextDouble();
+        isPlaying = state.nextBoolean();
+    }
+}
@@ -0,0 +1,358 @@
+package invader.pattern;
+
+import invader.CollisionDetection;
+import invader.Game;
+import invader.MovingObject;
+import invader.StateBuffer;
+import invader.entity.Spaceship;
+import invader.projectile.Fireball;
+import invader.snapshot.GameSnapshot;
+import javafx.scene.Group;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class holds every fireball fired by a boss's bullet patterns, so that thousands of them can be on screen at once.
+ *
+ * The fireballs are not kept as a list of projectiles, each moved and checked on its own. Instead their positions and
+ * velocities are kept side by side in arrays, packed so that the live fireballs are always the first ones, and each step an
+ * IntegrationKernel moves them all and flags the few that have reached a wall or come near enough to the spaceship that
+ * they may have hit it. Only those are looked at again, to bounce them, drop them, or check them against the spaceship.
+ *
+ * Each slot of the arrays is drawn by a Fireball node that stays in the swarm's own group for as long as the swarm exists,
+ * and is hidden when its slot is empty, so firing and dropping fireballs never adds nodes to or removes nodes from the
+ * scene. The arrays and nodes only grow, to the most fireballs that have been on screen at once, and a step allocates
+ * nothing once they have.
+ *
+ * Like in most bullet hell games, a fireball only hits the spaceship with the middle of its sprite, a square HITBOX_SIZE
+ * wide, rather than with its whole rectangle, so the fireballs can be dodged as closely as they look like they can.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class FireballSwarm {
+    public static final int DEFAULT_CAPACITY = 256;
+    public static final double HITBOX_SIZE = Fireball.WIDTH / 2;
+    public static final double MIN_X = 0;
+    public static final double MAX_X = Game.GAME_WIDTH - Fireball.WIDTH;
+    public static final double MIN_Y = MovingObject.OUT_OF_BOUNDS_LOCATION;
+    public static final double MAX_Y = Game.GAME_HEIGHT - MovingObject.OUT_OF_BOUNDS_LOCATION;
+    // the image of a fireball points down, which is 90 degrees clockwise from the right
+    public static final double IMAGE_ANGLE = 90;
+    private static final double HITBOX_OFFSET_X = (Fireball.WIDTH - HITBOX_SIZE) / 2;
+    private static final double HITBOX_OFFSET_Y = (Fireball.HEIGHT - HITBOX_SIZE) / 2;
+    private static final int DEFAULT_BENCHMARK_FIREBALLS = 5000;
+    private static final int DEFAULT_BENCHMARK_SECONDS = 10;
+    private static final double BENCHMARK_MIN_SPEED = 40;
+    private static final double BENCHMARK_MAX_SPEED = 160;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final Group layer = new Group();
+    private final IntegrationKernel kernel;
+    private final Area bounds = new Area(MIN_X, MIN_Y, MAX_X, MAX_Y);
+    private final Area nearSpaceship = new Area(0, 0, 0, 0);
+    private double[] x;
+    private double[] y;
+    private double[] xSpeed;
+    private double[] ySpeed;
+    private double[] rotation;
+    private byte[] flags;
+    private Fireball[] nodes;
+    private int count = 0;
+    private int nodeCount = 0;
+    private int visibleCount = 0;
+    private int hits = 0;
+    // the fastest any fireball has moved along each axis, which bounds how far one can have come during a step
+    private double maxXSpeed = 0;
+    private double maxYSpeed = 0;
+
+    /**
+     * Create an empty swarm with room for DEFAULT_CAPACITY fireballs before it has to grow
+     */
+    public FireballSwarm() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an empty swarm, moved by the kernel chosen for this run of the game
+     * @param capacity how many fireballs there is room for before the swarm has to grow
+     */
+    public FireballSwarm(int capacity) {
+        this(capacity, IntegrationKernel.select());
+    }
+
+    /**
+     * Create an empty swarm
+     * @param capacity how many fireballs there is room for before the swarm has to grow
+     * @param kernel the kernel that moves the fireballs
+     */
+    public FireballSwarm(int capacity, IntegrationKernel kernel) {
+        this.kernel = kernel;
+        int size = Math.max(1, capacity);
+        x = new double[size];
+        y = new double[size];
+        xSpeed = new double[size];
+        ySpeed = new double[size];
+        rotation = new double[size];
+        flags = new byte[size];
+        nodes = new Fireball[size];
+        layer.setId(Fireball.TYPE + "Swarm");
+    }
+
+    /**
+     * Get the group the swarm's fireballs are drawn in, to add to the scene along with the rest of the level
+     * @return the swarm's group
+     */
+    public Group getLayer() {
+        return layer;
+    }
+
+    /**
+     * Fire a fireball
+     * @param xPos x position of the fireball
+     * @param yPos y position of the fireball
+     * @param angle the direction it travels in, in degrees clockwise from the right
+     * @param speed how fast it travels, in pixels per second
+     */
+    public void fire(double xPos, double yPos, double angle, double speed) {
+        if (count == x.length) grow();
+        double radians = Math.toRadians(angle);
+        x[count] = xPos;
+        y[count] = yPos;
+        xSpeed[count] = speed * Math.cos(radians);
+        ySpeed[count] = speed * Math.sin(radians);
+        rotation[count] = angle - IMAGE_ANGLE;
+        maxXSpeed = Math.max(maxXSpeed, Math.abs(xSpeed[count]));
+        maxYSpeed = Math.max(maxYSpeed, Math.abs(ySpeed[count]));
+        count++;
+    }
+
+    /**
+     * Move every fireball by one step, bouncing them off the sides of the game and dropping those that leave the top or the
+     * bottom, then check them against the spaceship and draw them where they now are
+     * @param elapsedTime the time that is elapsed after a single step
+     * @param spaceship the spaceship the fireballs are fired at
+     * @return how much damage the fireballs that hit the spaceship during the step do altogether
+     */
+    public int step(double elapsedTime, Spaceship spaceship) {
+        double shipX = spaceship.getX();
+        double shipY = spaceship.getY();
+        double shipWidth = spaceship.getFitWidth();
+        double shipHeight = spaceship.getFitHeight();
+        double shipStepX = spaceship.getLastStepX();
+        double shipStepY = spaceship.getLastStepY();
+        kernel.integrate(x, y, xSpeed, ySpeed, count, elapsedTime);
+        // a fireball outside this area could not have touched the spaceship with its hitbox at any time during the step
+        double reachX = maxXSpeed * elapsedTime + Math.abs(shipStepX);
+        double reachY = maxYSpeed * elapsedTime + Math.abs(shipStepY);
+        nearSpaceship.set(shipX - HITBOX_OFFSET_X - HITBOX_SIZE - reachX, shipY - HITBOX_OFFSET_Y - HITBOX_SIZE - reachY,
+                shipX + shipWidth - HITBOX_OFFSET_X + reachX, shipY + shipHeight - HITBOX_OFFSET_Y + reachY);
+        kernel.classify(x, y, count, bounds, nearSpaceship, flags);
+        int damage = 0;
+        // backwards, so the fireball moved into a dropped one's slot has already been handled
+        for (int index = count - 1; index >= 0; index--) {
+            byte flag = flags[index];
+            if (flag == IntegrationKernel.NONE) continue;
+            if ((flag & IntegrationKernel.OUT_OF_Y_BOUNDS) != 0) {
+                remove(index);
+                continue;
+            }
+            double dx = xSpeed[index] * elapsedTime;
+            double dy = ySpeed[index] * elapsedTime;
+            if ((flag & IntegrationKernel.NEAR_TARGET) != 0
+                    && hitsSpaceship(x[index], y[index], dx - shipStepX, dy - shipStepY, shipX, shipY, shipWidth, shipHeight)) {
+                damage += Fireball.DAMAGE;
+                hits++;
+                remove(index);
+                continue;
+            }
+            if ((flag & IntegrationKernel.OUT_OF_X_BOUNDS) != 0) {
+                // bounce like the boss's other projectiles, turning the sprite to match
+                xSpeed[index] = x[index] <= MIN_X ? Math.abs(xSpeed[index]) : -Math.abs(xSpeed[index]);
+                rotation[index] = -rotation[index];
+            }
+        }
+        draw();
+        return damage;
+    }
+
+    /**
+     * Drop every fireball, such as when the level ends
+     */
+    public void clear() {
+        count = 0;
+        maxXSpeed = 0;
+        maxYSpeed = 0;
+        draw();
+    }
+
+    /**
+     * Get how many fireballs are in the swarm
+     * @return the number of fireballs on screen
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Get how many fireballs have hit a spaceship since the swarm was created
+     * @return the number of hits
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the kernel that moves the fireballs
+     * @return the swarm's integration kernel
+     */
+    public IntegrationKernel getKernel() {
+        return kernel;
+    }
+
+    /**
+     * Get the x position of a fireball
+     * @param index which fireball, from 0 to getCount
+     * @return x position of the fireball
+     */
+    public double getX(int index) {
+        return x[index];
+    }
+
+    /**
+     * Get the y position of a fireball
+     * @param index which fireball, from 0 to getCount
+     * @return y position of the fireball
+     */
+    public double getY(int index) {
+        return y[index];
+    }
+
+    /**
+     * Record every fireball in a snapshot, as evil fireballs, for as many as the snapshot has room for
+     * @param snapshot the snapshot to add the fireballs to
+     */
+    public void captureSnapshot(GameSnapshot snapshot) {
+        int kind = GameSnapshot.PROJECTILE_TYPES.indexOf(Fireball.TYPE) * 2 + 1;
+        for (int index = 0; index < count; index++) {
+            snapshot.addProjectile(kind, GameSnapshot.quantize(x[index]), GameSnapshot.quantize(y[index]));
+        }
+    }
+
+    /**
+     * Save every fireball in the swarm
+     * @param state where the state is saved
+     */
+    public void saveState(StateBuffer state) {
+        state.put(count);
+        state.put(hits);
+        for (int index = 0; index < count; index++) {
+            state.put(x[index]);
+            state.put(y[index]);
+            state.put(xSpeed[index]);
+            state.put(ySpeed[index]);
+            state.put(rotation[index]);
+        }
+    }
+
+    /**
+     * Put the swarm back as it was when saveState was called
+     * @param state where the state was saved
+     */
+    public void restoreState(StateBuffer state) {
+        clear();
+        int savedCount = state.nextInt();
+        hits = state.nextInt();
+        for (int index = 0; index < savedCount; index++) {
+            if (count == x.length) grow();
+            x[index] = state.nextDouble();
+            y[index] = state.nextDouble();
+            xSpeed[index] = state.nextDouble();
+            ySpeed[index] = state.nextDouble();
+            rotation[index] = state.nextDouble();
+            maxXSpeed = Math.max(maxXSpeed, Math.abs(xSpeed[index]));
+            maxYSpeed = Math.max(maxYSpeed, Math.abs(ySpeed[index]));
+            count++;
+        }
+        draw();
+    }
+
+    // swept in the frame of the spaceship, like Projectile.timeOfImpact, so a fast fireball can not pass through it
+    private boolean hitsSpaceship(double newX, double newY, double dx, double dy, double shipX, double shipY,
+                                  double shipWidth, double shipHeight) {
+        return CollisionDetection.sweptAabb(newX + HITBOX_OFFSET_X - dx, newY + HITBOX_OFFSET_Y - dy, HITBOX_SIZE, HITBOX_SIZE,
+                dx, dy, shipX, shipY, shipWidth, shipHeight) != CollisionDetection.NO_HIT;
+    }
+
+    // the last fireball takes the removed one's slot, so the live fireballs stay packed at the front
+    private void remove(int index) {
+        count--;
+        x[index] = x[count];
+        y[index] = y[count];
+        xSpeed[index] = xSpeed[count];
+        ySpeed[index] = ySpeed[count];
+        rotation[index] = rotation[count];
+    }
+
+    private void draw() {
+        for (int index = 0; index < count; index++) {
+            if (index == nodeCount) addNode();
+            Fireball node = nodes[index];
+            node.setX(x[index]);
+            node.setY(y[index]);
+            if (node.getRotate() != rotation[index]) node.setRotate(rotation[index]);
+            if (index >= visibleCount) node.setVisible(true);
+        }
+        for (int index = count; index < visibleCount; index++) nodes[index].setVisible(false);
+        visibleCount = count;
+    }
+
+    private void addNode() {
+        Fireball node = new Fireball(x[nodeCount], y[nodeCount], true, 0, nodeCount);
+        nodes[nodeCount] = node;
+        nodeCount++;
+        layer.getChildren().add(node);
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        xSpeed = Arrays.copyOf(xSpeed, capacity);
+        ySpeed = Arrays.copyOf(ySpeed, capacity);
+        rotation = Arrays.copyOf(rotation, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        nodes = Arrays.copyOf(nodes, capacity);
+    }
+
+    /**
+     * Keep a swarm at a number of fireballs for a while, firing new ones as others leave, and report how long a step takes
+     * @param args the number of fireballs and the number of seconds to run, which default to 5000 and 10
+     */
+    public static void main(String[] args) {
+        int fireballs = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BENCHMARK_FIREBALLS;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BENCHMARK_SECONDS;
+        FireballSwarm swarm = new FireballSwarm(fireballs);
+        Spaceship spaceship = new Spaceship(Spaceship.DEFAULT_X_POS, Spaceship.DEFAULT_Y_POS);
+        Random random = new Random(0);
+        long steps = 0;
+        long stepNanos = 0;
+        long start = System.nanoTime();
+        long end = start + seconds * NANOS_PER_SECOND;
+        while (System.nanoTime() < end) {
+            while (swarm.getCount() < fireballs) {
+                swarm.fire(Game.GAME_WIDTH / 2.0, Game.GAME_HEIGHT / 2.0, random.nextDouble() * BulletPattern.FULL_TURN,
+                        BENCHMARK_MIN_SPEED + random.nextDouble() * (BENCHMARK_MAX_SPEED - BENCHMARK_MIN_SPEED));
+            }
+            long stepStart = System.nanoTime();
+            swarm.step(Game.SECOND_DELAY, spaceship);
+            stepNanos += System.nanoTime() - stepStart;
+            steps++;
+        }
+        System.out.printf("%d fireballs, %s kernel: %.3f ms per step (a frame lasts %.3f ms), %d hits%n", fireballs,
+                swarm.getKernel().getName(), (double) stepNanos / steps / 1_000_000, Game.SECOND_DELAY * 1000, swarm.getHits());
+        System.exit(0);
+    }
+}
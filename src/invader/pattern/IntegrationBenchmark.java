@@ -0,0 +1,100 @@
+package invader.pattern;
+
+import invader.Game;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class times each integration kernel moving and classifying the same fireballs, so the kernels can be compared on the
+ * machine the game is run on, and checks that every kernel ends a fixed number of steps with the same positions and flags
+ * as the ScalarKernel.
+ *
+ * A fireball that leaves one side of the game comes back on the other, so they stay on screen however long the benchmark
+ * runs, and only the kernel's own work is timed. The fireballs never come back to where they were, so the processor can not
+ * learn the results of the checks from earlier steps.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class IntegrationBenchmark {
+    public static final int DEFAULT_FIREBALLS = 5000;
+    public static final int DEFAULT_SECONDS = 5;
+    public static final int CHECKED_STEPS = 1000;
+    public static final double MAX_SPEED = 200;
+    public static final long SEED = 0;
+    public static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final IntegrationKernel kernel;
+    private final int fireballs;
+    private final double[] x;
+    private final double[] y;
+    private final double[] xSpeed;
+    private final double[] ySpeed;
+    private final byte[] flags;
+    private final Area bounds = new Area(FireballSwarm.MIN_X, FireballSwarm.MIN_Y, FireballSwarm.MAX_X, FireballSwarm.MAX_Y);
+    private final Area near = new Area(Game.GAME_WIDTH / 3.0, Game.GAME_HEIGHT * 0.8, Game.GAME_WIDTH * 2 / 3.0,
+            Game.GAME_HEIGHT);
+    private long steps = 0;
+    private long kernelNanos = 0;
+
+    private IntegrationBenchmark(IntegrationKernel kernel, int fireballs) {
+        this.kernel = kernel;
+        this.fireballs = fireballs;
+        x = new double[fireballs];
+        y = new double[fireballs];
+        xSpeed = new double[fireballs];
+        ySpeed = new double[fireballs];
+        flags = new byte[fireballs];
+        Random random = new Random(SEED);
+        for (int index = 0; index < fireballs; index++) {
+            x[index] = random.nextDouble() * Game.GAME_WIDTH;
+            y[index] = random.nextDouble() * Game.GAME_HEIGHT;
+            xSpeed[index] = (random.nextDouble() * 2 - 1) * MAX_SPEED;
+            ySpeed[index] = (random.nextDouble() * 2 - 1) * MAX_SPEED;
+        }
+    }
+
+    /**
+     * Time every kernel and report how long each takes per fireball per step
+     * @param args the number of fireballs and the number of seconds to time each kernel for, which default to 5000 and 5
+     */
+    public static void main(String[] args) {
+        int fireballs = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FIREBALLS;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        IntegrationBenchmark reference = new IntegrationBenchmark(new ScalarKernel(), fireballs);
+        reference.run(CHECKED_STEPS);
+        for (IntegrationKernel kernel : List.of(new ScalarKernel(), new StripKernel())) {
+            IntegrationBenchmark check = new IntegrationBenchmark(kernel, fireballs);
+            check.run(CHECKED_STEPS);
+            boolean isSame = Arrays.equals(reference.x, check.x) && Arrays.equals(reference.y, check.y)
+                    && Arrays.equals(reference.flags, check.flags);
+            IntegrationBenchmark timed = new IntegrationBenchmark(kernel, fireballs);
+            long end = System.nanoTime() + seconds * NANOS_PER_SECOND;
+            while (System.nanoTime() < end) timed.run(CHECKED_STEPS);
+            double nanosPerFireball = (double) timed.kernelNanos / timed.steps / fireballs;
+            System.out.printf("%s kernel: %.3f ns per fireball per step, %.3f ms per step for %d fireballs, %s%n",
+                    kernel.getName(), nanosPerFireball, nanosPerFireball * fireballs / 1_000_000, fireballs,
+                    isSame ? "same result as scalar" : "DIFFERENT RESULT FROM SCALAR");
+        }
+        System.exit(0);
+    }
+
+    private void run(int stepsToRun) {
+        for (int step = 0; step < stepsToRun; step++) {
+            long start = System.nanoTime();
+            kernel.integrate(x, y, xSpeed, ySpeed, fireballs, Game.SECOND_DELAY);
+            kernel.classify(x, y, fireballs, bounds, near, flags);
+            kernelNanos += System.nanoTime() - start;
+            for (int index = 0; index < fireballs; index++) {
+                if (x[index] < 0) x[index] += Game.GAME_WIDTH;
+                else if (x[index] >= Game.GAME_WIDTH) x[index] -= Game.GAME_WIDTH;
+                if (y[index] < 0) y[index] += Game.GAME_HEIGHT;
+                else if (y[index] >= Game.GAME_HEIGHT) y[index] -= Game.GAME_HEIGHT;
+            }
+            steps++;
+        }
+    }
+}
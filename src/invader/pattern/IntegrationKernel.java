@@ -0,0 +1,61 @@
+package invader.pattern;
+
+/**
+ * This interface is how a FireballSwarm moves its fireballs and sorts out which of them need more than moving.
+ *
+ * Both steps work on the swarm's arrays as a whole. classify gives each fireball a set of FLAG bits, and the swarm then only
+ * looks again at the fireballs whose flags are not NONE, which during a step is a few out of thousands. Every kernel must
+ * give exactly the same positions and flags as ScalarKernel, so the kernel in use never changes how the game plays.
+ *
+ * The kernel is chosen when the game starts, with -D{@value #PROPERTY}=name (one of the NAME constants of the kernels), and
+ * is the StripKernel by default.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public interface IntegrationKernel {
+    String PROPERTY = "invader.integrationKernel";
+    byte NONE = 0;
+    byte OUT_OF_Y_BOUNDS = 1;
+    byte OUT_OF_X_BOUNDS = 2;
+    byte NEAR_TARGET = 4;
+
+    /**
+     * Move the first count fireballs by one step, by their speeds
+     * @param x x positions of the fireballs
+     * @param y y positions of the fireballs
+     * @param xSpeed x speeds of the fireballs, in pixels per second
+     * @param ySpeed y speeds of the fireballs, in pixels per second, positive being down
+     * @param count how many fireballs there are
+     * @param elapsedTime the time that is elapsed after a single step
+     */
+    void integrate(double[] x, double[] y, double[] xSpeed, double[] ySpeed, int count, double elapsedTime);
+
+    /**
+     * Flag each of the first count fireballs that has reached the edge of the area it can be in, or that is in the area
+     * around a target, with OUT_OF_Y_BOUNDS, OUT_OF_X_BOUNDS and NEAR_TARGET
+     * @param x x positions of the fireballs
+     * @param y y positions of the fireballs
+     * @param count how many fireballs there are
+     * @param bounds the area the fireballs can be in, where a fireball on its edge is out of bounds
+     * @param near the area around the target, where a fireball on its edge is near the target
+     * @param flags where the flags of each fireball are written
+     */
+    void classify(double[] x, double[] y, int count, Area bounds, Area near, byte[] flags);
+
+    /**
+     * Get the name the kernel is chosen by
+     * @return the kernel's name
+     */
+    String getName();
+
+    /**
+     * Get the kernel chosen for this run of the game
+     * @return the kernel named by the PROPERTY system property, or the StripKernel if none or no known kernel is named
+     */
+    static IntegrationKernel select() {
+        String name = System.getProperty(PROPERTY, StripKernel.NAME);
+        return name.equals(ScalarKernel.NAME) ? new ScalarKernel() : new StripKernel();
+    }
+}
@@ -0,0 +1,22 @@
+package invader.pattern;
+
+/**
+ * This enum lists the shapes a boss's bullet pattern can take, each of which decides the direction of every fireball in a
+ * volley from the pattern's numbers.
+ *
+ * Angles are in degrees, measured clockwise from the right on the screen, so 90 is straight down.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public enum PatternShape {
+    /** fireballs spread evenly all the way around, with every other volley turned by half a gap so the rings interleave */
+    RING,
+    /** fireballs spread evenly all the way around as arms, with the arms turned a little further each volley */
+    SPIRAL,
+    /** fireballs spread across the spread angle, centered on the spaceship as it is when the volley is fired */
+    AIMED_FAN,
+    /** fireballs spread across the spread angle below the boss, with the whole fan swinging from side to side */
+    WAVE
+}
@@ -0,0 +1,42 @@
+package invader.pattern;
+
+/**
+ * This class is the plain integration kernel: each fireball is moved, and then checked, one at a time, stopping each check as
+ * soon as its answer is known.
+ *
+ * It is the kernel every other kernel is checked against.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class ScalarKernel implements IntegrationKernel {
+    public static final String NAME = "scalar";
+
+    @Override
+    public void integrate(double[] x, double[] y, double[] xSpeed, double[] ySpeed, int count, double elapsedTime) {
+        for (int index = 0; index < count; index++) {
+            x[index] += xSpeed[index] * elapsedTime;
+            y[index] += ySpeed[index] * elapsedTime;
+        }
+    }
+
+    @Override
+    public void classify(double[] x, double[] y, int count, Area bounds, Area near, byte[] flags) {
+        for (int index = 0; index < count; index++) {
+            byte flag = NONE;
+            if (y[index] <= bounds.getMinY() || y[index] >= bounds.getMaxY()) flag |= OUT_OF_Y_BOUNDS;
+            if (x[index] <= bounds.getMinX() || x[index] >= bounds.getMaxX()) flag |= OUT_OF_X_BOUNDS;
+            if (x[index] >= near.getMinX() && x[index] <= near.getMaxX() && y[index] >= near.getMinY()
+                    && y[index] <= near.getMaxY()) {
+                flag |= NEAR_TARGET;
+            }
+            flags[index] = flag;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
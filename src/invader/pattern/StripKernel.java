@@ -0,0 +1,90 @@
+package invader.pattern;
+
+import java.util.Arrays;
+
+/**
+ * This class is the integration kernel written for the JIT compiler to turn into vector instructions, the way it can with
+ * simple loops over primitive arrays.
+ *
+ * Each array is moved by a loop of its own that does nothing but one multiply and one add per element, which the compiler
+ * unrolls into instructions that work on several doubles at once. The checks are done a STRIP_SIZE strip of fireballs at a
+ * time: the box around the strip is found first, by loops of nothing but min and max, and a strip whose box is inside the
+ * bounds and clear of the area near the target, as most strips are on any step, has its flags cleared without looking at
+ * each fireball. Only the other strips are checked fireball by fireball, making every comparison rather than stopping once
+ * the answer is known.
+ *
+ * The game targets Java 11, whose JDK has no vector API to call directly, so this is as close to SIMD as the game gets;
+ * IntegrationBenchmark compares it with the ScalarKernel on the machine it is run on.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class StripKernel implements IntegrationKernel {
+    public static final String NAME = "strip";
+    public static final int STRIP_SIZE = 64;
+
+    @Override
+    public void integrate(double[] x, double[] y, double[] xSpeed, double[] ySpeed, int count, double elapsedTime) {
+        addScaled(x, xSpeed, count, elapsedTime);
+        addScaled(y, ySpeed, count, elapsedTime);
+    }
+
+    @Override
+    public void classify(double[] x, double[] y, int count, Area bounds, Area near, byte[] flags) {
+        // read the edges once, so the strips below only touch the arrays
+        double minX = bounds.getMinX();
+        double maxX = bounds.getMaxX();
+        double minY = bounds.getMinY();
+        double maxY = bounds.getMaxY();
+        double nearMinX = near.getMinX();
+        double nearMaxX = near.getMaxX();
+        double nearMinY = near.getMinY();
+        double nearMaxY = near.getMaxY();
+        for (int start = 0; start < count; start += STRIP_SIZE) {
+            int end = Math.min(start + STRIP_SIZE, count);
+            double stripMinX = min(x, start, end);
+            double stripMaxX = max(x, start, end);
+            double stripMinY = min(y, start, end);
+            double stripMaxY = max(y, start, end);
+            boolean isInside = stripMinX > minX & stripMaxX < maxX & stripMinY > minY & stripMaxY < maxY;
+            boolean isClear = stripMaxX < nearMinX | stripMinX > nearMaxX | stripMaxY < nearMinY | stripMinY > nearMaxY;
+            if (isInside && isClear) {
+                Arrays.fill(flags, start, end, NONE);
+                continue;
+            }
+            for (int index = start; index < end; index++) {
+                double xPos = x[index];
+                double yPos = y[index];
+                boolean isOutOfY = yPos <= minY | yPos >= maxY;
+                boolean isOutOfX = xPos <= minX | xPos >= maxX;
+                boolean isNear = xPos >= nearMinX & xPos <= nearMaxX & yPos >= nearMinY & yPos <= nearMaxY;
+                flags[index] = (byte) ((isOutOfY ? OUT_OF_Y_BOUNDS : NONE) | (isOutOfX ? OUT_OF_X_BOUNDS : NONE)
+                        | (isNear ? NEAR_TARGET : NONE));
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    private double min(double[] values, int start, int end) {
+        double min = values[start];
+        for (int index = start + 1; index < end; index++) min = Math.min(min, values[index]);
+        return min;
+    }
+
+    private double max(double[] values, int start, int end) {
+        double max = values[start];
+        for (int index = start + 1; index < end; index++) max = Math.max(max, values[index]);
+        return max;
+    }
+
+    private void addScaled(double[] positions, double[] speeds, int count, double elapsedTime) {
+        for (int index = 0; index < count; index++) {
+            positions[index] += speeds[index] * elapsedTime;
+        }
+    }
+}
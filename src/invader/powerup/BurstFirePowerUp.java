@@ -21,23 +21,30 @@ public class BurstFirePowerUp extends PowerUp {
      * @param id: id later used for testing
      */
     public BurstFirePowerUp(double xPos, double yPos, String id) {
-        super(xPos, yPos, IMG_NAME, id);
-        setTimeActive(TIME_ACTIVE);
+        super(xPos, yPos, IMG_NAME, id, TIME_ACTIVE);
     }
 
     @Override
-    public void activate(double gameTimer, Spaceship spaceship) {
-        spaceship.setHasBurstFire(true);
-        setTimeWhenActivated(gameTimer);
+    public PowerUpType getType() {
+        return PowerUpType.BURST_FIRE;
     }
 
+    /**
+     * Collecting another burst fire power up restarts its time
+     * @return the stacking rule of the power up
+     */
     @Override
-    public void deactivate(double gameTimer, Spaceship spaceship) {
-        spaceship.setHasBurstFire(false);
+    public StackingRule getStackingRule() {
+        return StackingRule.REFRESH;
     }
 
     @Override
-    public void reapplyPowerUp(double gameTimer, Spaceship spaceship) {
+    public void applyTo(Spaceship spaceship) {
         spaceship.setHasBurstFire(true);
     }
+
+    @Override
+    public void removeFrom(Spaceship spaceship) {
+        spaceship.setHasBurstFire(false);
+    }
 }
@@ -20,23 +20,30 @@ public class MissilePowerUp extends PowerUp {
      * @param id: id later used for testing
      */
     public MissilePowerUp(double xPos, double yPos, String id) {
-        super(xPos, yPos, IMG_NAME, id);
-        setTimeActive(TIME_ACTIVE);
+        super(xPos, yPos, IMG_NAME, id, TIME_ACTIVE);
     }
 
     @Override
-    public void activate(double gameTimer, Spaceship spaceship) {
-        spaceship.setMissilePowerUp(true);
-        setTimeWhenActivated(gameTimer);
+    public PowerUpType getType() {
+        return PowerUpType.MISSILE;
     }
 
+    /**
+     * Collecting another missile power up adds its time to the time left
+     * @return the stacking rule of the power up
+     */
     @Override
-    public void deactivate(double gameTimer, Spaceship spaceship) {
-        spaceship.setMissilePowerUp(false);
+    public StackingRule getStackingRule() {
+        return StackingRule.EXTEND;
     }
 
     @Override
-    public void reapplyPowerUp(double gameTimer, Spaceship spaceship) {
+    public void applyTo(Spaceship spaceship) {
         spaceship.setMissilePowerUp(true);
     }
+
+    @Override
+    public void removeFrom(Spaceship spaceship) {
+        spaceship.setMissilePowerUp(false);
+    }
 }
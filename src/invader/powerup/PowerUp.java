@@ -1,18 +1,23 @@
 package invader.powerup;
 
 import invader.MovingObject;
+import invader.StateBuffer;
 import invader.entity.Spaceship;
+import invader.entity.SpaceshipModifier;
 
 /**
  * This is an abstract class that is used for the BurstFire, Missile, and SpaceshipSpeed PowerUps.
  *
  * Has common methods like setting activation status
  *
+ * Once collected, a power up is pushed onto the spaceship's modifier stack, which applies it and ends it when its time runs
+ * out, so power ups are not checked on every step.
+ *
  * @author Pierce Forte
  * @author Jeff Kim
  */
 
-public abstract class PowerUp extends MovingObject {
+public abstract class PowerUp extends MovingObject implements SpaceshipModifier {
     public static final int WIDTH = 10;
     public static final int HEIGHT = 10;
     public static final int X_SPEED = 0;
@@ -24,6 +29,7 @@ public abstract class PowerUp extends MovingObject {
     private boolean isActive = false;
     private double timeWhenActivated;
     private double timeActive;
+    private double defaultTimeActive;
 
     /**
      * Create a PowerUp
@@ -31,10 +37,28 @@ public abstract class PowerUp extends MovingObject {
      * @param yPos: y position of the power up
      * @param imgName: name of the image file
      * @param id: id of the powerup used for testing
+     * @param timeActive: how long the power up lasts once it is collected
      */
-    public PowerUp (double xPos, double yPos, String imgName, String id) {
+    public PowerUp (double xPos, double yPos, String imgName, String id, double timeActive) {
         super(xPos, yPos, X_SPEED, Y_SPEED, WIDTH, HEIGHT, imgName);
         this.setId(id);
+        this.defaultTimeActive = timeActive;
+        setTimeActive(timeActive);
+    }
+
+    /**
+     * Put the power up back in the state it was created in, so that it can be dropped again
+     * @param xPos: x position of the power up
+     * @param yPos: y position of the power up
+     * @param id: id of the powerup used for testing
+     */
+    public void reset(double xPos, double yPos, String id) {
+        this.setX(xPos);
+        this.setY(yPos);
+        this.setId(id);
+        hasBeenActivated = false;
+        timeWhenActivated = 0;
+        setTimeActive(defaultTimeActive);
     }
 
     /**
@@ -86,38 +110,55 @@ public abstract class PowerUp extends MovingObject {
         return isActive;
     }
 
+    @Override
+    public void saveState(StateBuffer state) {
+        super.saveState(state);
+        state.put(hasBeenActivated);
+        state.put(isActive);
+        state.put(timeWhenActivated);
+        state.put(timeActive);
+    }
+
+    @Override
+    public void restoreState(StateBuffer state) {
+        super.restoreState(state);
+        hasBeenActivated = state.nextBoolean();
+        isActive = state.nextBoolean();
+        timeWhenActivated = state.nextDouble();
+        timeActive = state.nextDouble();
+    }
+
     /**
-     * If the activated time is past the active time limit, set it to inactive
+     * Activates the power up when it is collected, putting it into effect on the spaceship for its active time
      * @param gameTimer the timer of the entire game
      * @param spaceship the spaceship that the user controls
-     * @return Returns boolean whether the powerup is active or not
      */
-    public boolean updateAndGetActiveStatus(double gameTimer, Spaceship spaceship) {
-        if (gameTimer - timeWhenActivated >= timeActive) {
-            this.setInactive();
-        }
-        else reapplyPowerUp(gameTimer, spaceship);
-        return isActive;
+    public void activate(double gameTimer, Spaceship spaceship) {
+        setTimeWhenActivated(gameTimer);
+        spaceship.pushModifier(this, gameTimer, timeActive);
     }
 
     /**
-     * Initially activates the power up
-     * @param gameTimer the timer of the entire game
-     * @param spaceship the spaceship that the user controls
+     * Power ups of the same type change the same property of the spaceship
+     * @return the type of the power up
      */
-    public abstract void activate(double gameTimer, Spaceship spaceship);
+    @Override
+    public Object getModifierKey() {
+        return getType();
+    }
 
     /**
-     * Deactivate the current power up the spaceship has
+     * Sets the power up inactive once it has expired or been replaced by another power up of the same type
      * @param gameTimer the timer of the entire game
-     * @param spaceship the spaceship that the user controls
      */
-    public abstract void deactivate(double gameTimer, Spaceship spaceship);
+    @Override
+    public void end(double gameTimer) {
+        setInactive();
+    }
 
     /**
-     * Reactivate the power up of the spaceship
-     * @param gameTimer the timer of the entire game
-     * @param spaceship the spaceship that the user controls
+     * Get the type of the power up, used to return it to the right pool
+     * @return the type of the power up
      */
-    public abstract void reapplyPowerUp(double gameTimer, Spaceship spaceship);
+    public abstract PowerUpType getType();
 }
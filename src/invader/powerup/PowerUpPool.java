@@ -0,0 +1,63 @@
+package invader.powerup;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class keeps power ups that have left the game so that their nodes (and images) can be used again for the next drop
+ * of the same type, instead of creating a new one.
+ *
+ * Enemies only remember the type of power up they carry; the power up itself is taken from this pool when the enemy is
+ * destroyed, so drops that are never released are never created. Each game has a pool of its own (see GameContext), so a
+ * power up is only ever dropped again in the root it was shown in.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class PowerUpPool {
+    private final Map<PowerUpType, Queue<PowerUp>> pools = new EnumMap<>(PowerUpType.class);
+
+    /**
+     * Create an empty pool with room for every type of power up
+     */
+    public PowerUpPool() {
+        for (PowerUpType type : PowerUpType.values()) {
+            pools.put(type, new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Get a power up of the given type that is ready to drop, reusing a released one if there is one
+     * @param type the type of power up
+     * @param xPos x position of the power up
+     * @param yPos y position of the power up
+     * @param id id of the power up used for testing
+     * @return a power up that has not been activated
+     */
+    public PowerUp acquire(PowerUpType type, double xPos, double yPos, String id) {
+        PowerUp powerUp = pools.get(type).poll();
+        if (powerUp == null) return type.create(xPos, yPos, id);
+        powerUp.reset(xPos, yPos, id);
+        return powerUp;
+    }
+
+    /**
+     * Return a power up that has left the game so that it can be used again
+     * @param powerUp the power up that is no longer in the game
+     */
+    public void release(PowerUp powerUp) {
+        pools.get(powerUp.getType()).add(powerUp);
+    }
+
+    /**
+     * Get how many power ups of a type are waiting to be used again
+     * @param type the type of power up
+     * @return the number of pooled power ups of that type
+     */
+    public int getPooledCount(PowerUpType type) {
+        return pools.get(type).size();
+    }
+}
@@ -0,0 +1,59 @@
+package invader.powerup;
+
+/**
+ * This enum lists every type of power up that can be dropped in the game, along with how to create one.
+ *
+ * The factory for each type is looked up once here, so creating a power up is a plain constructor call rather than a
+ * reflective one. To add a new power up to the game, add its type here with a reference to its constructor.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public enum PowerUpType {
+    BURST_FIRE(BurstFirePowerUp::new, BurstFirePowerUp.IMG_NAME),
+    MISSILE(MissilePowerUp::new, MissilePowerUp.IMG_NAME),
+    SPACESHIP_SPEED(SpaceshipSpeedPowerUp::new, SpaceshipSpeedPowerUp.IMG_NAME);
+
+    private final Factory factory;
+    private final String imgName;
+
+    PowerUpType(Factory factory, String imgName) {
+        this.factory = factory;
+        this.imgName = imgName;
+    }
+
+    /**
+     * Get the image a power up of this type is drawn with
+     * @return name of the image file
+     */
+    public String getImgName() {
+        return imgName;
+    }
+
+    /**
+     * Create a new power up of this type
+     * @param xPos x position of the power up
+     * @param yPos y position of the power up
+     * @param id id of the power up used for testing
+     * @return the new power up
+     */
+    public PowerUp create(double xPos, double yPos, String id) {
+        return factory.create(xPos, yPos, id);
+    }
+
+    /**
+     * Creates a power up of a single type; implemented by a reference to the power up's constructor
+     */
+    @FunctionalInterface
+    public interface Factory {
+        /**
+         * Create a power up
+         * @param xPos x position of the power up
+         * @param yPos y position of the power up
+         * @param id id of the power up used for testing
+         * @return the new power up
+         */
+        PowerUp create(double xPos, double yPos, String id);
+    }
+}
@@ -21,24 +21,30 @@ public class SpaceshipSpeedPowerUp extends PowerUp {
      * @param id: id later used for testing
      */
     public SpaceshipSpeedPowerUp(double xPos, double yPos, String id) {
-        super(xPos, yPos, IMG_NAME, id);
-        setTimeActive(TIME_ACTIVE);
+        super(xPos, yPos, IMG_NAME, id, TIME_ACTIVE);
     }
 
     @Override
-    public void activate(double gameTimer, Spaceship spaceship) {
-        spaceship.setXSpeedOnKeyPress(INCREASED_SPEED);
-        setTimeWhenActivated(gameTimer);
+    public PowerUpType getType() {
+        return PowerUpType.SPACESHIP_SPEED;
     }
 
+    /**
+     * The spaceship stays fast until the last speed power up collected runs out
+     * @return the stacking rule of the power up
+     */
     @Override
-    public void deactivate(double gameTimer, Spaceship spaceship) {
-        spaceship.setXSpeedOnKeyPress(Spaceship.DEFAULT_X_SPEED_ON_KEY_PRESS);
+    public StackingRule getStackingRule() {
+        return StackingRule.STACK;
     }
 
     @Override
-    public void reapplyPowerUp(double gameTimer, Spaceship spaceship) {
+    public void applyTo(Spaceship spaceship) {
         spaceship.setXSpeedOnKeyPress(INCREASED_SPEED);
     }
 
+    @Override
+    public void removeFrom(Spaceship spaceship) {
+        spaceship.setXSpeedOnKeyPress(Spaceship.DEFAULT_X_SPEED_ON_KEY_PRESS);
+    }
 }
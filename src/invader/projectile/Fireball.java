@@ -3,7 +3,8 @@ package invader.projectile;
 /**
  * This class inherits the abstract Projectile class, implementing more powerful projectiles with a fireball image.
  *
- * Used by the boss when it switches from invulnerable to vulnerable.
+ * Used by the boss when it switches from invulnerable to vulnerable, and by its bullet patterns, which can have thousands of
+ * fireballs on screen at once; like every GIF, the fireball is decoded once and its one image shared (see SpriteAnimation).
  *
  * @author Pierce Forte
  * @author Jeff Kim
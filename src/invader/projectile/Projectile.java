@@ -1,5 +1,6 @@
 package invader.projectile;
 
+import invader.CollisionDetection;
 import invader.MovingObject;
 
 /**
@@ -28,9 +29,11 @@ public abstract class Projectile extends MovingObject {
     public static final String EVIL_IDENTIFIER = "evil";
     public static final String NOT_EVIL_IDENTIFIER = "spaceship";
     public static final String IDENTIFIER = "Projectile";
+    public static final double MASK_SAMPLE_SPACING = 1;
 
     private int damage;
     private boolean isEvil;
+    private String projectileType;
 
     /**
      * Constructor
@@ -50,7 +53,10 @@ public abstract class Projectile extends MovingObject {
                  boolean isEvil, String imgName, double rotation, int idNumber, String projectileType) {
         super(xPos,yPos,xSpeed,ySpeed * (isEvil ? -1 : 1), width, height, imgName);
         this.isEvil = isEvil;
+        this.projectileType = projectileType;
         setRotate(rotation * (isEvil ? 1 : -1));
+        // the mask built along with the image was of the unrotated sprite
+        buildCollisionMask();
         String idString = isEvil ? EVIL_IDENTIFIER : NOT_EVIL_IDENTIFIER;
         this.setId(idString + projectileType + IDENTIFIER + idNumber);
     }
@@ -69,4 +75,81 @@ public abstract class Projectile extends MovingObject {
     public int getDamage() {
         return damage;
     }
+
+    /**
+     * Check whether the projectile was fired by an enemy or the boss
+     * @return whether the projectile is the enemy's (true) or the spaceship's (false)
+     */
+    public boolean isEvil() {
+        return isEvil;
+    }
+
+    /**
+     * Get the implementation of the projectile
+     * @return the type of the projectile, such as Laser.TYPE
+     */
+    public String getProjectileType() {
+        return projectileType;
+    }
+
+    /**
+     * Find when this projectile first touched the target during the last step, sweeping both along the path they travelled
+     * so that fast projectiles can not pass through a target between two frames
+     * @param target the object being checked for a collision with this projectile
+     * @return the fraction of the last step (between 0 and 1) at which the projectile first touched the target,
+     * or CollisionDetection.NO_HIT if it did not
+     */
+    public double timeOfImpact(MovingObject target) {
+        double impact = boxTimeOfImpact(target);
+        if (impact == CollisionDetection.NO_HIT || (!this.isPixelAccurate() && !target.isPixelAccurate())) return impact;
+        double dx = this.getLastStepX() - target.getLastStepX();
+        double dy = this.getLastStepY() - target.getLastStepY();
+        return firstPixelContact(target, impact, this.getDrawnMinX() - dx, this.getDrawnMinY() - dy, dx, dy,
+                target.getX(), target.getY());
+    }
+
+    /**
+     * Find when the rectangle of this projectile first touched the rectangle of the target during the last step, whatever
+     * their pixels; a projectile can only hit a target its rectangle touched
+     * @param target the object being checked for a collision with this projectile
+     * @return the fraction of the last step (between 0 and 1) at which the rectangles first touched,
+     * or CollisionDetection.NO_HIT if they did not
+     */
+    public double boxTimeOfImpact(MovingObject target) {
+        // sweep in the frame of the target, so only the difference between the two steps matters; the target is taken as its
+        // unrotated rectangle, which is what its bounds in local are
+        double dx = this.getLastStepX() - target.getLastStepX();
+        double dy = this.getLastStepY() - target.getLastStepY();
+        return CollisionDetection.sweptAabb(this.getDrawnMinX() - dx, this.getDrawnMinY() - dy, this.getDrawnWidth(),
+                this.getDrawnHeight(), dx, dy, target.getX(), target.getY(), target.getFitWidth(), target.getFitHeight());
+    }
+
+    /**
+     * A projectile that has been rotated no longer fills its rectangle, so its collisions are pixel accurate
+     * @return whether collisions with this projectile are pixel accurate
+     */
+    @Override
+    public boolean isPixelAccurate() {
+        return getRotate() != DEFAULT_PROJECTILE_ROTATION;
+    }
+
+    // walk the rest of the step from where the rectangles first touch, about a pixel at a time, until the sprites touch
+    private double firstPixelContact(MovingObject target, double impact, double startX, double startY, double dx, double dy,
+                                     double targetX, double targetY) {
+        double distance = Math.max(Math.abs(dx), Math.abs(dy));
+        double increment = distance <= MASK_SAMPLE_SPACING ? CollisionDetection.STEP_END : MASK_SAMPLE_SPACING / distance;
+        for (double time = impact; ; time = Math.min(time + increment, CollisionDetection.STEP_END)) {
+            if (target.masksOverlap(this, startX + time*dx, startY + time*dy, targetX, targetY)) return time;
+            if (time == CollisionDetection.STEP_END) return CollisionDetection.NO_HIT;
+        }
+    }
+
+    /**
+     * Check whether this projectile touched the target at any point during the last step
+     * @param target the object being checked for a collision with this projectile
+     * @return whether the projectile touched the target
+     */
+    public boolean hits(MovingObject target) {
+        return timeOfImpact(target) != CollisionDetection.NO_HIT;
+    }
 }
\ No newline at end of file
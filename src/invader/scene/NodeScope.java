@@ -0,0 +1,145 @@
+package invader.scene;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This class owns a set of the nodes in a root, such as those of a level or of the status display, and is how those nodes
+ * are added to and removed from the root.
+ *
+ * Every node added through a scope is remembered until it is removed through it, so clear removes all of them from the root
+ * at once, including any the owner no longer keeps in a list of its own. A scope is opened with SceneRegistry.openScope, and
+ * once it is disposed nothing more can be added through it, so an owner that lives on past its scope can not quietly add
+ * nodes that nothing would ever remove.
+ *
+ * Adding or removing a node costs the same as it does on the root; collections that are empty are not passed on to the root,
+ * since changing its children allocates even when nothing changes.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class NodeScope {
+    private final SceneRegistry registry;
+    private final Group root;
+    private final ScopeKind kind;
+    private final String name;
+    private final Set<Node> nodes = new HashSet<>();
+    private boolean isDisposed = false;
+
+    // created by the registry of the root, which keeps track of the open scope of each kind
+    NodeScope(SceneRegistry registry, Group root, ScopeKind kind, String name) {
+        this.registry = registry;
+        this.root = root;
+        this.kind = kind;
+        this.name = name;
+    }
+
+    /**
+     * Add a node to the root, owned by this scope
+     * @param node the node to add
+     */
+    public void add(Node node) {
+        checkOpen();
+        nodes.add(node);
+        root.getChildren().add(node);
+    }
+
+    /**
+     * Add nodes to the root, owned by this scope
+     * @param added the nodes to add
+     */
+    public void addAll(Collection<? extends Node> added) {
+        checkOpen();
+        if (added.isEmpty()) return;
+        nodes.addAll(added);
+        root.getChildren().addAll(added);
+    }
+
+    /**
+     * Remove a node of this scope from the root
+     * @param node the node to remove
+     */
+    public void remove(Node node) {
+        if (nodes.remove(node)) root.getChildren().remove(node);
+    }
+
+    /**
+     * Remove nodes of this scope from the root
+     * @param removed the nodes to remove
+     */
+    public void removeAll(Collection<? extends Node> removed) {
+        if (removed.isEmpty()) return;
+        // one at a time, since the set's removeAll looks each of its own nodes up in the collection when it is no bigger
+        for (Node node : removed) nodes.remove(node);
+        root.getChildren().removeAll(removed);
+    }
+
+    /**
+     * Remove every node of this scope from the root at once, leaving the scope open for more
+     */
+    public void clear() {
+        if (nodes.isEmpty()) return;
+        root.getChildren().removeAll(nodes);
+        nodes.clear();
+    }
+
+    /**
+     * Remove every node of this scope from the root and close the scope, so that nothing more can be added through it
+     */
+    public void dispose() {
+        if (isDisposed) return;
+        clear();
+        isDisposed = true;
+        registry.forget(this);
+    }
+
+    /**
+     * Get if a node was added through this scope and has not been removed
+     * @param node the node to look for
+     * @return whether this scope owns the node
+     */
+    public boolean contains(Node node) {
+        return nodes.contains(node);
+    }
+
+    /**
+     * Get how many nodes this scope owns
+     * @return the number of nodes in the root owned by this scope
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Get if the scope has been disposed
+     * @return whether the scope is disposed
+     */
+    public boolean isDisposed() {
+        return isDisposed;
+    }
+
+    /**
+     * Get the kind of the scope
+     * @return the kind of the scope
+     */
+    public ScopeKind getKind() {
+        return kind;
+    }
+
+    /**
+     * Get the name of the scope, such as the level it belongs to
+     * @return the name of the scope
+     */
+    public String getName() {
+        return name;
+    }
+
+    private void checkOpen() {
+        if (isDisposed) throw new IllegalStateException("can not add nodes to " + name + ", which was disposed");
+    }
+}
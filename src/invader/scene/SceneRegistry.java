@@ -0,0 +1,140 @@
+package invader.scene;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class keeps track of who owns the nodes in a root: each part of the game that adds nodes, such as a level, the status
+ * display or a menu, opens a NodeScope of its kind and adds and removes its nodes through it.
+ *
+ * A root has at most one open scope of each kind. Opening a scope disposes the one of the same kind it takes the place of, so
+ * whatever that scope still owns is removed from the root as well; nodes a level left behind when it was cleared are counted,
+ * since a level is meant to remove everything it added.
+ *
+ * When the game is started with -D{@value #DEBUG_PROPERTY}=true, every level start prints a line counting the nodes in the
+ * root that are not the new level's, by the kind of scope that owns them and by the class of those no scope owns, along with
+ * how many more there are than at the last level start, so nodes that pile up from one level to the next are easy to spot.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class SceneRegistry {
+    public static final String DEBUG_PROPERTY = "invader.sceneDebug";
+    public static final String REPORT_PREFIX = "scene: ";
+    private static final boolean IS_DEBUGGING = Boolean.getBoolean(DEBUG_PROPERTY);
+    // the key the registry of a root is kept under in the root's properties
+    private static final Object PROPERTIES_KEY = SceneRegistry.class;
+
+    private final Group root;
+    private final Map<ScopeKind, NodeScope> openScopes = new EnumMap<>(ScopeKind.class);
+    private int nodesLeftByLevels = 0;
+    private int lastLevelStartSize = -1;
+
+    private SceneRegistry(Group root) {
+        this.root = root;
+    }
+
+    /**
+     * Get the registry of a root, creating it the first time it is asked for
+     * @param root the Group to which nodes are added for the game
+     * @return the root's registry
+     */
+    public static SceneRegistry of(Group root) {
+        return (SceneRegistry) root.getProperties().computeIfAbsent(PROPERTIES_KEY, key -> new SceneRegistry(root));
+    }
+
+    /**
+     * Open a scope to add nodes through, disposing the open scope of the same kind, if there is one
+     * @param kind the kind of the scope
+     * @param name the name of the scope, such as the level it belongs to
+     * @return the new scope
+     */
+    public NodeScope openScope(ScopeKind kind, String name) {
+        NodeScope previous = openScopes.get(kind);
+        if (previous != null) {
+            if (kind == ScopeKind.LEVEL) nodesLeftByLevels += previous.size();
+            previous.dispose();
+        }
+        NodeScope scope = new NodeScope(this, root, kind, name);
+        openScopes.put(kind, scope);
+        if (kind == ScopeKind.LEVEL && IS_DEBUGGING) System.out.println(reportLevelStart(name));
+        return scope;
+    }
+
+    /**
+     * Dispose the open scope of a kind, if there is one, removing its nodes from the root
+     * @param kind the kind of the scope
+     */
+    public void disposeScope(ScopeKind kind) {
+        NodeScope scope = openScopes.get(kind);
+        if (scope != null) scope.dispose();
+    }
+
+    /**
+     * Get the open scope of a kind
+     * @param kind the kind of the scope
+     * @return the open scope, or null if there is none
+     */
+    public NodeScope getScope(ScopeKind kind) {
+        return openScopes.get(kind);
+    }
+
+    /**
+     * Get how many nodes were still in the root when the level that added them was replaced by the next one
+     * @return the number of nodes levels left behind
+     */
+    public int getNodesLeftByLevels() {
+        return nodesLeftByLevels;
+    }
+
+    /**
+     * Describe the nodes in the root: how many each open scope owns, and the classes of those no scope owns
+     * @return one line describing the root's nodes
+     */
+    public String describe() {
+        StringBuilder description = new StringBuilder().append(root.getChildren().size()).append(" nodes");
+        for (NodeScope scope : openScopes.values()) {
+            description.append(", ").append(scope.getKind().name().toLowerCase()).append('=').append(scope.size());
+        }
+        Map<String, Integer> unowned = countUnownedByClass();
+        int unownedCount = unowned.values().stream().mapToInt(Integer::intValue).sum();
+        description.append(", unowned=").append(unownedCount);
+        if (!unowned.isEmpty()) description.append(' ').append(unowned);
+        return description.toString();
+    }
+
+    // called by a scope when it is disposed, so the registry does not hand it out again
+    void forget(NodeScope scope) {
+        openScopes.remove(scope.getKind(), scope);
+    }
+
+    // the new level's scope is still empty here, so every node in the root is one the level transition kept
+    private String reportLevelStart(String levelName) {
+        int size = root.getChildren().size();
+        String growth = lastLevelStartSize < 0 ? "" : String.format(" (%+d since the last level started)",
+                size - lastLevelStartSize);
+        lastLevelStartSize = size;
+        return REPORT_PREFIX + levelName + " starts with " + describe() + growth + ", " + nodesLeftByLevels
+                + " left behind by levels";
+    }
+
+    private Map<String, Integer> countUnownedByClass() {
+        Map<String, Integer> unowned = new TreeMap<>();
+        for (Node node : root.getChildren()) {
+            if (!isOwned(node)) unowned.merge(node.getClass().getSimpleName(), 1, Integer::sum);
+        }
+        return unowned;
+    }
+
+    private boolean isOwned(Node node) {
+        for (NodeScope scope : openScopes.values()) {
+            if (scope.contains(node)) return true;
+        }
+        return false;
+    }
+}
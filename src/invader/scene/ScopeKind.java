@@ -0,0 +1,18 @@
+package invader.scene;
+
+/**
+ * This enum lists the parts of the game that own nodes in the scene. A root has at most one open scope of each kind, so
+ * opening a scope disposes the one it takes the place of, along with any nodes that scope still holds.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public enum ScopeKind {
+    /** the entities of the level being played, which the level removes itself when it is cleared */
+    LEVEL,
+    /** the status display below the game, which lasts from the start of a game until the next game's display is made */
+    HUD,
+    /** the splash screen showing, or the high score text field, which is replaced by the next one or removed on closing */
+    MENU
+}
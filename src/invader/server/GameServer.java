@@ -0,0 +1,225 @@
+package invader.server;
+
+import invader.Game;
+import invader.StatusDisplay;
+import invader.bot.Autopilot;
+import javafx.application.Platform;
+import javafx.scene.input.KeyCode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class hosts many independent game sessions in one JVM, with no window, for clients that connect over local TCP.
+ *
+ * Each client that connects gets its own GameSession. Every session is stepped 60 times a second on a shared scheduler with
+ * a fixed pool of threads (one per core by default), so the number of threads does not grow with the number of games. Each
+ * connection is read by its own thread, which blocks on the socket and only queues keys for its session.
+ *
+ * The protocol is one command per line. The server greets each client with "SESSION id". A client sends the name of a key
+ * (LEFT, RIGHT, SPACE, R, S, DIGIT1, ...) to press it, STATUS to get the state of its game, STATS to get how well the server
+ * is keeping up, AUTOPILOT followed by a skill from 0 to 1 to have an Autopilot play the session from then on, and QUIT to
+ * leave.
+ *
+ * To run the server on a machine without a display, start it with a headless glass platform, for example
+ * -Dglass.platform=Monocle -Dmonocle.platform=Headless -Dprism.order=sw.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class GameServer {
+    public static final int DEFAULT_PORT = 7307;
+    public static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    public static final long FRAME_NANOS = (long) (Game.SECOND_DELAY * NANOS_PER_SECOND);
+    public static final String GREETING = "SESSION ";
+    public static final String STATUS_COMMAND = "STATUS";
+    public static final String STATS_COMMAND = "STATS";
+    public static final String QUIT_COMMAND = "QUIT";
+    public static final String AUTOPILOT_COMMAND = "AUTOPILOT ";
+    public static final String ERROR_REPLY = "ERROR unknown command ";
+
+    private final ServerSocket serverSocket;
+    private final int stepThreads;
+    private final ScheduledExecutorService stepScheduler;
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool();
+    private final Map<Integer, ScheduledFuture<?>> steppingSessions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSessionId = new AtomicInteger();
+    private final LongAdder steps = new LongAdder();
+    private final LongAdder lateSteps = new LongAdder();
+    private final LongAdder stepNanos = new LongAdder();
+
+    /**
+     * Create a server listening on the local machine
+     * @param port port to listen on
+     * @param stepThreads number of threads that share the stepping of every session
+     * @throws IOException if the port could not be opened
+     */
+    public GameServer(int port, int stepThreads) throws IOException {
+        serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        this.stepThreads = stepThreads;
+        stepScheduler = Executors.newScheduledThreadPool(stepThreads);
+    }
+
+    /**
+     * Accept clients until the server is closed, giving each one its own session
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                connectionExecutor.execute(() -> handleClient(client));
+            } catch (SocketException e) {
+                // the server socket was closed
+            } catch (IOException e) {
+                StatusDisplay.logError(e);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting clients and stop stepping every session
+     * @throws IOException if the server socket could not be closed
+     */
+    public void close() throws IOException {
+        serverSocket.close();
+        stepScheduler.shutdownNow();
+        connectionExecutor.shutdownNow();
+    }
+
+    /**
+     * Get the port the server is listening on
+     * @return the server's port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Get a one line description of how well the server is keeping up, sent to a client that asks for it
+     * @return the number of sessions, steps taken, steps that started more than a frame late, the average time a step takes,
+     * and how many sessions one thread could step at 60 frames per second at that average
+     */
+    public String getStats() {
+        long stepCount = steps.sum();
+        double averageStepNanos = stepCount == 0 ? 0 : (double) stepNanos.sum() / stepCount;
+        double sessionsPerThread = averageStepNanos == 0 ? 0 : FRAME_NANOS / averageStepNanos;
+        return String.format("STATS sessions=%d threads=%d steps=%d lateSteps=%d averageStepMicros=%.1f sessionsPerThread=%.1f",
+                steppingSessions.size(), stepThreads, stepCount, lateSteps.sum(), averageStepNanos / 1000, sessionsPerThread);
+    }
+
+    private void handleClient(Socket client) {
+        GameSession session = null;
+        try (client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(client.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            session = startSession();
+            out.println(GREETING + session.getId());
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                String command = line.trim().toUpperCase();
+                if (command.equals(QUIT_COMMAND)) break;
+                else if (command.equals(STATUS_COMMAND)) out.println(session.getStatus());
+                else if (command.equals(STATS_COMMAND)) out.println(getStats());
+                else if (command.startsWith(AUTOPILOT_COMMAND) && !startAutopilot(session, command)) {
+                    out.println(ERROR_REPLY + command);
+                }
+                else if (!command.isEmpty() && !submitKey(session, command)) out.println(ERROR_REPLY + command);
+            }
+        } catch (IOException e) {
+            // the client went away; its session is ended below
+        } finally {
+            if (session != null) endSession(session);
+        }
+    }
+
+    private GameSession startSession() {
+        GameSession session = new GameSession(nextSessionId.getAndIncrement());
+        SessionStepper stepper = new SessionStepper(session);
+        steppingSessions.put(session.getId(), stepScheduler.scheduleAtFixedRate(stepper, 0, FRAME_NANOS, TimeUnit.NANOSECONDS));
+        return session;
+    }
+
+    private void endSession(GameSession session) {
+        ScheduledFuture<?> stepping = steppingSessions.remove(session.getId());
+        if (stepping != null) stepping.cancel(false);
+        session.close();
+    }
+
+    private boolean submitKey(GameSession session, String keyName) {
+        try {
+            return session.submit(KeyCode.valueOf(keyName));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private boolean startAutopilot(GameSession session, String command) {
+        try {
+            double skill = Double.parseDouble(command.substring(AUTOPILOT_COMMAND.length()).trim());
+            session.setAutopilot(new Autopilot(skill, session.getId()));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // steps one session on the scheduler, keeping track of how long it takes and how late it starts
+    private class SessionStepper implements Runnable {
+        private final GameSession session;
+        private long expectedStartNanos = System.nanoTime();
+
+        private SessionStepper(GameSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public void run() {
+            long startNanos = System.nanoTime();
+            if (startNanos - expectedStartNanos > FRAME_NANOS) lateSteps.increment();
+            // fixed rate scheduling catches up after a late step, so the expected start moves on by exactly one frame
+            expectedStartNanos += FRAME_NANOS;
+            try {
+                session.step();
+            } catch (RuntimeException e) {
+                // an exception would silently stop the scheduler from stepping the session again, so end it instead
+                StatusDisplay.logError(e);
+                ScheduledFuture<?> stepping = steppingSessions.remove(session.getId());
+                if (stepping != null) stepping.cancel(false);
+            }
+            stepNanos.add(System.nanoTime() - startNanos);
+            steps.increment();
+        }
+    }
+
+    /**
+     * Start the server
+     * @param args the port to listen on and the number of threads that step the sessions, both optional
+     * @throws IOException if the port could not be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int stepThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        // the levels load their images through JavaFX, so the toolkit has to be running even though nothing is shown
+        Platform.startup(() -> { });
+        Platform.setImplicitExit(false);
+        GameServer server = new GameServer(port, stepThreads);
+        System.out.println("Hosting games on port " + server.getPort() + " with " + stepThreads + " step threads");
+        server.serve();
+    }
+}
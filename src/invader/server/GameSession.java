@@ -0,0 +1,273 @@
+package invader.server;
+
+import invader.Game;
+import invader.GameContext;
+import invader.KeyHandler;
+import invader.bot.Autopilot;
+import invader.jfr.GameEvents;
+import invader.jfr.TickEvent;
+import invader.level.BossLevel;
+import invader.level.EnemyLevel;
+import invader.level.Level;
+import invader.powerup.PowerUpPool;
+import invader.snapshot.GameSnapshot;
+import javafx.scene.Group;
+import javafx.scene.input.KeyCode;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * This class runs one game without a window, for the game server to host alongside many others in the same JVM.
+ *
+ * Each session owns its level, game timer, score, and lives instead of sharing the static StatusDisplay, and its nodes are
+ * kept in a root that is never shown. Keys sent by the client are queued and only handled at the start of the next step, so
+ * the level is only ever touched by whichever scheduler thread is stepping the session. The status the client can ask for
+ * is published through volatile fields after each step.
+ *
+ * The keys mirror the KeyHandler: LEFT and RIGHT move, SPACE fires, R restarts the level, S skips to the next level, the
+ * digits jump to a level, and L, A, B, F, M, and D are the cheat keys. The menu keys (P, E, ENTER, W, Q) are left out since
+ * there are no menus to show.
+ *
+ * A session can also be handed to an Autopilot, which then presses keys for it at the start of each step, after any keys
+ * the client sent, so that a load test can drive many sessions realistically without sending a key over the connection.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class GameSession implements GameContext {
+    public static final String PLAYING = "PLAYING";
+    public static final String GAME_OVER = "GAME_OVER";
+    public static final String VICTORY = "VICTORY";
+    public static final String BOSS_LEVEL_NEXT = "BOSS_LEVEL_NEXT";
+    public static final String LEVEL_COMPLETE = "LEVEL_COMPLETE";
+
+    private final int id;
+    private final Group root = new Group();
+    private final PowerUpPool powerUpPool = new PowerUpPool();
+    private final Map<KeyCode, Runnable> keyToActionMap = new EnumMap<>(KeyCode.class);
+    private final Queue<KeyCode> pendingKeys = new ConcurrentLinkedQueue<>();
+    private final Consumer<KeyCode> autopilotKeys = this::handleInput;
+    private Level curLevel;
+    private boolean isMenuActive = false;
+    private boolean isClosed = false;
+    // read by the connection thread when the client asks for the status
+    private volatile double gameTimer = 0;
+    private volatile int points = 0;
+    private volatile int lives;
+    private volatile int levelNumber;
+    private volatile String menu = PLAYING;
+    private volatile long stepCount = 0;
+    // set by the connection thread when the client hands the session over
+    private volatile Autopilot autopilot;
+
+    /**
+     * Create a session that starts on the first level
+     * @param id id of the session, sent to the client when it connects
+     */
+    public GameSession(int id) {
+        this.id = id;
+        initializeKeyToActionMap();
+        goToLevel(Game.MIN_LEVEL);
+    }
+
+    /**
+     * Queue a key press to be handled at the start of the next step; can be called from any thread
+     * @param code the key that was pressed
+     * @return whether the key does anything in a session
+     */
+    public boolean submit(KeyCode code) {
+        if (!keyToActionMap.containsKey(code)) return false;
+        pendingKeys.add(code);
+        return true;
+    }
+
+    /**
+     * Handle the keys pressed since the last step, then advance the game by one frame, like Game.step
+     */
+    public synchronized void step() {
+        if (isClosed) return;
+        TickEvent tickEvent = GameEvents.beginTick();
+        for (KeyCode code = pendingKeys.poll(); code != null; code = pendingKeys.poll()) {
+            handleInput(code);
+        }
+        Autopilot pilot = autopilot;
+        if (pilot != null) pilot.play(curLevel, isMenuActive, autopilotKeys);
+        if (!isMenuActive) {
+            gameTimer += Game.SECOND_DELAY;
+            curLevel.handleEntitiesAndLasers(gameTimer, Game.SECOND_DELAY);
+        }
+        stepCount++;
+        GameEvents.endTick(tickEvent, curLevel.getLevelNumber(), isMenuActive);
+    }
+
+    /**
+     * Let an autopilot play the session from the next step on; can be called from any thread
+     * @param autopilot the autopilot to press keys for the session, or null to stop it
+     */
+    public void setAutopilot(Autopilot autopilot) {
+        this.autopilot = autopilot;
+    }
+
+    /**
+     * Record what the session's game looks like, including its score, to send to spectators
+     * @param snapshot the snapshot to fill in
+     */
+    public synchronized void captureSnapshot(GameSnapshot snapshot) {
+        curLevel.captureSnapshot(snapshot);
+        snapshot.set(GameSnapshot.POINTS, points);
+    }
+
+    /**
+     * Remove everything in the session's level, once the client has left
+     */
+    public synchronized void close() {
+        // synchronized with step so that a step already running when the client leaves finishes first
+        isClosed = true;
+        curLevel.clearLevel();
+    }
+
+    /**
+     * Get the id of the session
+     * @return the session's id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get a one line description of the state of the session, sent to the client when it asks for the status
+     * @return the level, lives, points, game timer, and menu of the session
+     */
+    public String getStatus() {
+        return String.format("STATUS id=%d level=%d lives=%d points=%d time=%.2f steps=%d menu=%s",
+                id, levelNumber, lives, points, gameTimer, stepCount, menu);
+    }
+
+    /**
+     * Get the points scored in the session
+     * @return the session's points
+     */
+    public int getPoints() {
+        return points;
+    }
+
+    /**
+     * Get how many steps the session has taken
+     * @return the number of steps taken
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Get the level being played in the session
+     * @return the current level
+     */
+    public Level getCurLevel() {
+        return curLevel;
+    }
+
+    @Override
+    public double getGameTimer() {
+        return gameTimer;
+    }
+
+    @Override
+    public void setMenuActive(boolean isMenuActive) {
+        this.isMenuActive = isMenuActive;
+    }
+
+    @Override
+    public void setGameOverMenuActive(boolean isGameOverMenuActive) {
+        // which menu is showing is recorded when it is created
+    }
+
+    @Override
+    public void updateLifeCountDisplay(int lives) {
+        this.lives = lives;
+    }
+
+    @Override
+    public void updateLevelNumberDisplay(int levelNumber) {
+        this.levelNumber = levelNumber;
+    }
+
+    @Override
+    public void updatePointsDisplay(int pointsEarned) {
+        points += pointsEarned;
+    }
+
+    @Override
+    public void createGameOverMenu() {
+        menu = GAME_OVER;
+    }
+
+    @Override
+    public void createVictoryMenu() {
+        menu = VICTORY;
+    }
+
+    @Override
+    public void createBossLevelMenu() {
+        menu = BOSS_LEVEL_NEXT;
+    }
+
+    @Override
+    public void createLevelIntermissionMenu() {
+        menu = LEVEL_COMPLETE;
+    }
+
+    @Override
+    public PowerUpPool getPowerUpPool() {
+        return powerUpPool;
+    }
+
+    private void handleInput(KeyCode code) {
+        if (isMenuActive) {
+            // like the KeyHandler, only keys that start a level are taken while a menu is showing
+            if (code != KeyCode.R && code != KeyCode.S && !KeyHandler.KEY_CODES_1_THROUGH_9.contains(code)) return;
+            isMenuActive = false;
+            menu = PLAYING;
+        }
+        keyToActionMap.get(code).run();
+    }
+
+    private void initializeKeyToActionMap() {
+        keyToActionMap.put(KeyCode.RIGHT, () -> curLevel.moveSpaceship(true));
+        keyToActionMap.put(KeyCode.LEFT, () -> curLevel.moveSpaceship(false));
+        keyToActionMap.put(KeyCode.SPACE, () -> curLevel.attemptSpaceshipFire(gameTimer));
+        keyToActionMap.put(KeyCode.L, () -> curLevel.addLife());
+        keyToActionMap.put(KeyCode.A, () -> curLevel.addRandomPowerUp(gameTimer));
+        keyToActionMap.put(KeyCode.B, () -> curLevel.addBurstFirePowerUp(gameTimer));
+        keyToActionMap.put(KeyCode.F, () -> curLevel.addSpeedPowerUp(gameTimer));
+        keyToActionMap.put(KeyCode.M, () -> curLevel.addMissilePowerUp(gameTimer));
+        keyToActionMap.put(KeyCode.D, () -> curLevel.destroyFirstEnemy());
+        keyToActionMap.put(KeyCode.R, () -> resetLevel());
+        keyToActionMap.put(KeyCode.S, () -> attemptLevelSkip());
+        for (int index = 0; index < KeyHandler.KEY_CODES_1_THROUGH_9.size(); index++) {
+            int levelNumber = Math.min(index + 1, Game.MAX_LEVEL);
+            keyToActionMap.put(KeyHandler.KEY_CODES_1_THROUGH_9.get(index), () -> goToLevel(levelNumber));
+        }
+    }
+
+    private void goToLevel(int levelNumber) {
+        if (curLevel != null) curLevel.clearLevel();
+        gameTimer = 0;
+        if (levelNumber == Game.MAX_LEVEL) curLevel = new BossLevel(root, levelNumber, this);
+        else curLevel = new EnemyLevel(root, levelNumber, this);
+    }
+
+    private void resetLevel() {
+        points = 0;
+        goToLevel(curLevel.getLevelNumber());
+    }
+
+    private void attemptLevelSkip() {
+        if (curLevel.getLevelNumber() < Game.MAX_LEVEL) goToLevel(curLevel.getLevelNumber() + 1);
+    }
+}
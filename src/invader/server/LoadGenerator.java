@@ -0,0 +1,162 @@
+package invader.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class connects many clients to a GameServer at once, has each of them play, and reports whether the server kept every
+ * game running at 60 frames per second, so that we can measure how many sessions one machine sustains per core.
+ *
+ * Each client presses a random key (left, right, or fire) several times a second, or, if a skill is given, hands its session
+ * to the server's Autopilot so that every game is played the way a person would play it. Once every client has connected, the
+ * server's stats are read, and again when the run is over, so the steps counted only cover the time all the games were
+ * running together.
+ *
+ * Usage: LoadGenerator [host] [port] [sessions] [seconds] [keys per second per session] [autopilot skill]
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class LoadGenerator {
+    public static final String DEFAULT_HOST = "localhost";
+    public static final int DEFAULT_SESSIONS = 100;
+    public static final int DEFAULT_SECONDS = 30;
+    public static final int DEFAULT_KEYS_PER_SECOND = 10;
+    public static final List<String> KEYS_PRESSED = List.of("LEFT", "RIGHT", "SPACE");
+    public static final double SUSTAINED_FRACTION = 0.99;
+    public static final String STATS_DELIMITER = "=";
+    public static final double NO_AUTOPILOT = -1;
+
+    private final String host;
+    private final int port;
+    private final int sessions;
+    private final int seconds;
+    private final int keysPerSecond;
+    private final double autopilotSkill;
+
+    /**
+     * Create a load generator
+     * @param host host the server is running on
+     * @param port port the server is listening on
+     * @param sessions number of clients to connect, each of which gets its own session
+     * @param seconds how long every client should play for
+     * @param keysPerSecond how many keys each client presses per second
+     * @param autopilotSkill skill of the autopilot that plays each session, or NO_AUTOPILOT to press random keys instead
+     */
+    public LoadGenerator(String host, int port, int sessions, int seconds, int keysPerSecond, double autopilotSkill) {
+        this.host = host;
+        this.port = port;
+        this.sessions = sessions;
+        this.seconds = seconds;
+        this.keysPerSecond = keysPerSecond;
+        this.autopilotSkill = autopilotSkill;
+    }
+
+    /**
+     * Connect every client, let them play, and print a report of how well the server kept up
+     * @throws Exception if a client could not connect or the run was interrupted
+     */
+    public void run() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(sessions);
+        CountDownLatch connected = new CountDownLatch(sessions);
+        CountDownLatch started = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int client = 0; client < sessions; client++) {
+            results.add(clients.submit(() -> playSession(connected, started)));
+        }
+        connected.await();
+        try (Socket control = new Socket(host, port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(control.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(control.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            // the control connection is only used for stats, so its own session is counted but not played
+            in.readLine();
+            Map<String, String> before = requestStats(in, out);
+            long startNanos = System.nanoTime();
+            started.countDown();
+            for (Future<String> result : results) result.get();
+            Map<String, String> after = requestStats(in, out);
+            double elapsedSeconds = (System.nanoTime() - startNanos) / (double) GameServer.NANOS_PER_SECOND;
+            report(before, after, elapsedSeconds);
+        }
+        clients.shutdown();
+    }
+
+    private String playSession(CountDownLatch connected, CountDownLatch started) throws IOException, InterruptedException {
+        try (Socket socket = new Socket(host, port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            in.readLine();
+            connected.countDown();
+            started.await();
+            if (autopilotSkill != NO_AUTOPILOT) out.println(GameServer.AUTOPILOT_COMMAND + autopilotSkill);
+            long pauseMillis = TimeUnit.SECONDS.toMillis(1) / keysPerSecond;
+            long endNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            while (System.nanoTime() < endNanos) {
+                if (autopilotSkill == NO_AUTOPILOT) {
+                    out.println(KEYS_PRESSED.get(ThreadLocalRandom.current().nextInt(KEYS_PRESSED.size())));
+                }
+                Thread.sleep(pauseMillis);
+            }
+            out.println(GameServer.STATUS_COMMAND);
+            String status = in.readLine();
+            out.println(GameServer.QUIT_COMMAND);
+            return status;
+        }
+    }
+
+    private Map<String, String> requestStats(BufferedReader in, PrintWriter out) throws IOException {
+        out.println(GameServer.STATS_COMMAND);
+        Map<String, String> stats = new HashMap<>();
+        for (String field : in.readLine().split(" ")) {
+            String[] keyAndValue = field.split(STATS_DELIMITER);
+            if (keyAndValue.length == 2) stats.put(keyAndValue[0], keyAndValue[1]);
+        }
+        return stats;
+    }
+
+    private void report(Map<String, String> before, Map<String, String> after, double elapsedSeconds) {
+        int threads = Integer.parseInt(after.get("threads"));
+        long steps = Long.parseLong(after.get("steps")) - Long.parseLong(before.get("steps"));
+        long lateSteps = Long.parseLong(after.get("lateSteps")) - Long.parseLong(before.get("lateSteps"));
+        // the control connection's session is stepped too
+        double framesPerSecond = steps / elapsedSeconds / (sessions + 1);
+        boolean isSustained = framesPerSecond >= SUSTAINED_FRACTION * GameServer.NANOS_PER_SECOND / GameServer.FRAME_NANOS;
+        System.out.printf("%d sessions on %d threads for %.1f seconds%n", sessions, threads, elapsedSeconds);
+        System.out.printf("frames per second per session: %.2f (%s)%n", framesPerSecond, isSustained ? "sustained" : "NOT sustained");
+        System.out.printf("late steps: %d of %d (%.2f%%)%n", lateSteps, steps, steps == 0 ? 0 : 100.0 * lateSteps / steps);
+        System.out.printf("sessions per thread at this load: %.1f%n", (sessions + 1) / (double) threads);
+        System.out.printf("average step: %s microseconds, so one thread could step about %s sessions%n",
+                after.get("averageStepMicros"), after.get("sessionsPerThread"));
+    }
+
+    /**
+     * Run the load generator
+     * @param args the host, port, number of sessions, seconds to run for, keys per second per session, and the skill of the
+     *             autopilot to play each session with, all optional
+     * @throws Exception if a client could not connect or the run was interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : DEFAULT_HOST;
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+        int sessions = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SESSIONS;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_SECONDS;
+        int keysPerSecond = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_KEYS_PER_SECOND;
+        double autopilotSkill = args.length > 5 ? Double.parseDouble(args[5]) : NO_AUTOPILOT;
+        new LoadGenerator(host, port, sessions, seconds, keysPerSecond, autopilotSkill).run();
+    }
+}
@@ -0,0 +1,264 @@
+package invader.snapshot;
+
+import invader.projectile.Fireball;
+import invader.projectile.Laser;
+import invader.projectile.Missile;
+import invader.projectile.Projectile;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class holds what a level looks like at one step, in the compact form that is sent to spectators and remote clients:
+ * the spaceship, the enemy grid, the projectiles, the power ups, the boss, and the score and lives.
+ *
+ * Everything is stored as ints in a single array with a fixed layout, so that a snapshot can be compared against an older one
+ * value by value and copied without allocating. Positions are quantized to a quarter of a pixel. Since the enemies move
+ * together, the formation's position is stored once and each enemy only stores how far it is from its slot in the grid,
+ * which stays at zero while the formation is rigid.
+ *
+ * A snapshot has a fixed capacity for enemies, projectiles, and power ups; anything past the capacity is left out.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class GameSnapshot {
+    public static final int POSITION_SCALE = 4;
+    public static final int DEFAULT_MAX_ENEMIES = 256;
+    public static final int DEFAULT_MAX_PROJECTILES = 512;
+    public static final int DEFAULT_MAX_POWER_UPS = 64;
+    public static final List<String> PROJECTILE_TYPES = List.of(Laser.TYPE, Missile.TYPE, Fireball.TYPE);
+
+    // the values at the start of every snapshot
+    public static final int LEVEL_NUMBER = 0;
+    public static final int POINTS = 1;
+    public static final int LIVES = 2;
+    public static final int SPACESHIP_X = 3;
+    public static final int SPACESHIP_Y = 4;
+    public static final int FORMATION_ROWS = 5;
+    public static final int FORMATION_COLUMNS = 6;
+    public static final int FORMATION_X = 7;
+    public static final int FORMATION_Y = 8;
+    public static final int BOSS_LIVES = 9;
+    public static final int BOSS_X = 10;
+    public static final int BOSS_Y = 11;
+    public static final int BOSS_VULNERABLE = 12;
+    public static final int PROJECTILE_COUNT = 13;
+    public static final int POWER_UP_COUNT = 14;
+    public static final int HEADER_SIZE = 15;
+
+    // the values stored for each enemy, projectile, and power up
+    public static final int VALUES_PER_ENEMY = 3;
+    public static final int ENEMY_LIVES = 0;
+    public static final int ENEMY_OFFSET_X = 1;
+    public static final int ENEMY_OFFSET_Y = 2;
+    public static final int VALUES_PER_OBJECT = 3;
+    public static final int OBJECT_KIND = 0;
+    public static final int OBJECT_X = 1;
+    public static final int OBJECT_Y = 2;
+
+    private final int maxEnemies;
+    private final int maxProjectiles;
+    private final int maxPowerUps;
+    private final int projectileStart;
+    private final int powerUpStart;
+    private final int[] values;
+    private int sequence;
+
+    /**
+     * Create an empty snapshot with the default capacities
+     */
+    public GameSnapshot() {
+        this(DEFAULT_MAX_ENEMIES, DEFAULT_MAX_PROJECTILES, DEFAULT_MAX_POWER_UPS);
+    }
+
+    /**
+     * Create an empty snapshot
+     * @param maxEnemies the most enemies (living or not) the snapshot can hold
+     * @param maxProjectiles the most projectiles the snapshot can hold
+     * @param maxPowerUps the most power ups the snapshot can hold
+     */
+    public GameSnapshot(int maxEnemies, int maxProjectiles, int maxPowerUps) {
+        this.maxEnemies = maxEnemies;
+        this.maxProjectiles = maxProjectiles;
+        this.maxPowerUps = maxPowerUps;
+        projectileStart = HEADER_SIZE + maxEnemies * VALUES_PER_ENEMY;
+        powerUpStart = projectileStart + maxProjectiles * VALUES_PER_OBJECT;
+        values = new int[powerUpStart + maxPowerUps * VALUES_PER_OBJECT];
+    }
+
+    /**
+     * Create an empty snapshot with the same capacities as another
+     * @param other the snapshot whose capacities are used
+     */
+    public GameSnapshot(GameSnapshot other) {
+        this(other.maxEnemies, other.maxProjectiles, other.maxPowerUps);
+    }
+
+    /**
+     * Quantize a position so it can be stored in a snapshot
+     * @param position the position in pixels
+     * @return the position in quarter pixels
+     */
+    public static int quantize(double position) {
+        return (int) Math.round(position * POSITION_SCALE);
+    }
+
+    /**
+     * Turn a position stored in a snapshot back into pixels
+     * @param quantized the position in quarter pixels
+     * @return the position in pixels
+     */
+    public static double toPixels(int quantized) {
+        return (double) quantized / POSITION_SCALE;
+    }
+
+    /**
+     * Get the kind of a projectile, which records both its type and who fired it
+     * @param projectile the projectile
+     * @return the kind of the projectile, to be stored in a snapshot
+     */
+    public static int kindOf(Projectile projectile) {
+        return PROJECTILE_TYPES.indexOf(projectile.getProjectileType()) * 2 + (projectile.isEvil() ? 1 : 0);
+    }
+
+    /**
+     * Reset every value to zero, before the snapshot is filled in again
+     */
+    public void clear() {
+        Arrays.fill(values, 0);
+    }
+
+    /**
+     * Copy every value (and the sequence number) of another snapshot with the same capacities into this one
+     * @param other the snapshot to copy
+     */
+    public void copyFrom(GameSnapshot other) {
+        System.arraycopy(other.values, 0, values, 0, values.length);
+        sequence = other.sequence;
+    }
+
+    /**
+     * Get one of the values at the start of the snapshot
+     * @param field which value to get, such as POINTS
+     * @return the value
+     */
+    public int get(int field) {
+        return values[field];
+    }
+
+    /**
+     * Set one of the values at the start of the snapshot
+     * @param field which value to set, such as POINTS
+     * @param value the value
+     */
+    public void set(int field, int value) {
+        values[field] = value;
+    }
+
+    /**
+     * Record an enemy in the grid
+     * @param index the enemy's index in the grid (col + row*columns)
+     * @param lives lives of the enemy, or 0 if it has been destroyed
+     * @param offsetX how far the enemy is from its slot in the formation, in quarter pixels
+     * @param offsetY how far the enemy is from its slot in the formation, in quarter pixels
+     */
+    public void setEnemy(int index, int lives, int offsetX, int offsetY) {
+        if (index >= maxEnemies) return;
+        int start = HEADER_SIZE + index * VALUES_PER_ENEMY;
+        values[start + ENEMY_LIVES] = lives;
+        values[start + ENEMY_OFFSET_X] = offsetX;
+        values[start + ENEMY_OFFSET_Y] = offsetY;
+    }
+
+    /**
+     * Get one value of an enemy in the grid
+     * @param index the enemy's index in the grid
+     * @param value which value to get, such as ENEMY_LIVES
+     * @return the value
+     */
+    public int getEnemy(int index, int value) {
+        return values[HEADER_SIZE + index * VALUES_PER_ENEMY + value];
+    }
+
+    /**
+     * Record a projectile, if there is room for it
+     * @param kind the kind of the projectile (see kindOf)
+     * @param x x position of the projectile, in quarter pixels
+     * @param y y position of the projectile, in quarter pixels
+     */
+    public void addProjectile(int kind, int x, int y) {
+        addObject(PROJECTILE_COUNT, projectileStart, maxProjectiles, kind, x, y);
+    }
+
+    /**
+     * Get one value of a projectile
+     * @param index the index of the projectile
+     * @param value which value to get, such as OBJECT_X
+     * @return the value
+     */
+    public int getProjectile(int index, int value) {
+        return values[projectileStart + index * VALUES_PER_OBJECT + value];
+    }
+
+    /**
+     * Record a falling power up, if there is room for it
+     * @param type the ordinal of the power up's type
+     * @param x x position of the power up, in quarter pixels
+     * @param y y position of the power up, in quarter pixels
+     */
+    public void addPowerUp(int type, int x, int y) {
+        addObject(POWER_UP_COUNT, powerUpStart, maxPowerUps, type, x, y);
+    }
+
+    /**
+     * Get one value of a power up
+     * @param index the index of the power up
+     * @param value which value to get, such as OBJECT_X
+     * @return the value
+     */
+    public int getPowerUp(int index, int value) {
+        return values[powerUpStart + index * VALUES_PER_OBJECT + value];
+    }
+
+    /**
+     * Get the sequence number the snapshot was sent with
+     * @return the sequence number
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Set the sequence number the snapshot was sent with
+     * @param sequence the sequence number
+     */
+    public void setSequence(int sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Check whether this snapshot holds the same values as another
+     * @param other the other snapshot
+     * @return whether every value is the same
+     */
+    public boolean hasSameValues(GameSnapshot other) {
+        return Arrays.equals(values, other.values);
+    }
+
+    // every value, in layout order, for the encoder and decoder
+    int[] getValues() {
+        return values;
+    }
+
+    private void addObject(int countField, int start, int capacity, int kind, int x, int y) {
+        int count = values[countField];
+        if (count >= capacity) return;
+        int objectStart = start + count * VALUES_PER_OBJECT;
+        values[objectStart + OBJECT_KIND] = kind;
+        values[objectStart + OBJECT_X] = x;
+        values[objectStart + OBJECT_Y] = y;
+        values[countField] = count + 1;
+    }
+}
@@ -0,0 +1,69 @@
+package invader.snapshot;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class reads snapshots written by a SnapshotEncoder, applying each one to the baseline it was written against.
+ *
+ * Like the encoder, the decoder keeps the last HISTORY_SIZE snapshots it decoded, all of them created up front, so decoding
+ * copies into existing snapshots and never allocates; spectators can decode 60 snapshots a second without creating garbage.
+ * After a snapshot is decoded, its sequence number should be sent back to the encoder as the acknowledged sequence.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class SnapshotDecoder {
+    private final GameSnapshot emptyBaseline;
+    private final GameSnapshot[] history = new GameSnapshot[SnapshotEncoder.HISTORY_SIZE];
+    private int lastDecodedSequence = SnapshotEncoder.NO_BASELINE;
+
+    /**
+     * Create a decoder for snapshots with the given capacities
+     * @param template a snapshot with the same capacities as the snapshots that were encoded
+     */
+    public SnapshotDecoder(GameSnapshot template) {
+        emptyBaseline = new GameSnapshot(template);
+        for (int index = 0; index < history.length; index++) {
+            history[index] = new GameSnapshot(template);
+        }
+    }
+
+    /**
+     * Read one encoded snapshot
+     * @param in the buffer to read from, positioned at the start of the snapshot
+     * @param out the snapshot to fill in with the decoded values
+     * @return whether the snapshot could be decoded; it cannot be if its baseline is no longer (or was never) held by the
+     * decoder, in which case out is left unchanged
+     */
+    public boolean decode(ByteBuffer in, GameSnapshot out) {
+        int sequence = Varint.read(in);
+        int baselineSequence = Varint.read(in);
+        GameSnapshot baseline = baselineSequence == SnapshotEncoder.NO_BASELINE ? emptyBaseline
+                : history[baselineSequence % history.length];
+        if (baseline.getSequence() != baselineSequence) return false;
+        GameSnapshot decoded = history[sequence % history.length];
+        decoded.copyFrom(baseline);
+        applyDifferences(decoded.getValues(), in);
+        decoded.setSequence(sequence);
+        out.copyFrom(decoded);
+        lastDecodedSequence = sequence;
+        return true;
+    }
+
+    /**
+     * Get the sequence number of the last snapshot decoded, to acknowledge to the encoder
+     * @return the last sequence number decoded, or SnapshotEncoder.NO_BASELINE if nothing has been decoded
+     */
+    public int getLastDecodedSequence() {
+        return lastDecodedSequence;
+    }
+
+    private void applyDifferences(int[] values, ByteBuffer in) {
+        int index = Varint.read(in);
+        while (index < values.length) {
+            values[index] += Varint.readSigned(in);
+            index += 1 + Varint.read(in);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package invader.snapshot;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class writes snapshots as differences from the last snapshot the receiver acknowledged.
+ *
+ * Each encoded snapshot starts with its sequence number and the sequence number of the snapshot it is relative to (its
+ * baseline), followed by only the values that changed: for each, how many unchanged values were skipped and the zigzag
+ * difference from the baseline, both as varints. Most of a level stays the same from one step to the next (the enemy grid
+ * only changes when an enemy is hit, and the enemies' offsets from the moving formation do not change at all), so a typical
+ * step costs a few bytes per moving object.
+ *
+ * The encoder keeps copies of the last HISTORY_SIZE snapshots it sent. If the receiver has not acknowledged any of them (or
+ * has not acknowledged anything yet), the snapshot is written against an empty baseline, which sends every value that is not
+ * zero.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class SnapshotEncoder {
+    public static final int HISTORY_SIZE = 32;
+    public static final int NO_BASELINE = 0;
+
+    private final GameSnapshot emptyBaseline;
+    private final GameSnapshot[] history = new GameSnapshot[HISTORY_SIZE];
+    private int nextSequence = NO_BASELINE + 1;
+
+    /**
+     * Create an encoder for snapshots with the given capacities
+     * @param template a snapshot with the capacities of every snapshot that will be encoded
+     */
+    public SnapshotEncoder(GameSnapshot template) {
+        emptyBaseline = new GameSnapshot(template);
+        for (int index = 0; index < HISTORY_SIZE; index++) {
+            history[index] = new GameSnapshot(template);
+        }
+    }
+
+    /**
+     * Get the most bytes a single encoded snapshot can take, so the buffer passed to encode is always big enough
+     * @return the largest possible size of an encoded snapshot
+     */
+    public int getMaxEncodedSize() {
+        // two sequence numbers, then a skip and a difference for every value, and the final skip
+        return Varint.MAX_BYTES * (3 + 2 * emptyBaseline.getValues().length);
+    }
+
+    /**
+     * Write a snapshot relative to the last one the receiver acknowledged
+     * @param current the snapshot to send
+     * @param acknowledgedSequence the sequence number of the last snapshot the receiver decoded, or NO_BASELINE
+     * @param out the buffer to write to, with at least getMaxEncodedSize bytes remaining
+     * @return the sequence number the snapshot was sent with
+     */
+    public int encode(GameSnapshot current, int acknowledgedSequence, ByteBuffer out) {
+        int sequence = nextSequence++;
+        GameSnapshot baseline = findBaseline(acknowledgedSequence);
+        Varint.write(out, sequence);
+        Varint.write(out, baseline == emptyBaseline ? NO_BASELINE : acknowledgedSequence);
+        writeDifferences(current.getValues(), baseline.getValues(), out);
+        // the baseline has been written out, so its slot can now be reused for this snapshot
+        GameSnapshot sent = history[sequence % HISTORY_SIZE];
+        sent.copyFrom(current);
+        sent.setSequence(sequence);
+        return sequence;
+    }
+
+    private GameSnapshot findBaseline(int acknowledgedSequence) {
+        if (acknowledgedSequence == NO_BASELINE) return emptyBaseline;
+        GameSnapshot candidate = history[acknowledgedSequence % HISTORY_SIZE];
+        return candidate.getSequence() == acknowledgedSequence ? candidate : emptyBaseline;
+    }
+
+    private void writeDifferences(int[] current, int[] baseline, ByteBuffer out) {
+        int skipped = 0;
+        for (int index = 0; index < current.length; index++) {
+            if (current[index] == baseline[index]) {
+                skipped++;
+                continue;
+            }
+            Varint.write(out, skipped);
+            Varint.writeSigned(out, current[index] - baseline[index]);
+            skipped = 0;
+        }
+        // skipping past the last value marks the end of the snapshot
+        Varint.write(out, skipped);
+    }
+}
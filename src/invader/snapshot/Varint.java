@@ -0,0 +1,74 @@
+package invader.snapshot;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class writes and reads ints in the variable length format used by snapshots.
+ *
+ * Each byte holds seven bits of the value and a flag saying whether another byte follows, so small values take a single byte.
+ * Differences between snapshots can be negative, so they are zigzag encoded first (0, -1, 1, -2, 2, ... become 0, 1, 2, 3,
+ * 4, ...) to keep small negative numbers small too.
+ *
+ * All methods are static and the class cannot be instantiated, like StatusDisplay.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public final class Varint {
+    public static final int MAX_BYTES = 5;
+    private static final int DATA_BITS = 7;
+    private static final int DATA_MASK = 0x7f;
+    private static final int CONTINUE_FLAG = 0x80;
+
+    // private constructor so that this class is not accidentally instantiated
+    private Varint() {
+        //not called
+    }
+
+    /**
+     * Write an int that is treated as unsigned
+     * @param out the buffer to write to
+     * @param value the value to write
+     */
+    public static void write(ByteBuffer out, int value) {
+        while ((value & ~DATA_MASK) != 0) {
+            out.put((byte) ((value & DATA_MASK) | CONTINUE_FLAG));
+            value >>>= DATA_BITS;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * Read an int written by write
+     * @param in the buffer to read from
+     * @return the value that was written
+     */
+    public static int read(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += DATA_BITS) {
+            int b = in.get();
+            value |= (b & DATA_MASK) << shift;
+            if ((b & CONTINUE_FLAG) == 0) return value;
+        }
+    }
+
+    /**
+     * Write a signed int, zigzag encoded so that small negative values stay small
+     * @param out the buffer to write to
+     * @param value the value to write
+     */
+    public static void writeSigned(ByteBuffer out, int value) {
+        write(out, (value << 1) ^ (value >> (Integer.SIZE - 1)));
+    }
+
+    /**
+     * Read a signed int written by writeSigned
+     * @param in the buffer to read from
+     * @return the value that was written
+     */
+    public static int readSigned(ByteBuffer in) {
+        int zigzag = read(in);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+}
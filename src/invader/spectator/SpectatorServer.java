@@ -0,0 +1,316 @@
+package invader.spectator;
+
+import invader.StatusDisplay;
+import invader.level.Level;
+import invader.snapshot.GameSnapshot;
+import invader.snapshot.SnapshotEncoder;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class streams a running game to spectators that connect over local TCP.
+ *
+ * The game hands over a snapshot after each step with publish, which never touches a socket: it fills in one of a few spare
+ * snapshots and swaps it in as the latest, so the step never waits on a spectator. Everything else happens on a single
+ * thread running a non-blocking Selector loop. For each snapshot it picks up, that thread encodes one frame (a length
+ * followed by the snapshot, as a delta from the previous frame) into a shared direct buffer, and gives every spectator a
+ * duplicate view of it, so the frame is serialized once no matter how many spectators are watching.
+ *
+ * A spectator that is still busy with an earlier frame when a new one is ready has the new frame dropped instead of queued.
+ * Since the frames after a dropped one are deltas it could not decode, it is sent nothing more until the next keyframe
+ * (a frame encoded against nothing), which is sent every KEYFRAME_INTERVAL frames and whenever a spectator joins.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class SpectatorServer {
+    public static final int DEFAULT_PORT = 7308;
+    public static final int KEYFRAME_INTERVAL = 30;
+    public static final int FRAME_RING_SIZE = 8;
+    public static final int SPARE_SNAPSHOTS = 3;
+    public static final int LENGTH_BYTES = Integer.BYTES;
+    private static final int READ_BUFFER_SIZE = 64;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread selectorThread;
+    private final SnapshotEncoder encoder;
+    private final ByteBuffer[] frames = new ByteBuffer[FRAME_RING_SIZE];
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private final BlockingQueue<GameSnapshot> spareSnapshots = new ArrayBlockingQueue<>(SPARE_SNAPSHOTS);
+    private final AtomicReference<GameSnapshot> latestSnapshot = new AtomicReference<>();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder framesDropped = new LongAdder();
+    private int frameCount = 0;
+    private int lastSequence = SnapshotEncoder.NO_BASELINE;
+    private boolean isKeyframeNeeded = true;
+    private volatile int spectatorCount = 0;
+
+    /**
+     * Start a spectator server listening on the local machine
+     * @param port port to listen on
+     * @throws IOException if the port could not be opened
+     */
+    public SpectatorServer(int port) throws IOException {
+        GameSnapshot template = new GameSnapshot();
+        encoder = new SnapshotEncoder(template);
+        for (int slot = 0; slot < FRAME_RING_SIZE; slot++) {
+            frames[slot] = ByteBuffer.allocateDirect(LENGTH_BYTES + encoder.getMaxEncodedSize());
+        }
+        for (int spare = 0; spare < SPARE_SNAPSHOTS; spare++) {
+            spareSnapshots.add(new GameSnapshot(template));
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        selectorThread = new Thread(this::run, "spectator-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Hand the state of the level after a step to the spectators; never blocks on a spectator, and if the spectator thread
+     * has fallen behind, the step is simply not streamed
+     * @param level the level being played
+     * @param points the points scored so far
+     */
+    public void publish(Level level, int points) {
+        GameSnapshot snapshot = spareSnapshots.poll();
+        if (snapshot == null) return;
+        level.captureSnapshot(snapshot);
+        snapshot.set(GameSnapshot.POINTS, points);
+        // a snapshot that was never picked up is replaced by the newer one
+        GameSnapshot replaced = latestSnapshot.getAndSet(snapshot);
+        if (replaced != null) spareSnapshots.offer(replaced);
+        selector.wakeup();
+    }
+
+    /**
+     * Stop streaming and disconnect every spectator
+     */
+    public void close() {
+        selectorThread.interrupt();
+        selector.wakeup();
+    }
+
+    /**
+     * Get the port the server is listening on
+     * @return the server's port
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Get how many spectators are connected
+     * @return the number of spectators
+     */
+    public int getSpectatorCount() {
+        return spectatorCount;
+    }
+
+    /**
+     * Get how many frames have been sent to spectators, counting each spectator separately
+     * @return the number of frames sent
+     */
+    public long getFramesSent() {
+        return framesSent.sum();
+    }
+
+    /**
+     * Get how many frames were dropped because a spectator was still busy with an earlier one
+     * @return the number of frames dropped
+     */
+    public long getFramesDropped() {
+        return framesDropped.sum();
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                selector.select();
+                GameSnapshot snapshot = latestSnapshot.getAndSet(null);
+                if (snapshot != null) {
+                    broadcast(snapshot);
+                    spareSnapshots.offer(snapshot);
+                }
+                handleSelectedKeys();
+            }
+        } catch (IOException e) {
+            StatusDisplay.logError(e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void handleSelectedKeys() {
+        Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+        while (selectedKeys.hasNext()) {
+            SelectionKey key = selectedKeys.next();
+            selectedKeys.remove();
+            if (!key.isValid()) continue;
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            if (key.isReadable() && !isStillConnected(key)) {
+                disconnect(key);
+                continue;
+            }
+            if (key.isWritable()) write(key);
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel = serverChannel.accept();
+            if (channel == null) return;
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, new Spectator());
+            spectatorCount++;
+            isKeyframeNeeded = true;
+        } catch (IOException e) {
+            StatusDisplay.logError(e);
+        }
+    }
+
+    private void broadcast(GameSnapshot snapshot) {
+        int slot = frameCount % FRAME_RING_SIZE;
+        releaseFrameSlot(slot);
+        boolean isKeyframe = isKeyframeNeeded || frameCount % KEYFRAME_INTERVAL == 0;
+        ByteBuffer frame = frames[slot];
+        frame.clear();
+        frame.position(LENGTH_BYTES);
+        lastSequence = encoder.encode(snapshot, isKeyframe ? SnapshotEncoder.NO_BASELINE : lastSequence, frame);
+        frame.putInt(0, frame.position() - LENGTH_BYTES);
+        frame.flip();
+        frameCount++;
+        isKeyframeNeeded = false;
+        for (SelectionKey key : selector.keys()) {
+            if (!key.isValid() || !(key.attachment() instanceof Spectator)) continue;
+            Spectator spectator = (Spectator) key.attachment();
+            if (spectator.pending != null) {
+                // still busy with an earlier frame, so this one is dropped and the next deltas would be useless
+                spectator.isWaitingForKeyframe = true;
+                framesDropped.increment();
+                continue;
+            }
+            if (spectator.isWaitingForKeyframe && !isKeyframe) continue;
+            spectator.isWaitingForKeyframe = false;
+            spectator.pending = frame.duplicate();
+            spectator.pendingSlot = slot;
+            write(key);
+        }
+    }
+
+    // a frame buffer is about to be overwritten, so spectators still sending it must let go of it first
+    private void releaseFrameSlot(int slot) {
+        for (SelectionKey key : selector.keys()) {
+            if (!(key.attachment() instanceof Spectator)) continue;
+            Spectator spectator = (Spectator) key.attachment();
+            if (spectator.pending == null || spectator.pendingSlot != slot) continue;
+            if (spectator.pending.position() == 0) {
+                // nothing of the frame was sent yet, so it can be dropped without breaking the stream
+                spectator.pending = null;
+                spectator.isWaitingForKeyframe = true;
+                framesDropped.increment();
+            }
+            else {
+                // part of the frame was sent, so the rest has to be copied for this spectator alone
+                spectator.keepRestOfFrame();
+            }
+        }
+    }
+
+    private void write(SelectionKey key) {
+        Spectator spectator = (Spectator) key.attachment();
+        // the frame may already have been finished (or dropped) since the key was selected
+        if (spectator.pending == null) {
+            key.interestOps(SelectionKey.OP_READ);
+            return;
+        }
+        try {
+            ((SocketChannel) key.channel()).write(spectator.pending);
+            if (spectator.pending.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+            else {
+                spectator.pending = null;
+                framesSent.increment();
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        } catch (IOException e) {
+            disconnect(key);
+        }
+    }
+
+    // spectators never send anything, so a read only tells whether they have hung up
+    private boolean isStillConnected(SelectionKey key) {
+        try {
+            readBuffer.clear();
+            return ((SocketChannel) key.channel()).read(readBuffer) >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void disconnect(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            StatusDisplay.logError(e);
+        }
+        spectatorCount--;
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                StatusDisplay.logError(e);
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            StatusDisplay.logError(e);
+        }
+        spectatorCount = 0;
+    }
+
+    // what is known about each connected spectator, only touched by the selector thread
+    private static class Spectator {
+        private ByteBuffer pending;
+        private int pendingSlot;
+        private boolean isWaitingForKeyframe = true;
+        private ByteBuffer ownFrame;
+
+        private void keepRestOfFrame() {
+            if (ownFrame == null || ownFrame.capacity() < pending.remaining()) {
+                ownFrame = ByteBuffer.allocateDirect(pending.capacity());
+            }
+            ownFrame.clear();
+            ownFrame.put(pending);
+            ownFrame.flip();
+            pending = ownFrame;
+            pendingSlot = -1;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package invader.spectator;
+
+import invader.Game;
+import invader.StatusDisplay;
+import invader.entity.Boss;
+import invader.entity.Enemy;
+import invader.entity.Spaceship;
+import invader.level.EnemyLevel;
+import invader.powerup.PowerUp;
+import invader.powerup.PowerUpType;
+import invader.projectile.Fireball;
+import invader.projectile.Laser;
+import invader.projectile.Missile;
+import invader.projectile.Projectile;
+import invader.snapshot.GameSnapshot;
+import invader.snapshot.SnapshotDecoder;
+import invader.snapshot.SnapshotEncoder;
+import invader.sprite.ImageCache;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Application;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.text.Text;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class is a minimal viewer for a game streamed by a SpectatorServer, drawn with the game's own sprites.
+ *
+ * A background thread reads and decodes frames as they arrive, keeping every frame so that the deltas can be applied, and
+ * hands the newest one to the FX thread the same way the server takes snapshots from the game. The FX thread redraws the
+ * newest snapshot once per frame, reusing one ImageView per sprite on screen.
+ *
+ * Usage: SpectatorViewer [--host=localhost] [--port=7308]
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class SpectatorViewer extends Application {
+    public static final String TITLE = "Space Invaders (spectating)";
+    public static final String HOST_PARAMETER = "host";
+    public static final String PORT_PARAMETER = "port";
+    public static final String DEFAULT_HOST = "localhost";
+    public static final int STATUS_X_POS = 10;
+    public static final int STATUS_Y_POS = 20;
+    public static final int MAX_ENEMY_IMG_LIVES = 3;
+    private static final PowerUpType[] POWER_UP_TYPES = PowerUpType.values();
+
+    private final GameSnapshot decoded = new GameSnapshot();
+    private final SnapshotDecoder decoder = new SnapshotDecoder(decoded);
+    private final BlockingQueue<GameSnapshot> spareSnapshots = new ArrayBlockingQueue<>(SpectatorServer.SPARE_SNAPSHOTS);
+    private final AtomicReference<GameSnapshot> latestSnapshot = new AtomicReference<>();
+    private final Group root = new Group();
+    private final SpriteLayer enemyLayer = new SpriteLayer();
+    private final SpriteLayer projectileLayer = new SpriteLayer();
+    private final SpriteLayer powerUpLayer = new SpriteLayer();
+    private final SpriteLayer playerLayer = new SpriteLayer();
+    private final Text statusText = new Text(STATUS_X_POS, STATUS_Y_POS, "");
+    private Thread readerThread;
+
+    @Override
+    public void start(Stage stage) throws IOException {
+        String host = getParameters().getNamed().getOrDefault(HOST_PARAMETER, DEFAULT_HOST);
+        String port = getParameters().getNamed().get(PORT_PARAMETER);
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host,
+                port == null ? SpectatorServer.DEFAULT_PORT : Integer.parseInt(port)));
+        for (int spare = 0; spare < SpectatorServer.SPARE_SNAPSHOTS; spare++) {
+            spareSnapshots.add(new GameSnapshot(decoded));
+        }
+        statusText.setFill(StatusDisplay.TEXT_COLOR);
+        root.getChildren().add(statusText);
+        stage.setScene(new Scene(root, Game.GAME_WIDTH, Game.GAME_HEIGHT, Game.BACKGROUND));
+        stage.setTitle(TITLE);
+        stage.show();
+        readerThread = new Thread(() -> readFrames(channel), "spectator-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+        Timeline animation = new Timeline(new KeyFrame(Duration.seconds(Game.SECOND_DELAY), e -> showLatestSnapshot()));
+        animation.setCycleCount(Timeline.INDEFINITE);
+        animation.play();
+    }
+
+    @Override
+    public void stop() {
+        if (readerThread != null) readerThread.interrupt();
+    }
+
+    private void readFrames(SocketChannel channel) {
+        ByteBuffer length = ByteBuffer.allocate(SpectatorServer.LENGTH_BYTES);
+        ByteBuffer frame = ByteBuffer.allocateDirect(new SnapshotEncoder(decoded).getMaxEncodedSize());
+        try (channel) {
+            while (!Thread.currentThread().isInterrupted()) {
+                length.clear();
+                readFully(channel, length);
+                frame.clear();
+                frame.limit(length.getInt(0));
+                readFully(channel, frame);
+                frame.flip();
+                // a frame whose baseline was dropped can not be decoded; the server follows up with a keyframe
+                if (decoder.decode(frame, decoded)) handOver();
+            }
+        } catch (IOException e) {
+            StatusDisplay.logError(e);
+        }
+    }
+
+    private void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new EOFException("Spectator server closed the stream");
+        }
+    }
+
+    private void handOver() {
+        GameSnapshot snapshot = spareSnapshots.poll();
+        // the FX thread still has every spare, so this snapshot is skipped; the next one will be shown instead
+        if (snapshot == null) return;
+        snapshot.copyFrom(decoded);
+        GameSnapshot replaced = latestSnapshot.getAndSet(snapshot);
+        if (replaced != null) spareSnapshots.offer(replaced);
+    }
+
+    private void showLatestSnapshot() {
+        GameSnapshot snapshot = latestSnapshot.getAndSet(null);
+        if (snapshot == null) return;
+        drawEnemies(snapshot);
+        drawProjectiles(snapshot);
+        drawPowerUps(snapshot);
+        drawPlayers(snapshot);
+        statusText.setText(StatusDisplay.LEVEL_TEXT + snapshot.get(GameSnapshot.LEVEL_NUMBER) + "   LIVES "
+                + snapshot.get(GameSnapshot.LIVES) + "   POINTS " + snapshot.get(GameSnapshot.POINTS));
+        spareSnapshots.offer(snapshot);
+    }
+
+    private void drawEnemies(GameSnapshot snapshot) {
+        int rows = snapshot.get(GameSnapshot.FORMATION_ROWS);
+        int columns = snapshot.get(GameSnapshot.FORMATION_COLUMNS);
+        int cells = Math.min(rows * columns, GameSnapshot.DEFAULT_MAX_ENEMIES);
+        int shown = 0;
+        for (int index = 0; index < cells; index++) {
+            int lives = snapshot.getEnemy(index, GameSnapshot.ENEMY_LIVES);
+            if (lives <= 0) continue;
+            double x = GameSnapshot.toPixels(snapshot.get(GameSnapshot.FORMATION_X)
+                    + snapshot.getEnemy(index, GameSnapshot.ENEMY_OFFSET_X)) + EnemyLevel.getSlotX(index % columns, columns);
+            double y = GameSnapshot.toPixels(snapshot.get(GameSnapshot.FORMATION_Y)
+                    + snapshot.getEnemy(index, GameSnapshot.ENEMY_OFFSET_Y)) + EnemyLevel.getSlotY(index / columns, rows);
+            String imgName = Enemy.ENEMY_IMG_PREFIX + Math.min(lives, MAX_ENEMY_IMG_LIVES) + Enemy.ENEMY_IMG_EXTENSION;
+            enemyLayer.show(shown++, imgName, x, y, Enemy.WIDTH, Enemy.HEIGHT);
+        }
+        enemyLayer.hideFrom(shown);
+    }
+
+    private void drawProjectiles(GameSnapshot snapshot) {
+        int count = snapshot.get(GameSnapshot.PROJECTILE_COUNT);
+        for (int index = 0; index < count; index++) {
+            int kind = snapshot.getProjectile(index, GameSnapshot.OBJECT_KIND);
+            String type = GameSnapshot.PROJECTILE_TYPES.get(kind / 2);
+            boolean isEvil = kind % 2 == 1;
+            double x = GameSnapshot.toPixels(snapshot.getProjectile(index, GameSnapshot.OBJECT_X));
+            double y = GameSnapshot.toPixels(snapshot.getProjectile(index, GameSnapshot.OBJECT_Y));
+            if (type.equals(Missile.TYPE)) {
+                projectileLayer.show(index, Missile.BOMB_IMG_NAME, x, y, Missile.WIDTH, Missile.HEIGHT);
+            }
+            else if (type.equals(Fireball.TYPE)) {
+                projectileLayer.show(index, Fireball.FIREBALL_IMG_NAME, x, y, Fireball.WIDTH, Fireball.HEIGHT);
+            }
+            else {
+                projectileLayer.show(index, isEvil ? Laser.ENEMY_LASER_IMG_NAME : Laser.SPACESHIP_LASER_IMG_NAME, x, y,
+                        Projectile.DEFAULT_WIDTH, Projectile.DEFAULT_HEIGHT);
+            }
+        }
+        projectileLayer.hideFrom(count);
+    }
+
+    private void drawPowerUps(GameSnapshot snapshot) {
+        int count = snapshot.get(GameSnapshot.POWER_UP_COUNT);
+        for (int index = 0; index < count; index++) {
+            String imgName = POWER_UP_TYPES[snapshot.getPowerUp(index, GameSnapshot.OBJECT_KIND)].getImgName();
+            powerUpLayer.show(index, imgName, GameSnapshot.toPixels(snapshot.getPowerUp(index, GameSnapshot.OBJECT_X)),
+                    GameSnapshot.toPixels(snapshot.getPowerUp(index, GameSnapshot.OBJECT_Y)), PowerUp.WIDTH, PowerUp.HEIGHT);
+        }
+        powerUpLayer.hideFrom(count);
+    }
+
+    private void drawPlayers(GameSnapshot snapshot) {
+        playerLayer.show(0, Spaceship.SPACESHIP_IMG_NAME, GameSnapshot.toPixels(snapshot.get(GameSnapshot.SPACESHIP_X)),
+                GameSnapshot.toPixels(snapshot.get(GameSnapshot.SPACESHIP_Y)), Spaceship.WIDTH, Spaceship.HEIGHT);
+        if (snapshot.get(GameSnapshot.BOSS_LIVES) <= 0) {
+            playerLayer.hideFrom(1);
+            return;
+        }
+        boolean isVulnerable = snapshot.get(GameSnapshot.BOSS_VULNERABLE) == 1;
+        playerLayer.show(1, isVulnerable ? Boss.BOSS_IMG_NAME : Boss.BOSS_HIDING_IMG_NAME,
+                GameSnapshot.toPixels(snapshot.get(GameSnapshot.BOSS_X)), GameSnapshot.toPixels(snapshot.get(GameSnapshot.BOSS_Y)),
+                isVulnerable ? Boss.DEFAULT_WIDTH : Boss.HIDDEN_WIDTH, isVulnerable ? Boss.DEFAULT_HEIGHT : Boss.HIDDEN_HEIGHT);
+    }
+
+    // a group of sprites drawn with reused image views; views past the number in use are hidden rather than removed
+    private class SpriteLayer {
+        private final List<ImageView> sprites = new ArrayList<>();
+
+        private void show(int index, String imgName, double x, double y, double width, double height) {
+            while (sprites.size() <= index) {
+                ImageView sprite = new ImageView();
+                sprites.add(sprite);
+                root.getChildren().add(sprite);
+            }
+            ImageView sprite = sprites.get(index);
+            Image image = ImageCache.get(imgName);
+            if (sprite.getImage() != image) sprite.setImage(image);
+            sprite.setX(x);
+            sprite.setY(y);
+            sprite.setFitWidth(width);
+            sprite.setFitHeight(height);
+            sprite.setVisible(true);
+        }
+
+        private void hideFrom(int count) {
+            for (int index = count; index < sprites.size(); index++) {
+                sprites.get(index).setVisible(false);
+            }
+        }
+    }
+
+    /**
+     * Start the viewer
+     * @param args the host and port of the spectator server, as --host= and --port=
+     */
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
@@ -0,0 +1,192 @@
+package invader.sprite;
+
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * This class holds every frame of an animated GIF, decoded once and laid side by side in one image, along with how long
+ * each frame is shown for.
+ *
+ * A GIF frame may only cover part of the image and is drawn over what the frames before it left behind, so each frame is
+ * composed in full, following its disposal method, before it is copied into the strip; frame n of the strip starts at
+ * x = n * getFrameWidth(). Frames with no delay, or one too short to be shown, are given DEFAULT_DELAY, as browsers do.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class FrameStrip {
+    public static final String GIF_FORMAT = "gif";
+    public static final byte[] GIF_SIGNATURE = {'G', 'I', 'F', '8'};
+    public static final String IMAGE_METADATA_FORMAT = "javax_imageio_gif_image_1.0";
+    public static final String STREAM_METADATA_FORMAT = "javax_imageio_gif_stream_1.0";
+    public static final double SECONDS_PER_DELAY_UNIT = 0.01;
+    public static final int MIN_DELAY = 2;
+    public static final int DEFAULT_DELAY = 10;
+    public static final String RESTORE_TO_BACKGROUND = "restoreToBackgroundColor";
+    public static final String RESTORE_TO_PREVIOUS = "restoreToPrevious";
+
+    private final WritableImage strip;
+    private final int frameWidth;
+    private final int frameHeight;
+    // when each frame stops being shown, in seconds from the start of the animation
+    private final double[] frameEnds;
+
+    private FrameStrip(WritableImage strip, int frameWidth, int frameHeight, double[] frameEnds) {
+        this.strip = strip;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+        this.frameEnds = frameEnds;
+    }
+
+    /**
+     * Get if a stream holds a GIF, rather than another kind of image given a GIF's name, without consuming any of it
+     * @param in the image's bytes, which must support mark and reset
+     * @return whether the stream starts with a GIF's signature
+     * @throws IOException if the stream could not be read
+     */
+    public static boolean isGif(InputStream in) throws IOException {
+        byte[] signature = new byte[GIF_SIGNATURE.length];
+        in.mark(signature.length);
+        int read = in.readNBytes(signature, 0, signature.length);
+        in.reset();
+        return read == signature.length && Arrays.equals(signature, GIF_SIGNATURE);
+    }
+
+    /**
+     * Decode every frame of a GIF into a strip
+     * @param in the GIF's bytes, which are read to the end but not closed
+     * @return the decoded strip
+     * @throws IOException if the GIF could not be read
+     */
+    public static FrameStrip decode(InputStream in) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName(GIF_FORMAT);
+        if (!readers.hasNext()) throw new IOException("No GIF reader is installed");
+        ImageReader reader = readers.next();
+        // cached in memory rather than in a temporary file, which ImageIO.createImageInputStream may use
+        try (ImageInputStream stream = new MemoryCacheImageInputStream(in)) {
+            reader.setInput(stream, false);
+            int frameCount = reader.getNumImages(true);
+            Node screen = findChild(reader.getStreamMetadata().getAsTree(STREAM_METADATA_FORMAT), "LogicalScreenDescriptor");
+            // some GIFs leave their screen size as 0, in which case the first frame gives the size
+            int width = Math.max(screen == null ? 0 : readInt(screen, "logicalScreenWidth"), reader.getWidth(0));
+            int height = Math.max(screen == null ? 0 : readInt(screen, "logicalScreenHeight"), reader.getHeight(0));
+            BufferedImage canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            List<int[]> frames = new ArrayList<>();
+            double[] frameEnds = new double[frameCount];
+            double elapsed = 0;
+            for (int frame = 0; frame < frameCount; frame++) {
+                IIOMetadata metadata = reader.getImageMetadata(frame);
+                Node root = metadata.getAsTree(IMAGE_METADATA_FORMAT);
+                Node descriptor = findChild(root, "ImageDescriptor");
+                Node control = findChild(root, "GraphicControlExtension");
+                int left = descriptor == null ? 0 : readInt(descriptor, "imageLeftPosition");
+                int top = descriptor == null ? 0 : readInt(descriptor, "imageTopPosition");
+                String disposal = control == null ? "" : control.getAttributes().getNamedItem("disposalMethod").getNodeValue();
+                int delay = control == null ? 0 : readInt(control, "delayTime");
+                BufferedImage image = reader.read(frame);
+                int[] previous = RESTORE_TO_PREVIOUS.equals(disposal) ? canvas.getRGB(0, 0, width, height, null, 0, width) : null;
+                canvas.createGraphics().drawImage(image, left, top, null);
+                frames.add(canvas.getRGB(0, 0, width, height, null, 0, width));
+                if (RESTORE_TO_BACKGROUND.equals(disposal)) {
+                    // the background of a GIF drawn over a scene is transparent
+                    int[] cleared = new int[image.getWidth() * image.getHeight()];
+                    canvas.setRGB(left, top, Math.min(image.getWidth(), width - left), Math.min(image.getHeight(), height - top),
+                            cleared, 0, image.getWidth());
+                }
+                else if (previous != null) canvas.setRGB(0, 0, width, height, previous, 0, width);
+                elapsed += (delay < MIN_DELAY ? DEFAULT_DELAY : delay) * SECONDS_PER_DELAY_UNIT;
+                frameEnds[frame] = elapsed;
+            }
+            WritableImage strip = new WritableImage(width * frameCount, height);
+            for (int frame = 0; frame < frameCount; frame++) {
+                strip.getPixelWriter().setPixels(frame * width, 0, width, height, PixelFormat.getIntArgbInstance(),
+                        frames.get(frame), 0, width);
+            }
+            return new FrameStrip(strip, width, height, frameEnds);
+        }
+        finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * Get which frame is shown at a time
+     * @param seconds time since the animation started, which loops once it has played every frame
+     * @return the index of the frame shown at that time
+     */
+    public int getFrameAt(double seconds) {
+        double duration = frameEnds[frameEnds.length - 1];
+        double time = seconds % duration;
+        if (time < 0) time += duration;
+        for (int frame = 0; frame < frameEnds.length; frame++) {
+            if (time < frameEnds[frame]) return frame;
+        }
+        return frameEnds.length - 1;
+    }
+
+    /**
+     * Get the image every frame is laid out in
+     * @return the strip, getFrameCount() frames wide
+     */
+    public WritableImage getStrip() {
+        return strip;
+    }
+
+    /**
+     * Get how many frames the animation has
+     * @return the number of frames
+     */
+    public int getFrameCount() {
+        return frameEnds.length;
+    }
+
+    /**
+     * Get the width of one frame
+     * @return width of a frame, in pixels
+     */
+    public int getFrameWidth() {
+        return frameWidth;
+    }
+
+    /**
+     * Get the height of one frame
+     * @return height of a frame, in pixels
+     */
+    public int getFrameHeight() {
+        return frameHeight;
+    }
+
+    /**
+     * Get how long the animation takes to play every frame once
+     * @return the length of the animation, in seconds
+     */
+    public double getDuration() {
+        return frameEnds[frameEnds.length - 1];
+    }
+
+    private static Node findChild(Node parent, String name) {
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeName().equals(name)) return child;
+        }
+        return null;
+    }
+
+    private static int readInt(Node node, String attribute) {
+        return Integer.parseInt(node.getAttributes().getNamedItem(attribute).getNodeValue());
+    }
+}
@@ -0,0 +1,66 @@
+package invader.sprite;
+
+import invader.jfr.GameEvents;
+import invader.jfr.ImageLoadEvent;
+import javafx.scene.image.Image;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class loads each image file of the game once and gives every node that shows it the same image.
+ *
+ * Images are loaded the first time they are asked for, on whichever thread asks; the game asks for all of them on a
+ * background thread while the start menu is up (see Game.start), so the first level finds them already loaded. A thread
+ * that asks for an image another thread is loading waits for it rather than loading it a second time. Animated GIFs are
+ * played by a SpriteAnimation, whose image is the one given out.
+ *
+ * All methods are static, since one image is shared by every level and session of the game.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public final class ImageCache {
+    private static final Map<String, Image> IMAGES = new ConcurrentHashMap<>();
+
+    // private constructor so that this class is not accidentally instantiated
+    private ImageCache() {
+        //not called
+    }
+
+    /**
+     * Get an image from the resource folder, loading it the first time it is asked for
+     * @param imgName name of the image file
+     * @return the image every node showing the file shares
+     */
+    public static Image get(String imgName) {
+        return IMAGES.computeIfAbsent(imgName, ImageCache::load);
+    }
+
+    /**
+     * Load images before they are needed
+     * @param imgNames names of the image files
+     */
+    public static void preload(Collection<String> imgNames) {
+        for (String imgName : imgNames) get(imgName);
+    }
+
+    /**
+     * Get if an image has already been loaded
+     * @param imgName name of the image file
+     * @return whether asking for the image would not load it
+     */
+    public static boolean isLoaded(String imgName) {
+        return IMAGES.containsKey(imgName);
+    }
+
+    private static Image load(String imgName) {
+        if (SpriteAnimation.isAnimated(imgName)) return SpriteAnimation.get(imgName).getImage();
+        ImageLoadEvent loadEvent = GameEvents.beginImageLoad(imgName);
+        Image image = new Image(ImageCache.class.getClassLoader().getResource(imgName).toExternalForm());
+        loadEvent.commit();
+        return image;
+    }
+}
@@ -0,0 +1,162 @@
+package invader.sprite;
+
+import invader.StatusDisplay;
+import invader.jfr.GameEvents;
+import invader.jfr.ImageLoadEvent;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class plays an animated GIF, such as the boss or a power-up, for every moving object that shows it at once.
+ *
+ * Each GIF is decoded into a FrameStrip the first time it is asked for, and every object showing it shares one image, into
+ * which the frame for the current time is copied from the strip. The frame is chosen from the game's timer rather than
+ * from the clock on the wall, so the animations stop while the game is paused or in a menu, are in step with each other,
+ * and are only copied when the frame shown changes, rather than JavaFX decoding and animating the GIF once per object.
+ *
+ * A GIF with only one frame is never advanced, and an image that is not a GIF at all, despite its name, is loaded as an
+ * ordinary image. A GIF that can not be decoded is logged and also loaded as an ordinary image, which JavaFX animates.
+ *
+ * @author Pierce Forte
+ * @author Jeff Kim
+ */
+
+public class SpriteAnimation {
+    public static final String ANIMATED_EXTENSION = ".gif";
+    // a frame that is not one of the strip's, so that the first frame is always copied
+    public static final int NO_FRAME = -1;
+
+    private static final Map<String, SpriteAnimation> ANIMATIONS = new ConcurrentHashMap<>();
+    // advanced every step; a copy on write list can be walked by index without locking or allocating
+    private static final List<SpriteAnimation> ADVANCED = new CopyOnWriteArrayList<>();
+
+    private final String imgName;
+    private final FrameStrip frames;
+    private final Image image;
+    private final PixelReader stripReader;
+    private final PixelWriter imageWriter;
+    private int shownFrame = NO_FRAME;
+
+    private SpriteAnimation(String imgName, FrameStrip frames) {
+        this.imgName = imgName;
+        this.frames = frames;
+        WritableImage writableImage = new WritableImage(frames.getFrameWidth(), frames.getFrameHeight());
+        this.image = writableImage;
+        this.stripReader = frames.getStrip().getPixelReader();
+        this.imageWriter = writableImage.getPixelWriter();
+        advance(0);
+    }
+
+    private SpriteAnimation(String imgName, Image image) {
+        this.imgName = imgName;
+        this.frames = null;
+        this.image = image;
+        this.stripReader = null;
+        this.imageWriter = null;
+    }
+
+    /**
+     * Get if an image file is played by a sprite animation rather than loaded as it is
+     * @param imgName name of the image file
+     * @return whether the image is an animated GIF
+     */
+    public static boolean isAnimated(String imgName) {
+        return imgName.endsWith(ANIMATED_EXTENSION);
+    }
+
+    /**
+     * Get the animation of a GIF, decoding it the first time it is asked for
+     * @param imgName name of the GIF in the resource folder
+     * @return the animation every object showing the GIF shares
+     */
+    public static SpriteAnimation get(String imgName) {
+        return ANIMATIONS.computeIfAbsent(imgName, SpriteAnimation::load);
+    }
+
+    /**
+     * Show the frame of every animation for a time of the game
+     * @param gameTimer the game's timer, in seconds
+     */
+    public static void advanceAll(double gameTimer) {
+        for (int animation = 0; animation < ADVANCED.size(); animation++) {
+            ADVANCED.get(animation).advance(gameTimer);
+        }
+    }
+
+    /**
+     * Show the frame of this animation for a time of the game
+     * @param gameTimer the game's timer, in seconds
+     * @return whether a different frame is shown than before
+     */
+    public boolean advance(double gameTimer) {
+        if (frames == null) return false;
+        int frame = frames.getFrameAt(gameTimer);
+        if (frame == shownFrame) return false;
+        imageWriter.setPixels(0, 0, frames.getFrameWidth(), frames.getFrameHeight(), stripReader,
+                frame * frames.getFrameWidth(), 0);
+        shownFrame = frame;
+        return true;
+    }
+
+    /**
+     * Get the image every object showing this animation is drawn with
+     * @return the shared image
+     */
+    public Image getImage() {
+        return image;
+    }
+
+    /**
+     * Get the frames of this animation
+     * @return the decoded frames, or null if the image was loaded as an ordinary image
+     */
+    public FrameStrip getFrames() {
+        return frames;
+    }
+
+    /**
+     * Get which frame is shown
+     * @return the index of the frame in the strip
+     */
+    public int getShownFrame() {
+        return shownFrame;
+    }
+
+    /**
+     * Get the name of the GIF this animation plays
+     * @return name of the image file
+     */
+    public String getImgName() {
+        return imgName;
+    }
+
+    private static SpriteAnimation load(String imgName) {
+        ImageLoadEvent loadEvent = GameEvents.beginImageLoad(imgName);
+        SpriteAnimation animation = null;
+        try (InputStream in = new BufferedInputStream(SpriteAnimation.class.getClassLoader().getResourceAsStream(imgName))) {
+            if (FrameStrip.isGif(in)) {
+                animation = new SpriteAnimation(imgName, FrameStrip.decode(in));
+                if (animation.frames.getFrameCount() > 1) ADVANCED.add(animation);
+            }
+        }
+        catch (IOException e) {
+            StatusDisplay.logError(e);
+        }
+        if (animation == null) {
+            animation = new SpriteAnimation(imgName,
+                    new Image(SpriteAnimation.class.getClassLoader().getResource(imgName).toExternalForm()));
+        }
+        loadEvent.commit();
+        return animation;
+    }
+}
@@ -1,24 +1,81 @@
 package invader;
 
+import com.sun.management.ThreadMXBean;
+import invader.bot.Autopilot;
+import invader.bunker.Bunker;
+import invader.coop.InputChannel;
+import invader.coop.RollbackSession;
 import invader.entity.Boss;
 import invader.entity.Enemy;
 import invader.entity.Spaceship;
+import invader.gym.InvaderEnv;
+import invader.gym.Observation;
+import invader.gym.StepResult;
+import invader.gym.VectorEnv;
+import invader.io.IoService;
+import invader.jfr.GameEvents;
 import invader.level.EnemyLevel;
+import invader.level.Formation;
 import invader.level.Level;
+import invader.level.ParallelTick;
+import invader.level.ScaleBenchmark;
+import invader.metrics.GameMetrics;
+import invader.metrics.MetricsServer;
+import invader.pattern.BulletPattern;
+import invader.pattern.FireballSwarm;
+import invader.pattern.ScalarKernel;
+import invader.pattern.StripKernel;
 import invader.powerup.PowerUp;
+import invader.powerup.PowerUpType;
 import invader.powerup.SpaceshipSpeedPowerUp;
+import invader.projectile.Fireball;
 import invader.projectile.Laser;
 import invader.projectile.Projectile;
+import invader.scene.NodeScope;
+import invader.scene.SceneRegistry;
+import invader.scene.ScopeKind;
+import invader.server.GameSession;
+import invader.snapshot.GameSnapshot;
+import invader.snapshot.SnapshotDecoder;
+import invader.snapshot.SnapshotEncoder;
+import invader.spectator.SpectatorServer;
+import invader.sprite.FrameStrip;
+import invader.sprite.ImageCache;
+import invader.sprite.SpriteAnimation;
 import javafx.application.Platform;
+import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
+import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -105,6 +162,80 @@ public class GameTest extends DukeApplicationTest {
         assertFalse(myPowerUp.isActive());
     }
 
+    /**
+     * Test a speed power up running out does not undo another speed power up that is still active
+     */
+    @Test
+    public void testOverlappingSpeedPowerUpsStack() {
+        press(myScene, KeyCode.F);
+        press(myScene, KeyCode.F);
+        PowerUp longPowerUp = lookup("#cheatPowerUp0").query();
+        PowerUp shortPowerUp = lookup("#cheatPowerUp1").query();
+        longPowerUp.setY(mySpaceship.getY() - 10);
+        shortPowerUp.setY(mySpaceship.getY() - 10);
+        longPowerUp.setTimeActive(10*Game.SECOND_DELAY);
+        shortPowerUp.setTimeActive(Game.SECOND_DELAY);
+        // collect both power ups in the same step
+        step();
+        assertEquals(SpaceshipSpeedPowerUp.INCREASED_SPEED, mySpaceship.getXSpeedOnKeyPress());
+        // the short power up runs out, but the spaceship should stay fast while the long one is active
+        step();
+        assertFalse(shortPowerUp.isActive());
+        assertTrue(longPowerUp.isActive());
+        assertEquals(SpaceshipSpeedPowerUp.INCREASED_SPEED, mySpaceship.getXSpeedOnKeyPress());
+    }
+
+    /**
+     * Test a power up that falls out of the game is reused for the next drop of its type, and that power ups are only
+     * created for enemies that are killed
+     */
+    @Test
+    public void testPowerUpsAreReusedFromTheGamesPool() {
+        List<Enemy> carriers = new ArrayList<>();
+        for (List<Enemy> row : myEnemies) {
+            for (Enemy enemy : row) if (enemy.hasPowerUp()) carriers.add(enemy);
+        }
+        // every type is carried by more than one enemy, so another enemy carries the same type as the first
+        Enemy firstCarrier = carriers.get(0);
+        PowerUpType type = firstCarrier.getPowerUpType();
+        Enemy secondCarrier = carriers.stream().skip(1).filter(enemy -> enemy.getPowerUpType() == type).findFirst().get();
+        for (Enemy carrier : carriers) {
+            String id = "#" + powerUpIdOf(carrier);
+            assertThrows(org.testfx.service.query.EmptyNodeQueryException.class, () -> lookup(id).query());
+        }
+
+        shootEnemyClearOfFormation(firstCarrier, mySpaceshipProjectile);
+        PowerUp dropped = lookup("#" + powerUpIdOf(firstCarrier)).query();
+        assertEquals(type, dropped.getType());
+        // the power up falls out of the top of the game, away from the spaceship, and goes back to the pool
+        dropped.setY(0);
+        step();
+        assertFalse(isNodeInMyScene(dropped));
+        assertEquals(1, myGame.getPowerUpPool().getPooledCount(type));
+
+        // step until the spaceship can shoot again (~1 second)
+        for (int i = 0; i < 1/Game.SECOND_DELAY; i++) {
+            step();
+        }
+        press(myScene, KeyCode.SPACE);
+        shootEnemyClearOfFormation(secondCarrier, lookup("#spaceshipLaserProjectile1").query());
+        PowerUp reused = lookup("#" + powerUpIdOf(secondCarrier)).query();
+        assertSame(dropped, reused);
+        assertEquals(0, myGame.getPowerUpPool().getPooledCount(type));
+        assertEquals(secondCarrier.getX(), reused.getX());
+        assertEquals(secondCarrier.getY(), reused.getY());
+        assertFalse(reused.hasBeenActivated());
+        assertEquals(0, reused.getTimeWhenActivated());
+        assertTrue(isNodeInMyScene(reused));
+        // no power up was made for any carrier that is still alive
+        for (Enemy carrier : carriers) {
+            String id = "#" + powerUpIdOf(carrier);
+            if (carrier != firstCarrier && carrier != secondCarrier) {
+                assertThrows(org.testfx.service.query.EmptyNodeQueryException.class, () -> lookup(id).query());
+            }
+        }
+    }
+
     /**
      * Test destroy first enemy cheat key destroys leftmost enemy in bottom row
      */
@@ -120,6 +251,44 @@ public class GameTest extends DukeApplicationTest {
         assertFalse(isNodeInMyScene(myEnemy27));
     }
 
+    /**
+     * Test destroy first enemy cheat key moves up to the next row once the bottom row is cleared
+     */
+    @Test
+    public void testDestroyFirstEnemyCheatKeyAfterBottomRowCleared() {
+        // clear the bottom row (enemies 27 through 35) one enemy at a time
+        for (int col = 0; col < EnemyLevel.ENEMIES_PER_ROW; col++) {
+            press(myScene, KeyCode.D);
+        }
+        // the leftmost enemy in the row above (enemy18) is now the first enemy
+        Enemy myEnemy18 = myEnemies.get(2).get(0);
+        assertTrue(isNodeInMyScene(myEnemy18));
+        press(myScene, KeyCode.D);
+        assertFalse(isNodeInMyScene(myEnemy18));
+    }
+
+    /**
+     * Test the lowest living enemy of a column moves up as the enemies below it are killed, until the column is empty
+     */
+    @Test
+    public void testLowestAliveInColumnMovesUpAsEnemiesAreKilled() {
+        Formation formation = new Formation(3, 2);
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 2; col++) formation.set(row, col, myEnemies.get(row).get(col));
+        }
+        assertEquals(2, formation.getLowestAliveRowInColumn(1));
+        formation.kill(2, 1);
+        assertEquals(1, formation.getLowestAliveRowInColumn(1));
+        assertSame(myEnemies.get(1).get(1), formation.getLowestAliveInColumn(1));
+        formation.kill(1, 1);
+        assertSame(myEnemies.get(0).get(1), formation.getLowestAliveInColumn(1));
+        formation.kill(0, 1);
+        assertEquals(Formation.NONE, formation.getLowestAliveRowInColumn(1));
+        assertNull(formation.getLowestAliveInColumn(1));
+        // the column next to it is left as it was
+        assertEquals(2, formation.getLowestAliveRowInColumn(0));
+    }
+
     /**
      * Test random power up cheat key creates powerup
      */
@@ -257,6 +426,39 @@ public class GameTest extends DukeApplicationTest {
         assertFalse(isNodeInMyScene(mySpaceshipProjectile));
     }
 
+    /**
+     * Test a laser fast enough to pass completely through enemy31 in a single step still hits it
+     */
+    @Test
+    public void testFastLaserDoesNotTunnelThroughEnemy() {
+        // make the laser cover 300 pixels in one step, ten times the height of an enemy
+        mySpaceshipProjectile.setYSpeed(300 / Game.SECOND_DELAY);
+        // position the laser well below enemy31 so that it is past the enemy after the step
+        mySpaceshipProjectile.setX(myEnemy31.getX());
+        mySpaceshipProjectile.setY(myEnemy31.getY() + 2*Enemy.HEIGHT);
+        step();
+        // the first enemy on the laser's path is hit, and the enemies behind it are not
+        assertFalse(isNodeInMyScene(myEnemy31));
+        assertFalse(isNodeInMyScene(mySpaceshipProjectile));
+        assertTrue(isNodeInMyScene(myEnemies.get(2).get(4)));
+    }
+
+    /**
+     * Test a laser that reaches a bunker is stopped and blasts a crater in it
+     */
+    @Test
+    public void testLaserErodesBunker() {
+        Bunker myBunker = lookup("#bunker0").query();
+        int solidCellsBefore = myBunker.getSolidCells();
+        // position the laser one step below the middle of the bunker's left side, which is solid to the bottom
+        mySpaceshipProjectile.setX(myBunker.getX());
+        mySpaceshipProjectile.setY(myBunker.getY() + Bunker.HEIGHT + Laser.Y_SPEED*Game.SECOND_DELAY/2);
+        step();
+        // assert that the laser has been removed and part of the bunker has been worn away
+        assertFalse(isNodeInMyScene(mySpaceshipProjectile));
+        assertTrue(myBunker.getSolidCells() < solidCellsBefore);
+    }
+
     /**
      * Test spaceship starts in correct initial position with the correct properties
      */
@@ -343,6 +545,159 @@ public class GameTest extends DukeApplicationTest {
         assertEquals(700.0, StatusDisplay.getMenuBackground().getHeight());
     }
 
+    /**
+     * Test the points are drawn from digit images once per step, with only the digits that changed drawn again
+     */
+    @Test
+    public void testPointsAreDrawnFromDigitImagesOncePerStep() {
+        DigitDisplay pointsDisplay = StatusDisplay.getPointsDisplay();
+        int points = StatusDisplay.getPoints();
+        // every hit of a step is added up, and the display is changed once, at the end of the step
+        StatusDisplay.updatePointsDisplay(Enemy.POINTS_PER_HIT);
+        StatusDisplay.updatePointsDisplay(Enemy.POINTS_PER_HIT);
+        assertEquals(points, pointsDisplay.getShownValue());
+        step();
+        int shown = points + 2*Enemy.POINTS_PER_HIT;
+        assertEquals(shown, pointsDisplay.getShownValue());
+        assertSame(pointsDisplay.getGlyph(shown % DigitDisplay.BASE),
+                pointsDisplay.getSlot(StatusDisplay.POINTS_DIGITS - 1).getImage());
+        assertSame(pointsDisplay.getGlyph(0), pointsDisplay.getSlot(0).getImage());
+        // only the slots whose digit changed are drawn again
+        javafxRun(() -> {
+            assertEquals(0, pointsDisplay.show(shown));
+            assertEquals(1, pointsDisplay.show(shown + 1));
+        });
+    }
+
+    /**
+     * Test the menu's static nodes are cached, a sprite that leaves the game is hidden until it comes back, and HUD text is
+     * only changed when its value does
+     */
+    @Test
+    public void testStaticNodesAreCachedAndOffscreenNodesAreCulled() {
+        clearEnemies();
+        step();
+        assertTrue(StatusDisplay.getMenuBackground().isCache());
+        assertTrue(StatusDisplay.getMenuText().isCache());
+
+        Laser laser = new Laser(Game.GAME_WIDTH/2.0, Game.GAME_HEIGHT/2.0, true, 0, 0);
+        laser.updatePositionOnStep(0);
+        assertTrue(laser.isVisible());
+        laser.setY(Game.GAME_HEIGHT + 1);
+        laser.updatePositionOnStep(0);
+        assertFalse(laser.isVisible());
+        laser.setY(Game.GAME_HEIGHT - 1);
+        laser.updatePositionOnStep(0);
+        assertTrue(laser.isVisible());
+
+        Text levelText = new Text();
+        HudText levelDisplay = new HudText(levelText, StatusDisplay.LEVEL_TEXT, Integer::toString);
+        assertTrue(levelDisplay.show(2));
+        assertFalse(levelDisplay.show(2));
+        assertEquals(StatusDisplay.LEVEL_TEXT + 2, levelText.getText());
+    }
+
+    /**
+     * Test a GIF is decoded once for every sprite that shows it, and animated by the game's timer
+     */
+    @Test
+    public void testGifsAreDecodedOnceAndAnimatedByTheGameTimer() {
+        Fireball first = new Fireball(0, 0, true, 0, 0);
+        Fireball second = new Fireball(0, 0, true, 0, 1);
+        SpriteAnimation animation = SpriteAnimation.get(Fireball.FIREBALL_IMG_NAME);
+        assertSame(first.getImage(), second.getImage());
+        assertSame(animation.getImage(), first.getImage());
+        FrameStrip frames = animation.getFrames();
+        assertTrue(frames.getFrameCount() > 1);
+        assertEquals(frames.getFrameWidth() * frames.getFrameCount(), frames.getStrip().getWidth());
+        // the frame shown follows the game's timer, and is only copied again when it changes
+        step();
+        assertEquals(frames.getFrameAt(myGame.getGameTimer()), animation.getShownFrame());
+        javafxRun(() -> {
+            assertFalse(animation.advance(myGame.getGameTimer()));
+            assertTrue(animation.advance(myGame.getGameTimer() + frames.getDuration() / frames.getFrameCount()));
+        });
+        assertEquals(frames.getFrameAt(0), frames.getFrameAt(frames.getDuration()));
+    }
+
+    /**
+     * Test images are preloaded into the cache the sprites share, and the phases of starting are timed until the first
+     * level starts
+     */
+    @Test
+    public void testImagesArePreloadedAndStartupPhasesAreTimed() {
+        StartupTimer startupTimer = new StartupTimer();
+        long imagesBegin = StartupTimer.begin();
+        ImageCache.preload(List.of(Laser.ENEMY_LASER_IMG_NAME, Bunker.IMG_NAME));
+        startupTimer.end(Game.IMAGES_PHASE, imagesBegin);
+        assertTrue(ImageCache.isLoaded(Laser.ENEMY_LASER_IMG_NAME));
+        Laser first = new Laser(0, 0, true, 0, 0);
+        Laser second = new Laser(0, 0, true, 0, 1);
+        assertSame(ImageCache.get(Laser.ENEMY_LASER_IMG_NAME), first.getImage());
+        assertSame(first.getImage(), second.getImage());
+        String line = startupTimer.report(Game.INTERACTIVE_MILESTONE);
+        assertTrue(line.startsWith(StartupTimer.REPORT_PREFIX + Game.INTERACTIVE_MILESTONE));
+        assertTrue(line.contains(Game.IMAGES_PHASE + " "));
+        // the game in this test has started its first level, after which it times nothing more
+        assertTrue(myGame.getStartupTimer().isFinished());
+        assertNull(myGame.getStartupTimer().report(Game.INTERACTIVE_MILESTONE));
+    }
+
+    /**
+     * Test files are read and written off the JavaFX thread in the order they are asked for, with what is read handed back
+     * on the JavaFX thread
+     */
+    @Test
+    public void testFilesAreAccessedInOrderOffTheJavafxThread() throws IOException {
+        IoService io = new IoService();
+        String file = Files.createTempFile("highscores", ".txt").toString();
+        // the read is asked for before the write has finished, and still reads what was written
+        io.writeLines(file, List.of("a" + StatusDisplay.SCORE_DELIMITER + 100));
+        io.append(file, "b" + StatusDisplay.SCORE_DELIMITER + 50 + System.lineSeparator());
+        assertEquals(2, (int) io.readLines(file).thenApplyAsync(lines -> {
+            assertTrue(Platform.isFxApplicationThread());
+            return lines.size();
+        }, IoService.FX_THREAD).join());
+        assertTrue(io.flush());
+
+        String levelFile = Level.LEVEL_FILE_PATH + Game.MIN_LEVEL + Level.LEVEL_FILE_EXTENSION;
+        assertSame(io.readResource(levelFile), io.readResource(levelFile));
+        assertTrue(io.readResource(levelFile).join().contains(","));
+        assertThrows(CompletionException.class, () -> io.readResource("/level_files/no_such_level.txt").join());
+    }
+
+    /**
+     * Test every node is owned by a scope, and changing levels or making the status display again leaves nothing behind
+     */
+    @Test
+    public void testLevelsAndStatusDisplayLeaveNoNodesBehind() {
+        SceneRegistry registry = SceneRegistry.of(myGame.getRoot());
+        assertNull(registry.getScope(ScopeKind.MENU));
+        press(myScene, KeyCode.F);
+        PowerUp myPowerUp = lookup("#cheatPowerUp0").query();
+        assertTrue(myLevel.getLevelNodes().contains(myPowerUp));
+        int nodesOutsideLevel = myGame.getRoot().getChildren().size() - myLevel.getLevelNodes().size();
+        assertTrue(registry.describe().contains("unowned=0"));
+
+        for (int level = Game.MIN_LEVEL; level < Game.MAX_LEVEL; level++) {
+            NodeScope lastLevelNodes = myLevel.getLevelNodes();
+            press(myScene, KeyCode.S);
+            myLevel = myGame.getCurLevel();
+            assertTrue(lastLevelNodes.isDisposed());
+            assertThrows(IllegalStateException.class, () -> lastLevelNodes.add(new Text()));
+            assertFalse(isNodeInMyScene(myPowerUp));
+            assertEquals(nodesOutsideLevel, myGame.getRoot().getChildren().size() - myLevel.getLevelNodes().size());
+        }
+        assertEquals(0, registry.getNodesLeftByLevels());
+
+        // a new game's status display takes the place of the last one's rather than being added on top of it
+        NodeScope lastHud = registry.getScope(ScopeKind.HUD);
+        int sceneSize = myGame.getRoot().getChildren().size();
+        StatusDisplay.createInterfaceAndAddToRoot(myGame.getRoot(), Game.GAME_HEIGHT, Game.SCENE_WIDTH, Game.SCENE_HEIGHT);
+        assertTrue(lastHud.isDisposed());
+        assertEquals(sceneSize, myGame.getRoot().getChildren().size());
+    }
+
     /**
      * Test enemy images change appropriately from level 1 to 2
      */
@@ -447,6 +802,42 @@ public class GameTest extends DukeApplicationTest {
 
     }
 
+    /**
+     * Test a projectile only hits where the sprites themselves touch, when either of them is pixel accurate
+     */
+    @Test
+    public void testPixelAccurateCollisionsIgnoreTransparentPixels() {
+        // a burst fire laser centered on the top left corner of an enemy is over the enemy's rectangle but not its sprite
+        Enemy enemy = new Enemy(100, 100, 0, 0, 1, 0, null);
+        Laser burstLaser = new Laser(0, 0, false, Projectile.LEFT_PROJECTILE_ROTATION, 0);
+        assertTrue(burstLaser.isPixelAccurate());
+        assertFalse(enemy.isPixelAccurate());
+        // masks are built along with the sprites, the laser's once it has been rotated, so checking collisions only reads them
+        assertNotNull(enemy.getCollisionMask());
+        assertTrue(burstLaser.getCollisionMask().getWidth() > burstLaser.getFitWidth());
+        burstLaser.setX(enemy.getX() - burstLaser.getFitWidth()/2);
+        burstLaser.setY(enemy.getY() - burstLaser.getFitHeight()/2);
+        assertNotEquals(CollisionDetection.NO_HIT, burstLaser.boxTimeOfImpact(enemy));
+        assertFalse(burstLaser.hits(enemy));
+        assertFalse(burstLaser.intersects(enemy));
+        // further in, it reaches the enemy's sprite
+        burstLaser.setX(burstLaser.getX() + 8);
+        burstLaser.setY(burstLaser.getY() + 8);
+        assertTrue(burstLaser.hits(enemy));
+
+        // the hiding boss's shell leaves the top corners of its rectangle transparent
+        Boss boss = new Boss(100, 100, 0, 0, 1);
+        Laser laser = new Laser(boss.getX(), boss.getY() - Projectile.DEFAULT_HEIGHT + 2, false,
+                Projectile.DEFAULT_PROJECTILE_ROTATION, 1);
+        assertTrue(boss.isPixelAccurate());
+        assertFalse(laser.isPixelAccurate());
+        assertNotEquals(CollisionDetection.NO_HIT, laser.boxTimeOfImpact(boss));
+        assertFalse(laser.hits(boss));
+        laser.setX(boss.getX() + boss.getFitWidth()/2 - laser.getFitWidth()/2);
+        laser.setY(boss.getY() + boss.getFitHeight()/2);
+        assertTrue(laser.hits(boss));
+    }
+
     /**
      * Test enemy speed on each level
      */
@@ -499,10 +890,452 @@ public class GameTest extends DukeApplicationTest {
         assertEquals(expectedLives, myBoss.getLives());
     }
 
+    /**
+     * Test a headless server session keeps its own lives and points instead of changing the game on screen
+     */
+    @Test
+    public void testHeadlessSessionKeepsItsOwnState() {
+        GameSession session = new GameSession(0);
+        // pause is a menu key, so it does nothing in a session
+        assertFalse(session.submit(KeyCode.P));
+        assertTrue(session.submit(KeyCode.L));
+        session.step();
+        assertTrue(session.getStatus().contains("lives=" + (Spaceship.DEFAULT_LIVES + 1)));
+        assertEquals(1, session.getStepCount());
+        // the game on screen is not affected
+        assertEquals(Spaceship.DEFAULT_LIVES, mySpaceship.getLives());
+        session.close();
+    }
+
+    /**
+     * Test snapshots decode to what was captured, and a snapshot sent against an acknowledged one is much smaller
+     */
+    @Test
+    public void testSnapshotDeltaRoundTrip() {
+        GameSnapshot captured = new GameSnapshot();
+        GameSnapshot decoded = new GameSnapshot();
+        SnapshotEncoder encoder = new SnapshotEncoder(captured);
+        SnapshotDecoder decoder = new SnapshotDecoder(captured);
+        ByteBuffer buffer = ByteBuffer.allocate(encoder.getMaxEncodedSize());
+        // the first snapshot has nothing to be relative to
+        myLevel.captureSnapshot(captured);
+        encoder.encode(captured, decoder.getLastDecodedSequence(), buffer);
+        int fullSize = buffer.position();
+        buffer.flip();
+        assertTrue(decoder.decode(buffer, decoded));
+        assertTrue(decoded.hasSameValues(captured));
+        // the enemies move together, so none of them are away from their slot in the formation
+        assertEquals(0, decoded.getEnemy(31, GameSnapshot.ENEMY_OFFSET_X));
+        step();
+        buffer.clear();
+        myLevel.captureSnapshot(captured);
+        encoder.encode(captured, decoder.getLastDecodedSequence(), buffer);
+        int deltaSize = buffer.position();
+        buffer.flip();
+        assertTrue(decoder.decode(buffer, decoded));
+        assertTrue(decoded.hasSameValues(captured));
+        assertTrue(deltaSize < fullSize / 2);
+    }
+
+    /**
+     * Test a spectator that has just joined is sent a keyframe it can decode without having seen any frame before it
+     */
+    @Test
+    public void testSpectatorReceivesKeyframeOnJoin() throws IOException, InterruptedException {
+        SpectatorServer server = new SpectatorServer(0);
+        try (SocketChannel spectator = SocketChannel.open(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()))) {
+            while (server.getSpectatorCount() == 0) {
+                Thread.sleep(1);
+            }
+            server.publish(myLevel, StatusDisplay.getPoints());
+            ByteBuffer length = ByteBuffer.allocate(SpectatorServer.LENGTH_BYTES);
+            readFully(spectator, length);
+            ByteBuffer frame = ByteBuffer.allocate(length.getInt(0));
+            readFully(spectator, frame);
+            frame.flip();
+            // a spectator that just joined can decode its first frame without having seen anything before it
+            GameSnapshot captured = new GameSnapshot();
+            GameSnapshot decoded = new GameSnapshot();
+            assertTrue(new SnapshotDecoder(captured).decode(frame, decoded));
+            myLevel.captureSnapshot(captured);
+            captured.set(GameSnapshot.POINTS, StatusDisplay.getPoints());
+            assertTrue(decoded.hasSameValues(captured));
+        } finally {
+            server.close();
+        }
+    }
+
     private void step() {
         javafxRun(() -> myGame.step());
     }
 
+    /**
+     * Test both sides of a co-op game end up with the same level, after rolling back many wrong guesses of each other's
+     * input
+     */
+    @Test
+    public void testCoopSidesAgreeAfterRollbacks() {
+        int delay = 3;
+        long seed = 42;
+        int[] now = {0};
+        Queue<int[]> toPlayer0 = new ArrayDeque<>();
+        Queue<int[]> toPlayer1 = new ArrayDeque<>();
+        List<byte[]> packets = new ArrayList<>();
+        RollbackSession player0 = new RollbackSession(Game.MIN_LEVEL, seed, 0,
+                new DelayedChannel(toPlayer1, toPlayer0, packets, now, delay));
+        RollbackSession player1 = new RollbackSession(Game.MIN_LEVEL, seed, 1,
+                new DelayedChannel(toPlayer0, toPlayer1, packets, now, delay));
+        int steps = 400;
+        for (int step = 0; step < steps; step++) {
+            // the players keep changing what they do, so the guesses are often wrong
+            player0.advance(step % 7 == 0 ? RollbackSession.INPUT_FIRE : RollbackSession.INPUT_LEFT);
+            player1.advance(step % 5 == 0 ? RollbackSession.INPUT_RIGHT | RollbackSession.INPUT_FIRE : 0);
+            now[0]++;
+        }
+        // once the inputs stop changing, every guess is right and both sides catch up on the real inputs
+        for (int step = 0; step < 2 * delay + RollbackSession.MAX_ROLLBACK_FRAMES; step++) {
+            player0.advance(RollbackSession.INPUT_LEFT);
+            player1.advance(0);
+            now[0]++;
+        }
+        assertTrue(player0.getRollbacks() > 0);
+        assertTrue(player1.getRollbacks() > 0);
+        assertTrue(player0.getPoints() > 0);
+        assertEquals(player0.getPoints(), player1.getPoints());
+        GameSnapshot side0 = new GameSnapshot();
+        GameSnapshot side1 = new GameSnapshot();
+        player0.getLevel().captureSnapshot(side0);
+        player1.getLevel().captureSnapshot(side1);
+        assertTrue(side0.hasSameValues(side1));
+        assertEquals(player0.getLevel().getSpaceship(1).getX(), player1.getLevel().getSpaceship(1).getX());
+        player0.close();
+        player1.close();
+    }
+
+    /**
+     * Test a vector of environments gives the same observations and rewards whether its environments are stepped on one
+     * thread or several
+     */
+    @Test
+    public void testVectorEnvIsRepeatableAcrossThreadCounts() {
+        int numEnvs = 8;
+        int steps = 600;
+        VectorEnv serial = new VectorEnv(numEnvs, Game.MIN_LEVEL, 1);
+        VectorEnv parallel = new VectorEnv(numEnvs, Game.MIN_LEVEL, 4);
+        assertArrayEquals(serial.reset(11), parallel.reset(11));
+        int[] actions = new int[numEnvs];
+        double totalReward = 0;
+        for (int step = 0; step < steps; step++) {
+            for (int env = 0; env < numEnvs; env++) actions[env] = (step + env) % InvaderEnv.NUM_ACTIONS;
+            assertArrayEquals(serial.step(actions), parallel.step(actions));
+            assertArrayEquals(serial.getRewards(), parallel.getRewards());
+            for (double reward : serial.getRewards()) totalReward += reward;
+        }
+        assertNotEquals(0, totalReward);
+        float[] observation = serial.getObservations();
+        assertEquals(Game.MIN_LEVEL, observation[Observation.LEVEL_NUMBER]);
+        assertTrue(observation[Observation.SPACESHIP_X] > 0 && observation[Observation.SPACESHIP_X] < 1);
+        serial.close();
+        parallel.close();
+    }
+
+    /**
+     * Test the autopilot scores points, and leaves the level complete menu for the next level on its own
+     */
+    @Test
+    public void testAutopilotScoresAndMovesOnFromMenus() {
+        GameSession session = new GameSession(0);
+        session.setAutopilot(new Autopilot(1, 0));
+        for (int step = 0; step < 10 * Game.FRAMES_PER_SECOND; step++) session.step();
+        assertTrue(session.getPoints() > 0);
+        // clear the level with the cheat key; the autopilot should leave the menu for the next level on its own
+        for (int enemy = 0; enemy < Observation.MAX_ENEMIES; enemy++) session.submit(KeyCode.D);
+        session.step();
+        assertTrue(session.getStatus().endsWith(GameSession.LEVEL_COMPLETE));
+        for (int step = 0; step < Autopilot.MENU_WAIT_STEPS; step++) session.step();
+        assertEquals(Game.MIN_LEVEL + 1, session.getCurLevel().getLevelNumber());
+        assertTrue(session.getStatus().endsWith(GameSession.PLAYING));
+        session.close();
+    }
+
+    /**
+     * Test the metrics endpoint serves the tick histogram and the level and scene gauges in the Prometheus text format
+     */
+    @Test
+    public void testMetricsEndpointServesTickAndLevelMetrics() throws IOException {
+        MetricsServer metricsServer = new MetricsServer(0);
+        GameSession session = new GameSession(0);
+        for (int step = 0; step < Game.FRAMES_PER_SECOND; step++) {
+            GameMetrics.startTick();
+            session.step();
+            GameMetrics.endTick(myGame.getRoot(), session.getCurLevel());
+        }
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://" + InetAddress.getLoopbackAddress().getHostAddress()
+                + ":" + metricsServer.getPort() + MetricsServer.PATH).openConnection();
+        assertEquals(MetricsServer.OK, connection.getResponseCode());
+        assertEquals(MetricsServer.CONTENT_TYPE, connection.getContentType());
+        String metrics = new String(connection.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(metrics.contains("# TYPE invader_tick_seconds histogram"));
+        assertTrue(metrics.contains("invader_tick_seconds_count " + GameMetrics.getTicks()));
+        assertTrue(metrics.contains("invader_enemies_alive " + session.getCurLevel().getEnemiesAlive()));
+        assertTrue(metrics.contains("invader_scene_nodes " + myGame.getRoot().getChildren().size()));
+        assertTrue(metrics.contains("jvm_gc_pause_seconds_total "));
+        metricsServer.close();
+        session.close();
+    }
+
+    /**
+     * Test the game's flight recorder settings record an event for every tick, every phase of a level's step, every check
+     * of the formation, and the level loading
+     */
+    @Test
+    public void testFlightRecorderSettingsRecordTickPhaseAndCollisionEvents() throws IOException, ParseException {
+        Recording recording = new Recording(Configuration.create(Paths.get(GameEvents.SETTINGS_FILE)));
+        recording.start();
+        GameSession session = new GameSession(0);
+        for (int step = 0; step < Game.FRAMES_PER_SECOND; step++) {
+            session.step();
+        }
+        recording.stop();
+        Path recordingFile = Files.createTempFile("invader", ".jfr");
+        recording.dump(recordingFile);
+        recording.close();
+        int ticks = 0;
+        int phases = 0;
+        int formationBatches = 0;
+        int levelLoads = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+            String name = event.getEventType().getName();
+            if (name.equals(GameEvents.PREFIX + "Tick")) ticks++;
+            else if (name.equals(GameEvents.PREFIX + "LevelPhase")) phases++;
+            else if (name.equals(GameEvents.PREFIX + "LevelLoad")) levelLoads++;
+            else if (name.equals(GameEvents.PREFIX + "CollisionBatch")
+                    && event.getString("target").equals(GameEvents.FORMATION_TARGET)) formationBatches++;
+        }
+        Files.delete(recordingFile);
+        session.close();
+        assertEquals(Game.FRAMES_PER_SECOND, ticks);
+        assertEquals(Game.FRAMES_PER_SECOND, formationBatches);
+        // an enemy level has seven phases per step
+        assertEquals(7 * Game.FRAMES_PER_SECOND, phases);
+        assertEquals(1, levelLoads);
+    }
+
+    /**
+     * Test that once the game is going, a step allocates nothing
+     */
+    @Test
+    public void testSteadyTickAllocatesNothing() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int window = 10000;
+        long[] allocatedBytes = new long[2];
+        javafxRun(() -> {
+            // hold the enemies' fire, so once the spaceship's first laser (and anything it knocks loose) is gone, nothing is
+            // fired, hit, or dropped
+            for (List<Enemy> row : myEnemies) {
+                for (Enemy enemy : row) enemy.setStartShootingTime(Double.POSITIVE_INFINITY);
+            }
+            for (int step = 0; step < 20 * Game.FRAMES_PER_SECOND; step++) myGame.step();
+            // reading the counter, or the JIT finishing its work, allocates a few hundred bytes however many steps are taken,
+            // so a step that allocates shows up as the difference between two windows of different lengths
+            allocatedBytes[0] = measureStepAllocation(threads, window);
+            allocatedBytes[1] = measureStepAllocation(threads, 2 * window);
+        });
+        // even the smallest object is 16 bytes, so a step that allocates at all adds well over a byte a step to the longer window
+        assertTrue(allocatedBytes[1] - allocatedBytes[0] < window);
+    }
+
+    /**
+     * Test a swarm of thousands of fireballs moves, bounces off the walls, hits the spaceship, and hides the fireballs that
+     * are gone
+     */
+    @Test
+    public void testFireballSwarmMovesBouncesAndHitsThousandsOfFireballs() {
+        FireballSwarm swarm = new FireballSwarm();
+        Spaceship target = new Spaceship(Spaceship.DEFAULT_X_POS, Spaceship.DEFAULT_Y_POS);
+        BulletPattern ring = BulletPattern.parse("RING 6000 1 0 60 0 0");
+        for (int bullet = 0; bullet < ring.getBulletsPerVolley(); bullet++) {
+            swarm.fire(Game.GAME_WIDTH/2.0, Game.GAME_HEIGHT/4.0, ring.getAngle(0, bullet, 0), ring.getSpeed());
+        }
+        // one fireball about to reach the left wall, and one about to reach the spaceship with its hitbox
+        swarm.fire(FireballSwarm.MIN_X + 1, Game.GAME_HEIGHT/4.0, 180, 120);
+        swarm.fire(target.getX() + target.getFitWidth()/2 - Fireball.WIDTH/2,
+                target.getY() - (Fireball.HEIGHT + FireballSwarm.HITBOX_SIZE)/2 - 1, BulletPattern.DOWN, 120);
+        assertEquals(6002, swarm.getCount());
+        assertEquals(Fireball.DAMAGE, swarm.step(Game.SECOND_DELAY, target));
+        assertEquals(6001, swarm.getCount());
+        double xAtWall = swarm.getX(6000);
+        assertTrue(xAtWall < FireballSwarm.MIN_X);
+        swarm.step(Game.SECOND_DELAY, target);
+        assertTrue(swarm.getX(6000) > xAtWall);
+        for (int step = 0; step < 20 * Game.FRAMES_PER_SECOND; step++) swarm.step(Game.SECOND_DELAY, target);
+        assertTrue(swarm.getCount() < 6000);
+        for (int index = 0; index < swarm.getCount(); index++) {
+            assertTrue(swarm.getY(index) > FireballSwarm.MIN_Y && swarm.getY(index) < FireballSwarm.MAX_Y);
+            assertTrue(swarm.getX(index) > FireballSwarm.MIN_X - 120 * Game.SECOND_DELAY);
+            assertTrue(swarm.getX(index) < FireballSwarm.MAX_X + 120 * Game.SECOND_DELAY);
+        }
+        // the fireballs that are gone are hidden, not taken out of the scene; the one that hit never needed drawing
+        assertEquals(6001, swarm.getLayer().getChildren().size());
+    }
+
+    /**
+     * Test the strip kernel moves, checks and removes fireballs exactly as the scalar kernel does
+     */
+    @Test
+    public void testIntegrationKernelsMoveTheSwarmTheSame() {
+        FireballSwarm scalarSwarm = new FireballSwarm(FireballSwarm.DEFAULT_CAPACITY, new ScalarKernel());
+        FireballSwarm stripSwarm = new FireballSwarm(FireballSwarm.DEFAULT_CAPACITY, new StripKernel());
+        Spaceship target = new Spaceship(Spaceship.DEFAULT_X_POS, Spaceship.DEFAULT_Y_POS);
+        BulletPattern spiral = BulletPattern.parse("SPIRAL 5 40 0 150 0 7");
+        for (int volley = 0; volley < spiral.getVolleys(); volley++) {
+            for (int bullet = 0; bullet < spiral.getBulletsPerVolley(); bullet++) {
+                double angle = spiral.getAngle(volley, bullet, 0);
+                scalarSwarm.fire(Game.GAME_WIDTH/2.0, Game.GAME_HEIGHT/3.0, angle, spiral.getSpeed());
+                stripSwarm.fire(Game.GAME_WIDTH/2.0, Game.GAME_HEIGHT/3.0, angle, spiral.getSpeed());
+            }
+        }
+        for (int step = 0; step < 10 * Game.FRAMES_PER_SECOND; step++) {
+            assertEquals(scalarSwarm.step(Game.SECOND_DELAY, target), stripSwarm.step(Game.SECOND_DELAY, target));
+            assertEquals(scalarSwarm.getCount(), stripSwarm.getCount());
+            for (int index = 0; index < scalarSwarm.getCount(); index++) {
+                assertEquals(scalarSwarm.getX(index), stripSwarm.getX(index));
+                assertEquals(scalarSwarm.getY(index), stripSwarm.getY(index));
+            }
+        }
+        assertTrue(scalarSwarm.getHits() > 0);
+    }
+
+    /**
+     * Test every level plays the same when each phase of its step is split across cores as when it is stepped on one thread
+     */
+    @Test
+    public void testParallelTickPlaysTheSameAsSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        // a threshold of one splits every phase, however small the level
+        ParallelTick splitEverything = new ParallelTick(pool, 1);
+        assertFalse(ParallelTick.getDefault().isParallel(EnemyLevel.ENEMIES_PER_ROW));
+        for (int levelNumber = Game.MIN_LEVEL; levelNumber <= Game.MAX_LEVEL; levelNumber++) {
+            InvaderEnv sequential = new InvaderEnv(levelNumber);
+            InvaderEnv parallel = new InvaderEnv(levelNumber);
+            sequential.reset(levelNumber);
+            parallel.reset(levelNumber);
+            parallel.getLevel().setParallelTick(splitEverything);
+            GameSnapshot sequentialSnapshot = new GameSnapshot();
+            GameSnapshot parallelSnapshot = new GameSnapshot();
+            for (int step = 0; step < 20 * Game.FRAMES_PER_SECOND; step++) {
+                int action = (step / 7) % InvaderEnv.NUM_ACTIONS;
+                StepResult sequentialResult = sequential.step(action);
+                assertEquals(sequentialResult.getReward(), parallel.step(action).getReward());
+                sequential.getLevel().captureSnapshot(sequentialSnapshot);
+                parallel.getLevel().captureSnapshot(parallelSnapshot);
+                assertTrue(sequentialSnapshot.hasSameValues(parallelSnapshot));
+                if (sequentialResult.isDone()) break;
+            }
+            assertEquals(sequential.getPoints(), parallel.getPoints());
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Test formations with ragged rows or thousands of enemies are laid out inside the game, and the scale benchmark keeps
+     * to its projectile cap
+     */
+    @Test
+    public void testFormationsOfAnySizeFitTheGame() {
+        Group raggedRoot = new Group();
+        EnemyLevel ragged = new EnemyLevel(raggedRoot, Game.MIN_LEVEL, new InvaderEnv(Game.MIN_LEVEL), 0, 1, "1,2,3\n-1");
+        assertEquals(2, ragged.getFormationRows());
+        assertEquals(3, ragged.getFormationColumns());
+        assertEquals(4, ragged.getEnemiesAlive());
+        // the slots past the end of the short row are left empty
+        assertNotNull(raggedRoot.lookup("#" + Enemy.IDENTIFIER + 3));
+        assertNull(raggedRoot.lookup("#" + Enemy.IDENTIFIER + 4));
+
+        Group bigRoot = new Group();
+        EnemyLevel big = new EnemyLevel(bigRoot, Game.MIN_LEVEL, new InvaderEnv(Game.MIN_LEVEL), 0, 1,
+                ScaleBenchmark.generateLevelLines(5000, new Random(0)));
+        int rows = big.getFormationRows();
+        int columns = big.getFormationColumns();
+        assertEquals(5000, big.getEnemiesAlive());
+        Enemy topLeft = (Enemy) bigRoot.lookup("#" + Enemy.IDENTIFIER + 0);
+        Enemy bottomRight = (Enemy) bigRoot.lookup("#" + Enemy.IDENTIFIER + (columns - 1 + (rows - 2) * columns));
+        assertTrue(topLeft.getX() >= 0 && topLeft.getY() >= 0);
+        assertTrue(bottomRight.getX() + Enemy.WIDTH <= Game.GAME_WIDTH);
+        assertTrue(bottomRight.getY() + Enemy.HEIGHT <= EnemyLevel.BUNKER_Y_POS);
+
+        ScaleBenchmark benchmark = new ScaleBenchmark(5000, 4, 100);
+        benchmark.run(ScaleBenchmark.WARM_UP_STEPS);
+        assertTrue(benchmark.getLevel().getEvilEntityProjectileCount() > 0);
+        // an enemy that burst fires can fire two projectiles past the cap
+        assertTrue(benchmark.getLevel().getEvilEntityProjectileCount() <= 100 + 2);
+    }
+
+    // an in memory channel whose packets arrive a fixed number of steps after they are sent
+    private static class DelayedChannel implements InputChannel {
+        private final Queue<int[]> outgoing;
+        private final Queue<int[]> incoming;
+        private final List<byte[]> packets;
+        private final int[] now;
+        private final int delay;
+
+        private DelayedChannel(Queue<int[]> outgoing, Queue<int[]> incoming, List<byte[]> packets, int[] now, int delay) {
+            this.outgoing = outgoing;
+            this.incoming = incoming;
+            this.packets = packets;
+            this.now = now;
+            this.delay = delay;
+        }
+
+        @Override
+        public void send(ByteBuffer packet) {
+            byte[] copy = new byte[packet.remaining()];
+            packet.get(copy);
+            packets.add(copy);
+            outgoing.add(new int[] {now[0] + delay, packets.size() - 1});
+        }
+
+        @Override
+        public boolean receive(ByteBuffer packet) {
+            if (incoming.isEmpty() || incoming.peek()[0] > now[0]) return false;
+            packet.put(packets.get(incoming.poll()[1]));
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            assertTrue(channel.read(buffer) >= 0);
+        }
+    }
+
+    // move an enemy below the formation and above the bunkers, so a laser shot at it can not hit an enemy in front of it, and kill it
+    private void shootEnemyClearOfFormation(Enemy enemy, Projectile laser) {
+        enemy.setY(EnemyLevel.BUNKER_Y_POS - 3*Enemy.HEIGHT);
+        laser.setX(enemy.getX());
+        laser.setY(enemy.getY() + 9.5*Laser.Y_SPEED*Game.SECOND_DELAY);
+        step();
+        assertFalse(isNodeInMyScene(enemy));
+    }
+
+    // an enemy's power up is given the number in the enemy's id
+    private String powerUpIdOf(Enemy enemy) {
+        return PowerUp.ENEMY_POWERUP_IDENTIFIER + enemy.getId().substring(Enemy.IDENTIFIER.length());
+    }
+
+    // how many bytes the game thread allocated over a number of steps
+    private long measureStepAllocation(ThreadMXBean threads, int steps) {
+        long threadId = Thread.currentThread().getId();
+        long start = threads.getThreadAllocatedBytes(threadId);
+        for (int step = 0; step < steps; step++) myGame.step();
+        return threads.getThreadAllocatedBytes(threadId) - start;
+    }
+
     private boolean isNodeInMyScene(Node node) {
         return myGame.getRoot().getChildren().contains(node);
     }